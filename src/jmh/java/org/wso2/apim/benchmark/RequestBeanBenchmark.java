@@ -0,0 +1,108 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.wso2.apim.bean.APICreationRequestBean;
+import org.wso2.apim.bean.APIRequest;
+import org.wso2.apim.bean.APIResourceBean;
+import org.wso2.apim.bean.SubscriptionRequest;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the Jaggery request beans and their form encoded parameters, which is paid for every API
+ * created, published and subscribed by the provisioning and load flows. Run with -prof gc to see the
+ * allocation per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestBeanBenchmark {
+
+    private static final String API_NAME = "BenchmarkAPI";
+    private static final String API_CONTEXT = "benchmark";
+    private static final String API_VERSION = "1.0.0";
+    private static final String PROVIDER = "admin";
+    private static final int RESOURCE_COUNT = 200;
+
+    private URL endpointUrl;
+    private APIRequest apiRequest;
+    private APICreationRequestBean apiCreationRequestBean;
+    private APICreationRequestBean apiCreationRequestBeanWithResources;
+    private SubscriptionRequest subscriptionRequest;
+
+    @Setup
+    public void setUp() throws MalformedURLException, APIManagerIntegrationTestException {
+        endpointUrl = new URL("http://localhost:9763/jaxrs_basic/services/customers/customerservice/");
+        apiRequest = new APIRequest(API_NAME, API_CONTEXT, endpointUrl);
+        apiCreationRequestBean = new APICreationRequestBean(API_NAME, API_CONTEXT, API_VERSION, PROVIDER,
+                                                            endpointUrl);
+        apiCreationRequestBeanWithResources = new APICreationRequestBean(API_NAME, API_CONTEXT, API_VERSION,
+                                                                         PROVIDER, endpointUrl);
+        List<APIResourceBean> resourceBeanList = new ArrayList<APIResourceBean>(RESOURCE_COUNT);
+        for (int resourceIndex = 0; resourceIndex < RESOURCE_COUNT; resourceIndex++) {
+            resourceBeanList.add(new APIResourceBean("GET", "Application & Application User", "Unlimited",
+                                                     "/customers/" + resourceIndex + "/*"));
+        }
+        apiCreationRequestBeanWithResources.setResourceBeanList(resourceBeanList);
+        subscriptionRequest = new SubscriptionRequest(API_NAME, API_VERSION, PROVIDER, "DefaultApplication",
+                                                      "Unlimited");
+    }
+
+    @Benchmark
+    public APIRequest createAPIRequest() throws APIManagerIntegrationTestException {
+        return new APIRequest(API_NAME, API_CONTEXT, endpointUrl);
+    }
+
+    @Benchmark
+    public String apiRequestParameters() {
+        return apiRequest.generateRequestParameters();
+    }
+
+    @Benchmark
+    public APICreationRequestBean createAPICreationRequestBean() throws APIManagerIntegrationTestException {
+        return new APICreationRequestBean(API_NAME, API_CONTEXT, API_VERSION, PROVIDER, endpointUrl);
+    }
+
+    @Benchmark
+    public String apiCreationRequestParameters() {
+        return apiCreationRequestBean.generateRequestParameters();
+    }
+
+    @Benchmark
+    public String apiCreationRequestParametersWithResources() {
+        return apiCreationRequestBeanWithResources.generateRequestParameters();
+    }
+
+    @Benchmark
+    public String subscriptionRequestParameters() {
+        return subscriptionRequest.generateRequestParameters();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.json.JsonRecord;
+import org.wso2.apim.json.JsonRecordPath;
+import org.wso2.apim.json.JsonStreamExtractor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing the store API listings into an org.json tree compared with the {@link JsonStreamExtractor},
+ * for listings of different sizes. The listing has the shape of the store list.jag?action=getAllPublishedAPIs response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoreListingParsingBenchmark {
+
+    private static final JsonRecordPath APIS_PATH = JsonRecordPath.of("apis").fields("name", "version");
+
+    @Param({"10", "100", "1000"})
+    private int apiCount;
+
+    private String listing;
+    private String lastApiName;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("{\"error\" : false, \"apis\" : [");
+        for (int apiIndex = 0; apiIndex < apiCount; apiIndex++) {
+            if (apiIndex > 0) {
+                builder.append(", ");
+            }
+            builder.append("{\"name\" : \"BenchmarkAPI").append(apiIndex)
+                   .append("\", \"provider\" : \"admin\", \"version\" : \"1.0.0\", \"context\" : \"/benchmark")
+                   .append(apiIndex).append("/1.0.0\", \"status\" : \"PUBLISHED\", \"thumbnailurl\" : null, ")
+                   .append("\"visibility\" : \"public\", \"visibleRoles\" : null, \"description\" : ")
+                   .append("\"API created by the benchmark\", \"apiOwner\" : \"admin\", ")
+                   .append("\"isAdvertiseOnly\" : false, \"rates\" : 0, \"tier\" : \"Unlimited\"}");
+        }
+        listing = builder.append("]}").toString();
+        lastApiName = "BenchmarkAPI" + (apiCount - 1);
+    }
+
+    @Benchmark
+    public int countAPIs() throws JSONException {
+        return new JSONObject(listing).getJSONArray("apis").length();
+    }
+
+    @Benchmark
+    public boolean findAPI() throws JSONException {
+        JSONArray apis = new JSONObject(listing).getJSONArray("apis");
+        for (int i = 0; i < apis.length(); i++) {
+            JSONObject api = apis.getJSONObject(i);
+            if (lastApiName.equals(api.getString("name")) && "1.0.0".equals(api.getString("version"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public int countAPIsStreaming() throws APIManagerIntegrationTestException {
+        return JsonStreamExtractor.count(listing, APIS_PATH).getRecordCount();
+    }
+
+    @Benchmark
+    public boolean findAPIStreaming() throws APIManagerIntegrationTestException {
+        for (JsonRecord api : JsonStreamExtractor.extract(listing, APIS_PATH).getRecords()) {
+            if (lastApiName.equals(api.getString("name")) && "1.0.0".equals(api.getString("version"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
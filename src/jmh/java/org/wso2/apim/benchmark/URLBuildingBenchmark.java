@@ -0,0 +1,72 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.wso2.apim.bean.APIMURLBean;
+import org.wso2.carbon.automation.engine.context.beans.ContextUrls;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the node URLs and the API invocation URLs, ex: the invocation URL is built for every
+ * gateway call of the tests. Compares building it from the context URLs on every call with the prefix cached
+ * in the {@link APIMURLBean}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class URLBuildingBenchmark {
+
+    private static final String API_CONTEXT = "benchmark";
+    private static final String API_VERSION = "1.0.0";
+
+    private ContextUrls contextUrls;
+    private APIMURLBean urlBean;
+
+    @Setup
+    public void setUp() {
+        contextUrls = new ContextUrls();
+        contextUrls.setWebAppURL("http://am.wso2.com:9763/t/wso2.com");
+        contextUrls.setBackEndUrl("https://am.wso2.com:9443/services/t/wso2.com/");
+        contextUrls.setServiceUrl("http://am.wso2.com:8280/services/t/wso2.com");
+        contextUrls.setSecureServiceUrl("https://am.wso2.com:8243/services/t/wso2.com");
+        urlBean = new APIMURLBean(contextUrls);
+    }
+
+    @Benchmark
+    public APIMURLBean createURLBean() {
+        return new APIMURLBean(contextUrls);
+    }
+
+    @Benchmark
+    public String invocationURLFromContextUrls() {
+        return contextUrls.getServiceUrl().replace("/services", "") + "/" + API_CONTEXT + "/" + API_VERSION;
+    }
+
+    @Benchmark
+    public String invocationURLFromURLBean() {
+        return urlBean.getAPIInvocationURLHttp() + API_CONTEXT + "/" + API_VERSION;
+    }
+}
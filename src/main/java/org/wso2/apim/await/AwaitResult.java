@@ -0,0 +1,54 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.await;
+
+/**
+ * State which met the awaited condition, with the time it took to converge
+ *
+ * @param <T> - type of the observed state
+ */
+public class AwaitResult<T> {
+
+    private final T value;
+    private final long elapsedMillis;
+    private final int attempts;
+
+    /**
+     * @param value         - state which met the condition
+     * @param elapsedMillis - time from the start of awaiting until the condition was met
+     * @param attempts      - number of probes
+     */
+    public AwaitResult(T value, long elapsedMillis, int attempts) {
+        this.value = value;
+        this.elapsedMillis = elapsedMillis;
+        this.attempts = attempts;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.await;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Waits until the deployment converges to an expected state instead of sleeping for a fixed time. The state
+ * is probed with an exponentially growing, jittered delay between the attempts until the condition holds or
+ * the deadline passes. The time it took to converge is logged and recorded in {@link ConvergenceStatistics}.
+ * <p/>
+ * apim.await.timeout=120000
+ * apim.await.initialDelay=500
+ * apim.await.maxDelay=5000
+ */
+public class Awaiter {
+
+    private static final Log log = LogFactory.getLog(Awaiter.class);
+    private static final double JITTER = 0.2;
+
+    private long timeoutMillis;
+    private long initialDelayMillis = Long.getLong("apim.await.initialDelay", 500L);
+    private long maxDelayMillis = Long.getLong("apim.await.maxDelay", 5000L);
+    private double multiplier = 2;
+
+    public Awaiter() {
+        this(Long.getLong("apim.await.timeout", 120000L));
+    }
+
+    /**
+     * @param timeoutMillis - maximum time to wait for a condition
+     */
+    public Awaiter(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setInitialDelayMillis(long initialDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Probe the state until the condition holds
+     *
+     * @param condition - name of the condition, used for the logs and the convergence statistics
+     * @param probe     - observes the current state
+     * @param predicate - condition over the observed state
+     * @param <T>       - type of the observed state
+     * @return - state which met the condition
+     * @throws APIManagerIntegrationTestException - if the condition does not hold before the deadline or the
+     *                                            thread is interrupted
+     */
+    public <T> AwaitResult<T> until(String condition, Probe<T> probe, Predicate<? super T> predicate)
+            throws APIManagerIntegrationTestException {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + timeoutMillis;
+        long delay = initialDelayMillis;
+        int attempts = 0;
+        T lastValue = null;
+        Exception lastError = null;
+        while (true) {
+            attempts++;
+            try {
+                lastValue = probe.probe();
+                lastError = null;
+                if (predicate.test(lastValue)) {
+                    long elapsedMillis = System.currentTimeMillis() - startTime;
+                    ConvergenceStatistics.getInstance().record(condition, elapsedMillis, true);
+                    log.info("Awaited '" + condition + "' for " + elapsedMillis + " ms in " + attempts + " attempts");
+                    return new AwaitResult<T>(lastValue, elapsedMillis, attempts);
+                }
+            } catch (Exception e) {
+                lastError = e;
+                log.debug("Probe of '" + condition + "' failed in attempt " + attempts, e);
+            }
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(jitter(delay), remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIManagerIntegrationTestException("Interrupted while awaiting '" + condition + "'", e);
+            }
+            delay = Math.min((long) (delay * multiplier), maxDelayMillis);
+        }
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+        ConvergenceStatistics.getInstance().record(condition, elapsedMillis, false);
+        String message = "'" + condition + "' did not hold within " + timeoutMillis + " ms after " + attempts +
+                         " attempts";
+        if (lastError != null) {
+            throw new APIManagerIntegrationTestException(message + ", last probe failed", lastError);
+        }
+        throw new APIManagerIntegrationTestException(message + ", last observed state: " + lastValue);
+    }
+
+    private static long jitter(long delay) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return Math.max(1, (long) (delay * factor));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.await;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Convergence times of the awaited conditions of the test run, grouped by the condition name. Gives the
+ * propagation latency of the deployment, ex: how long a published API takes to appear in the store.
+ */
+public class ConvergenceStatistics {
+
+    private static final ConvergenceStatistics instance = new ConvergenceStatistics();
+
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+    public static ConvergenceStatistics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record the convergence time of a condition
+     *
+     * @param condition     - condition name
+     * @param elapsedMillis - time until the condition was met
+     * @param converged     - false if the condition was not met before the deadline
+     */
+    public void record(String condition, long elapsedMillis, boolean converged) {
+        Statistics conditionStatistics = statistics.get(condition);
+        if (conditionStatistics == null) {
+            Statistics newStatistics = new Statistics();
+            conditionStatistics = statistics.putIfAbsent(condition, newStatistics);
+            if (conditionStatistics == null) {
+                conditionStatistics = newStatistics;
+            }
+        }
+        conditionStatistics.record(elapsedMillis, converged);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Convergence times");
+        for (Map.Entry<String, Statistics> entry : new TreeMap<String, Statistics>(statistics).entrySet()) {
+            summary.append("\n  ").append(entry.getKey()).append(" : ").append(entry.getValue());
+        }
+        return summary.toString();
+    }
+
+    private static class Statistics {
+
+        private int count;
+        private int timeouts;
+        private long totalMillis;
+        private long minMillis = Long.MAX_VALUE;
+        private long maxMillis;
+
+        synchronized void record(long elapsedMillis, boolean converged) {
+            if (!converged) {
+                timeouts++;
+                return;
+            }
+            count++;
+            totalMillis += elapsedMillis;
+            minMillis = Math.min(minMillis, elapsedMillis);
+            maxMillis = Math.max(maxMillis, elapsedMillis);
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (count == 0) {
+                return "timeouts=" + timeouts;
+            }
+            return "count=" + count + ", timeouts=" + timeouts + ", min=" + minMillis + " ms, mean=" +
+                   totalMillis / count + " ms, max=" + maxMillis + " ms";
+        }
+    }
+}
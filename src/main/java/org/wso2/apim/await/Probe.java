@@ -0,0 +1,36 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.await;
+
+/**
+ * Observes the current state of the system while awaiting a condition, ex: lists the APIs of the store
+ *
+ * @param <T> - type of the observed state
+ */
+public interface Probe<T> {
+
+    /**
+     * Observe the current state. Exceptions are treated as the condition not being met yet.
+     *
+     * @return - current state
+     * @throws Exception - if the state cannot be observed
+     */
+    T probe() throws Exception;
+
+}
@@ -0,0 +1,172 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.backend;
+
+import java.util.Locale;
+
+/**
+ * Configuration of the {@link EmbeddedBackend}. Values are read from system properties, so they can be given
+ * with -D options to the surefire JVM.
+ * <p/>
+ * apim.backend.embedded=false
+ * apim.backend.host=address of the local host
+ * apim.backend.port=0
+ * apim.backend.workers=16
+ * apim.backend.responseSize=1024
+ * apim.backend.latency=0
+ * apim.backend.latencyDistribution=constant|uniform|exponential
+ * apim.backend.errorRate=0
+ * apim.backend.keepAlive=true
+ */
+public class BackendConfiguration {
+
+    public static final String EMBEDDED_PROPERTY = "apim.backend.embedded";
+    public static final String HOST_PROPERTY = "apim.backend.host";
+    public static final String PORT_PROPERTY = "apim.backend.port";
+    public static final String WORKERS_PROPERTY = "apim.backend.workers";
+    public static final String RESPONSE_SIZE_PROPERTY = "apim.backend.responseSize";
+    public static final String LATENCY_PROPERTY = "apim.backend.latency";
+    public static final String LATENCY_DISTRIBUTION_PROPERTY = "apim.backend.latencyDistribution";
+    public static final String ERROR_RATE_PROPERTY = "apim.backend.errorRate";
+    public static final String KEEP_ALIVE_PROPERTY = "apim.backend.keepAlive";
+
+    private String host;
+    private int port = 0;
+    private int workers = 16;
+    private int responseSize = 1024;
+    private double latencyMillis = 0;
+    private LatencyDistribution latencyDistribution = LatencyDistribution.CONSTANT;
+    private double errorRate = 0;
+    private boolean keepAlive = true;
+
+    /**
+     * Build the configuration from the system properties, falling back to the defaults
+     *
+     * @return - backend configuration
+     */
+    public static BackendConfiguration fromSystemProperties() {
+        BackendConfiguration configuration = new BackendConfiguration();
+        configuration.setHost(System.getProperty(HOST_PROPERTY));
+        configuration.setPort(Integer.getInteger(PORT_PROPERTY, configuration.getPort()));
+        configuration.setWorkers(Integer.getInteger(WORKERS_PROPERTY, configuration.getWorkers()));
+        configuration.setResponseSize(Integer.getInteger(RESPONSE_SIZE_PROPERTY, configuration.getResponseSize()));
+        configuration.setLatencyMillis(Double.parseDouble(
+                System.getProperty(LATENCY_PROPERTY, String.valueOf(configuration.getLatencyMillis()))));
+        String latencyDistribution =
+                System.getProperty(LATENCY_DISTRIBUTION_PROPERTY, configuration.getLatencyDistribution().name());
+        configuration.setLatencyDistribution(
+                LatencyDistribution.valueOf(latencyDistribution.toUpperCase(Locale.ENGLISH)));
+        configuration.setErrorRate(Double.parseDouble(
+                System.getProperty(ERROR_RATE_PROPERTY, String.valueOf(configuration.getErrorRate()))));
+        configuration.setKeepAlive(Boolean.parseBoolean(
+                System.getProperty(KEEP_ALIVE_PROPERTY, String.valueOf(configuration.isKeepAlive()))));
+        return configuration;
+    }
+
+    /**
+     * Check whether the tests should use the embedded backend instead of the backend server of the deployment
+     *
+     * @return - true if -Dapim.backend.embedded=true
+     */
+    public static boolean isEmbeddedBackendEnabled() {
+        return Boolean.getBoolean(EMBEDDED_PROPERTY);
+    }
+
+    /**
+     * @return - host name put in the URLs of the backend, null to use the address of the local host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @param port - port to listen on, 0 for any free port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getResponseSize() {
+        return responseSize;
+    }
+
+    /**
+     * @param responseSize - size in bytes of the payload resource response if the request does not give a size
+     */
+    public void setResponseSize(int responseSize) {
+        this.responseSize = responseSize;
+    }
+
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * @param latencyMillis - mean latency added to every response
+     */
+    public void setLatencyMillis(double latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public LatencyDistribution getLatencyDistribution() {
+        return latencyDistribution;
+    }
+
+    public void setLatencyDistribution(LatencyDistribution latencyDistribution) {
+        this.latencyDistribution = latencyDistribution;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @param errorRate - fraction of the requests answered with 500, between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @param keepAlive - false to close the connection after every response
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local backend which stands in for the backend server of the deployment, so the latency and capacity of the
+ * backend node do not pollute the gateway measurements. It runs on the selector based HTTP server of the JDK
+ * and serves the resources of the jaxrs_basic web app and the dummy APIs of synapseconfigs/rest:
+ * <ul>
+ * <li>/jaxrs_basic/services/customers/customerservice/ - customers/{id}, orders/{id} and
+ * orders/{id}/products/{id} with the sample data of jaxrs_basic</li>
+ * <li>/response, /response200 and /httpPatchSupportContext - the "Received Request" response of the dummy
+ * APIs, /response?response=code answers with the given status code and a Location header</li>
+ * <li>/payload - a response of ?size= bytes, or the configured response size, for GET and the request body
+ * for POST and PUT</li>
+ * </ul>
+ * The configured latency is added without holding a worker thread, the response is sent by a timer when the
+ * delay expires. The configured fraction of the requests is answered with 500.
+ */
+public class EmbeddedBackend {
+
+    private static final Log log = LogFactory.getLog(EmbeddedBackend.class);
+    public static final String JAXRS_BASIC_CONTEXT = "/jaxrs_basic/services/customers/customerservice/";
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String XML = "application/xml";
+    private static final String RECEIVED_REQUEST = "<response><value>Received Request</value></response>";
+    private static final Pattern CUSTOMER = Pattern.compile("customers/(\\d+)");
+    private static final Pattern ORDER = Pattern.compile("orders/(\\d+)");
+    private static final Pattern PRODUCT = Pattern.compile("orders/(\\d+)/products/(\\d+)");
+    private static final Pattern SIZE = Pattern.compile("(?:^|&)size=(\\d+)");
+    private static final Pattern RESPONSE_CODE = Pattern.compile("(?:^|&)response=(\\d{3})");
+    private static EmbeddedBackend sharedInstance;
+
+    private final BackendConfiguration configuration;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private HttpServer server;
+    private ExecutorService workers;
+    private ScheduledExecutorService timer;
+    private String host;
+    private byte[] payload;
+
+    /**
+     * @param configuration - backend configuration
+     */
+    public EmbeddedBackend(BackendConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the backend shared in this JVM, started on the first call with the configuration of the system
+     * properties
+     *
+     * @return - started backend
+     * @throws APIManagerIntegrationTestException - if the backend cannot be started
+     */
+    public static synchronized EmbeddedBackend getInstance() throws APIManagerIntegrationTestException {
+        if (sharedInstance == null) {
+            EmbeddedBackend backend = new EmbeddedBackend(BackendConfiguration.fromSystemProperties());
+            backend.start();
+            sharedInstance = backend;
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Start listening
+     *
+     * @throws APIManagerIntegrationTestException - if the port cannot be bound
+     */
+    public synchronized void start() throws APIManagerIntegrationTestException {
+        if (server != null) {
+            return;
+        }
+        payload = new byte[configuration.getResponseSize()];
+        Arrays.fill(payload, (byte) 'x');
+        host = configuration.getHost() != null ? configuration.getHost() : getLocalHostAddress();
+        //the JDK server writes the headers and the body separately, without TCP_NODELAY every response of a
+        //reused connection waits for the delayed ACK of the client. Read once when the first server is created
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(configuration.getPort()), 1024);
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException(
+                    "Unable to start the embedded backend on port " + configuration.getPort(), e);
+        }
+        workers = Executors.newFixedThreadPool(configuration.getWorkers(), new NamedThreadFactory("apim-backend"));
+        timer = Executors.newScheduledThreadPool(2, new NamedThreadFactory("apim-backend-timer"));
+        server.setExecutor(workers);
+        server.createContext(JAXRS_BASIC_CONTEXT, exchange -> handle(exchange, this::customerService));
+        server.createContext("/response", exchange -> handle(exchange, EmbeddedBackend::dummyResponse));
+        server.createContext("/httpPatchSupportContext", exchange -> handle(exchange, EmbeddedBackend::patchResponse));
+        server.createContext("/payload", exchange -> handle(exchange, this::payloadResponse));
+        server.start();
+        log.info("Embedded backend started at " + getBaseURL());
+    }
+
+    /**
+     * Stop listening and close the open connections
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        timer.shutdownNow();
+        workers.shutdownNow();
+        server = null;
+        log.info("Embedded backend stopped after " + requestCount.sum() + " requests");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return - URL of the backend ending with a slash
+     */
+    public String getBaseURL() {
+        return "http://" + host + ":" + getPort() + "/";
+    }
+
+    /**
+     * Get the URL of a service, in the same way as the URLs of the backend server of the deployment
+     *
+     * @param serviceName - path of the service, e.g. jaxrs_basic/services/customers/customerservice
+     * @return - URL of the service
+     */
+    public String getURL(String serviceName) {
+        return getBaseURL() + (serviceName.startsWith("/") ? serviceName.substring(1) : serviceName);
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * @return - number of requests answered with an injected error
+     */
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public BackendConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    private void handle(HttpExchange exchange, Resource resource) throws IOException {
+        requestCount.increment();
+        String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+        String query = exchange.getRequestURI().getRawQuery();
+        Response response;
+        byte[] body = readBody(exchange.getRequestBody());
+        double errorRate = configuration.getErrorRate();
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errorCount.increment();
+            response = new Response(500, XML, "<error>Injected by the embedded backend</error>");
+        } else {
+            response = resource.handle(exchange.getRequestMethod(), path.startsWith("/") ? path.substring(1) : path,
+                                       query != null ? query : "", body);
+        }
+        long delayMicros = configuration.getLatencyDistribution()
+                                        .nextDelayMicros(Math.round(configuration.getLatencyMillis() * 1000));
+        if (delayMicros <= 0) {
+            send(exchange, response);
+        } else {
+            timer.schedule(() -> send(exchange, response), delayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void send(HttpExchange exchange, Response response) {
+        try {
+            if (response.contentType != null) {
+                exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            }
+            if (response.location != null) {
+                exchange.getResponseHeaders().set("Location", response.location);
+            }
+            if (!configuration.isKeepAlive()) {
+                exchange.getResponseHeaders().set("Connection", "close");
+            }
+            boolean hasBody = response.body.length > 0 && !"HEAD".equals(exchange.getRequestMethod());
+            exchange.sendResponseHeaders(response.status, hasBody ? response.body.length : -1);
+            if (hasBody) {
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(response.body);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to send the response of " + exchange.getRequestURI(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response customerService(String method, String path, String query, byte[] body) {
+        Matcher matcher;
+        if ("GET".equals(method)) {
+            if ((matcher = CUSTOMER.matcher(path)).matches()) {
+                return "123".equals(matcher.group(1)) ?
+                       new Response(200, XML, "<Customer><id>123</id><name>John</name></Customer>") :
+                       new Response(204, null, "");
+            }
+            if ((matcher = PRODUCT.matcher(path)).matches()) {
+                return "223".equals(matcher.group(1)) && "323".equals(matcher.group(2)) ?
+                       new Response(200, XML, "<Product><description>product 323</description><id>323</id></Product>") :
+                       new Response(204, null, "");
+            }
+            if ((matcher = ORDER.matcher(path)).matches()) {
+                return "223".equals(matcher.group(1)) ?
+                       new Response(200, XML, "<Order><description>order 223</description><id>223</id></Order>") :
+                       new Response(204, null, "");
+            }
+        } else if ("customers".equals(path) && "POST".equals(method)) {
+            return new Response(200, XML, body);
+        } else if ("customers".equals(path) && "PUT".equals(method)) {
+            return new Response(200, null, "");
+        } else if ("DELETE".equals(method) && CUSTOMER.matcher(path).matches()) {
+            return new Response(200, null, "");
+        }
+        return new Response(404, null, "");
+    }
+
+    private static Response dummyResponse(String method, String path, String query, byte[] body) {
+        Matcher matcher = RESPONSE_CODE.matcher(query);
+        if (matcher.find()) {
+            Response response = new Response(Integer.parseInt(matcher.group(1)), XML, RECEIVED_REQUEST);
+            response.location = "http://google.lk/abc/domain";
+            return response;
+        }
+        return new Response(200, XML, RECEIVED_REQUEST);
+    }
+
+    private static Response patchResponse(String method, String path, String query, byte[] body) {
+        return "PATCH".equals(method) ? new Response(200, XML, RECEIVED_REQUEST) : new Response(405, null, "");
+    }
+
+    private Response payloadResponse(String method, String path, String query, byte[] body) {
+        if ("POST".equals(method) || "PUT".equals(method)) {
+            return new Response(200, "application/octet-stream", body);
+        }
+        Matcher matcher = SIZE.matcher(query);
+        if (!matcher.find()) {
+            return new Response(200, "text/plain", payload);
+        }
+        byte[] sizedPayload = new byte[Integer.parseInt(matcher.group(1))];
+        Arrays.fill(sizedPayload, (byte) 'x');
+        return new Response(200, "text/plain", sizedPayload);
+    }
+
+    /**
+     * Read the whole request body, so the connection can be reused
+     */
+    private static byte[] readBody(InputStream inputStream) throws IOException {
+        try (InputStream requestBody = inputStream) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = requestBody.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            return body.toByteArray();
+        }
+    }
+
+    private static String getLocalHostAddress() {
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (UnknownHostException e) {
+            log.warn("Unable to resolve the address of the local host, using localhost", e);
+            return "localhost";
+        }
+    }
+
+    /**
+     * Resource of the backend
+     */
+    private interface Resource {
+        Response handle(String method, String path, String query, byte[] body);
+    }
+
+    /**
+     * Response sent by the backend
+     */
+    private static class Response {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private String location;
+
+        private Response(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        private Response(int status, String contentType, String body) {
+            this(status, contentType, body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
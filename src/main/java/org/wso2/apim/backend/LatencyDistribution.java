@@ -0,0 +1,65 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.backend;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the latency added by the {@link EmbeddedBackend} before it sends a response
+ */
+public enum LatencyDistribution {
+
+    /**
+     * Always the mean latency
+     */
+    CONSTANT {
+        @Override
+        public long nextDelayMicros(long meanMicros) {
+            return meanMicros;
+        }
+    },
+
+    /**
+     * Uniformly distributed between 0 and twice the mean latency
+     */
+    UNIFORM {
+        @Override
+        public long nextDelayMicros(long meanMicros) {
+            return meanMicros > 0 ? ThreadLocalRandom.current().nextLong(2 * meanMicros + 1) : 0;
+        }
+    },
+
+    /**
+     * Exponentially distributed with the mean latency, i.e. mostly fast responses with a long tail
+     */
+    EXPONENTIAL {
+        @Override
+        public long nextDelayMicros(long meanMicros) {
+            return meanMicros > 0 ? (long) (-meanMicros * Math.log(1 - ThreadLocalRandom.current().nextDouble())) : 0;
+        }
+    };
+
+    /**
+     * Draw the latency of the next response
+     *
+     * @param meanMicros - mean latency in microseconds
+     * @return - latency in microseconds
+     */
+    public abstract long nextDelayMicros(long meanMicros);
+}
@@ -22,14 +22,32 @@ import org.apache.axiom.om.OMElement;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.testng.Assert;
+import org.wso2.apim.await.Awaiter;
+import org.wso2.apim.backend.BackendConfiguration;
+import org.wso2.apim.backend.EmbeddedBackend;
 import org.wso2.apim.bean.APIMURLBean;
+import org.wso2.apim.bean.ApplicationKeyBean;
 import org.wso2.apim.clients.APIPublisherRestClient;
 import org.wso2.apim.clients.APIStoreRestClient;
 import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.gateway.GatewayEndpointSelector;
+import org.wso2.apim.gateway.GatewayNode;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.json.JsonListing;
+import org.wso2.apim.json.JsonRecord;
+import org.wso2.apim.json.JsonRecordPath;
+import org.wso2.apim.json.JsonStreamExtractor;
+import org.wso2.apim.provisioning.ArtifactCleaner;
+import org.wso2.apim.provisioning.ArtifactNamespace;
+import org.wso2.apim.provisioning.CleanupReport;
+import org.wso2.apim.session.Session;
+import org.wso2.apim.session.SessionKey;
+import org.wso2.apim.session.SessionRegistry;
+import org.wso2.apim.token.AccessTokenManager;
 import org.wso2.carbon.automation.distributed.utills.ScriptExecutorUtil;
 import org.wso2.carbon.automation.engine.context.AutomationContext;
 import org.wso2.carbon.automation.engine.context.TestUserMode;
@@ -39,7 +57,11 @@ import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import org.wso2.carbon.integration.common.utils.LoginLogoutClient;
 import java.io.File;
 import java.io.IOException;
-import java.util.NoSuchElementException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import javax.xml.xpath.XPathExpressionException;
 
@@ -51,12 +73,17 @@ import javax.xml.xpath.XPathExpressionException;
 public class APIMIntegrationBaseTest {
 
     private static final Log log = LogFactory.getLog(APIMIntegrationBaseTest.class);
+    private static final JsonRecordPath STORE_APIS_PATH = JsonRecordPath.of("apis").fields("name", "version");
     protected AutomationContext defaultContext, storeContext, publisherContext, keyManagerContext, gatewayContextMgt,
             gatewayContextWrk, backEndServer;
     protected OMElement synapseConfiguration;
     protected TestUserMode userMode;
     protected APIMURLBean defaultUrls, storeUrls, publisherUrls, gatewayUrlsMgt, gatewayUrlsWrk, keyMangerUrl, backEndServerUrl;
     protected User user;
+    //chooses the gateway node of the API invocations, see -Dapim.gateway.selection
+    protected GatewayEndpointSelector gatewayEndpointSelector;
+    //qualifies the API names, contexts and application names so the test classes can run in parallel
+    protected final ArtifactNamespace artifactNamespace = ArtifactNamespace.create();
 
     /**
      * This method will initialize test environment
@@ -89,78 +116,32 @@ public class APIMIntegrationBaseTest {
     protected void init(TestUserMode userMode) throws APIManagerIntegrationTestException {
 
         try {
-            //create store server instance based on configuration given at automation.xml
+            //contexts of the instances given at automation.xml, built once per user mode
+            DeploymentTopology topology = DeploymentTopology.forUserMode(userMode);
 
-            defaultContext =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_DEFAULT_INSTANCE, userMode);
+            defaultContext = topology.getContext(APIMIntegrationConstants.AM_DEFAULT_INSTANCE);
+            //null if the default instance is not available in the deployment
+            defaultUrls = topology.getUrls(APIMIntegrationConstants.AM_DEFAULT_INSTANCE, null);
 
-            try {
-                defaultUrls = new APIMURLBean(defaultContext.getContextUrls());
-            } catch (NoSuchElementException ex) {
-                // since default instance not available in the deployment
-            }
+            //the URLs of the instances not available in the deployment fall back to the default instance
+            storeContext = topology.getContext(APIMIntegrationConstants.AM_STORE_INSTANCE);
+            storeUrls = topology.getUrls(APIMIntegrationConstants.AM_STORE_INSTANCE, defaultUrls);
 
-            storeContext =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_STORE_INSTANCE, userMode);
+            publisherContext = topology.getContext(APIMIntegrationConstants.AM_PUBLISHER_INSTANCE);
+            publisherUrls = topology.getUrls(APIMIntegrationConstants.AM_PUBLISHER_INSTANCE, defaultUrls);
 
-            try {
-                storeUrls = new APIMURLBean(storeContext.getContextUrls());
-            } catch (NoSuchElementException ex) {
-                // since store instance not available in the deployment
-                storeUrls = defaultUrls;
-            }
-            //create publisher server instance based on configuration given at automation.xml
-            publisherContext =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_PUBLISHER_INSTANCE, userMode);
-            try {
-                publisherUrls = new APIMURLBean(publisherContext.getContextUrls());
-            } catch (NoSuchElementException ex) {
-                // since publisher instance not available in the deployment
-                publisherUrls = defaultUrls;
-            }
+            gatewayContextMgt = topology.getContext(APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE);
+            gatewayUrlsMgt = topology.getUrls(APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE, defaultUrls);
 
-            //create gateway server instance based on configuration given at automation.xml
+            gatewayContextWrk = topology.getContext(APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE);
+            gatewayUrlsWrk = topology.getUrls(APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE, defaultUrls);
+            gatewayEndpointSelector = createGatewayEndpointSelector(topology);
 
-            gatewayContextMgt =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE, userMode);
+            keyManagerContext = topology.getContext(APIMIntegrationConstants.AM_KEY_MANAGER_INSTANCE);
+            keyMangerUrl = topology.getUrls(APIMIntegrationConstants.AM_KEY_MANAGER_INSTANCE, defaultUrls);
 
-            try {
-                gatewayUrlsMgt = new APIMURLBean(gatewayContextMgt.getContextUrls());
-            } catch (NoSuchElementException ex) {
-                // since gateway mgt instance not available in the deployment
-                gatewayUrlsMgt = defaultUrls;
-            }
-            gatewayContextWrk =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE, userMode);
-            try {
-                gatewayUrlsWrk = new APIMURLBean(gatewayContextWrk.getContextUrls());
-            } catch (NoSuchElementException ex) {
-                // since gateway wrk instance not available in the deployment
-                gatewayUrlsWrk = defaultUrls;
-            }
-
-            keyManagerContext = new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                                      APIMIntegrationConstants.AM_KEY_MANAGER_INSTANCE, userMode);
-            try {
-                keyMangerUrl = new APIMURLBean(keyManagerContext.getContextUrls());
-            } catch (NoSuchElementException ex) {
-                // since keyManager instance not available in the deployment
-                keyMangerUrl = defaultUrls;
-            }
-
-            backEndServer = new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                                  APIMIntegrationConstants.BACKEND_SERVER_INSTANCE, userMode);
-            try {
-                backEndServerUrl = new APIMURLBean(backEndServer.getContextUrls());
-            } catch(NoSuchElementException ex){
-                // since backend instance not available in the deployment
-                backEndServerUrl = defaultUrls;
-            }
+            backEndServer = topology.getContext(APIMIntegrationConstants.BACKEND_SERVER_INSTANCE);
+            backEndServerUrl = topology.getUrls(APIMIntegrationConstants.BACKEND_SERVER_INSTANCE, defaultUrls);
 
             user = storeContext.getContextTenant().getContextUser();
 
@@ -183,36 +164,21 @@ public class APIMIntegrationBaseTest {
             throws APIManagerIntegrationTestException {
 
         try {
-            //create store server instance based configuration given at automation.xml
-            storeContext =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_STORE_INSTANCE, domainKey, userKey);
-            storeUrls = new APIMURLBean(storeContext.getContextUrls());
-
-            //create publisher server instance
-            publisherContext =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_PUBLISHER_INSTANCE, domainKey, userKey);
-            publisherUrls = new APIMURLBean(publisherContext.getContextUrls());
-
-            //create gateway server instance
-            gatewayContextMgt =
-                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                          APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE, domainKey, userKey);
-            gatewayUrlsMgt = new APIMURLBean(gatewayContextMgt.getContextUrls());
-
-//            gatewayContextWrk =
-//                    new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-//                                          APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE, domainKey, userKey);
-//            gatewayUrlsWrk = new APIMURLBean(gatewayContextWrk.getContextUrls());
-
-            keyManagerContext = new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-                                                      APIMIntegrationConstants.AM_KEY_MANAGER_INSTANCE, domainKey, userKey);
-            keyMangerUrl = new APIMURLBean(keyManagerContext.getContextUrls());
-
-//            backEndServer = new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
-//                                                  APIMIntegrationConstants.BACKEND_SERVER_INSTANCE, domainKey, userKey);
-//            backEndServerUrl = new APIMURLBean(backEndServer.getContextUrls());
+            //contexts of the instances given at automation.xml, built once per tenant user
+            DeploymentTopology topology = DeploymentTopology.forTenantUser(domainKey, userKey);
+
+            storeContext = topology.getContext(APIMIntegrationConstants.AM_STORE_INSTANCE);
+            storeUrls = topology.getUrls(APIMIntegrationConstants.AM_STORE_INSTANCE);
+
+            publisherContext = topology.getContext(APIMIntegrationConstants.AM_PUBLISHER_INSTANCE);
+            publisherUrls = topology.getUrls(APIMIntegrationConstants.AM_PUBLISHER_INSTANCE);
+
+            gatewayContextMgt = topology.getContext(APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE);
+            gatewayUrlsMgt = topology.getUrls(APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE);
+            gatewayEndpointSelector = createGatewayEndpointSelector(topology);
+
+            keyManagerContext = topology.getContext(APIMIntegrationConstants.AM_KEY_MANAGER_INSTANCE);
+            keyMangerUrl = topology.getUrls(APIMIntegrationConstants.AM_KEY_MANAGER_INSTANCE);
 
             user = storeContext.getContextTenant().getContextUser();
 
@@ -223,6 +189,26 @@ public class APIMIntegrationBaseTest {
 
     }
 
+    /**
+     * Create the selector of the gateway manager node and of the worker node if the deployment has one
+     *
+     * @param topology - topology of the user mode or tenant user
+     * @return - gateway endpoint selector configured with the apim.gateway.* system properties
+     * @throws XPathExpressionException - if the worker configuration cannot be read
+     */
+    private GatewayEndpointSelector createGatewayEndpointSelector(DeploymentTopology topology)
+            throws XPathExpressionException {
+        List<GatewayNode> gatewayNodes = new ArrayList<GatewayNode>();
+        gatewayNodes.add(new GatewayNode(APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE, gatewayUrlsMgt, false,
+                GatewayEndpointSelector.getConfiguredWeight(APIMIntegrationConstants.AM_GATEWAY_MGT_INSTANCE)));
+        APIMURLBean workerUrls = topology.getUrls(APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE, null);
+        if (workerUrls != null) {
+            gatewayNodes.add(new GatewayNode(APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE, workerUrls, true,
+                    GatewayEndpointSelector.getConfiguredWeight(APIMIntegrationConstants.AM_GATEWAY_WRK_INSTANCE)));
+        }
+        return new GatewayEndpointSelector(gatewayNodes, GatewayEndpointSelector.getConfiguredStrategy());
+    }
+
     /**
      * @param relativeFilePath - file path to load config
      * @throws APIManagerIntegrationTestException - Throws if load synapse configuration from file path
@@ -250,20 +236,137 @@ public class APIMIntegrationBaseTest {
     }
 
     /**
+     * Get the Carbon admin session of the context user. The session is created once per node, tenant and
+     * user and shared through the {@link SessionRegistry}.
+     *
      * @param automationContext - automation context instance of given server
      * @return - created session cookie variable
      * @throws APIManagerIntegrationTestException - Throws if creating session cookie fails
      */
-    protected String createSession(AutomationContext automationContext)
+    protected String createSession(final AutomationContext automationContext)
+            throws APIManagerIntegrationTestException {
+        User contextUser = automationContext.getContextTenant().getContextUser();
+        SessionKey sessionKey;
+        try {
+            sessionKey = new SessionKey(automationContext.getContextUrls().getBackEndUrl(),
+                    automationContext.getContextTenant().getDomain(), contextUser.getUserName());
+        } catch (XPathExpressionException e) {
+            throw new APIManagerIntegrationTestException("Unable to get the backend URL of the context", e);
+        }
+        return SessionRegistry.getInstance().getSession(sessionKey, contextUser.getPassword(), () -> {
+            try {
+                return new Session(new LoginLogoutClient(automationContext).login(), null, true);
+            } catch (Exception e) {
+                log.error("session creation error", e);
+                throw new APIManagerIntegrationTestException("session creation error", e);
+            }
+        }).getCookie();
+    }
+
+    /**
+     * Create a token manager which issues and caches the tokens of the application from the gateway
+     * token endpoint. The manager must be closed by the test.
+     *
+     * @param applicationName    - name of the application
+     * @param applicationKeyBean - production consumer key and secret of the application
+     * @return - token manager
+     * @throws APIManagerIntegrationTestException - Throws if the token endpoint URL is invalid
+     */
+    protected AccessTokenManager createAccessTokenManager(String applicationName,
+                                                          ApplicationKeyBean applicationKeyBean)
+            throws APIManagerIntegrationTestException {
+        AccessTokenManager accessTokenManager;
+        try {
+            accessTokenManager = new AccessTokenManager(new URL(getGatewayURLNhttp() + "token"));
+        } catch (MalformedURLException e) {
+            throw new APIManagerIntegrationTestException("Invalid token endpoint URL", e);
+        }
+        accessTokenManager.registerApplication(applicationName, AccessTokenManager.KEY_TYPE_PRODUCTION,
+                                               applicationKeyBean);
+        return accessTokenManager;
+    }
+
+    /**
+     * Wait until the published API is listed in the store
+     *
+     * @param storeRestClient - logged in store client
+     * @param apiName         - name of the API
+     * @param version         - version of the API
+     * @return - time it took until the API was visible in milliseconds
+     * @throws APIManagerIntegrationTestException - Throws if the API is not visible before the deadline
+     */
+    protected long awaitAPIVisibleInStore(final APIStoreRestClient storeRestClient, final String apiName,
+                                          final String version) throws APIManagerIntegrationTestException {
+        return new Awaiter().until("API visible in store", () -> {
+            for (JsonRecord api : JsonStreamExtractor.extract(storeRestClient.getAPI().getData(), STORE_APIS_PATH)
+                                                     .getRecords()) {
+                if (apiName.equals(api.getString("name")) && version.equals(api.getString("version"))) {
+                    return true;
+                }
+            }
+            return false;
+        }, visible -> visible).getElapsedMillis();
+    }
+
+    /**
+     * Wait until the store lists at least the expected number of published APIs of the tenant, e.g. until the
+     * store index is built after adding APIs
+     *
+     * @param storeRestClient - logged in store client
+     * @param tenantDomain    - tenant domain of the APIs
+     * @param expectedCount   - number of APIs expected in the store
+     * @return - time it took until the APIs were visible in milliseconds
+     * @throws APIManagerIntegrationTestException - Throws if the APIs are not visible before the deadline
+     */
+    protected long awaitPublishedAPICountInStore(final APIStoreRestClient storeRestClient, final String tenantDomain,
+                                                 final int expectedCount) throws APIManagerIntegrationTestException {
+        return new Awaiter().until("published APIs visible in store", () -> {
+            JsonListing page = JsonStreamExtractor.count(storeRestClient.getAllPaginatedPublishedAPIs(
+                    tenantDomain, "0", Integer.toString(expectedCount)).getData(), STORE_APIS_PATH);
+            return page.isError() ? 0 : page.getRecordCount();
+        }, count -> count >= expectedCount).getElapsedMillis();
+    }
+
+    /**
+     * Wait until the gateway routes the requests of the API, that is until the API resource no longer
+     * answers with 404
+     *
+     * @param invocationUrl  - URL of the API resource in the gateway
+     * @param requestHeaders - request headers, e.g. the authorization header
+     * @return - time it took until the API was routable in milliseconds
+     * @throws APIManagerIntegrationTestException - Throws if the API is not routable before the deadline
+     */
+    protected long awaitAPIRoutableOnGateway(String invocationUrl, Map<String, String> requestHeaders)
             throws APIManagerIntegrationTestException {
-        LoginLogoutClient loginLogoutClient;
+        return new Awaiter().until("API routable on gateway",
+                                   () -> getGatewayResponseCode(invocationUrl, requestHeaders),
+                                   responseCode -> responseCode != HttpStatus.SC_NOT_FOUND).getElapsedMillis();
+    }
+
+    /**
+     * Wait until the gateway answers the requests of the API with 404, e.g. after the API is retired
+     *
+     * @param invocationUrl  - URL of the API resource in the gateway
+     * @param requestHeaders - request headers, e.g. the authorization header
+     * @return - time it took until the API was removed from the gateway in milliseconds
+     * @throws APIManagerIntegrationTestException - Throws if the API is still routable after the deadline
+     */
+    protected long awaitAPINotFoundOnGateway(String invocationUrl, Map<String, String> requestHeaders)
+            throws APIManagerIntegrationTestException {
+        return new Awaiter().until("API not found on gateway",
+                                   () -> getGatewayResponseCode(invocationUrl, requestHeaders),
+                                   responseCode -> responseCode == HttpStatus.SC_NOT_FOUND).getElapsedMillis();
+    }
+
+    private static int getGatewayResponseCode(String invocationUrl, Map<String, String> requestHeaders)
+            throws IOException {
+        StreamingHttpResponse response = StreamingHttpClient.getSharedClient().doGet(invocationUrl, requestHeaders);
         try {
-            loginLogoutClient = new LoginLogoutClient(automationContext);
-            return loginLogoutClient.login();
-        } catch (Exception e) {
-            log.error("session creation error", e);
-            throw new APIManagerIntegrationTestException("session creation error", e);
+            response.consume();
+        } finally {
+            response.close();
         }
+        return response.getResponseCode();
     }
 
     /**
@@ -353,84 +456,114 @@ public class APIMIntegrationBaseTest {
         return keyManagerContext.getContextUrls().getBackEndUrl().replace("/services", "");
     }
 
+    /**
+     * Get the invocation URL of an API on the gateway node chosen by the {@link #gatewayEndpointSelector}
+     *
+     * @param apiContext - context of the API
+     * @return - invocation URL
+     */
     protected String getAPIInvocationURLHttp(String apiContext)
             throws XPathExpressionException, IOException {
-        return gatewayContextMgt.getContextUrls().getServiceUrl().replace("/services", "") + "/" + apiContext;
+        return gatewayEndpointSelector.getAPIInvocationURLHttp(apiContext);
     }
 
     protected String getAPIInvocationURLHttp(String apiContext, String version)
             throws XPathExpressionException, IOException {
-        return gatewayContextMgt.getContextUrls().getServiceUrl().replace("/services", "") + "/" + apiContext + "/" + version;
+        return gatewayEndpointSelector.getAPIInvocationURLHttp(apiContext + "/" + version);
     }
 
     protected String getAPIInvocationURLHttps(String apiContext)
             throws XPathExpressionException, IOException {
-        return gatewayContextMgt.getContextUrls().getSecureServiceUrl() + "/" + apiContext;
+        return gatewayEndpointSelector.getAPIInvocationURLHttps(apiContext);
     }
 
-    protected String getBackendEndServiceEndPointHttp(String serviceName) {
+    /**
+     * Get the URL of a service of the backend server, or of the {@link EmbeddedBackend} if
+     * -Dapim.backend.embedded=true
+     *
+     * @param serviceName - path of the service
+     * @return - URL of the service
+     * @throws APIManagerIntegrationTestException - if the embedded backend cannot be started
+     */
+    protected String getBackendEndServiceEndPointHttp(String serviceName) throws APIManagerIntegrationTestException {
+        if (BackendConfiguration.isEmbeddedBackendEnabled()) {
+            return EmbeddedBackend.getInstance().getURL(serviceName);
+        }
         return backEndServerUrl.getWebAppURLHttp() + serviceName;
     }
 
-    protected String getBackendEndServiceEndPointHttps(String serviceName) {
+    /**
+     * Get the URL of a service deployed in the gateway node which is used as the endpoint of the test APIs, or
+     * of the {@link EmbeddedBackend} if -Dapim.backend.embedded=true, so the gateway overhead can be measured
+     * without the latency of the web apps sharing the gateway node
+     *
+     * @param serviceName - path of the service, e.g. jaxrs_basic/services/customers/customerservice/
+     * @return - URL of the service
+     * @throws APIManagerIntegrationTestException - if the embedded backend cannot be started
+     */
+    protected String getGatewayServiceEndPointHttp(String serviceName) throws APIManagerIntegrationTestException {
+        if (BackendConfiguration.isEmbeddedBackendEnabled()) {
+            return EmbeddedBackend.getInstance().getURL(serviceName);
+        }
+        return getGatewayURLHttp() + serviceName;
+    }
+
+    /**
+     * Get the https URL of a service of the backend server. The {@link EmbeddedBackend} only serves http, so
+     * the https endpoint cannot be used with -Dapim.backend.embedded=true.
+     *
+     * @param serviceName - path of the service
+     * @return - URL of the service
+     * @throws APIManagerIntegrationTestException - if the embedded backend is enabled
+     */
+    protected String getBackendEndServiceEndPointHttps(String serviceName) throws APIManagerIntegrationTestException {
+        if (BackendConfiguration.isEmbeddedBackendEnabled()) {
+            throw new APIManagerIntegrationTestException("The embedded backend only serves http, " + serviceName +
+                                                         " cannot be requested over https");
+        }
         return backEndServerUrl.getWebAppURLHttps() + serviceName;
     }
 
     /**
-     * Cleaning up the API manager by removing all APIs and applications other than default application
+     * Cleaning up the API manager by removing all subscriptions, all applications other than default
+     * application and all APIs. The removals of each phase are sent in parallel, see {@link ArtifactCleaner}.
+     * Removes the artifacts of the other test classes as well, use {@link #cleanUpArtifactNamespace()} in the
+     * test classes running in parallel.
      *
-     * @throws APIManagerIntegrationTestException - occurred when calling the apis
-     * @throws org.json.JSONException             - occurred when reading the json
+     * @throws APIManagerIntegrationTestException - occurred when a subscription or application cannot be removed
      */
     protected void cleanUp() throws Exception {
+        cleanUp(null);
+    }
+
+    /**
+     * Remove the subscriptions, applications and APIs created with the names qualified by the
+     * {@link #artifactNamespace} of this test class. Nothing is removed if the namespaces are disabled, as the
+     * artifacts of the test classes cannot be told apart.
+     *
+     * @throws APIManagerIntegrationTestException - occurred when a subscription or application cannot be removed
+     */
+    protected void cleanUpArtifactNamespace() throws APIManagerIntegrationTestException {
+        if (!artifactNamespace.isEnabled()) {
+            log.debug("Artifact namespaces are disabled, skipping the scoped clean up");
+            return;
+        }
+        cleanUp(artifactNamespace);
+    }
 
+    private void cleanUp(ArtifactNamespace namespace) throws APIManagerIntegrationTestException {
         APIStoreRestClient apiStore = new APIStoreRestClient(getStoreURLHttp());
         apiStore.login(user.getUserName(), user.getPassword());
         APIPublisherRestClient publisherRestClient = new APIPublisherRestClient(getPublisherURLHttp());
         publisherRestClient.login(user.getUserName(), user.getPassword());
-        HttpResponse subscriptionDataResponse = apiStore.getAllSubscriptions();
-        verifyResponse(subscriptionDataResponse);
-        JSONObject jsonSubscription = new JSONObject(subscriptionDataResponse.getData());
-
-        if (!jsonSubscription.getBoolean(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_ERROR)) {
-            JSONObject jsonSubscriptionsObject = jsonSubscription.getJSONObject(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_SUBSCRIPTION);
-            JSONArray jsonApplicationsArray = jsonSubscriptionsObject.getJSONArray(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_APPLICATIONS);
-
-            //Remove API Subscriptions
-            for (int i = 0; i < jsonApplicationsArray.length(); i++) {
-                JSONObject appObject = jsonApplicationsArray.getJSONObject(i);
-                int id = appObject.getInt(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_ID);
-                JSONArray subscribedAPIJSONArray = appObject.getJSONArray(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_SUBSCRIPTION);
-                for (int j = 0; j < subscribedAPIJSONArray.length(); j++) {
-                    JSONObject subscribedAPI = subscribedAPIJSONArray.getJSONObject(j);
-                    verifyResponse(apiStore.removeAPISubscription(subscribedAPI.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME)
-                            , subscribedAPI.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_VERSION),
-                                                                  subscribedAPI.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_PROVIDER), String.valueOf(id)));
-                }
-            }
-        }
-
-        //delete all application other than default application
-        String applicationData = apiStore.getAllApplications().getData();
-        JSONObject jsonApplicationData = new JSONObject(applicationData);
-        JSONArray applicationArray = jsonApplicationData.getJSONArray(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_APPLICATIONS);
-        for (int i = 0; i < applicationArray.length(); i++) {
-            JSONObject jsonApplication = applicationArray.getJSONObject(i);
-            if (!jsonApplication.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME).equals(APIMIntegrationConstants.OAUTH_DEFAULT_APPLICATION_NAME)) {
-                verifyResponse(apiStore.removeApplication(jsonApplication.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME)));
-            }
-        }
-
-        String apiData = apiStore.getAPI().getData();
-        JSONObject jsonAPIData = new JSONObject(apiData);
-        JSONArray jsonAPIArray = jsonAPIData.getJSONArray(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_APIS);
-
-        //delete all APIs
-        for (int i = 0; i < jsonAPIArray.length(); i++) {
-            JSONObject api = jsonAPIArray.getJSONObject(i);
-//            verifyResponse(publisherRestClient.deleteAPI(api.getString("name"), api.getString("version"), user.getUserName()));
-            publisherRestClient.deleteAPI(api.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME)
-                    , api.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_VERSION), user.getUserName());
+        ArtifactCleaner artifactCleaner = new ArtifactCleaner(apiStore, publisherRestClient,
+                storeContext.getContextTenant().getDomain(), user.getUserName());
+        artifactCleaner.setNamespace(namespace);
+        CleanupReport cleanupReport = artifactCleaner.cleanUp();
+        //API deletions are not verified, the APIs of other providers are listed as well
+        if (!cleanupReport.getFailures(ArtifactCleaner.Phase.SUBSCRIPTIONS).isEmpty() ||
+            !cleanupReport.getFailures(ArtifactCleaner.Phase.APPLICATIONS).isEmpty()) {
+            throw new APIManagerIntegrationTestException("Unable to clean up the artifacts. " + cleanupReport);
         }
     }
 
@@ -0,0 +1,173 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.base;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.bean.APIMURLBean;
+import org.wso2.carbon.automation.engine.context.AutomationContext;
+import org.wso2.carbon.automation.engine.context.TestUserMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.xpath.XPathExpressionException;
+
+/**
+ * Automation contexts and URLs of the API Manager instances given in automation.xml for a user mode or a
+ * tenant user. Building a context evaluates the automation.xml XPaths of the instance, so the topology of a
+ * key is built once per JVM and shared by all the test classes. The instances are resolved lazily, the first
+ * time a test class asks for them, and never change afterwards. Tests must not modify the shared contexts.
+ * <p/>
+ * Caching can be disabled with -Dapim.topology.cache=false.
+ */
+public class DeploymentTopology {
+
+    private static final Log log = LogFactory.getLog(DeploymentTopology.class);
+    private static final boolean cacheEnabled =
+            Boolean.parseBoolean(System.getProperty("apim.topology.cache", "true"));
+    private static final ConcurrentMap<String, DeploymentTopology> topologies =
+            new ConcurrentHashMap<String, DeploymentTopology>();
+
+    private final String key;
+    private final ContextFactory contextFactory;
+    private final Map<String, Instance> instances = new HashMap<String, Instance>();
+
+    private DeploymentTopology(String key, ContextFactory contextFactory) {
+        this.key = key;
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * Get the topology of a user mode
+     *
+     * @param userMode - user mode of the tests
+     * @return - shared topology of the user mode
+     */
+    public static DeploymentTopology forUserMode(final TestUserMode userMode) {
+        return getTopology(userMode.name(), instanceName -> new AutomationContext(
+                APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME, instanceName, userMode));
+    }
+
+    /**
+     * Get the topology of a tenant user
+     *
+     * @param domainKey - tenant domain key
+     * @param userKey   - tenant user key
+     * @return - shared topology of the tenant user
+     */
+    public static DeploymentTopology forTenantUser(final String domainKey, final String userKey) {
+        return getTopology(domainKey + "/" + userKey, instanceName -> new AutomationContext(
+                APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME, instanceName, domainKey, userKey));
+    }
+
+    private static DeploymentTopology getTopology(String key, ContextFactory contextFactory) {
+        if (!cacheEnabled) {
+            return new DeploymentTopology(key, contextFactory);
+        }
+        DeploymentTopology topology = topologies.get(key);
+        if (topology == null) {
+            DeploymentTopology newTopology = new DeploymentTopology(key, contextFactory);
+            topology = topologies.putIfAbsent(key, newTopology);
+            if (topology == null) {
+                topology = newTopology;
+            }
+        }
+        return topology;
+    }
+
+    /**
+     * Get the automation context of an instance
+     *
+     * @param instanceName - instance name in automation.xml
+     * @return - automation context
+     * @throws XPathExpressionException - if the instance configuration cannot be read
+     */
+    public AutomationContext getContext(String instanceName) throws XPathExpressionException {
+        return resolve(instanceName).context;
+    }
+
+    /**
+     * Get the URLs of an instance
+     *
+     * @param instanceName - instance name in automation.xml
+     * @return - URLs of the instance
+     * @throws XPathExpressionException - if the instance configuration cannot be read
+     * @throws NoSuchElementException   - if the instance is not available in the deployment
+     */
+    public APIMURLBean getUrls(String instanceName) throws XPathExpressionException {
+        Instance instance = resolve(instanceName);
+        if (instance.urls == null) {
+            throw new NoSuchElementException("Instance " + instanceName + " is not available in the deployment");
+        }
+        return instance.urls;
+    }
+
+    /**
+     * Get the URLs of an instance, or the given URLs if the instance is not available in the deployment
+     *
+     * @param instanceName - instance name in automation.xml
+     * @param fallback     - URLs to use when the instance is not available, ex: the default instance URLs
+     * @return - URLs of the instance or the fallback
+     * @throws XPathExpressionException - if the instance configuration cannot be read
+     */
+    public APIMURLBean getUrls(String instanceName, APIMURLBean fallback) throws XPathExpressionException {
+        APIMURLBean urls = resolve(instanceName).urls;
+        return urls != null ? urls : fallback;
+    }
+
+    private synchronized Instance resolve(String instanceName) throws XPathExpressionException {
+        Instance instance = instances.get(instanceName);
+        if (instance == null) {
+            AutomationContext context = contextFactory.create(instanceName);
+            APIMURLBean urls;
+            try {
+                urls = new APIMURLBean(context.getContextUrls());
+            } catch (NoSuchElementException e) {
+                urls = null;
+                log.debug("Instance " + instanceName + " is not available in the deployment of " + key);
+            }
+            instance = new Instance(context, urls);
+            instances.put(instanceName, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the automation context of an instance for the key of the topology
+     */
+    private interface ContextFactory {
+        AutomationContext create(String instanceName) throws XPathExpressionException;
+    }
+
+    /**
+     * Context of an instance and its URLs, null if the instance is not available
+     */
+    private static class Instance {
+        private final AutomationContext context;
+        private final APIMURLBean urls;
+
+        Instance(AutomationContext context, APIMURLBean urls) {
+            this.context = context;
+            this.urls = urls;
+        }
+    }
+}
@@ -33,6 +33,8 @@ public class APIMURLBean {
     private String webAppURLHttps; // web app URL https, ex: https://localhost:9443
     private String webAppURLNhttp; // web app URL nhttp, ex: http://localhost:8280
     private String webAppURLNhttps; // web app URL nhttps, ex: https://localhost:8243
+    private String apiInvocationURLHttp; // API invocation URL http, ex: http://localhost:8280/t/wso2.com/
+    private String apiInvocationURLHttps; // API invocation URL https, ex: https://localhost:8243/t/wso2.com/
 
     /**
      * construct basic URL's to be used from the given automation context object
@@ -43,6 +45,10 @@ public class APIMURLBean {
     public APIMURLBean(ContextUrls contextUrls) {
 
 
+        //the API invocation URLs keep the tenant path of the service URLs
+        apiInvocationURLHttp = contextUrls.getServiceUrl().replace("/services", "") + "/";
+        apiInvocationURLHttps = contextUrls.getSecureServiceUrl() + "/";
+
         String tempUrl = contextUrls.getWebAppURL();
         if (tempUrl.contains("/t/")) {
             tempUrl = tempUrl.split("/t/")[0];
@@ -95,4 +101,22 @@ public class APIMURLBean {
     public String getWebAppURLNhttps() {
         return webAppURLNhttps;
     }
+
+    /**
+     * Get the prefix of the API invocation URLs, computed once instead of on every invocation
+     *
+     * @return - gateway http URL including the tenant path, ending with a slash
+     */
+    public String getAPIInvocationURLHttp() {
+        return apiInvocationURLHttp;
+    }
+
+    /**
+     * Get the prefix of the secure API invocation URLs
+     *
+     * @return - gateway https URL including the tenant path, ending with a slash
+     */
+    public String getAPIInvocationURLHttps() {
+        return apiInvocationURLHttps;
+    }
 }
@@ -18,12 +18,23 @@
 
 package org.wso2.apim.bean;
 
-import java.util.HashMap;
+import org.wso2.apim.http.FormBodyEncoder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Base of the Jaggery request beans. The parameters added by {@link #init()} are sent form encoded after the
+ * action parameter. The encoded parameters are cached and only encoded again when init() adds different
+ * parameters, ex: after a setter of the bean is called.
+ */
 public abstract class AbstractRequest {
     public String action;
-    private Map<String, String> parameterMap = new HashMap<String, String>();
+    private Map<String, String> parameterMap = new LinkedHashMap<String, String>();
+    private Map<String, String> encodedParameterMap = new LinkedHashMap<String, String>();
+    private final FormBodyEncoder parameterEncoder = new FormBodyEncoder();
+    private final FormBodyEncoder requestEncoder = new FormBodyEncoder();
     private static final String ACTION_PARAMETER_VALUE = "action";
 
     /**
@@ -32,20 +43,8 @@ public abstract class AbstractRequest {
      * @return - request parameters
      */
     public String generateRequestParameters() {
-        parameterMap.clear();
         setAction();
-        init();
-        String requestParams = ACTION_PARAMETER_VALUE + "=" + action;
-        StringBuilder bufferAppender = new StringBuilder();
-        bufferAppender.append(requestParams);
-        for (Object o : parameterMap.keySet()) {
-            String key = (String) o;
-            bufferAppender.append("&");
-            bufferAppender.append(key);
-            bufferAppender.append("=");
-            bufferAppender.append(parameterMap.get(key));
-        }
-        return bufferAppender.toString();
+        return encodeRequestParameters(action).toString();
     }
 
     /**
@@ -55,20 +54,36 @@ public abstract class AbstractRequest {
      * @return - request params
      */
     public String generateRequestParameters(String actionName) {
-        parameterMap.clear();
         setAction();
+        return encodeRequestParameters(actionName).toString();
+    }
+
+    /**
+     * Write the request params with the given action to the request body without building a string
+     *
+     * @param actionName   - Request action name
+     * @param outputStream - request body stream
+     * @throws IOException - if the params cannot be written
+     */
+    public void writeRequestParameters(String actionName, OutputStream outputStream) throws IOException {
+        setAction();
+        encodeRequestParameters(actionName).writeTo(outputStream);
+    }
+
+    private FormBodyEncoder encodeRequestParameters(String actionName) {
+        parameterMap.clear();
         init();
-        String requestParams = ACTION_PARAMETER_VALUE + "=" + actionName;
-        StringBuilder bufferAppender = new StringBuilder();
-        bufferAppender.append(requestParams);
-        for (Object o : parameterMap.keySet()) {
-            String key = (String) o;
-            bufferAppender.append("&");
-            bufferAppender.append(key);
-            bufferAppender.append("=");
-            bufferAppender.append(parameterMap.get(key));
+        if (!parameterMap.equals(encodedParameterMap)) {
+            parameterEncoder.reset();
+            parameterEncoder.addAll(parameterMap);
+            Map<String, String> encodedParameters = parameterMap;
+            parameterMap = encodedParameterMap;
+            encodedParameterMap = encodedParameters;
         }
-        return bufferAppender.toString();
+        requestEncoder.reset();
+        requestEncoder.add(ACTION_PARAMETER_VALUE, actionName);
+        requestEncoder.addEncoded(parameterEncoder.getBuffer(), parameterEncoder.size());
+        return requestEncoder;
     }
 
     public void addParameter(String key, String value) {
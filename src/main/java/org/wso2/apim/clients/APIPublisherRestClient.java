@@ -27,17 +27,28 @@ import org.wso2.apim.bean.APIRequest;
 import org.wso2.apim.bean.AddDocumentRequestBean;
 import org.wso2.apim.exception.APIManagerIntegrationTestException;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.apim.http.HttpTransportFactory;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.replay.TrafficRecorder;
+import org.wso2.apim.session.Session;
+import org.wso2.apim.session.SessionAwareHttpTransport;
+import org.wso2.apim.session.SessionKey;
+import org.wso2.apim.session.SessionRegistry;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class APIPublisherRestClient {
     private static final Log log = LogFactory.getLog(APIPublisherRestClient.class);
     private String backendURL;
     private static final String URL_SUFFIX = "publisher/site/blocks";
-    private Map<String, String> requestHeaders = new HashMap<String, String>();
+    private Map<String, String> requestHeaders = new ConcurrentHashMap<String, String>();
+    private SessionAwareHttpTransport httpTransport;
+    private AsyncClientExecutor asyncExecutor;
 
     /**
      * construct of API rest client
@@ -45,7 +56,20 @@ public class APIPublisherRestClient {
      * @param backendURL - backend URL of the publisher Jaggery app
      */
     public APIPublisherRestClient(String backendURL) {
+        this(backendURL, HttpTransportFactory.getTransport());
+    }
+
+    /**
+     * construct of API rest client with the given transport
+     *
+     * @param backendURL    - backend URL of the publisher Jaggery app
+     * @param httpTransport - transport used to send the requests
+     */
+    public APIPublisherRestClient(String backendURL, HttpTransport httpTransport) {
         this.backendURL = backendURL;
+        HttpTransport recordingTransport = TrafficRecorder.getInstance().instrument(httpTransport);
+        this.httpTransport = new SessionAwareHttpTransport(ClientMetrics.getInstance().instrument(recordingTransport),
+                                                           SessionRegistry.getInstance());
         if (requestHeaders.get("Content-Type") == null) {
             this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
         }
@@ -59,13 +83,30 @@ public class APIPublisherRestClient {
      * @return HTTP response object
      * @throws org.wso2.am.integration.test.utils.APIManagerIntegrationTestException - Throws if user cannot login to the publisher
      */
-    public HttpResponse login(String userName, String password)
+    public HttpResponse login(final String userName, final String password)
             throws APIManagerIntegrationTestException {
-        HttpResponse response;
         log.info("Login to Publisher " + backendURL + " as the user " + userName);
+        SessionKey sessionKey = SessionKey.forUser(backendURL, userName);
+        Session session = SessionRegistry.getInstance().getSession(sessionKey, password,
+                () -> createSession(userName, password));
+        setSession(session.getCookie());
+        httpTransport.bind(session.isAuthenticated() ? sessionKey : null);
+        return session.getLoginResponse();
+    }
+
+    /**
+     * Login to the publisher app without using the cached sessions
+     *
+     * @param userName - username to login
+     * @param password - password to login
+     * @return - session created by the login
+     * @throws APIManagerIntegrationTestException - Throws if the login request fails
+     */
+    private Session createSession(String userName, String password) throws APIManagerIntegrationTestException {
+        HttpResponse response;
         try {
             response =
-                    HttpRequestUtil.doPost(
+                    httpTransport.getDelegate().doPost(
                             new URL(backendURL + URL_SUFFIX + "/user/login/ajax/login.jag"),
                             "action=login&username=" + userName + "&password=" + password + "",
                             requestHeaders);
@@ -79,8 +120,7 @@ public class APIPublisherRestClient {
         if (session == null) {
             throw new APIManagerIntegrationTestException("No session cookie found with response");
         }
-        setSession(session);
-        return response;
+        return Session.fromJaggeryLogin(response, session);
     }
 
     /**
@@ -89,12 +129,19 @@ public class APIPublisherRestClient {
      * @return http response object
      */
     public HttpResponse logout() throws APIManagerIntegrationTestException {
+        SessionKey sessionKey = httpTransport.getSessionKey();
         try {
-            return HttpRequestUtil.doGet(
+            return httpTransport.getDelegate().doGet(
                     backendURL + URL_SUFFIX + "/user/login/ajax/login.jag?action=logout",
                     requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Failed to logout from publisher ", e);
+        } finally {
+            //the session is shared with the other clients of the user, they login again on their next request
+            if (sessionKey != null) {
+                SessionRegistry.getInstance().invalidate(sessionKey);
+                httpTransport.bind(null);
+            }
         }
     }
 
@@ -107,7 +154,7 @@ public class APIPublisherRestClient {
     public HttpResponse addAPI(APIRequest apiRequest) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
                     apiRequest.generateRequestParameters(),
                     requestHeaders);
@@ -132,7 +179,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + URL_SUFFIX + "/overview/ajax/overview.jag"),
                     "action=createNewAPI&provider=" + provider + "&apiName=" + apiName + "&version="
                     + oldVersion + "&newVersion=" + newVersion + "&isDefaultVersion=" + isDefaultVersion,
@@ -154,9 +201,9 @@ public class APIPublisherRestClient {
             throws Exception {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
-                                          apiRequest.generateRequestParameters("updateAPI"),
-                                          requestHeaders);
+            return httpTransport.doPost(new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
+                                        apiRequest.generateRequestParameters("updateAPI"),
+                                        requestHeaders);
 
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Unable to update API ", e);
@@ -174,7 +221,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/life-cycles/ajax/life-cycles.jag"),
                     updateRequest.generateRequestParameters(),
                     requestHeaders);
@@ -196,7 +243,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/listing/ajax/item-list.jag"),
                     "action=getAPI&name=" + apiName + "&version=1.0.0&provider=" + provider + "",
                     requestHeaders);
@@ -218,7 +265,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/item-add/ajax/remove.jag"),
                     "action=removeAPI&name=" + apiName + "&version=" + version + "&provider=" + provider,
                     requestHeaders);
@@ -263,7 +310,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/documentation/ajax/docs.jag"),
                     "action=removeDocumentation" + "&provider=" + provider + "&apiName=" +
                     apiName + "&version=" + version + "&docName=" + docName + "&docType=" +
@@ -286,7 +333,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/tokens/ajax/revokeToken.jag"),
                     "action=revokeAccessToken" + "&accessToken=" + accessToken + "&authUser=" +
                     authUser + "&consumerKey=" + consumerKey, requestHeaders);
@@ -309,7 +356,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/tiers/ajax/tiers.jag"),
                     "action=updatePermissions" + "&tierName=" + tierName + "&permissiontype=" +
                     permissionType + "&roles=" + roles, requestHeaders);
@@ -334,7 +381,7 @@ public class APIPublisherRestClient {
         try {
             checkAuthentication();
             this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/item-design/ajax/add.jag"),
                     "action=manage" + "&provider=" + provider + "&name=" + apiName + "&version=" +
                     version + "&swagger=" + swaggerRes, requestHeaders);
@@ -357,7 +404,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/listing/ajax/item-list.jag"),
                     "action=getAPI&name=" + apiName + "&version=" + version + "&provider=" + provider + "",
                     requestHeaders);
@@ -379,7 +426,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "publisher/site/blocks/item-add/ajax/add.jag"),
                     "action=isURLValid&" + "type=" + type + "&url=" + endpointUrl, requestHeaders);
         } catch (Exception e) {
@@ -410,8 +457,8 @@ public class APIPublisherRestClient {
             if (isRequireReSubscription) {
                 requestParameters += "&requireResubscription=true";
             }
-            return HttpRequestUtil.doPost(
-                    new URL(backendURL + "/publisher/site/blocks/life-cycles/ajax/life-cycles.jag"), requestParameters,
+            return httpTransport.doPost(
+                    new URL(backendURL + URL_SUFFIX + "/life-cycles/ajax/life-cycles.jag"), requestParameters,
                     requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when change he lifecycle to publish", e);
@@ -432,8 +479,8 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
-                    new URL(backendURL + "/publisher/site/blocks/listing/ajax/item-list.jag"), "action=getAPI&name=" +
+            return httpTransport.doPost(
+                    new URL(backendURL + URL_SUFFIX + "/listing/ajax/item-list.jag"), "action=getAPI&name=" +
                             apiName + "&version=" + version + "&provider=" + provider + "", requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when retrieving a API", e);
@@ -445,12 +492,12 @@ public class APIPublisherRestClient {
      *
      * @return HttpResponse - Response that contains the Tier Permission Page
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            httpTransport.doGet() method call
      */
     public HttpResponse getTierPermissionsPage() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(backendURL + "/publisher/site/pages/tiers.jag", requestHeaders);
+            return httpTransport.doGet(backendURL + "publisher/site/pages/tiers.jag", requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when retrieving the Tier Permissions page", e);
         }
@@ -464,14 +511,14 @@ public class APIPublisherRestClient {
      * @param version  - Version of the API.
      * @return HttpResponse - Response that contains the API Manage Page
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            httpTransport.doGet() method call
      */
     public HttpResponse getAPIManagePage(String apiName, String provider, String version)
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
-                    backendURL + "/publisher/manage?name=" + apiName + "&version=" + version + "&provider=" + provider,
+            return httpTransport.doGet(
+                    backendURL + "publisher/manage?name=" + apiName + "&version=" + version + "&provider=" + provider,
                     requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when retrieving the API Manage page", e);
@@ -487,14 +534,14 @@ public class APIPublisherRestClient {
      * @param version  - Version of the API.
      * @return HttpResponse - Response that contains the API Information Page
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            httpTransport.doGet() method call
      */
     public HttpResponse getAPIInformationPage(String apiName, String provider, String version)
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
-                    backendURL + "/publisher/info?name=" + apiName + "&version=" + version + "&provider=" + provider,
+            return httpTransport.doGet(
+                    backendURL + "publisher/info?name=" + apiName + "&version=" + version + "&provider=" + provider,
                     requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when retrieving the API Information page", e);
@@ -515,15 +562,15 @@ public class APIPublisherRestClient {
      * @param docLocation - Document Location
      * @return HttpResponse - Response  with Document adding result.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            httpTransport.doPost() method call
      */
     public HttpResponse addDocument(String apiName, String version, String provider, String docName, String docType,
                                     String sourceType, String docUrl, String summary, String docLocation)
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
-                    new URL(backendURL + "/publisher/site/blocks/documentation/ajax/docs.jag"),
+            return httpTransport.doPost(
+                    new URL(backendURL + URL_SUFFIX + "/documentation/ajax/docs.jag"),
                     "action=addDocumentation&provider=" + provider + "&apiName=" + apiName + "&version=" + version +
                             "&docName=" + docName + "&docType=" + docType + "&sourceType=" + sourceType + "&docUrl" + docUrl +
                             "=&summary=" + summary + "&docLocation=" + docLocation, requestHeaders);
@@ -539,13 +586,13 @@ public class APIPublisherRestClient {
      * @param addDocRequestBean - Bean that contains all the values that needed to create a Document.
      * @return HttpResponse -  Response  with Document adding result.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            httpTransport.doPost() method call
      */
     public HttpResponse addDocument(AddDocumentRequestBean addDocRequestBean) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
-                    new URL(backendURL + "/publisher/site/blocks/documentation/ajax/docs.jag"),
+            return httpTransport.doPost(
+                    new URL(backendURL + URL_SUFFIX + "/documentation/ajax/docs.jag"),
                     "action=addDocumentation&provider=" + addDocRequestBean.getApiProvider() + "&apiName=" +
                             addDocRequestBean.getApiName() + "&version=" + addDocRequestBean.getApiVersion() + "&docName=" +
                             addDocRequestBean.getDocName() + "&docType=" + addDocRequestBean.getDocType() + "&sourceType=" +
@@ -562,13 +609,13 @@ public class APIPublisherRestClient {
      *
      * @return HttpResponse - Response that contains all available APIs for the user
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            httpTransport.doGet() method call
      */
     public HttpResponse getAllAPIs() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
-                    backendURL + "/publisher/site/blocks/listing/ajax/item-list.jag?action=getAllAPIs", requestHeaders);
+            return httpTransport.doGet(
+                    backendURL + URL_SUFFIX + "/listing/ajax/item-list.jag?action=getAllAPIs", requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when Retrieve the All APIs available for the user in Publisher", e);
         }
@@ -581,13 +628,13 @@ public class APIPublisherRestClient {
      * @param creationRequestBean - Instance of APICreationRequestBean object with all needed information to create the API.
      * @return HttpResponse - Response that contains the result of APi creation activity.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            httpTransport.doPost() method call
      */
     public HttpResponse addAPI(APICreationRequestBean creationRequestBean) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
-                    new URL(backendURL + "/publisher/site/blocks/item-add/ajax/add.jag"),
+            return httpTransport.doPost(
+                    new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
                     creationRequestBean.generateRequestParameters(), requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when Retrieve the All APIs available " +
@@ -601,13 +648,13 @@ public class APIPublisherRestClient {
      * @param creationRequestBean - Instance of APICreationRequestBean object with all needed information to Update the API.
      * @return HttpResponse - Response that contains the result of APi creation activity.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            httpTransport.doPost() method call
      */
     public HttpResponse updateAPI(APICreationRequestBean creationRequestBean) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
-                    new URL(backendURL + "/publisher/site/blocks/item-add/ajax/add.jag"),
+            return httpTransport.doPost(
+                    new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
                     creationRequestBean.generateRequestParameters("updateAPI"), requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when Retrieve the All APIs available " +
@@ -615,4 +662,117 @@ public class APIPublisherRestClient {
         }
     }
 
+    /**
+     * Asynchronous variant of {@link #addAPI(APIRequest)}
+     *
+     * @param apiRequest - Constructed API request object
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> addAPIAsync(APIRequest apiRequest) {
+        return executeAsync(() -> addAPI(apiRequest));
+    }
+
+    /**
+     * Asynchronous variant of {@link #addAPI(APICreationRequestBean)}
+     *
+     * @param creationRequestBean - Instance of APICreationRequestBean object with all needed information to create the API.
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> addAPIAsync(APICreationRequestBean creationRequestBean) {
+        return executeAsync(() -> addAPI(creationRequestBean));
+    }
+
+    /**
+     * Asynchronous variant of {@link #updateAPI(APICreationRequestBean)}
+     *
+     * @param creationRequestBean - Instance of APICreationRequestBean object with all needed information to Update the API.
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> updateAPIAsync(APICreationRequestBean creationRequestBean) {
+        return executeAsync(() -> updateAPI(creationRequestBean));
+    }
+
+    /**
+     * Asynchronous variant of {@link #copyAPI(String, String, String, String, String)}
+     *
+     * @param provider         - name of the provider , ex: admin
+     * @param apiName          - API name
+     * @param oldVersion       - existing version
+     * @param newVersion       - new version
+     * @param isDefaultVersion - check default version
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> copyAPIAsync(String provider, String apiName, String oldVersion,
+                                                        String newVersion, String isDefaultVersion) {
+        return executeAsync(() -> copyAPI(provider, apiName, oldVersion, newVersion, isDefaultVersion));
+    }
+
+    /**
+     * Asynchronous variant of {@link #changeAPILifeCycleStatus(APILifeCycleStateRequest)}
+     *
+     * @param updateRequest - APILifeCycleStateRequest object
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> changeAPILifeCycleStatusAsync(APILifeCycleStateRequest updateRequest) {
+        return executeAsync(() -> changeAPILifeCycleStatus(updateRequest));
+    }
+
+    /**
+     * Asynchronous variant of {@link #changeAPILifeCycleStatusToPublish(APIIdentifier, boolean)}
+     *
+     * @param apiIdentifier           - Instance of APIIdentifier
+     * @param isRequireReSubscription - true if Re-subscription is required else false.
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> changeAPILifeCycleStatusToPublishAsync(APIIdentifier apiIdentifier,
+                                                                                  boolean isRequireReSubscription) {
+        return executeAsync(() -> changeAPILifeCycleStatusToPublish(apiIdentifier, isRequireReSubscription));
+    }
+
+    /**
+     * Asynchronous variant of {@link #deleteAPI(String, String, String)}
+     *
+     * @param apiName  - API name
+     * @param version  - API version
+     * @param provider - name of the provider
+     * @return future of the http response
+     */
+    public CompletableFuture<HttpResponse> deleteAPIAsync(String apiName, String version, String provider) {
+        return executeAsync(() -> deleteAPI(apiName, version, provider));
+    }
+
+    /**
+     * Execute the given operation of this client asynchronously with the default timeout
+     *
+     * @param call - client operation, ex: () -> client.getAllAPIs()
+     * @param <T>  - result type
+     * @return - future which completes with the result of the operation
+     */
+    public <T> CompletableFuture<T> executeAsync(ClientCall<T> call) {
+        return getAsyncExecutor().submit(call);
+    }
+
+    /**
+     * Execute the given operation of this client asynchronously
+     *
+     * @param call    - client operation
+     * @param timeout - timeout of the operation
+     * @param unit    - time unit of the timeout
+     * @param <T>     - result type
+     * @return - future which completes with the result of the operation or fails with a TimeoutException
+     */
+    public <T> CompletableFuture<T> executeAsync(ClientCall<T> call, long timeout, TimeUnit unit) {
+        return getAsyncExecutor().submit(call, timeout, unit);
+    }
+
+    public void setAsyncExecutor(AsyncClientExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    private AsyncClientExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = AsyncClientExecutor.getSharedExecutor();
+        }
+        return asyncExecutor;
+    }
 }
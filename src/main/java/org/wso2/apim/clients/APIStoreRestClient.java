@@ -21,29 +21,57 @@ package org.wso2.apim.clients;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.apim.bean.APPKeyRequestGenerator;
 import org.wso2.apim.bean.SubscriptionRequest;
 import org.wso2.apim.exception.APIManagerIntegrationTestException;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.apim.http.HttpTransportFactory;
+import org.wso2.apim.json.JsonRecord;
+import org.wso2.apim.json.JsonRecordPath;
+import org.wso2.apim.json.JsonStreamExtractor;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.replay.TrafficRecorder;
+import org.wso2.apim.session.Session;
+import org.wso2.apim.session.SessionAwareHttpTransport;
+import org.wso2.apim.session.SessionKey;
+import org.wso2.apim.session.SessionRegistry;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides set of method to invoke publisher API
  */
 public class APIStoreRestClient {
     private static final Log log = LogFactory.getLog(APIStoreRestClient.class);
+    private static final JsonRecordPath APPLICATIONS_PATH = JsonRecordPath.of("applications").fields("name", "id");
     private String backendURL;
-    private Map<String, String> requestHeaders = new HashMap<String, String>();
+    private Map<String, String> requestHeaders = new ConcurrentHashMap<String, String>();
+    private SessionAwareHttpTransport httpTransport;
+    private AsyncClientExecutor asyncExecutor;
 
     public APIStoreRestClient(String backendURL) {
+        this(backendURL, HttpTransportFactory.getTransport());
+    }
+
+    /**
+     * Create store client which sends the requests through the given transport
+     *
+     * @param backendURL    - backend URL of the store Jaggery app
+     * @param httpTransport - transport used to send the requests
+     */
+    public APIStoreRestClient(String backendURL, HttpTransport httpTransport) {
         this.backendURL = backendURL;
+        HttpTransport recordingTransport = TrafficRecorder.getInstance().instrument(httpTransport);
+        this.httpTransport = new SessionAwareHttpTransport(ClientMetrics.getInstance().instrument(recordingTransport),
+                                                           SessionRegistry.getInstance());
         if (requestHeaders.get("Content-Type") == null) {
             this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
         }
@@ -57,12 +85,29 @@ public class APIStoreRestClient {
      * @return - http response
      * @throws org.wso2.am.integration.test.utils.APIManagerIntegrationTestException - Throws if login to store fails
      */
-    public HttpResponse login(String userName, String password)
+    public HttpResponse login(final String userName, final String password)
             throws APIManagerIntegrationTestException {
-        HttpResponse response;
         log.info("Login to Store " + backendURL + " as the user " + userName );
+        SessionKey sessionKey = SessionKey.forUser(backendURL, userName);
+        Session session = SessionRegistry.getInstance().getSession(sessionKey, password,
+                () -> createSession(userName, password));
+        setSession(session.getCookie());
+        httpTransport.bind(session.isAuthenticated() ? sessionKey : null);
+        return session.getLoginResponse();
+    }
+
+    /**
+     * Login to the store app without using the cached sessions
+     *
+     * @param userName - username to login
+     * @param password - password to login
+     * @return - session created by the login
+     * @throws APIManagerIntegrationTestException - Throws if the login request fails
+     */
+    private Session createSession(String userName, String password) throws APIManagerIntegrationTestException {
+        HttpResponse response;
         try {
-            response = HttpRequestUtil.doPost(
+            response = httpTransport.getDelegate().doPost(
                     new URL(backendURL + "store/site/blocks/user/login/ajax/login.jag"),
                     "action=login&username=" + userName + "&password=" + password + "",
                     requestHeaders);
@@ -75,9 +120,7 @@ public class APIStoreRestClient {
         if (session == null) {
             throw new APIManagerIntegrationTestException("No session cookie found with response");
         }
-
-        setSession(session);
-        return response;
+        return Session.fromJaggeryLogin(response, session);
     }
 
     /**
@@ -91,7 +134,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-add/ajax/subscription-add.jag"),
                     subscriptionRequest.generateRequestParameters(), requestHeaders);
         } catch (Exception e) {
@@ -114,7 +157,7 @@ public class APIStoreRestClient {
             String appId = getApplicationId(responseApp.getData(), generateAppKeyRequest.getApplication());
             generateAppKeyRequest.setAppId(appId);
 
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-add/ajax/subscription-add.jag"),
                     generateAppKeyRequest.generateRequestParameters(), requestHeaders);
 
@@ -133,7 +176,7 @@ public class APIStoreRestClient {
     public HttpResponse getAPI() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/api/listing/ajax/list.jag?action=getAllPublishedAPIs"),
                     "", requestHeaders);
         } catch (Exception e) {
@@ -184,7 +227,8 @@ public class APIStoreRestClient {
             authenticationRequestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
             authenticationRequestHeaders.put("Authorization", "Basic " + new String(encodedBytes, "UTF-8"));
 
-            return HttpRequestUtil.doPost(tokenEndpointURL, messageBody, authenticationRequestHeaders);
+            //The token endpoint does not use the store session, a 401 is not a session expiry
+            return httpTransport.getDelegate().doPost(tokenEndpointURL, messageBody, authenticationRequestHeaders);
 
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Unable to generate API access token ", e);
@@ -200,7 +244,7 @@ public class APIStoreRestClient {
     public HttpResponse getAllPublishedAPIs() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/api/listing/ajax/list.jag?action=getAllPublishedAPIs",
                     requestHeaders);
         } catch (Exception e) {
@@ -217,7 +261,7 @@ public class APIStoreRestClient {
     public HttpResponse getAllApplications() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/application/application-list/ajax/" +
                     "application-list.jag?action=getApplications",
                     requestHeaders);
@@ -238,7 +282,7 @@ public class APIStoreRestClient {
         try {
 
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/subscription/subscription-list/ajax/" +
                     "subscription-list.jag?action=getSubscriptionByApplication&app=" +
                     applicationName, requestHeaders);
@@ -264,7 +308,7 @@ public class APIStoreRestClient {
                                        String rating) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/api/api-info/ajax/api-info.jag?" +
                     "action=addRating&name=" + apiName + "&version=" + version + "&provider=" +
                     provider + "&rating=" + rating, requestHeaders);
@@ -287,7 +331,7 @@ public class APIStoreRestClient {
         try {
 
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/api/api-info/ajax/api-info.jag?" +
                     "action=removeRating&name=" + apiName + "&version=" + version +
                     "&provider=" + provider, requestHeaders);
@@ -307,7 +351,7 @@ public class APIStoreRestClient {
     public HttpResponse isRatingActivated() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/api/api-info/ajax/api-info.jag?" +
                     "action=isRatingActivated", requestHeaders);
         } catch (Exception e) {
@@ -328,7 +372,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/api/listing/ajax/list.jag?" +
                     "action=getAllDocumentationOfAPI&name=" + apiName +
                     "&version=" + version + "&provider=" + provider, requestHeaders);
@@ -353,7 +397,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(backendURL + "store/site/blocks/api/listing/ajax/list.jag?" +
+            return httpTransport.doGet(backendURL + "store/site/blocks/api/listing/ajax/list.jag?" +
                                          "action=getAllPaginatedPublishedAPIs&tenant=" + tenant +
                                          "&start=" + start + "&end=" + end, requestHeaders);
         } catch (Exception e) {
@@ -373,7 +417,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/api/listing/ajax/list.jag?action=getAllPublishedAPIs&tenant=" +
                             tenant), "", requestHeaders);
         } catch (Exception e) {
@@ -398,7 +442,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL +
                             "store/site/blocks/application/application-add" +
                             "/ajax/application-add.jag?action=addApplication&tier=" +
@@ -420,7 +464,7 @@ public class APIStoreRestClient {
     public HttpResponse getApplications() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/application/application-list/ajax/" +
                             "application-list.jag?action=getApplications"), "", requestHeaders);
         } catch (Exception e) {
@@ -440,7 +484,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/application/application-remove/ajax/application-remove.jag?" +
                             "action=removeApplication&application=" + application), "", requestHeaders);
         } catch (Exception e) {
@@ -465,7 +509,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/application/application-update/ajax/application-update.jag?" +
                             "action=updateApplication&applicationOld=" + applicationOld + "&applicationNew=" +
                             applicationNew + "&callbackUrlNew=" + callbackUrlNew + "&descriptionNew=" +
@@ -487,7 +531,7 @@ public class APIStoreRestClient {
     public HttpResponse getAllSubscriptions() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-list/ajax/subscription-list.jag?" +
                             "action=getAllSubscriptions"), "", requestHeaders);
         } catch (Exception e) {
@@ -511,7 +555,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-remove/ajax/subscription-remove.jag?" +
                             "action=removeSubscription&name=" + API + "&version=" + version + "&provider=" + provider +
                             "&applicationId=" + applicationId), "", requestHeaders);
@@ -531,7 +575,7 @@ public class APIStoreRestClient {
         try {
             checkAuthentication();
 
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/tag/tag-cloud/ajax/list.jag?action=getAllTags"),
                     "", requestHeaders);
 
@@ -556,7 +600,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/comment/comment-add/ajax/comment-add.jag?" +
                             "action=addComment&name=" + apiName + "&version=" + version + "&provider=" +
                             provider + "&comment=" + comment), "", requestHeaders);
@@ -574,7 +618,7 @@ public class APIStoreRestClient {
     public HttpResponse isCommentActivated() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return httpTransport.doGet(
                     backendURL + "store/site/blocks/comment/comment-add/ajax/comment-add.jag?" +
                     "action=isCommentActivated", requestHeaders);
         } catch (Exception e) {
@@ -594,7 +638,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return httpTransport.doPost(
                     new URL(backendURL + "store/site/blocks/api/" +
                             "recently-added/ajax/list.jag?action=getRecentlyAddedAPIs&tenant=" +
                             tenant + "&limit=" + limit), "", requestHeaders);
@@ -607,18 +651,11 @@ public class APIStoreRestClient {
     private String getApplicationId(String jsonStringOfApplications, String applicationName)
             throws APIManagerIntegrationTestException {
         String applicationId = null;
-        JSONObject obj;
-        try {
-            obj = new JSONObject(jsonStringOfApplications);
-            JSONArray arr = obj.getJSONArray("applications");
-            for (int i = 0; i < arr.length(); i++) {
-                String appName = arr.getJSONObject(i).getString("name");
-                if (applicationName.equals(appName)) {
-                    applicationId = arr.getJSONObject(i).getString("id");
-                }
+        for (JsonRecord application :
+                JsonStreamExtractor.extract(jsonStringOfApplications, APPLICATIONS_PATH).getRecords()) {
+            if (applicationName.equals(application.getString("name"))) {
+                applicationId = application.getString("id");
             }
-        } catch (JSONException e) {
-            throw new APIManagerIntegrationTestException("getting application Id failed ", e);
         }
         return applicationId;
     }
@@ -629,12 +666,15 @@ public class APIStoreRestClient {
      * @param apiTag - API tag the need ti filter the api.
      * @return HttpResponse - Response  that contains the web page with filtered API when  click the API Tag link
      * @throws APIManagerIntegrationTestException - Exception throws when check the Authentication and
-     * HttpRequestUtil.sendGetRequest() method call
+     * httpTransport.doGet() method call
      */
     public HttpResponse getAPIPageFilteredWithTags(String apiTag) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.sendGetRequest(backendURL + "/store/apis/list", "tag=" + apiTag + "&tenant=carbon.super");
+            //sent without the session of the client
+            return httpTransport.getDelegate().doGet(
+                    backendURL + "store/apis/list?tag=" + apiTag + "&tenant=carbon.super",
+                    new HashMap<String, String>());
         } catch (IOException ex) {
             throw new APIManagerIntegrationTestException("Exception when get APO page filtered by tag", ex);
         }
@@ -646,7 +686,7 @@ public class APIStoreRestClient {
      * @param subscriptionRequest -SubscriptionRequest request instance  with API subscription information.
      * @return HttpResponse - Response f the subscription server REST call
      * @throws APIManagerIntegrationTestException - Exception throws when check the Authentication and
-     *                                            HttpRequestUtil.doPost() method call.
+     *                                            httpTransport.doPost() method call.
      */
     public HttpResponse subscribeToAPI(SubscriptionRequest subscriptionRequest) throws APIManagerIntegrationTestException {
         //This method  do the same functionality as subscribe(), except this method  always returns the response object
@@ -654,7 +694,7 @@ public class APIStoreRestClient {
         // 200 or else it will return an Exception.
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(new URL(backendURL +
+            return httpTransport.doPost(new URL(backendURL +
                     "/store/site/blocks/subscription/subscription-add/ajax/subscription-add.jag")
                     , subscriptionRequest.generateRequestParameters(), requestHeaders);
         } catch (Exception ex) {
@@ -668,12 +708,12 @@ public class APIStoreRestClient {
 //     *
 //     * @param storeTenantDomain - Tenant domain of store that need to  get the page.
 //     * @return HttpResponse - Response with API store page of the provided domain.
-//     * @throws APIManagerIntegrationTestException - IOException throws from HttpRequestUtil.doGet() method call
+//     * @throws APIManagerIntegrationTestException - IOException throws from httpTransport.doGet() method call
 //     */
 //
 //    public HttpResponse getAPIStorePageAsAnonymousUser(String storeTenantDomain) throws APIManagerIntegrationTestException {
 //        try {
-//            return HttpRequestUtil.doGet(
+//            return httpTransport.doGet(
 //                    backendURL + "store/?tenant=" + storeTenantDomain, requestHeaders);
 //        } catch (Exception ioE) {
 //            throw new APIManagerIntegrationTestException(
@@ -683,8 +723,10 @@ public class APIStoreRestClient {
 
     public HttpResponse getAPIListFromStoreAsAnonymousUser(String tenantDomain) throws APIManagerIntegrationTestException {
         try {
-            HttpResponse httpResponse = HttpRequestUtil.sendGetRequest(backendURL + "store/site/blocks/api/recently-added/ajax/list.jag"
-                    , "action=getRecentlyAddedAPIs&tenant=" + tenantDomain);
+            //sent without the session of the client
+            HttpResponse httpResponse = httpTransport.getDelegate().doGet(
+                    backendURL + "store/site/blocks/api/recently-added/ajax/list.jag?action=getRecentlyAddedAPIs" +
+                    "&tenant=" + tenantDomain, new HashMap<String, String>());
 
             if(new JSONObject(httpResponse.getData()).getBoolean("error")){
                 throw new APIManagerIntegrationTestException("Error when getting API list as AsAnonymousUser");
@@ -700,4 +742,120 @@ public class APIStoreRestClient {
         }
     }
 
+    /**
+     * Asynchronous variant of {@link #addApplication(String, String, String, String)}
+     *
+     * @param application - application  name
+     * @param tier        - throttling tier
+     * @param callbackUrl - callback url
+     * @param description - description of app
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> addApplicationAsync(String application, String tier, String callbackUrl,
+                                                               String description) {
+        return executeAsync(() -> addApplication(application, tier, callbackUrl, description));
+    }
+
+    /**
+     * Asynchronous variant of {@link #removeApplication(String)}
+     *
+     * @param application - application name
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> removeApplicationAsync(String application) {
+        return executeAsync(() -> removeApplication(application));
+    }
+
+    /**
+     * Asynchronous variant of {@link #subscribe(SubscriptionRequest)}
+     *
+     * @param subscriptionRequest - subscribe api request
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> subscribeAsync(SubscriptionRequest subscriptionRequest) {
+        return executeAsync(() -> subscribe(subscriptionRequest));
+    }
+
+    /**
+     * Asynchronous variant of {@link #subscribeToAPI(SubscriptionRequest)}
+     *
+     * @param subscriptionRequest - SubscriptionRequest request instance  with API subscription information.
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> subscribeToAPIAsync(SubscriptionRequest subscriptionRequest) {
+        return executeAsync(() -> subscribeToAPI(subscriptionRequest));
+    }
+
+    /**
+     * Asynchronous variant of {@link #removeAPISubscription(String, String, String, String)}
+     *
+     * @param API           - name of api
+     * @param version       - api version
+     * @param provider      - provider name
+     * @param applicationId - application id
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> removeAPISubscriptionAsync(String API, String version, String provider,
+                                                                      String applicationId) {
+        return executeAsync(() -> removeAPISubscription(API, version, provider, applicationId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #generateApplicationKey(APPKeyRequestGenerator)}
+     *
+     * @param generateAppKeyRequest - generate api key request
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> generateApplicationKeyAsync(APPKeyRequestGenerator generateAppKeyRequest) {
+        return executeAsync(() -> generateApplicationKey(generateAppKeyRequest));
+    }
+
+    /**
+     * Asynchronous variant of {@link #generateUserAccessKey(String, String, String, URL)}
+     *
+     * @param consumeKey       - consumer  key of user
+     * @param consumerSecret   - consumer secret key
+     * @param messageBody      - message body
+     * @param tokenEndpointURL - token endpoint url
+     * @return - future of the http response
+     */
+    public CompletableFuture<HttpResponse> generateUserAccessKeyAsync(String consumeKey, String consumerSecret,
+                                                                      String messageBody, URL tokenEndpointURL) {
+        return executeAsync(() -> generateUserAccessKey(consumeKey, consumerSecret, messageBody, tokenEndpointURL));
+    }
+
+    /**
+     * Execute the given operation of this client asynchronously with the default timeout
+     *
+     * @param call - client operation, ex: () -> client.getAllAPIs()
+     * @param <T>  - result type
+     * @return - future which completes with the result of the operation
+     */
+    public <T> CompletableFuture<T> executeAsync(ClientCall<T> call) {
+        return getAsyncExecutor().submit(call);
+    }
+
+    /**
+     * Execute the given operation of this client asynchronously
+     *
+     * @param call    - client operation
+     * @param timeout - timeout of the operation
+     * @param unit    - time unit of the timeout
+     * @param <T>     - result type
+     * @return - future which completes with the result of the operation or fails with a TimeoutException
+     */
+    public <T> CompletableFuture<T> executeAsync(ClientCall<T> call, long timeout, TimeUnit unit) {
+        return getAsyncExecutor().submit(call, timeout, unit);
+    }
+
+    public void setAsyncExecutor(AsyncClientExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    private AsyncClientExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = AsyncClientExecutor.getSharedExecutor();
+        }
+        return asyncExecutor;
+    }
 }
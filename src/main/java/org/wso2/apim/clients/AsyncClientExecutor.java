@@ -0,0 +1,173 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.clients;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executes rest client operations on a bounded thread pool and exposes them as {@link CompletableFuture}s.
+ * When the queue of the pool is full the operation is rejected and its future is completed exceptionally with
+ * a {@link RejectedExecutionException}, so every operation runs on the pool and is guarded by its timeout.
+ * <p/>
+ * apim.client.async.threads=32
+ * apim.client.async.queueSize=1000
+ * apim.client.async.timeout=300000
+ */
+public class AsyncClientExecutor {
+
+    private static final Log log = LogFactory.getLog(AsyncClientExecutor.class);
+    public static final String THREADS_PROPERTY = "apim.client.async.threads";
+    public static final String QUEUE_SIZE_PROPERTY = "apim.client.async.queueSize";
+    public static final String TIMEOUT_PROPERTY = "apim.client.async.timeout";
+
+    private static volatile AsyncClientExecutor sharedExecutor;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final long defaultTimeoutMillis;
+
+    /**
+     * Create executor with the given bounds
+     *
+     * @param threads              - number of worker threads
+     * @param queueSize            - max number of queued operations
+     * @param defaultTimeoutMillis - timeout applied when no timeout is given for an operation
+     */
+    public AsyncClientExecutor(int threads, int queueSize, long defaultTimeoutMillis) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                               new ArrayBlockingQueue<Runnable>(queueSize),
+                                               new NamedThreadFactory("apim-client-async"),
+                                               new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutScheduler =
+                Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("apim-client-timeout"));
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    /**
+     * Get the executor shared by all the clients in this JVM
+     *
+     * @return - shared executor
+     */
+    public static AsyncClientExecutor getSharedExecutor() {
+        if (sharedExecutor == null) {
+            synchronized (AsyncClientExecutor.class) {
+                if (sharedExecutor == null) {
+                    int threads = Integer.getInteger(THREADS_PROPERTY, 32);
+                    int queueSize = Integer.getInteger(QUEUE_SIZE_PROPERTY, 1000);
+                    long timeout = Long.getLong(TIMEOUT_PROPERTY, 5 * 60 * 1000L);
+                    log.info("Creating async client executor with " + threads + " threads");
+                    sharedExecutor = new AsyncClientExecutor(threads, queueSize, timeout);
+                }
+            }
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Execute the operation asynchronously with the default timeout
+     *
+     * @param call - client operation
+     * @param <T>  - result type
+     * @return - future which completes with the result of the operation
+     */
+    public <T> CompletableFuture<T> submit(ClientCall<T> call) {
+        return submit(call, defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Execute the operation asynchronously. The returned future is completed exceptionally with a
+     * {@link TimeoutException} if the operation does not finish within the timeout, or with a
+     * {@link RejectedExecutionException} if the queue is full. The worker thread of a timed out operation is
+     * interrupted, but a blocking HTTP request does not react to the interrupt and only ends at the socket
+     * timeout of the transport, see {@link org.wso2.apim.http.HttpTransportConfiguration}, so it keeps its
+     * thread until then.
+     *
+     * @param call    - client operation
+     * @param timeout - timeout of the operation
+     * @param unit    - time unit of the timeout
+     * @param <T>     - result type
+     * @return - future which completes with the result of the operation
+     */
+    public <T> CompletableFuture<T> submit(ClientCall<T> call, long timeout, TimeUnit unit) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        applyTimeout(result, timeout, unit, task);
+        return result;
+    }
+
+    /**
+     * Complete the given future exceptionally if it is not completed within the timeout
+     *
+     * @param future  - future to guard
+     * @param timeout - timeout
+     * @param unit    - time unit of the timeout
+     * @param <T>     - result type
+     * @return - the given future
+     */
+    public <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        applyTimeout(future, timeout, unit, null);
+        return future;
+    }
+
+    private <T> void applyTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit, Future<?> task) {
+        if (timeout <= 0) {
+            return;
+        }
+        ScheduledFuture<?> timer = timeoutScheduler.schedule(() -> {
+            if (future.completeExceptionally(
+                    new TimeoutException("Client operation timed out after " + timeout + " " + unit)) && task != null) {
+                task.cancel(true);
+            }
+        }, timeout, unit);
+        future.whenComplete((value, error) -> timer.cancel(false));
+    }
+
+    /**
+     * Stop accepting new operations
+     */
+    public void shutdown() {
+        executor.shutdown();
+        timeoutScheduler.shutdown();
+    }
+}
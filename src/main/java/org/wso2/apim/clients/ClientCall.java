@@ -0,0 +1,37 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.clients;
+
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+
+/**
+ * A client operation which can be executed asynchronously with {@link AsyncClientExecutor}.
+ *
+ * @param <T> - result type of the operation
+ */
+public interface ClientCall<T> {
+
+    /**
+     * Execute the client operation
+     *
+     * @return - result of the operation
+     * @throws APIManagerIntegrationTestException - if the operation fails
+     */
+    T call() throws APIManagerIntegrationTestException;
+}
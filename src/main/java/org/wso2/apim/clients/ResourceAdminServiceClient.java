@@ -20,6 +20,8 @@ package org.wso2.apim.clients;
 import org.apache.axis2.AxisFault;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.metrics.MetricsHttpTransport;
 import org.wso2.apim.utils.AuthenticateStub;
 //import org.wso2.carbon.registry.info.stub.RegistryExceptionException;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceExceptionException;
@@ -27,6 +29,8 @@ import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceResourceServic
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceStub;
 import org.wso2.carbon.registry.resource.stub.beans.xsd.*;
 import org.wso2.carbon.registry.resource.stub.common.xsd.ResourceData;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.rmi.RemoteException;
 
 import javax.activation.DataHandler;
@@ -36,6 +40,7 @@ public class ResourceAdminServiceClient {
 
 	private final String serviceName = "ResourceAdminService";
 	private ResourceAdminServiceStub resourceAdminServiceStub;
+	private String node;
 
 	private static final String MEDIA_TYPE_WSDL = "application/wsdl+xml";
 	private static final String MEDIA_TYPE_WADL = "application/wadl+xml";
@@ -47,6 +52,7 @@ public class ResourceAdminServiceClient {
 	public ResourceAdminServiceClient(String serviceUrl, String sessionCookie) throws AxisFault {
 		String endPoint = serviceUrl + serviceName;
 		resourceAdminServiceStub = new ResourceAdminServiceStub(endPoint);
+		node = getNode(endPoint);
 		AuthenticateStub.authenticateStub(sessionCookie, resourceAdminServiceStub);
 	}
 
@@ -54,9 +60,39 @@ public class ResourceAdminServiceClient {
 			throws AxisFault {
 		String endPoint = backEndUrl + serviceName;
 		resourceAdminServiceStub = new ResourceAdminServiceStub(endPoint);
+		node = getNode(endPoint);
 		AuthenticateStub.authenticateStub(userName, password, resourceAdminServiceStub);
 	}
 
+	private static String getNode(String endPoint) {
+		try {
+			return MetricsHttpTransport.getNode(new URL(endPoint));
+		} catch (MalformedURLException e) {
+			return endPoint;
+		}
+	}
+
+	/**
+	 * Invoke the service and record the latency of the call in the {@link ClientMetrics}
+	 *
+	 * @param operation - name of the service operation
+	 * @param call      - invokes the service stub
+	 * @return - result of the call
+	 */
+	private <T> T timed(String operation, StubCall<T> call)
+			throws RemoteException, ResourceAdminServiceExceptionException {
+		long startTime = System.nanoTime();
+		boolean successful = false;
+		try {
+			T result = call.call();
+			successful = true;
+			return result;
+		} finally {
+			ClientMetrics.getInstance().record(node, serviceName + ":" + operation,
+			                                   System.nanoTime() - startTime, successful);
+		}
+	}
+
 	public boolean addResource(String destinationPath, String mediaType,
 	                           String description, DataHandler dh)
 			throws ResourceAdminServiceExceptionException, RemoteException {
@@ -65,14 +101,15 @@ public class ResourceAdminServiceClient {
 			log.debug("Destination Path :" + destinationPath);
 			log.debug("Media Type :" + mediaType);
 		}
-		return resourceAdminServiceStub
-				.addResource(destinationPath, mediaType, description, dh, null, null);
+		return timed("addResource", () -> resourceAdminServiceStub
+				.addResource(destinationPath, mediaType, description, dh, null, null));
 	}
 
 	public ResourceData[] getResource(String destinationPath)
 			throws ResourceAdminServiceExceptionException, RemoteException {
 		ResourceData[] rs;
-		rs = resourceAdminServiceStub.getResourceData(new String[] { destinationPath });
+		rs = timed("getResourceData",
+		           () -> resourceAdminServiceStub.getResourceData(new String[] { destinationPath }));
 		return rs;
 	}
 
@@ -81,7 +118,8 @@ public class ResourceAdminServiceClient {
 		CollectionContentBean collectionContentBean;
 
 		try {
-			collectionContentBean = resourceAdminServiceStub.getCollectionContent(destinationPath);
+			collectionContentBean = timed("getCollectionContent",
+			                              () -> resourceAdminServiceStub.getCollectionContent(destinationPath));
 		} catch (RemoteException e) {
 			log.error("Resource getting failed due to RemoteException : " + e);
 			throw new RemoteException("Resource getting failed due to RemoteException :",
@@ -100,7 +138,7 @@ public class ResourceAdminServiceClient {
 	public boolean deleteResource(String destinationPath)
 			throws ResourceAdminServiceExceptionException, RemoteException {
 
-		return resourceAdminServiceStub.delete(destinationPath);
+		return timed("delete", () -> resourceAdminServiceStub.delete(destinationPath));
 	}
 
 	public void addWSDL(String description, DataHandler dh)
@@ -183,8 +221,8 @@ public class ResourceAdminServiceClient {
 	public String addCollection(String parentPath, String collectionName,
 	                            String mediaType, String description)
 			throws ResourceAdminServiceExceptionException, RemoteException {
-		return resourceAdminServiceStub
-				.addCollection(parentPath, collectionName, mediaType, description);
+		return timed("addCollection", () -> resourceAdminServiceStub
+				.addCollection(parentPath, collectionName, mediaType, description));
 	}
 
 	public void addSymbolicLink(String parentPath, String name,
@@ -198,8 +236,11 @@ public class ResourceAdminServiceClient {
 	                            String mediaType, String description, String content)
 			throws RemoteException, ResourceAdminServiceExceptionException {
 
-		resourceAdminServiceStub.addTextResource(parentPath, fileName, mediaType,
-		                                         description, content);
+		timed("addTextResource", () -> {
+			resourceAdminServiceStub.addTextResource(parentPath, fileName, mediaType,
+			                                         description, content);
+			return null;
+		});
 	}
 
 	public void addResourcePermission(String pathToAuthorize,
@@ -215,20 +256,20 @@ public class ResourceAdminServiceClient {
 	public String getProperty(String resourcePath, String key)
 			throws RemoteException, ResourceAdminServiceExceptionException {
 
-		return resourceAdminServiceStub.getProperty(resourcePath, key);
+		return timed("getProperty", () -> resourceAdminServiceStub.getProperty(resourcePath, key));
 
 	}
 
 	public MetadataBean getMetadata(String resourcePath)
 			throws RemoteException, ResourceAdminServiceExceptionException {
 
-		return resourceAdminServiceStub.getMetadata(resourcePath);
+		return timed("getMetadata", () -> resourceAdminServiceStub.getMetadata(resourcePath));
 	}
 
 	public ContentBean getResourceContent(String resourcePath)
 			throws RemoteException, ResourceAdminServiceExceptionException {
 
-		return resourceAdminServiceStub.getContentBean(resourcePath);
+		return timed("getContentBean", () -> resourceAdminServiceStub.getContentBean(resourcePath));
 
 	}
 
@@ -236,7 +277,7 @@ public class ResourceAdminServiceClient {
 			throws RemoteException, ResourceAdminServiceExceptionException {
 		String[] resourceArray = { resourcePath };
 
-		return resourceAdminServiceStub.getResourceData(resourceArray);
+		return timed("getResourceData", () -> resourceAdminServiceStub.getResourceData(resourceArray));
 
 	}
 
@@ -263,7 +304,10 @@ public class ResourceAdminServiceClient {
 	public void updateTextContent(String path, String content)
 			throws RemoteException, ResourceAdminServiceExceptionException {
 		try {
-			resourceAdminServiceStub.updateTextContent(path, content);
+			timed("updateTextContent", () -> {
+				resourceAdminServiceStub.updateTextContent(path, content);
+				return null;
+			});
 		} catch (RemoteException e) {
 			log.error("Cannot edit the content of the resource : " + e.getMessage());
 			throw new RemoteException("Edit content error : ", e);
@@ -383,7 +427,7 @@ public class ResourceAdminServiceClient {
 			throws RemoteException, ResourceAdminServiceExceptionException {
 		String content = null;
 		try {
-			content = resourceAdminServiceStub.getTextContent(path);
+			content = timed("getTextContent", () -> resourceAdminServiceStub.getTextContent(path));
 		} catch (RemoteException e) {
 			log.error("Unable get content : " + e.getMessage());
 			throw new RemoteException("Restore version error : ", e);
@@ -522,4 +566,10 @@ public class ResourceAdminServiceClient {
 //		}
 //	}
 
+	/**
+	 * Call of a resource admin service operation
+	 */
+	private interface StubCall<T> {
+		T call() throws RemoteException, ResourceAdminServiceExceptionException;
+	}
 }
@@ -17,7 +17,10 @@
 */
 package org.wso2.apim.clients;
 
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.apim.http.HttpTransportFactory;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.replay.TrafficRecorder;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
 import java.net.URL;
@@ -33,9 +36,22 @@ public class WorkFlowAdminRestClient {
 	 private String backEndUrl;
 	    private static final String URL_SURFIX = "/admin-dashboard/site/blocks";
 	    private Map<String, String> requestHeaders = new HashMap<String, String>();
+	    private HttpTransport httpTransport;
 
 	    public WorkFlowAdminRestClient(String backEndUrl) {
+	        this(backEndUrl, HttpTransportFactory.getTransport());
+	    }
+
+	    /**
+	     * Create workflow admin client which sends the requests through the given transport
+	     *
+	     * @param backEndUrl    - backend URL of the admin dashboard Jaggery app
+	     * @param httpTransport - transport used to send the requests
+	     */
+	    public WorkFlowAdminRestClient(String backEndUrl, HttpTransport httpTransport) {
 	        this.backEndUrl = backEndUrl;
+	        this.httpTransport = ClientMetrics.getInstance().instrument(
+	                TrafficRecorder.getInstance().instrument(httpTransport));
 	        if (requestHeaders.get("Content-Type") == null) {
 	            this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
 	        }
@@ -43,7 +59,7 @@ public class WorkFlowAdminRestClient {
 
 	    public HttpResponse login(String userName, String password)
 	            throws Exception {
-	        HttpResponse response = HttpRequestUtil.doPost(new URL(backEndUrl + URL_SURFIX + "/user/login/ajax/login.jag")
+	        HttpResponse response = httpTransport.doPost(new URL(backEndUrl + URL_SURFIX + "/user/login/ajax/login.jag")
                     , "action=login&username=" + userName + "&password=" + password + "", requestHeaders);
 	        if (response.getResponseCode() == 200) {
 	            //VerificationUtil.checkErrors(response);
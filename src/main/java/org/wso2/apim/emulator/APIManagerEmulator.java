@@ -0,0 +1,427 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.emulator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the store, publisher and admin dashboard Jaggery apps, so the provisioning engines and
+ * load generators of the harness can be measured without a cluster. It implements the actions of the
+ * site/blocks Jaggery files used by {@link org.wso2.apim.clients.APIStoreRestClient},
+ * {@link org.wso2.apim.clients.APIPublisherRestClient} and {@link org.wso2.apim.clients.WorkFlowAdminRestClient}
+ * on the in-memory {@link EmulatorState}, answering with the same JSON fields the clients and tests read. The
+ * actions are dispatched on the app and the action parameter, the Jaggery file of the path is not checked.
+ * <p/>
+ * A login creates a JSESSIONID session, which is accepted by all the apps.
+ * Requests without a valid session are answered with the timeout message of the Jaggery apps, so the session
+ * renewal of the clients can be exercised with {@link #invalidateSessions()}. The configured latency is added
+ * without holding a worker thread and the configured fraction of the requests is answered with 500. The
+ * gateway and the key manager are not emulated.
+ */
+public class APIManagerEmulator {
+
+    private static final Log log = LogFactory.getLog(APIManagerEmulator.class);
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String JSON = "application/json";
+    private static final String HTML = "text/html";
+    private static final String LOGIN_PATH = "/user/login/ajax/login.jag";
+    private static final String LOGIN_SUCCESS = "{\"error\" : false}";
+    private static final String LOGIN_FAILURE = "{\"error\" : true, \"message\" : \"Invalid username or password\"}";
+    private static final Pattern SESSION_ID = Pattern.compile("JSESSIONID=([^;\\s]+)");
+    private static final Pattern SLASHES = Pattern.compile("/{2,}");
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static APIManagerEmulator sharedInstance;
+
+    private final EmulatorConfiguration configuration;
+    private final EmulatorState state = new EmulatorState();
+    private final Map<String, Action> actions = new HashMap<String, Action>();
+    private final Map<String, Action> anonymousActions = new HashMap<String, Action>();
+    private final Map<String, String> sessions = new ConcurrentHashMap<String, String>();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private HttpServer server;
+    private ExecutorService workers;
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param configuration - emulator configuration
+     */
+    public APIManagerEmulator(EmulatorConfiguration configuration) {
+        this.configuration = configuration;
+        actions.put("publisher:addAPI", state::addAPI);
+        actions.put("publisher:updateAPI", state::updateAPI);
+        actions.put("publisher:createNewAPI", state::copyAPI);
+        actions.put("publisher:updateStatus", state::updateStatus);
+        actions.put("publisher:getAPI", state::getAPI);
+        actions.put("publisher:getAllAPIs", state::getAllAPIs);
+        actions.put("publisher:removeAPI", state::removeAPI);
+        actions.put("publisher:addDocumentation", state::addDocumentation);
+        actions.put("publisher:removeDocumentation", state::removeDocumentation);
+        actions.put("publisher:revokeAccessToken", state::revokeAccessToken);
+        actions.put("publisher:updatePermissions", state::updatePermissions);
+        actions.put("publisher:manage", state::updateResources);
+        actions.put("publisher:isURLValid", state::validateURL);
+        actions.put("store:addAPISubscription", state::subscribe);
+        actions.put("store:generateApplicationKey", state::generateApplicationKey);
+        actions.put("store:getAllDocumentationOfAPI", state::getDocumentation);
+        actions.put("store:addRating", state::addRating);
+        actions.put("store:removeRating", state::removeRating);
+        actions.put("store:addComment", state::addComment);
+        actions.put("store:getApplications", state::getApplications);
+        actions.put("store:addApplication", state::addApplication);
+        actions.put("store:removeApplication", state::removeApplication);
+        actions.put("store:updateApplication", state::updateApplication);
+        actions.put("store:getAllSubscriptions", state::getAllSubscriptions);
+        actions.put("store:getSubscriptionByApplication", state::getSubscriptionsByApplication);
+        actions.put("store:removeSubscription", state::removeSubscription);
+        anonymousActions.put("store:getAllPublishedAPIs", state::getPublishedAPIs);
+        anonymousActions.put("store:getAllPaginatedPublishedAPIs", state::getPaginatedPublishedAPIs);
+        anonymousActions.put("store:getRecentlyAddedAPIs", state::getRecentlyAddedAPIs);
+        anonymousActions.put("store:getAllTags", state::getAllTags);
+        anonymousActions.put("store:isRatingActivated", state::isFeatureActivated);
+        anonymousActions.put("store:isCommentActivated", state::isFeatureActivated);
+    }
+
+    /**
+     * Get the emulator shared in this JVM, started on the first call with the configuration of the system
+     * properties
+     *
+     * @return - started emulator
+     * @throws APIManagerIntegrationTestException - if the emulator cannot be started
+     */
+    public static synchronized APIManagerEmulator getInstance() throws APIManagerIntegrationTestException {
+        if (sharedInstance == null) {
+            APIManagerEmulator emulator = new APIManagerEmulator(EmulatorConfiguration.fromSystemProperties());
+            emulator.start();
+            sharedInstance = emulator;
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Start listening
+     *
+     * @throws APIManagerIntegrationTestException - if the port cannot be bound
+     */
+    public synchronized void start() throws APIManagerIntegrationTestException {
+        if (server != null) {
+            return;
+        }
+        //see EmbeddedBackend, without TCP_NODELAY every response of a reused connection waits for the delayed ACK
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(configuration.getPort()), 1024);
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException(
+                    "Unable to start the API Manager emulator on port " + configuration.getPort(), e);
+        }
+        workers = Executors.newFixedThreadPool(configuration.getWorkers(), new NamedThreadFactory("apim-emulator"));
+        timer = Executors.newScheduledThreadPool(2, new NamedThreadFactory("apim-emulator-timer"));
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("API Manager emulator started at " + getBaseURL());
+    }
+
+    /**
+     * Stop listening and close the open connections
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        timer.shutdownNow();
+        workers.shutdownNow();
+        server = null;
+        log.info("API Manager emulator stopped after " + requestCount.sum() + " requests");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Get the URL to create the rest clients with, in the same way as the web app URL of a node
+     *
+     * @return - URL of the emulator ending with a slash
+     */
+    public String getBaseURL() {
+        return "http://" + configuration.getHost() + ":" + getPort() + "/";
+    }
+
+    public EmulatorState getState() {
+        return state;
+    }
+
+    public EmulatorConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * @return - number of requests answered with an injected error
+     */
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * Expire all the login sessions, the next request of every client is answered with the Jaggery timeout
+     */
+    public void invalidateSessions() {
+        sessions.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.increment();
+        Response response;
+        try {
+            Map<String, String> parameters = new HashMap<String, String>();
+            parseForm(exchange.getRequestURI().getRawQuery(), parameters);
+            parseForm(new String(readBody(exchange.getRequestBody()), StandardCharsets.UTF_8), parameters);
+            double errorRate = configuration.getErrorRate();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errorCount.increment();
+                response = new Response(500, HTML, "<html><body>Injected by the API Manager emulator</body></html>");
+            } else {
+                String path = SLASHES.matcher(exchange.getRequestURI().getPath()).replaceAll("/");
+                response = dispatch(path, parameters, exchange.getRequestHeaders().getFirst("Cookie"));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to handle " + exchange.getRequestURI(), e);
+            response = new Response(500, HTML, "<html><body>" + e + "</body></html>");
+        }
+        long delayMicros = configuration.getLatencyDistribution()
+                                        .nextDelayMicros(Math.round(configuration.getLatencyMillis() * 1000));
+        final Response delayedResponse = response;
+        if (delayMicros <= 0) {
+            send(exchange, response);
+        } else {
+            timer.schedule(() -> send(exchange, delayedResponse), delayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private Response dispatch(String path, Map<String, String> parameters, String cookie) throws IOException {
+        int appEnd = path.indexOf('/', 1);
+        String app = appEnd > 0 ? path.substring(1, appEnd) : path.substring(1);
+        if (!"store".equals(app) && !"publisher".equals(app) && !"admin-dashboard".equals(app)) {
+            return new Response(404, HTML, "<html><body>Not found " + path + "</body></html>");
+        }
+        String action = parameters.get("action");
+        if (path.endsWith(LOGIN_PATH)) {
+            return "login".equals(action) ? login(app, parameters) : logout(cookie);
+        }
+        String user = getUser(cookie);
+        if (!path.endsWith(".jag") || path.contains("/site/pages/")) {
+            //pages are only checked for the status code
+            return new Response(200, HTML, "<html><body>" + path + "</body></html>");
+        }
+        Action handler = anonymousActions.get(app + ":" + action);
+        if (handler == null) {
+            handler = actions.get(app + ":" + action);
+            if (handler != null && user == null) {
+                return toJson(EmulatorState.error("timeout"));
+            }
+        }
+        if (handler == null) {
+            return toJson(EmulatorState.error("Unsupported action " + action + " of " + path));
+        }
+        return toJson(handler.handle(user, parameters));
+    }
+
+    private Response login(String app, Map<String, String> parameters) {
+        String userName = parameters.get("username");
+        String sessionId = UUID.randomUUID().toString().replace("-", "").toUpperCase();
+        Response response;
+        //the Jaggery apps set a session cookie for failed logins as well
+        if (configuration.isValidLogin(userName, parameters.get("password"))) {
+            sessions.put(sessionId, userName);
+            response = new Response(200, JSON, LOGIN_SUCCESS);
+        } else {
+            response = new Response(200, JSON, LOGIN_FAILURE);
+        }
+        response.cookie = "JSESSIONID=" + sessionId + "; Path=/" + app + "; HttpOnly";
+        return response;
+    }
+
+    private Response logout(String cookie) throws IOException {
+        Matcher matcher = cookie != null ? SESSION_ID.matcher(cookie) : null;
+        if (matcher != null && matcher.find()) {
+            sessions.remove(matcher.group(1));
+        }
+        return toJson(EmulatorState.success());
+    }
+
+    private String getUser(String cookie) {
+        if (cookie == null) {
+            return null;
+        }
+        Matcher matcher = SESSION_ID.matcher(cookie);
+        return matcher.find() ? sessions.get(matcher.group(1)) : null;
+    }
+
+    private void send(HttpExchange exchange, Response response) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            if (response.cookie != null) {
+                exchange.getResponseHeaders().set("Set-Cookie", response.cookie);
+            }
+            exchange.sendResponseHeaders(response.status, response.body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response.body);
+            }
+        } catch (IOException e) {
+            log.debug("Unable to send the response of " + exchange.getRequestURI(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Response toJson(Map<String, Object> responseObject) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            writeValue(generator, responseObject);
+        }
+        return new Response(200, JSON, outputStream.toByteArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> field : ((Map<String, Object>) value).entrySet()) {
+                generator.writeFieldName(field.getKey());
+                writeValue(generator, field.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object element : (Collection<Object>) value) {
+                writeValue(generator, element);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Decode the form encoded parameters, the parameters of the body override those of the query
+     */
+    private static void parseForm(String form, Map<String, String> parameters) throws UnsupportedEncodingException {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int separatorIndex = pair.indexOf('=');
+            String name = separatorIndex < 0 ? pair : pair.substring(0, separatorIndex);
+            String value = separatorIndex < 0 ? "" : pair.substring(separatorIndex + 1);
+            if (!name.isEmpty()) {
+                parameters.put(decode(name), decode(value));
+            }
+        }
+    }
+
+    /**
+     * The clients send some of the values without encoding them, those are kept as they are
+     */
+    private static String decode(String value) throws UnsupportedEncodingException {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static byte[] readBody(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Jaggery action on the state
+     */
+    private interface Action {
+        Map<String, Object> handle(String user, Map<String, String> parameters);
+    }
+
+    private static class Response {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private String cookie;
+
+        private Response(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        private Response(int status, String contentType, String body) {
+            this(status, contentType, body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.emulator;
+
+import org.wso2.apim.backend.LatencyDistribution;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuration of the {@link APIManagerEmulator}. Values are read from system properties, so they can be given
+ * with -D options to the surefire JVM. The users are given as user:password pairs separated by commas, any
+ * user with a non empty password can login if no users are given.
+ * <p/>
+ * apim.emulator.host=localhost
+ * apim.emulator.port=0
+ * apim.emulator.workers=16
+ * apim.emulator.latency=0
+ * apim.emulator.latencyDistribution=constant|uniform|exponential
+ * apim.emulator.errorRate=0
+ * apim.emulator.users=
+ */
+public class EmulatorConfiguration {
+
+    public static final String HOST_PROPERTY = "apim.emulator.host";
+    public static final String PORT_PROPERTY = "apim.emulator.port";
+    public static final String WORKERS_PROPERTY = "apim.emulator.workers";
+    public static final String LATENCY_PROPERTY = "apim.emulator.latency";
+    public static final String LATENCY_DISTRIBUTION_PROPERTY = "apim.emulator.latencyDistribution";
+    public static final String ERROR_RATE_PROPERTY = "apim.emulator.errorRate";
+    public static final String USERS_PROPERTY = "apim.emulator.users";
+
+    private String host = "localhost";
+    private int port = 0;
+    private int workers = 16;
+    private double latencyMillis = 0;
+    private LatencyDistribution latencyDistribution = LatencyDistribution.CONSTANT;
+    private double errorRate = 0;
+    private final Map<String, String> users = new LinkedHashMap<String, String>();
+
+    /**
+     * Build the configuration from the system properties, falling back to the defaults
+     *
+     * @return - emulator configuration
+     */
+    public static EmulatorConfiguration fromSystemProperties() {
+        EmulatorConfiguration configuration = new EmulatorConfiguration();
+        configuration.setHost(System.getProperty(HOST_PROPERTY, configuration.getHost()));
+        configuration.setPort(Integer.getInteger(PORT_PROPERTY, configuration.getPort()));
+        configuration.setWorkers(Integer.getInteger(WORKERS_PROPERTY, configuration.getWorkers()));
+        configuration.setLatencyMillis(Double.parseDouble(
+                System.getProperty(LATENCY_PROPERTY, String.valueOf(configuration.getLatencyMillis()))));
+        String latencyDistribution =
+                System.getProperty(LATENCY_DISTRIBUTION_PROPERTY, configuration.getLatencyDistribution().name());
+        configuration.setLatencyDistribution(
+                LatencyDistribution.valueOf(latencyDistribution.toUpperCase(Locale.ENGLISH)));
+        configuration.setErrorRate(Double.parseDouble(
+                System.getProperty(ERROR_RATE_PROPERTY, String.valueOf(configuration.getErrorRate()))));
+        String users = System.getProperty(USERS_PROPERTY, "");
+        for (String user : users.split(",")) {
+            int separatorIndex = user.indexOf(':');
+            if (separatorIndex > 0) {
+                configuration.addUser(user.substring(0, separatorIndex).trim(), user.substring(separatorIndex + 1));
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * @return - host name put in the URLs of the emulator
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @param port - port to listen on, 0 for any free port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * @return - mean latency added to every response in milliseconds
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(double latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public LatencyDistribution getLatencyDistribution() {
+        return latencyDistribution;
+    }
+
+    public void setLatencyDistribution(LatencyDistribution latencyDistribution) {
+        this.latencyDistribution = latencyDistribution;
+    }
+
+    /**
+     * @return - fraction of the requests answered with 500
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Allow the user to login with the password. Once a user is added only the added users can login
+     *
+     * @param userName - user name, optionally with the tenant domain
+     * @param password - password of the user
+     */
+    public void addUser(String userName, String password) {
+        users.put(userName, password);
+    }
+
+    /**
+     * Check the credentials of a login
+     *
+     * @param userName - user name
+     * @param password - password
+     * @return - true if the user can login with the password
+     */
+    public boolean isValidLogin(String userName, String password) {
+        if (userName == null || userName.isEmpty() || password == null || password.isEmpty()) {
+            return false;
+        }
+        return users.isEmpty() || password.equals(users.get(userName));
+    }
+}
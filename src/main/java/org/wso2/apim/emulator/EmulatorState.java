@@ -0,0 +1,788 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.emulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * In-memory state of the {@link APIManagerEmulator}: the APIs with their lifecycle history and documents, and
+ * the applications of each user with their subscriptions and keys. Every operation takes the user of the
+ * session and the request parameters of the Jaggery action and returns the response object, which reports
+ * failures with the error and message fields in the same way as the Jaggery apps. Every user has the default
+ * application. Operations are serialized
+ * on the state, which is not the bottleneck next to the HTTP handling.
+ */
+public class EmulatorState {
+
+    public static final String SUPER_TENANT_DOMAIN = "carbon.super";
+    public static final String DEFAULT_APPLICATION = "DefaultApplication";
+    private static final String CREATED = "CREATED";
+    private static final String PUBLISHED = "PUBLISHED";
+    private static final String[] LIFECYCLE_STATES = {CREATED, PUBLISHED, "DEPRECATED", "BLOCKED", "RETIRED",
+                                                      "PROTOTYPED"};
+
+    private final Map<String, EmulatedAPI> apis = new LinkedHashMap<String, EmulatedAPI>();
+    private final Map<String, Map<String, EmulatedApplication>> applications =
+            new HashMap<String, Map<String, EmulatedApplication>>();
+    private final Map<String, String> tierPermissions = new HashMap<String, String>();
+    private int applicationSequence;
+
+    public synchronized int getAPICount() {
+        return apis.size();
+    }
+
+    public synchronized int getApplicationCount() {
+        int count = 0;
+        for (Map<String, EmulatedApplication> userApplications : applications.values()) {
+            count += userApplications.size();
+        }
+        return count;
+    }
+
+    public synchronized int getSubscriptionCount() {
+        int count = 0;
+        for (Map<String, EmulatedApplication> userApplications : applications.values()) {
+            for (EmulatedApplication application : userApplications.values()) {
+                count += application.subscriptions.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Remove all the APIs and applications
+     */
+    public synchronized void clear() {
+        apis.clear();
+        applications.clear();
+        tierPermissions.clear();
+    }
+
+    //publisher actions
+
+    synchronized Map<String, Object> addAPI(String user, Map<String, String> parameters) {
+        String provider = getProvider(user, parameters);
+        String name = parameters.get("name");
+        String version = parameters.get("version");
+        String context = parameters.get("context");
+        if (isEmpty(name) || isEmpty(version) || isEmpty(context)) {
+            return error("The name, version and context of the API are required");
+        }
+        String key = apiKey(provider, name, version);
+        if (apis.containsKey(key)) {
+            return error("Error occurred while adding the API. A duplicate API already exists for " + key);
+        }
+        String tenantDomain = getTenantDomain(user);
+        context = context.startsWith("/") ? context : "/" + context;
+        for (EmulatedAPI api : apis.values()) {
+            if (api.tenantDomain.equals(tenantDomain) && api.context.equals(context) && !api.name.equals(name)) {
+                return error("Error occurred while adding the API. A duplicate API context already exists for " +
+                             context);
+            }
+        }
+        EmulatedAPI api = new EmulatedAPI(name, version, provider, context, tenantDomain);
+        api.update(parameters);
+        apis.put(key, api);
+        return success();
+    }
+
+    synchronized Map<String, Object> updateAPI(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(getProvider(user, parameters), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("name"));
+        }
+        api.update(parameters);
+        return success();
+    }
+
+    synchronized Map<String, Object> copyAPI(String user, Map<String, String> parameters) {
+        String provider = getProvider(user, parameters);
+        String name = parameters.get("apiName");
+        EmulatedAPI api = apis.get(apiKey(provider, name, parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + name);
+        }
+        String newVersion = parameters.get("newVersion");
+        String key = apiKey(provider, name, newVersion);
+        if (isEmpty(newVersion) || apis.containsKey(key)) {
+            return error("Error occurred while copying the API. A duplicate API already exists for " + key);
+        }
+        apis.put(key, api.copy(newVersion));
+        return success();
+    }
+
+    synchronized Map<String, Object> updateStatus(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(getProvider(user, parameters), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("name"));
+        }
+        String status = parameters.get("status");
+        boolean validState = false;
+        for (String state : LIFECYCLE_STATES) {
+            validState |= state.equals(status);
+        }
+        if (!validState) {
+            return error("Invalid lifecycle state " + status);
+        }
+        if (!status.equals(api.status)) {
+            //strictly increasing dates, the tests take the latest entry as the one with the greatest date
+            long date = Math.max(System.currentTimeMillis(), api.lastLifecycleChange + 1);
+            Map<String, Object> change = new LinkedHashMap<String, Object>();
+            change.put("oldStatus", api.status);
+            change.put("newStatus", status);
+            change.put("date", date);
+            change.put("username", user);
+            api.lifecycleHistory.add(change);
+            api.lastLifecycleChange = date;
+            api.status = status;
+        }
+        Map<String, Object> response = success();
+        response.put("lcs", new ArrayList<Map<String, Object>>(api.lifecycleHistory));
+        return response;
+    }
+
+    synchronized Map<String, Object> getAPI(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(getProvider(user, parameters), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("name"));
+        }
+        Map<String, Object> response = success();
+        response.put("api", api.toPublisherView());
+        return response;
+    }
+
+    synchronized Map<String, Object> getAllAPIs(String user, Map<String, String> parameters) {
+        List<Map<String, Object>> tenantAPIs = new ArrayList<Map<String, Object>>();
+        String tenantDomain = getTenantDomain(user);
+        for (EmulatedAPI api : apis.values()) {
+            if (api.tenantDomain.equals(tenantDomain)) {
+                tenantAPIs.add(api.toPublisherView());
+            }
+        }
+        Map<String, Object> response = success();
+        response.put("apis", tenantAPIs);
+        return response;
+    }
+
+    synchronized Map<String, Object> removeAPI(String user, Map<String, String> parameters) {
+        String key = apiKey(getProvider(user, parameters), parameters.get("name"), parameters.get("version"));
+        if (!apis.containsKey(key)) {
+            return error("API not found " + key);
+        }
+        for (Map<String, EmulatedApplication> userApplications : applications.values()) {
+            for (EmulatedApplication application : userApplications.values()) {
+                if (application.subscriptions.containsKey(key)) {
+                    return error("Cannot remove the API as active subscriptions exist for " + key);
+                }
+            }
+        }
+        apis.remove(key);
+        return success();
+    }
+
+    synchronized Map<String, Object> addDocumentation(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(getProvider(user, parameters), parameters.get("apiName"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("apiName"));
+        }
+        String docName = parameters.get("docName");
+        if (isEmpty(docName) || api.documents.containsKey(docName)) {
+            return error("A document with the name " + docName + " already exists");
+        }
+        Map<String, Object> document = new LinkedHashMap<String, Object>();
+        document.put("name", docName);
+        document.put("type", parameters.get("docType"));
+        document.put("sourceType", parameters.get("sourceType"));
+        document.put("summary", parameters.get("summary"));
+        api.documents.put(docName, document);
+        return success();
+    }
+
+    synchronized Map<String, Object> removeDocumentation(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(getProvider(user, parameters), parameters.get("apiName"),
+                                          parameters.get("version")));
+        if (api == null || api.documents.remove(parameters.get("docName")) == null) {
+            return error("Document not found " + parameters.get("docName"));
+        }
+        return success();
+    }
+
+    synchronized Map<String, Object> revokeAccessToken(String user, Map<String, String> parameters) {
+        String accessToken = parameters.get("accessToken");
+        for (Map<String, EmulatedApplication> userApplications : applications.values()) {
+            for (EmulatedApplication application : userApplications.values()) {
+                for (Map<String, Object> key : application.keys.values()) {
+                    if (accessToken != null && accessToken.equals(key.get("accessToken"))) {
+                        key.put("accessToken", newToken());
+                        return success();
+                    }
+                }
+            }
+        }
+        return error("Access token not found");
+    }
+
+    synchronized Map<String, Object> updatePermissions(String user, Map<String, String> parameters) {
+        if (isEmpty(parameters.get("tierName"))) {
+            return error("Tier name is required");
+        }
+        tierPermissions.put(parameters.get("tierName"), parameters.get("permissiontype") + ":" +
+                                                        parameters.get("roles"));
+        return success();
+    }
+
+    synchronized Map<String, Object> updateResources(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(getProvider(user, parameters), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("name"));
+        }
+        api.swagger = parameters.get("swagger");
+        return success();
+    }
+
+    Map<String, Object> validateURL(String user, Map<String, String> parameters) {
+        Map<String, Object> response = success();
+        response.put("response", isEmpty(parameters.get("url")) ? "Invalid" : "success");
+        return response;
+    }
+
+    //store actions
+
+    synchronized Map<String, Object> subscribe(String user, Map<String, String> parameters) {
+        String key = apiKey(parameters.get("provider"), parameters.get("name"), parameters.get("version"));
+        EmulatedAPI api = apis.get(key);
+        if (api == null || !PUBLISHED.equals(api.status)) {
+            return error("Error while adding the subscription. API is not published " + key);
+        }
+        EmulatedApplication application = findApplication(getApplications(user), parameters.get("applicationName"));
+        if (application == null) {
+            return error("Error while adding the subscription. Application not found " +
+                         parameters.get("applicationName"));
+        }
+        if (application.subscriptions.containsKey(key)) {
+            return error("Error while adding the subscription. Subscription already exists for " + key);
+        }
+        application.subscriptions.put(key, parameters.get("tier"));
+        Map<String, Object> response = success();
+        response.put("status", "UNBLOCKED");
+        return response;
+    }
+
+    synchronized Map<String, Object> generateApplicationKey(String user, Map<String, String> parameters) {
+        EmulatedApplication application = findApplication(getApplications(user), parameters.get("application"));
+        if (application == null) {
+            return error("Application not found " + parameters.get("application"));
+        }
+        String keyType = isEmpty(parameters.get("keytype")) ? "PRODUCTION" : parameters.get("keytype");
+        Map<String, Object> key = application.keys.get(keyType);
+        if (key == null) {
+            key = new LinkedHashMap<String, Object>();
+            key.put("consumerKey", newToken());
+            key.put("consumerSecret", newToken());
+            key.put("accessToken", newToken());
+            key.put("validityTime", parameters.get("validityTime"));
+            key.put("keyState", "COMPLETED");
+            key.put("tokenScope", "am_application_scope default");
+            application.keys.put(keyType, key);
+        }
+        Map<String, Object> data = new LinkedHashMap<String, Object>();
+        data.put("key", new LinkedHashMap<String, Object>(key));
+        Map<String, Object> response = success();
+        response.put("data", data);
+        return response;
+    }
+
+    synchronized Map<String, Object> getPublishedAPIs(String user, Map<String, String> parameters) {
+        List<Map<String, Object>> publishedAPIs = new ArrayList<Map<String, Object>>();
+        for (EmulatedAPI api : getPublishedAPIs(getTenantDomain(user, parameters))) {
+            publishedAPIs.add(api.toStoreView());
+        }
+        Map<String, Object> response = success();
+        response.put("apis", publishedAPIs);
+        return response;
+    }
+
+    synchronized Map<String, Object> getPaginatedPublishedAPIs(String user, Map<String, String> parameters) {
+        List<EmulatedAPI> tenantAPIs = getPublishedAPIs(getTenantDomain(user, parameters));
+        int start = Math.min(parseInt(parameters.get("start"), 0), tenantAPIs.size());
+        int end = Math.min(start + parseInt(parameters.get("end"), tenantAPIs.size()), tenantAPIs.size());
+        List<Map<String, Object>> page = new ArrayList<Map<String, Object>>();
+        for (EmulatedAPI api : tenantAPIs.subList(start, end)) {
+            page.add(api.toStoreView());
+        }
+        Map<String, Object> response = success();
+        response.put("apis", page);
+        response.put("totalLength", tenantAPIs.size());
+        return response;
+    }
+
+    synchronized Map<String, Object> getRecentlyAddedAPIs(String user, Map<String, String> parameters) {
+        List<EmulatedAPI> tenantAPIs = getPublishedAPIs(getTenantDomain(user, parameters));
+        Collections.reverse(tenantAPIs);
+        int limit = Math.min(parseInt(parameters.get("limit"), tenantAPIs.size()), tenantAPIs.size());
+        List<Map<String, Object>> recentAPIs = new ArrayList<Map<String, Object>>();
+        for (EmulatedAPI api : tenantAPIs.subList(0, limit)) {
+            recentAPIs.add(api.toStoreView());
+        }
+        Map<String, Object> response = success();
+        response.put("apis", recentAPIs);
+        return response;
+    }
+
+    synchronized Map<String, Object> getDocumentation(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(parameters.get("provider"), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("name"));
+        }
+        Map<String, Object> response = success();
+        response.put("documentations", new ArrayList<Map<String, Object>>(api.documents.values()));
+        return response;
+    }
+
+    synchronized Map<String, Object> getAllTags(String user, Map<String, String> parameters) {
+        Map<String, Integer> tagCounts = new TreeMap<String, Integer>();
+        for (EmulatedAPI api : getPublishedAPIs(getTenantDomain(user, parameters))) {
+            for (String tag : api.tags) {
+                Integer count = tagCounts.get(tag);
+                tagCounts.put(tag, count == null ? 1 : count + 1);
+            }
+        }
+        List<Map<String, Object>> tags = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, Integer> tagCount : tagCounts.entrySet()) {
+            Map<String, Object> tag = new LinkedHashMap<String, Object>();
+            tag.put("name", tagCount.getKey());
+            tag.put("count", tagCount.getValue());
+            tags.add(tag);
+        }
+        Map<String, Object> response = success();
+        response.put("tags", tags);
+        return response;
+    }
+
+    synchronized Map<String, Object> addRating(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(parameters.get("provider"), parameters.get("name"),
+                                          parameters.get("version")));
+        int rating = parseInt(parameters.get("rating"), 0);
+        if (api == null || rating < 1 || rating > 5) {
+            return error("Unable to rate the API " + parameters.get("name"));
+        }
+        api.ratings.put(user, rating);
+        Map<String, Object> response = success();
+        response.put("rating", api.getAverageRating());
+        return response;
+    }
+
+    synchronized Map<String, Object> removeRating(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(parameters.get("provider"), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null) {
+            return error("API not found " + parameters.get("name"));
+        }
+        api.ratings.remove(user);
+        Map<String, Object> response = success();
+        response.put("rating", api.getAverageRating());
+        return response;
+    }
+
+    synchronized Map<String, Object> addComment(String user, Map<String, String> parameters) {
+        EmulatedAPI api = apis.get(apiKey(parameters.get("provider"), parameters.get("name"),
+                                          parameters.get("version")));
+        if (api == null || isEmpty(parameters.get("comment"))) {
+            return error("Unable to add the comment to the API " + parameters.get("name"));
+        }
+        api.commentCount++;
+        return success();
+    }
+
+    Map<String, Object> isFeatureActivated(String user, Map<String, String> parameters) {
+        Map<String, Object> response = success();
+        response.put("rating", true);
+        response.put("commentActivated", true);
+        return response;
+    }
+
+    synchronized Map<String, Object> getApplications(String user, Map<String, String> parameters) {
+        List<Map<String, Object>> userApplications = new ArrayList<Map<String, Object>>();
+        for (EmulatedApplication application : getApplications(user).values()) {
+            userApplications.add(application.toView());
+        }
+        Map<String, Object> response = success();
+        response.put("applications", userApplications);
+        return response;
+    }
+
+    synchronized Map<String, Object> addApplication(String user, Map<String, String> parameters) {
+        String name = parameters.get("application");
+        Map<String, EmulatedApplication> userApplications = getApplications(user);
+        if (isEmpty(name)) {
+            return error("Application name is required");
+        }
+        if (findApplication(userApplications, name) != null) {
+            return error("A duplicate application already exists by the name - " + name);
+        }
+        userApplications.put(name, new EmulatedApplication(++applicationSequence, name, parameters.get("tier"),
+                                                           parameters.get("callbackUrl"),
+                                                           parameters.get("description")));
+        Map<String, Object> response = success();
+        response.put("status", "APPROVED");
+        return response;
+    }
+
+    synchronized Map<String, Object> removeApplication(String user, Map<String, String> parameters) {
+        EmulatedApplication application = findApplication(getApplications(user), parameters.get("application"));
+        if (application == null) {
+            return error("Application not found " + parameters.get("application"));
+        }
+        getApplications(user).remove(application.name);
+        return success();
+    }
+
+    synchronized Map<String, Object> updateApplication(String user, Map<String, String> parameters) {
+        Map<String, EmulatedApplication> userApplications = getApplications(user);
+        EmulatedApplication application = findApplication(userApplications, parameters.get("applicationOld"));
+        String newName = parameters.get("applicationNew");
+        if (application == null) {
+            return error("Application not found " + parameters.get("applicationOld"));
+        }
+        if (isEmpty(newName)) {
+            return error("Application name is required");
+        }
+        EmulatedApplication existing = findApplication(userApplications, newName);
+        if (existing != null && existing != application) {
+            return error("A duplicate application already exists by the name - " + newName);
+        }
+        userApplications.remove(application.name);
+        application.name = newName;
+        application.callbackUrl = parameters.get("callbackUrlNew");
+        application.description = parameters.get("descriptionNew");
+        application.tier = parameters.get("tier");
+        userApplications.put(newName, application);
+        return success();
+    }
+
+    synchronized Map<String, Object> getAllSubscriptions(String user, Map<String, String> parameters) {
+        List<Map<String, Object>> subscribedApplications = new ArrayList<Map<String, Object>>();
+        int totalLength = 0;
+        for (EmulatedApplication application : getApplications(user).values()) {
+            List<Map<String, Object>> subscriptions = new ArrayList<Map<String, Object>>();
+            for (Map.Entry<String, String> subscription : application.subscriptions.entrySet()) {
+                EmulatedAPI api = apis.get(subscription.getKey());
+                if (api != null) {
+                    Map<String, Object> view = api.toStoreView();
+                    view.put("tier", subscription.getValue());
+                    view.put("subStatus", "UNBLOCKED");
+                    subscriptions.add(view);
+                }
+            }
+            Map<String, Object> view = application.toView();
+            view.put("subscriptions", subscriptions);
+            subscribedApplications.add(view);
+            totalLength += subscriptions.size();
+        }
+        Map<String, Object> subscriptions = new LinkedHashMap<String, Object>();
+        subscriptions.put("applications", subscribedApplications);
+        subscriptions.put("totalLength", totalLength);
+        Map<String, Object> response = success();
+        response.put("subscriptions", subscriptions);
+        return response;
+    }
+
+    synchronized Map<String, Object> getSubscriptionsByApplication(String user, Map<String, String> parameters) {
+        EmulatedApplication application = findApplication(getApplications(user), parameters.get("app"));
+        if (application == null) {
+            return error("Application not found " + parameters.get("app"));
+        }
+        List<Map<String, Object>> subscribedAPIs = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, String> subscription : application.subscriptions.entrySet()) {
+            EmulatedAPI api = apis.get(subscription.getKey());
+            if (api != null) {
+                Map<String, Object> view = new LinkedHashMap<String, Object>();
+                view.put("apiName", api.name);
+                view.put("apiVersion", api.version);
+                view.put("apiProvider", api.provider);
+                view.put("description", api.description);
+                view.put("subscribedTier", subscription.getValue());
+                view.put("status", api.status);
+                subscribedAPIs.add(view);
+            }
+        }
+        Map<String, Object> response = success();
+        response.put("apis", subscribedAPIs);
+        return response;
+    }
+
+    synchronized Map<String, Object> removeSubscription(String user, Map<String, String> parameters) {
+        String key = apiKey(parameters.get("provider"), parameters.get("name"), parameters.get("version"));
+        String applicationId = parameters.get("applicationId");
+        for (EmulatedApplication application : getApplications(user).values()) {
+            if (String.valueOf(application.id).equals(applicationId)) {
+                if (application.subscriptions.remove(key) == null) {
+                    return error("Subscription not found for " + key);
+                }
+                return success();
+            }
+        }
+        return error("Application not found " + applicationId);
+    }
+
+    private List<EmulatedAPI> getPublishedAPIs(String tenantDomain) {
+        List<EmulatedAPI> publishedAPIs = new ArrayList<EmulatedAPI>();
+        for (EmulatedAPI api : apis.values()) {
+            if (api.tenantDomain.equals(tenantDomain) && PUBLISHED.equals(api.status)) {
+                publishedAPIs.add(api);
+            }
+        }
+        return publishedAPIs;
+    }
+
+    private Map<String, EmulatedApplication> getApplications(String user) {
+        Map<String, EmulatedApplication> userApplications = applications.get(user);
+        if (userApplications == null) {
+            //the store creates the default application on the first login of the user
+            userApplications = new LinkedHashMap<String, EmulatedApplication>();
+            userApplications.put(DEFAULT_APPLICATION, new EmulatedApplication(
+                    ++applicationSequence, DEFAULT_APPLICATION, "Unlimited", "", ""));
+            applications.put(user, userApplications);
+        }
+        return userApplications;
+    }
+
+    /**
+     * Application names are case insensitive in the store
+     */
+    private static EmulatedApplication findApplication(Map<String, EmulatedApplication> userApplications,
+                                                       String name) {
+        if (name == null) {
+            return null;
+        }
+        for (EmulatedApplication application : userApplications.values()) {
+            if (application.name.equalsIgnoreCase(name)) {
+                return application;
+            }
+        }
+        return null;
+    }
+
+    private static String getProvider(String user, Map<String, String> parameters) {
+        String provider = parameters.get("provider");
+        return isEmpty(provider) ? user.replace("@", "-AT-") : provider;
+    }
+
+    private static String getTenantDomain(String user) {
+        int separatorIndex = user != null ? user.lastIndexOf('@') : -1;
+        return separatorIndex > 0 ? user.substring(separatorIndex + 1) : SUPER_TENANT_DOMAIN;
+    }
+
+    private static String getTenantDomain(String user, Map<String, String> parameters) {
+        String tenantDomain = parameters.get("tenant");
+        return isEmpty(tenantDomain) ? getTenantDomain(user) : tenantDomain;
+    }
+
+    private static String apiKey(String provider, String name, String version) {
+        return provider + ":" + name + ":" + version;
+    }
+
+    private static String newToken() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return isEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    static Map<String, Object> success() {
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("error", false);
+        return response;
+    }
+
+    static Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("error", true);
+        response.put("message", message);
+        return response;
+    }
+
+    /**
+     * API created in the publisher. Guarded by the monitor of the state.
+     */
+    private static class EmulatedAPI {
+        private final String name;
+        private final String version;
+        private final String provider;
+        private final String tenantDomain;
+        private final long createdTime = System.currentTimeMillis();
+        private final List<Map<String, Object>> lifecycleHistory = new ArrayList<Map<String, Object>>();
+        private final Map<String, Map<String, Object>> documents = new LinkedHashMap<String, Map<String, Object>>();
+        private final Map<String, Integer> ratings = new HashMap<String, Integer>();
+        private String context;
+        private String status = CREATED;
+        private String description = "";
+        private String visibility = "public";
+        private String endpointConfig = "";
+        private String tiers = "";
+        private String swagger;
+        private List<String> tags = new ArrayList<String>();
+        private long lastLifecycleChange;
+        private int commentCount;
+
+        private EmulatedAPI(String name, String version, String provider, String context, String tenantDomain) {
+            this.name = name;
+            this.version = version;
+            this.provider = provider;
+            this.context = context;
+            this.tenantDomain = tenantDomain;
+        }
+
+        /**
+         * Apply the fields of an addAPI or updateAPI request
+         */
+        private void update(Map<String, String> parameters) {
+            if (parameters.get("context") != null) {
+                String newContext = parameters.get("context");
+                context = newContext.startsWith("/") ? newContext : "/" + newContext;
+            }
+            if (parameters.get("description") != null) {
+                description = parameters.get("description");
+            }
+            if (parameters.get("visibility") != null) {
+                visibility = parameters.get("visibility");
+            }
+            if (parameters.get("endpoint_config") != null) {
+                endpointConfig = parameters.get("endpoint_config");
+            }
+            if (parameters.get("tiersCollection") != null) {
+                tiers = parameters.get("tiersCollection");
+            }
+            if (parameters.get("tags") != null) {
+                tags = new ArrayList<String>();
+                for (String tag : parameters.get("tags").split(",")) {
+                    if (!tag.trim().isEmpty()) {
+                        tags.add(tag.trim());
+                    }
+                }
+            }
+        }
+
+        private EmulatedAPI copy(String newVersion) {
+            EmulatedAPI copy = new EmulatedAPI(name, newVersion, provider, context, tenantDomain);
+            copy.description = description;
+            copy.visibility = visibility;
+            copy.endpointConfig = endpointConfig;
+            copy.tiers = tiers;
+            copy.swagger = swagger;
+            copy.tags = new ArrayList<String>(tags);
+            for (Map.Entry<String, Map<String, Object>> document : documents.entrySet()) {
+                copy.documents.put(document.getKey(), new LinkedHashMap<String, Object>(document.getValue()));
+            }
+            return copy;
+        }
+
+        private double getAverageRating() {
+            if (ratings.isEmpty()) {
+                return 0;
+            }
+            double sum = 0;
+            for (int rating : ratings.values()) {
+                sum += rating;
+            }
+            return sum / ratings.size();
+        }
+
+        private Map<String, Object> toStoreView() {
+            Map<String, Object> view = new LinkedHashMap<String, Object>();
+            view.put("name", name);
+            view.put("version", version);
+            view.put("provider", provider);
+            view.put("context", context);
+            view.put("status", status);
+            view.put("description", description);
+            view.put("visibility", visibility);
+            view.put("rates", getAverageRating());
+            return view;
+        }
+
+        private Map<String, Object> toPublisherView() {
+            Map<String, Object> view = toStoreView();
+            view.put("tags", String.join(",", tags));
+            view.put("tiers", tiers);
+            view.put("endpointConfig", endpointConfig);
+            view.put("lastUpdated", createdTime);
+            view.put("comments", commentCount);
+            if (swagger != null) {
+                view.put("swagger", swagger);
+            }
+            return view;
+        }
+    }
+
+    /**
+     * Application of a store user. Guarded by the monitor of the state.
+     */
+    private static class EmulatedApplication {
+        private final int id;
+        private final Map<String, String> subscriptions = new LinkedHashMap<String, String>();
+        private final Map<String, Map<String, Object>> keys = new LinkedHashMap<String, Map<String, Object>>();
+        private String name;
+        private String tier;
+        private String callbackUrl;
+        private String description;
+
+        private EmulatedApplication(int id, String name, String tier, String callbackUrl, String description) {
+            this.id = id;
+            this.name = name;
+            this.tier = tier;
+            this.callbackUrl = callbackUrl;
+            this.description = description;
+        }
+
+        private Map<String, Object> toView() {
+            Map<String, Object> view = new LinkedHashMap<String, Object>();
+            view.put("id", id);
+            view.put("name", name);
+            view.put("tier", tier);
+            view.put("callbackUrl", callbackUrl);
+            view.put("description", description);
+            view.put("status", "APPROVED");
+            view.put("groupId", "");
+            return view;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.gateway;
+
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.load.LoadRequest;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.metrics.OperationSnapshot;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses the gateway node of each API invocation, so the tests and load runs can target the worker nodes which
+ * carry the API traffic in production, the manager node, or spread the invocations over all the gateway nodes.
+ * The invocations sent through {@link #httpGet} are measured per node, other invocations can be recorded with
+ * {@link #record}.
+ * <p/>
+ * apim.gateway.selection=manager, one of worker, manager, round_robin and weighted. The manager is the default as
+ * an API is deployed there first, benchmarks and load runs opt into the workers with -Dapim.gateway.selection.
+ * apim.gateway.weights=comma separated instance weights, ex: wso2am-gateway-worker:3,wso2am-gateway-manager:1.
+ * The nodes not listed have the weight 1.
+ */
+public class GatewayEndpointSelector {
+
+    private final List<GatewayNode> nodes;
+    private final GatewaySelectionStrategy strategy;
+    private final AtomicLong invocationCount = new AtomicLong();
+    private final ClientMetrics metrics = new ClientMetrics(true);
+    private final GatewayNode workerNode;
+    private final GatewayNode managerNode;
+
+    /**
+     * @param nodes    - gateway nodes of the deployment
+     * @param strategy - selection strategy
+     * @throws IllegalArgumentException - if there are no nodes, or no node with a weight for the weighted selection
+     */
+    public GatewayEndpointSelector(List<GatewayNode> nodes, GatewaySelectionStrategy strategy) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("No gateway nodes to select from");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<GatewayNode>(nodes));
+        this.strategy = strategy;
+        GatewayNode worker = null;
+        GatewayNode manager = null;
+        int totalWeight = 0;
+        for (GatewayNode node : nodes) {
+            if (node.isWorker() && worker == null) {
+                worker = node;
+            } else if (!node.isWorker() && manager == null) {
+                manager = node;
+            }
+            totalWeight += node.getWeight();
+        }
+        if (strategy == GatewaySelectionStrategy.WEIGHTED && totalWeight == 0) {
+            throw new IllegalArgumentException("None of the gateway nodes has a weight");
+        }
+        this.workerNode = worker != null ? worker : manager;
+        this.managerNode = manager != null ? manager : worker;
+    }
+
+    /**
+     * Get the strategy set with the apim.gateway.selection system property
+     *
+     * @return - selection strategy, manager by default
+     */
+    public static GatewaySelectionStrategy getConfiguredStrategy() {
+        return GatewaySelectionStrategy.fromName(System.getProperty("apim.gateway.selection", "manager"));
+    }
+
+    /**
+     * Get the weight of an instance set with the apim.gateway.weights system property
+     *
+     * @param instanceName - instance name in automation.xml
+     * @return - weight of the instance, 1 if it is not listed
+     */
+    public static int getConfiguredWeight(String instanceName) {
+        Integer weight = parseWeights(System.getProperty("apim.gateway.weights", "")).get(instanceName);
+        return weight != null ? weight : 1;
+    }
+
+    static Map<String, Integer> parseWeights(String weights) {
+        Map<String, Integer> parsedWeights = new HashMap<String, Integer>();
+        for (String weight : weights.trim().split("\\s*,\\s*")) {
+            int separator = weight.lastIndexOf(':');
+            if (separator > 0) {
+                parsedWeights.put(weight.substring(0, separator).trim(),
+                                  Integer.parseInt(weight.substring(separator + 1).trim()));
+            }
+        }
+        return parsedWeights;
+    }
+
+    public List<GatewayNode> getNodes() {
+        return nodes;
+    }
+
+    public GatewaySelectionStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Choose the node of the next invocation
+     *
+     * @return - selected node
+     */
+    public GatewayNode select() {
+        GatewayNode node;
+        switch (strategy) {
+            case MANAGER:
+                node = managerNode;
+                break;
+            case ROUND_ROBIN:
+                node = nodes.get((int) (invocationCount.getAndIncrement() % nodes.size()));
+                break;
+            case WEIGHTED:
+                node = selectWeighted();
+                break;
+            default:
+                node = workerNode;
+        }
+        node.selected();
+        return node;
+    }
+
+    /**
+     * Smooth weighted round robin: every node gains its weight, the node with the highest current weight is
+     * selected and loses the total weight
+     */
+    private synchronized GatewayNode selectWeighted() {
+        GatewayNode selected = null;
+        int totalWeight = 0;
+        for (GatewayNode node : nodes) {
+            node.currentWeight += node.getWeight();
+            totalWeight += node.getWeight();
+            if (node.getWeight() > 0 && (selected == null || node.currentWeight > selected.currentWeight)) {
+                selected = node;
+            }
+        }
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+
+    /**
+     * Get the http invocation URL of an API on the next node
+     *
+     * @param apiPath - context of the API, optionally followed by the version and the resource
+     * @return - invocation URL, ex: http://localhost:8280/customers/1.0.0/customers/123
+     */
+    public String getAPIInvocationURLHttp(String apiPath) {
+        return select().getUrls().getAPIInvocationURLHttp() + apiPath;
+    }
+
+    /**
+     * Get the https invocation URL of an API on the next node
+     *
+     * @param apiPath - context of the API, optionally followed by the version and the resource
+     * @return - invocation URL, ex: https://localhost:8243/customers/1.0.0/customers/123
+     */
+    public String getAPIInvocationURLHttps(String apiPath) {
+        return select().getUrls().getAPIInvocationURLHttps() + apiPath;
+    }
+
+    /**
+     * Record an invocation sent to a node
+     *
+     * @param node         - node the invocation was sent to
+     * @param operation    - name of the invocation, ex: the API path
+     * @param elapsedNanos - latency of the invocation
+     * @param successful   - false if the invocation failed or returned an error
+     */
+    public void record(GatewayNode node, String operation, long elapsedNanos, boolean successful) {
+        metrics.record(node.getName(), operation, elapsedNanos, successful);
+    }
+
+    /**
+     * Create a load request which sends a HTTP GET to the next node for each arrival, expects a 2xx response and
+     * records the invocation on the node
+     *
+     * @param httpClient - client to send the request, its connection pool should allow the max concurrency
+     * @param apiPath    - context of the API, followed by the version and the resource
+     * @param headers    - request headers
+     * @return - load request
+     */
+    public LoadRequest httpGet(final StreamingHttpClient httpClient, final String apiPath,
+                               final Map<String, String> headers) {
+        return () -> {
+            GatewayNode node = select();
+            long startTime = System.nanoTime();
+            boolean successful = false;
+            try (StreamingHttpResponse response = httpClient.doGet(node.getUrls().getAPIInvocationURLHttp() + apiPath,
+                                                                   headers)) {
+                response.consume();
+                successful = response.getResponseCode() >= 200 && response.getResponseCode() < 300;
+                return successful;
+            } finally {
+                record(node, apiPath, System.nanoTime() - startTime, successful);
+            }
+        };
+    }
+
+    /**
+     * Get the latency and error count of the recorded invocations per node and operation
+     *
+     * @return - statistics ordered by node and operation
+     */
+    public List<OperationSnapshot> getStatistics() {
+        return metrics.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Gateway selection ").append(strategy);
+        for (GatewayNode node : nodes) {
+            summary.append("\n  ").append(node).append(" : weight=").append(node.getWeight())
+                   .append(", selected=").append(node.getSelectionCount());
+        }
+        for (OperationSnapshot snapshot : getStatistics()) {
+            summary.append("\n  ").append(snapshot);
+        }
+        return summary.toString();
+    }
+}
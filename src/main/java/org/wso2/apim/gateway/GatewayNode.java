@@ -0,0 +1,86 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.gateway;
+
+import org.wso2.apim.bean.APIMURLBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gateway instance of the deployment which API invocations can be sent to
+ */
+public class GatewayNode {
+
+    private final String name;
+    private final APIMURLBean urls;
+    private final boolean worker;
+    private final int weight;
+    private final AtomicLong selectionCount = new AtomicLong();
+    //current weight of the weighted selection, guarded by the selector
+    int currentWeight;
+
+    /**
+     * @param name   - instance name in automation.xml, ex: wso2am-gateway-worker
+     * @param urls   - URLs of the instance
+     * @param worker - true for a worker node, false for a manager node
+     * @param weight - share of the invocations of the node in the weighted selection, 0 to exclude the node
+     */
+    public GatewayNode(String name, APIMURLBean urls, boolean worker, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight of the gateway node " + name + " must not be negative");
+        }
+        this.name = name;
+        this.urls = urls;
+        this.worker = worker;
+        this.weight = weight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public APIMURLBean getUrls() {
+        return urls;
+    }
+
+    public boolean isWorker() {
+        return worker;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Get the number of times the node was selected for an invocation
+     *
+     * @return - selection count
+     */
+    public long getSelectionCount() {
+        return selectionCount.get();
+    }
+
+    void selected() {
+        selectionCount.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + urls.getAPIInvocationURLHttp() + ")";
+    }
+}
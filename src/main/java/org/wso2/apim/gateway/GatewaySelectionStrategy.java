@@ -0,0 +1,57 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.gateway;
+
+/**
+ * How the {@link GatewayEndpointSelector} chooses the gateway node of an API invocation
+ */
+public enum GatewaySelectionStrategy {
+
+    /**
+     * Always the worker node, which carries the API traffic in production. The manager node if there is no worker.
+     */
+    WORKER,
+
+    /**
+     * Always the manager node
+     */
+    MANAGER,
+
+    /**
+     * Every node in turn
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Every node in proportion to its weight, interleaved so that a node with a higher weight does not get its
+     * share in bursts
+     */
+    WEIGHTED;
+
+    /**
+     * Get the strategy of a name, ignoring the case
+     *
+     * @param name - strategy name, ex: worker or round_robin
+     * @return - strategy
+     * @throws IllegalArgumentException - if there is no strategy with the name
+     */
+    public static GatewaySelectionStrategy fromName(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
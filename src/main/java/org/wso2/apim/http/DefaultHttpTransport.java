@@ -0,0 +1,70 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Transport which delegates to {@link HttpRequestUtil}. A new connection is opened for every request. The
+ * response headers are looked up ignoring the case of the names.
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+    @Override
+    public HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException {
+        try {
+            return withCaseInsensitiveHeaders(HttpRequestUtil.doPost(endpoint, postBody, headers));
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Error while sending POST request to " + endpoint, e);
+        }
+    }
+
+    @Override
+    public HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        return withCaseInsensitiveHeaders(HttpRequestUtil.doGet(endpoint, headers));
+    }
+
+    /**
+     * Copy the response with a header map ignoring the case of the names, the clients look up the headers with
+     * the case sent by Tomcat while other servers and proxies send them in lower case
+     *
+     * @param response - response of HttpRequestUtil
+     * @return - response with the same data, status and headers
+     */
+    private static HttpResponse withCaseInsensitiveHeaders(HttpResponse response) {
+        if (response == null || response.getHeaders() == null) {
+            return response;
+        }
+        Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            //the status line is returned with a null name by HttpURLConnection
+            if (header.getKey() != null) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        return new HttpResponse(response.getData(), response.getResponseCode(), headers);
+    }
+}
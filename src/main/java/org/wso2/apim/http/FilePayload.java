@@ -0,0 +1,192 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File sent as a request body without reading it into a String. The file is opened once and can be sent by
+ * any number of concurrent requests. Files up to the mapping threshold are memory mapped and each request
+ * reads from its own view of the mapped buffer, larger files are read from the file channel with positional
+ * reads. The content is copied to the connection stream in chunks of a per thread buffer, so a request holds
+ * one chunk of the file in the heap at a time.
+ */
+public class FilePayload implements Closeable {
+
+    /**
+     * Files up to this size are memory mapped
+     */
+    public static final long DEFAULT_MAP_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> transferBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[TRANSFER_BUFFER_SIZE];
+        }
+    };
+
+    private final File file;
+    private final FileChannel fileChannel;
+    private final long size;
+    private final MappedByteBuffer mappedBuffer;
+    private final ContentType contentType;
+
+    /**
+     * Open the file as a payload of type application/octet-stream
+     *
+     * @param file - file to send
+     * @throws IOException - if the file cannot be opened or mapped
+     */
+    public FilePayload(File file) throws IOException {
+        this(file, ContentType.APPLICATION_OCTET_STREAM, DEFAULT_MAP_THRESHOLD);
+    }
+
+    /**
+     * Open the file as a payload
+     *
+     * @param file         - file to send
+     * @param contentType  - content type sent with the payload
+     * @param mapThreshold - maximum file size in bytes to memory map
+     * @throws IOException - if the file cannot be opened or mapped
+     */
+    public FilePayload(File file, ContentType contentType, long mapThreshold) throws IOException {
+        this.file = file;
+        this.contentType = contentType;
+        this.fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            this.size = fileChannel.size();
+            this.mappedBuffer = size <= mapThreshold ? fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isMapped() {
+        return mappedBuffer != null;
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Create a request entity for the payload. Entities are cheap and a new one should be created per request.
+     *
+     * @param chunked - true to send with chunked transfer encoding, false to send a fixed Content-Length
+     * @return - repeatable entity writing the file content
+     */
+    public HttpEntity createEntity(boolean chunked) {
+        FilePayloadEntity entity = new FilePayloadEntity();
+        entity.setContentType(contentType.toString());
+        entity.setChunked(chunked);
+        return entity;
+    }
+
+    /**
+     * Write the whole payload to the given stream, one chunk at a time
+     *
+     * @param outputStream - stream to write to
+     * @throws IOException - if the file cannot be read or the stream cannot be written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        byte[] chunk = transferBuffer.get();
+        if (mappedBuffer != null) {
+            ByteBuffer view = mappedBuffer.duplicate();
+            while (view.hasRemaining()) {
+                int length = Math.min(chunk.length, view.remaining());
+                view.get(chunk, 0, length);
+                outputStream.write(chunk, 0, length);
+            }
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File " + file + " truncated at " + position + " of " + size + " bytes");
+            }
+            position += read;
+            outputStream.write(chunk, 0, read);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    /**
+     * Entity writing the payload from the mapped buffer or the file channel
+     */
+    private class FilePayloadEntity extends AbstractHttpEntity {
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return isChunked() ? -1 : size;
+        }
+
+        /**
+         * Open a new stream of the file, which is owned and must be closed by the caller
+         */
+        @Override
+        public InputStream getContent() throws IOException {
+            return Files.newInputStream(file.toPath());
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            FilePayload.this.writeTo(outputStream);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+}
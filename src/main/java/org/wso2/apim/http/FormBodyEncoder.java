@@ -0,0 +1,207 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Builds application/x-www-form-urlencoded request bodies into a reusable byte buffer. Names and values are
+ * encoded the same way as {@link java.net.URLEncoder} with UTF-8, but without the intermediate strings, so
+ * large values such as the endpoint config and swagger JSON of an API are encoded in a single pass. Not
+ * thread safe, each request bean holds its own encoder.
+ */
+public class FormBodyEncoder {
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['.'] = true;
+        UNRESERVED['-'] = true;
+        UNRESERVED['*'] = true;
+        UNRESERVED['_'] = true;
+    }
+
+    private byte[] buffer;
+    private int size;
+
+    public FormBodyEncoder() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity - initial size of the buffer in bytes
+     */
+    public FormBodyEncoder(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Append a parameter, separated with an ampersand from the previous one
+     *
+     * @param name  - parameter name
+     * @param value - parameter value, null is sent as the string null
+     * @return - this encoder
+     */
+    public FormBodyEncoder add(String name, String value) {
+        if (size > 0) {
+            append((byte) '&');
+        }
+        encode(name);
+        append((byte) '=');
+        encode(value != null ? value : "null");
+        return this;
+    }
+
+    /**
+     * Append parameters which are already encoded, ex: the cached parameters of a request bean
+     *
+     * @param encoded - encoded parameters
+     * @param length  - number of bytes to append
+     * @return - this encoder
+     */
+    public FormBodyEncoder addEncoded(byte[] encoded, int length) {
+        if (length == 0) {
+            return this;
+        }
+        if (size > 0) {
+            append((byte) '&');
+        }
+        ensureCapacity(size + length);
+        System.arraycopy(encoded, 0, buffer, size, length);
+        size += length;
+        return this;
+    }
+
+    /**
+     * Append all the parameters of the map in its iteration order
+     *
+     * @param parameters - parameters to append
+     * @return - this encoder
+     */
+    public FormBodyEncoder addAll(Map<String, String> parameters) {
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            add(parameter.getKey(), parameter.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Discard the content, keeping the buffer for the next body
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the internal buffer, valid up to {@link #size()} until the encoder is modified
+     *
+     * @return - internal buffer
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Write the body to the request stream without copying it
+     *
+     * @param outputStream - request body stream
+     * @throws IOException - if the body cannot be written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(buffer, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.US_ASCII);
+    }
+
+    private void encode(String value) {
+        int length = value.length();
+        //worst case is three bytes per UTF-8 byte, ensured per character to keep the common case cheap
+        ensureCapacity(size + length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && UNRESERVED[c]) {
+                append((byte) c);
+            } else if (c == ' ') {
+                append((byte) '+');
+            } else if (c < 0x80) {
+                appendEscaped(c);
+            } else if (c < 0x800) {
+                appendEscaped(0xC0 | (c >> 6));
+                appendEscaped(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length &&
+                       Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendEscaped(0xF0 | (codePoint >> 18));
+                appendEscaped(0x80 | ((codePoint >> 12) & 0x3F));
+                appendEscaped(0x80 | ((codePoint >> 6) & 0x3F));
+                appendEscaped(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                //unpaired surrogate, encoded as '?' like URLEncoder does
+                appendEscaped('?');
+            } else {
+                appendEscaped(0xE0 | (c >> 12));
+                appendEscaped(0x80 | ((c >> 6) & 0x3F));
+                appendEscaped(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void appendEscaped(int b) {
+        ensureCapacity(size + 3);
+        buffer[size++] = '%';
+        buffer[size++] = HEX_DIGITS[(b >> 4) & 0xF];
+        buffer[size++] = HEX_DIGITS[b & 0xF];
+    }
+
+    private void append(byte b) {
+        ensureCapacity(size + 1);
+        buffer[size++] = b;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Transport used by the Jaggery rest clients to send requests to the store/publisher nodes.
+ * Implementations must be thread safe since a single instance is shared by all the clients.
+ */
+public interface HttpTransport {
+
+    /**
+     * Send a HTTP POST request
+     *
+     * @param endpoint - endpoint URL
+     * @param postBody - request body
+     * @param headers  - request headers
+     * @return - http response
+     * @throws IOException - if the request cannot be sent or the response cannot be read
+     */
+    HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException;
+
+    /**
+     * Send a HTTP GET request
+     *
+     * @param endpoint - endpoint URL including the query string
+     * @param headers  - request headers
+     * @return - http response
+     * @throws IOException - if the request cannot be sent or the response cannot be read
+     */
+    HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException;
+
+}
@@ -0,0 +1,128 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+/**
+ * Configuration of the HTTP transport used by the rest clients. Values are read from system properties,
+ * so they can be given with -D options to the surefire JVM.
+ * <p/>
+ * apim.http.transport=pooled|default
+ * apim.http.pool.maxTotal=200
+ * apim.http.pool.maxPerRoute=50
+ * apim.http.pool.idleTimeout=30000
+ * apim.http.keepAlive=30000
+ * apim.http.connectTimeout=30000
+ * apim.http.socketTimeout=300000
+ */
+public class HttpTransportConfiguration {
+
+    public static final String TRANSPORT_PROPERTY = "apim.http.transport";
+    public static final String MAX_TOTAL_CONNECTIONS_PROPERTY = "apim.http.pool.maxTotal";
+    public static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "apim.http.pool.maxPerRoute";
+    public static final String IDLE_TIMEOUT_PROPERTY = "apim.http.pool.idleTimeout";
+    public static final String KEEP_ALIVE_PROPERTY = "apim.http.keepAlive";
+    public static final String CONNECT_TIMEOUT_PROPERTY = "apim.http.connectTimeout";
+    public static final String SOCKET_TIMEOUT_PROPERTY = "apim.http.socketTimeout";
+
+    public static final String TRANSPORT_DEFAULT = "default";
+    public static final String TRANSPORT_POOLED = "pooled";
+
+    private String transport = TRANSPORT_DEFAULT;
+    private int maxTotalConnections = 200;
+    private int maxConnectionsPerRoute = 50;
+    private long idleTimeout = 30000;
+    private long keepAlive = 30000;
+    private int connectTimeout = 30000;
+    private int socketTimeout = 5 * 60 * 1000;
+
+    /**
+     * Build the configuration from the system properties, falling back to the defaults
+     *
+     * @return - transport configuration
+     */
+    public static HttpTransportConfiguration fromSystemProperties() {
+        HttpTransportConfiguration configuration = new HttpTransportConfiguration();
+        configuration.setTransport(System.getProperty(TRANSPORT_PROPERTY, configuration.getTransport()));
+        configuration.setMaxTotalConnections(
+                Integer.getInteger(MAX_TOTAL_CONNECTIONS_PROPERTY, configuration.getMaxTotalConnections()));
+        configuration.setMaxConnectionsPerRoute(
+                Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, configuration.getMaxConnectionsPerRoute()));
+        configuration.setIdleTimeout(Long.getLong(IDLE_TIMEOUT_PROPERTY, configuration.getIdleTimeout()));
+        configuration.setKeepAlive(Long.getLong(KEEP_ALIVE_PROPERTY, configuration.getKeepAlive()));
+        configuration.setConnectTimeout(Integer.getInteger(CONNECT_TIMEOUT_PROPERTY, configuration.getConnectTimeout()));
+        configuration.setSocketTimeout(Integer.getInteger(SOCKET_TIMEOUT_PROPERTY, configuration.getSocketTimeout()));
+        return configuration;
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
+
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+}
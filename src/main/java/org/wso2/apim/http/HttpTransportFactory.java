@@ -0,0 +1,76 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import java.io.IOException;
+
+/**
+ * Provides the transport shared by the rest clients. The transport is selected with the
+ * apim.http.transport system property, see {@link HttpTransportConfiguration}.
+ */
+public class HttpTransportFactory {
+
+    private static final Log log = LogFactory.getLog(HttpTransportFactory.class);
+    private static volatile HttpTransport sharedTransport;
+
+    private HttpTransportFactory() {
+    }
+
+    /**
+     * Get the transport shared by all the clients in this JVM
+     *
+     * @return - shared transport
+     */
+    public static HttpTransport getTransport() {
+        if (sharedTransport == null) {
+            synchronized (HttpTransportFactory.class) {
+                if (sharedTransport == null) {
+                    sharedTransport = createTransport(HttpTransportConfiguration.fromSystemProperties());
+                }
+            }
+        }
+        return sharedTransport;
+    }
+
+    /**
+     * Create a new transport for the given configuration
+     *
+     * @param configuration - transport configuration
+     * @return - new transport
+     */
+    public static HttpTransport createTransport(HttpTransportConfiguration configuration) {
+        if (HttpTransportConfiguration.TRANSPORT_POOLED.equalsIgnoreCase(configuration.getTransport())) {
+            final PooledHttpTransport pooledTransport = new PooledHttpTransport(configuration);
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        pooledTransport.close();
+                    } catch (IOException e) {
+                        log.warn("Error while closing the pooled HTTP transport", e);
+                    }
+                }
+            });
+            return pooledTransport;
+        }
+        return new DefaultHttpTransport();
+    }
+}
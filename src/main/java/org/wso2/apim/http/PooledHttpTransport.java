@@ -0,0 +1,192 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * Transport backed by a bounded pool of keep-alive connections per host. Connections which are idle for
+ * longer than the configured idle timeout are evicted by a background thread.
+ * <p/>
+ * Cookie management of the underlying client is disabled, the session cookie is sent by the rest clients
+ * with the request headers as in {@link DefaultHttpTransport}. HTTPS connections use the default SSL socket
+ * factory and hostname verifier of HttpsURLConnection, so the trust and hostname policy of the test run
+ * applies to both transports.
+ */
+public class PooledHttpTransport implements HttpTransport, Closeable {
+
+    private static final Log log = LogFactory.getLog(PooledHttpTransport.class);
+    private static final String CHARSET_UTF8 = "UTF-8";
+
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Create pooled transport with the given configuration
+     *
+     * @param configuration - transport configuration
+     */
+    public PooledHttpTransport(HttpTransportConfiguration configuration) {
+        httpClient = createPooledClient(configuration);
+        log.info("Pooled HTTP transport created with max connections " + configuration.getMaxTotalConnections() +
+                 ", max connections per host " + configuration.getMaxConnectionsPerRoute());
+    }
+
+    /**
+     * Create a HTTP client with a bounded pool of keep-alive connections
+     *
+     * @param configuration - transport configuration
+     * @return - pooled HTTP client, closing it closes the connection pool
+     */
+    static CloseableHttpClient createPooledClient(HttpTransportConfiguration configuration) {
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(),
+                                                                   HttpsURLConnection.getDefaultHostnameVerifier()))
+                .build();
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(configuration.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(configuration.getConnectTimeout())
+                .setSocketTimeout(configuration.getSocketTimeout())
+                .setConnectionRequestTimeout(configuration.getConnectTimeout())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new DefaultKeepAliveStrategy(configuration.getKeepAlive()))
+                .disableCookieManagement()
+                .evictExpiredConnections()
+                .evictIdleConnections(configuration.getIdleTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException {
+        HttpPost httpPost = new HttpPost(endpoint.toString());
+        if (postBody != null) {
+            httpPost.setEntity(new StringEntity(postBody, CHARSET_UTF8));
+        }
+        return execute(httpPost, headers);
+    }
+
+    @Override
+    public HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        return execute(new HttpGet(endpoint), headers);
+    }
+
+    /**
+     * Execute the request and read the whole response, so the connection is returned to the pool
+     *
+     * @param request - request to execute
+     * @param headers - request headers
+     * @return - http response
+     * @throws IOException - if the request fails
+     */
+    private HttpResponse execute(HttpRequestBase request, Map<String, String> headers) throws IOException {
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                request.setHeader(header.getKey(), header.getValue());
+            }
+        }
+        CloseableHttpResponse response = httpClient.execute(request);
+        try {
+            HttpEntity entity = response.getEntity();
+            String data = entity != null ? EntityUtils.toString(entity, CHARSET_UTF8) : "";
+            //header names are case insensitive, servers and proxies differ in the case they send
+            Map<String, String> responseHeaders = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+            for (Header header : response.getAllHeaders()) {
+                responseHeaders.put(header.getName(), header.getValue());
+            }
+            return new HttpResponse(data, response.getStatusLine().getStatusCode(), responseHeaders);
+        } finally {
+            response.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Keep alive strategy which honours the timeout sent by the server in the Keep-Alive header
+     * and uses the configured value otherwise.
+     */
+    private static class DefaultKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        private final long defaultKeepAlive;
+
+        DefaultKeepAliveStrategy(long defaultKeepAlive) {
+            this.defaultKeepAlive = defaultKeepAlive;
+        }
+
+        @Override
+        public long getKeepAliveDuration(org.apache.http.HttpResponse response, HttpContext context) {
+            BasicHeaderElementIterator iterator =
+                    new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (iterator.hasNext()) {
+                HeaderElement element = iterator.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignore) {
+                        // fall back to the configured keep alive
+                    }
+                }
+            }
+            return defaultKeepAlive;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a response body incrementally while it is read from the stream, so the body never has to be
+ * kept in memory as a whole. A matcher instance keeps state and must be used for a single response.
+ */
+public abstract class ResponseBodyMatcher {
+
+    private boolean matched;
+
+    /**
+     * Create matcher which checks whether the body contains the given text
+     *
+     * @param text - text to search for
+     * @return - new matcher
+     */
+    public static ResponseBodyMatcher contains(String text) {
+        return new SubstringMatcher(text);
+    }
+
+    /**
+     * Create matcher which checks whether a part of the body matches the given pattern. Only matches which are
+     * shorter than the window size are guaranteed to be found.
+     *
+     * @param pattern    - pattern to find
+     * @param windowSize - max length of a match in characters
+     * @return - new matcher
+     */
+    public static ResponseBodyMatcher matches(Pattern pattern, int windowSize) {
+        return new RegexMatcher(pattern, windowSize);
+    }
+
+    /**
+     * Feed the next chunk of the body
+     *
+     * @param buffer - buffer holding the chunk
+     * @param offset - start of the chunk in the buffer
+     * @param length - length of the chunk
+     */
+    public void update(byte[] buffer, int offset, int length) {
+        if (!matched) {
+            matched = doUpdate(buffer, offset, length);
+        }
+    }
+
+    public boolean isMatched() {
+        return matched;
+    }
+
+    /**
+     * @return - description of what is matched, used in assertion messages
+     */
+    public abstract String getDescription();
+
+    protected abstract boolean doUpdate(byte[] buffer, int offset, int length);
+
+    /**
+     * Substring search on the encoded bytes using Knuth-Morris-Pratt, so a match spanning two chunks is found
+     * without buffering.
+     */
+    private static class SubstringMatcher extends ResponseBodyMatcher {
+
+        private final String text;
+        private final byte[] pattern;
+        private final int[] failure;
+        private int state;
+
+        SubstringMatcher(String text) {
+            this.text = text;
+            this.pattern = text.getBytes(StandardCharsets.UTF_8);
+            this.failure = new int[pattern.length];
+            int k = 0;
+            for (int i = 1; i < pattern.length; i++) {
+                while (k > 0 && pattern[k] != pattern[i]) {
+                    k = failure[k - 1];
+                }
+                if (pattern[k] == pattern[i]) {
+                    k++;
+                }
+                failure[i] = k;
+            }
+        }
+
+        @Override
+        protected boolean doUpdate(byte[] buffer, int offset, int length) {
+            if (pattern.length == 0) {
+                return true;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                while (state > 0 && pattern[state] != buffer[i]) {
+                    state = failure[state - 1];
+                }
+                if (pattern[state] == buffer[i]) {
+                    state++;
+                }
+                if (state == pattern.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String getDescription() {
+            return "contains \"" + text + "\"";
+        }
+    }
+
+    /**
+     * Regular expression search over a sliding window of the decoded body.
+     */
+    private static class RegexMatcher extends ResponseBodyMatcher {
+
+        private final Pattern pattern;
+        private final int windowSize;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder window = new StringBuilder();
+        private ByteBuffer pending = ByteBuffer.allocate(0);
+
+        RegexMatcher(Pattern pattern, int windowSize) {
+            this.pattern = pattern;
+            this.windowSize = windowSize;
+        }
+
+        @Override
+        protected boolean doUpdate(byte[] buffer, int offset, int length) {
+            // keep the bytes of a character which is split between two chunks for the next update
+            ByteBuffer input = ByteBuffer.allocate(pending.remaining() + length);
+            input.put(pending).put(buffer, offset, length).flip();
+            CharBuffer chars = CharBuffer.allocate(input.remaining());
+            decoder.decode(input, chars, false);
+            chars.flip();
+            pending = input;
+            window.append(chars);
+            if (pattern.matcher(window).find()) {
+                return true;
+            }
+            if (window.length() > windowSize) {
+                window.delete(0, window.length() - windowSize);
+            }
+            return false;
+        }
+
+        @Override
+        public String getDescription() {
+            return "matches /" + pattern.pattern() + "/";
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * HTTP client used to invoke APIs through the gateway without buffering the response body. The response
+ * must be closed after it is consumed to return the connection to the pool.
+ * <pre>
+ * try (StreamingHttpResponse response = client.doGet(url, headers)) {
+ *     ResponseBodyMatcher matcher = ResponseBodyMatcher.contains(expected);
+ *     response.consume(matcher);
+ * }
+ * </pre>
+ */
+public class StreamingHttpClient implements Closeable {
+
+    private static volatile StreamingHttpClient sharedClient;
+
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Create client with its own connection pool
+     *
+     * @param configuration - pool and timeout configuration
+     */
+    public StreamingHttpClient(HttpTransportConfiguration configuration) {
+        this.httpClient = PooledHttpTransport.createPooledClient(configuration);
+    }
+
+    /**
+     * Get the client shared in this JVM, configured with the apim.http.* system properties
+     *
+     * @return - shared client
+     */
+    public static StreamingHttpClient getSharedClient() {
+        if (sharedClient == null) {
+            synchronized (StreamingHttpClient.class) {
+                if (sharedClient == null) {
+                    sharedClient = new StreamingHttpClient(HttpTransportConfiguration.fromSystemProperties());
+                }
+            }
+        }
+        return sharedClient;
+    }
+
+    /**
+     * Send a HTTP GET request
+     *
+     * @param endpoint - endpoint URL
+     * @param headers  - request headers
+     * @return - response with the unread body
+     * @throws IOException - if the request fails
+     */
+    public StreamingHttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        return execute(new HttpGet(endpoint), headers);
+    }
+
+    /**
+     * Send a HTTP POST request
+     *
+     * @param endpoint - endpoint URL
+     * @param postBody - request body
+     * @param headers  - request headers
+     * @return - response with the unread body
+     * @throws IOException - if the request fails
+     */
+    public StreamingHttpResponse doPost(String endpoint, String postBody, Map<String, String> headers)
+            throws IOException {
+        HttpPost httpPost = new HttpPost(endpoint);
+        httpPost.setEntity(new StringEntity(postBody, "UTF-8"));
+        return execute(httpPost, headers);
+    }
+
+    /**
+     * Send a HTTP POST request with a file payload as the body. The file content is written from the
+     * payload's mapped buffer or file channel and never buffered as a String.
+     *
+     * @param endpoint - endpoint URL
+     * @param payload  - file payload
+     * @param chunked  - true to use chunked transfer encoding, false to send a fixed Content-Length
+     * @param headers  - request headers
+     * @return - response with the unread body
+     * @throws IOException - if the request fails
+     */
+    public StreamingHttpResponse doPost(String endpoint, FilePayload payload, boolean chunked,
+                                        Map<String, String> headers) throws IOException {
+        HttpPost httpPost = new HttpPost(endpoint);
+        httpPost.setEntity(payload.createEntity(chunked));
+        return execute(httpPost, headers);
+    }
+
+    private StreamingHttpResponse execute(HttpRequestBase request, Map<String, String> headers) throws IOException {
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                request.setHeader(header.getKey(), header.getValue());
+            }
+        }
+        CloseableHttpResponse response = httpClient.execute(request);
+        try {
+            return new StreamingHttpResponse(response);
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
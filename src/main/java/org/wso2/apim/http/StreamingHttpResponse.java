@@ -0,0 +1,151 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Response of {@link StreamingHttpClient}. The body is not read until the stream is consumed and the
+ * underlying connection is released to the pool when the response is closed.
+ */
+public class StreamingHttpResponse implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int DEFAULT_PREVIEW_SIZE = 1024;
+    private static final ThreadLocal<byte[]> readBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    private final CloseableHttpResponse response;
+    private final int responseCode;
+    private final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    private final InputStream inputStream;
+    private byte[] preview = new byte[0];
+    private long bytesRead;
+
+    StreamingHttpResponse(CloseableHttpResponse response) throws IOException {
+        this.response = response;
+        this.responseCode = response.getStatusLine().getStatusCode();
+        for (Header header : response.getAllHeaders()) {
+            headers.put(header.getName(), header.getValue());
+        }
+        HttpEntity entity = response.getEntity();
+        this.inputStream = entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * @return - response headers, the names are looked up ignoring the case
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return - stream of the response body, must be read before the response is closed
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * @return - channel view of the response body, to read the body into a {@link ByteBuffer}
+     */
+    public ReadableByteChannel getChannel() {
+        return Channels.newChannel(inputStream);
+    }
+
+    /**
+     * Read the whole body through the given matchers and discard it. Only the first kilobyte of the body
+     * is kept, see {@link #getBodyPreview()}.
+     *
+     * @param matchers - matchers to feed with the body
+     * @return - number of bytes in the body
+     * @throws IOException - if the body cannot be read
+     */
+    public long consume(ResponseBodyMatcher... matchers) throws IOException {
+        return consume(DEFAULT_PREVIEW_SIZE, matchers);
+    }
+
+    /**
+     * Read the whole body through the given matchers and discard it.
+     *
+     * @param previewSize - number of bytes to keep from the start of the body for diagnostics
+     * @param matchers    - matchers to feed with the body
+     * @return - number of bytes in the body
+     * @throws IOException - if the body cannot be read
+     */
+    public long consume(int previewSize, ResponseBodyMatcher... matchers) throws IOException {
+        byte[] buffer = readBuffer.get();
+        byte[] previewBuffer = new byte[previewSize];
+        int previewLength = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            for (ResponseBodyMatcher matcher : matchers) {
+                matcher.update(buffer, 0, read);
+            }
+            if (previewLength < previewSize) {
+                int length = Math.min(read, previewSize - previewLength);
+                System.arraycopy(buffer, 0, previewBuffer, previewLength, length);
+                previewLength += length;
+            }
+            bytesRead += read;
+        }
+        preview = Arrays.copyOf(previewBuffer, previewLength);
+        return bytesRead;
+    }
+
+    /**
+     * @return - number of body bytes read by {@link #consume(ResponseBodyMatcher...)}
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return - start of the body kept by {@link #consume(ResponseBodyMatcher...)}, used in assertion messages
+     */
+    public String getBodyPreview() {
+        return new String(preview, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        response.close();
+    }
+}
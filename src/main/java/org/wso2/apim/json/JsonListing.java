@@ -0,0 +1,84 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.json;
+
+import java.util.List;
+
+/**
+ * Status of a Jaggery listing response and the records extracted from it
+ */
+public class JsonListing {
+
+    private boolean error;
+    private String message;
+    private int recordCount;
+    private final List<JsonRecord> records;
+
+    JsonListing(List<JsonRecord> records) {
+        this.records = records;
+    }
+
+    /**
+     * Check the error flag of the response
+     *
+     * @return - true if the response has "error" : true
+     */
+    public boolean isError() {
+        return error;
+    }
+
+    void setError(boolean error) {
+        this.error = error;
+    }
+
+    /**
+     * Get the message of the response, usually given with an error
+     *
+     * @return - message or null if the response has no message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    void incrementRecordCount() {
+        recordCount++;
+    }
+
+    /**
+     * Get the extracted records
+     *
+     * @return - records in the order of the response, empty if the records were passed to a handler
+     */
+    public List<JsonRecord> getRecords() {
+        return records;
+    }
+
+    @Override
+    public String toString() {
+        return "error=" + error + ", message=" + message + ", records=" + recordCount;
+    }
+}
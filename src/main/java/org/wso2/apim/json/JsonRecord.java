@@ -0,0 +1,70 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.json;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fields kept of a single record of a JSON listing together with its nested records
+ */
+public class JsonRecord {
+
+    private final Map<String, String> values = new HashMap<String, String>();
+    private Map<String, List<JsonRecord>> children;
+
+    void put(String field, String value) {
+        values.put(field, value);
+    }
+
+    void setChildren(String path, List<JsonRecord> records) {
+        if (children == null) {
+            children = new HashMap<String, List<JsonRecord>>();
+        }
+        children.put(path, records);
+    }
+
+    /**
+     * Get the value of a field
+     *
+     * @param field - field name
+     * @return - value as text, null if the field is missing or null
+     */
+    public String getString(String field) {
+        return values.get(field);
+    }
+
+    /**
+     * Get the records of a nested array
+     *
+     * @param path - path of the child given to {@link JsonRecordPath#child(JsonRecordPath)}
+     * @return - nested records, empty if the array is missing
+     */
+    public List<JsonRecord> getChildren(String path) {
+        List<JsonRecord> records = children != null ? children.get(path) : null;
+        return records != null ? records : Collections.<JsonRecord>emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return children == null ? values.toString() : values + " " + children;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.json;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Location of the records to extract from a JSON response and the fields to keep of each record. The path is
+ * the dot separated names of the objects leading to the array of records, ex: subscriptions.applications for
+ * the applications of the store subscription listing. Arrays nested in a record are extracted with child paths.
+ */
+public class JsonRecordPath {
+
+    private final List<String> segments;
+    private final Set<String> fields = new LinkedHashSet<String>();
+    private final Map<String, JsonRecordPath> children = new LinkedHashMap<String, JsonRecordPath>();
+
+    private JsonRecordPath(String path) {
+        this.segments = Collections.unmodifiableList(Arrays.asList(path.split("\\.")));
+    }
+
+    /**
+     * Create a path to an array of records
+     *
+     * @param path - dot separated path of the array from the enclosing object, ex: apis
+     * @return - record path without fields
+     */
+    public static JsonRecordPath of(String path) {
+        return new JsonRecordPath(path);
+    }
+
+    /**
+     * Keep the given scalar fields of the records, numbers and booleans are kept as their text
+     *
+     * @param fieldNames - field names
+     * @return - this path
+     */
+    public JsonRecordPath fields(String... fieldNames) {
+        fields.addAll(Arrays.asList(fieldNames));
+        return this;
+    }
+
+    /**
+     * Extract the records of an array nested in the records of this path
+     *
+     * @param child - path of the nested array relative to a record of this path
+     * @return - this path
+     */
+    public JsonRecordPath child(JsonRecordPath child) {
+        children.put(child.segments.get(0), child);
+        return this;
+    }
+
+    /**
+     * Get the path as given to {@link #of(String)}, used to get the nested records of a {@link JsonRecord}
+     *
+     * @return - dot separated path
+     */
+    public String getPath() {
+        return String.join(".", segments);
+    }
+
+    List<String> getSegments() {
+        return segments;
+    }
+
+    Set<String> getFields() {
+        return fields;
+    }
+
+    Map<String, JsonRecordPath> getChildren() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        return getPath() + fields + (children.isEmpty() ? "" : children.values().toString());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Extracts records from the store and publisher listings with a pull parser. Only the fields of the
+ * {@link JsonRecordPath} are kept, everything else is skipped without building a tree, so listing thousands of
+ * APIs or subscriptions needs memory for the kept fields only. The top level error and message fields of the
+ * Jaggery response are always read.
+ */
+public class JsonStreamExtractor {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final String ERROR_FIELD = "error";
+    private static final String MESSAGE_FIELD = "message";
+    private static final int PREVIEW_LENGTH = 200;
+
+    private JsonStreamExtractor() {
+    }
+
+    /**
+     * Extract all the records of the path
+     *
+     * @param json - JSON response
+     * @param path - path of the records
+     * @return - listing with the records
+     * @throws APIManagerIntegrationTestException - if the response is not a JSON object
+     */
+    public static JsonListing extract(String json, JsonRecordPath path) throws APIManagerIntegrationTestException {
+        List<JsonRecord> records = new ArrayList<JsonRecord>();
+        return read(json, path, records, records::add);
+    }
+
+    /**
+     * Pass the records of the path to the handler as they are parsed, without keeping them
+     *
+     * @param json    - JSON response
+     * @param path    - path of the records
+     * @param handler - handler of each record
+     * @return - listing with the record count and no records
+     * @throws APIManagerIntegrationTestException - if the response is not a JSON object
+     */
+    public static JsonListing forEach(String json, JsonRecordPath path, Consumer<JsonRecord> handler)
+            throws APIManagerIntegrationTestException {
+        return read(json, path, Collections.<JsonRecord>emptyList(), handler);
+    }
+
+    /**
+     * Count the records of the path, ex: the APIs of a store page
+     *
+     * @param json - JSON response
+     * @param path - path of the records
+     * @return - listing with the record count and no records
+     * @throws APIManagerIntegrationTestException - if the response is not a JSON object
+     */
+    public static JsonListing count(String json, JsonRecordPath path) throws APIManagerIntegrationTestException {
+        return forEach(json, path, record -> {
+        });
+    }
+
+    private static JsonListing read(String json, JsonRecordPath path, List<JsonRecord> records,
+                                    final Consumer<JsonRecord> handler) throws APIManagerIntegrationTestException {
+        if (json == null) {
+            throw new APIManagerIntegrationTestException("No response to extract " + path + " from");
+        }
+        final JsonListing listing = new JsonListing(records);
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new APIManagerIntegrationTestException("Response is not a JSON object : " + preview(json));
+            }
+            readObject(parser, path, 0, record -> {
+                listing.incrementRecordCount();
+                handler.accept(record);
+            }, listing);
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException("Unable to extract " + path + " from " + preview(json), e);
+        }
+        return listing;
+    }
+
+    /**
+     * Read the object at the current START_OBJECT token, descending to the array of records
+     *
+     * @param listing - listing to set the status of the response, null if the object is not the root
+     */
+    private static void readObject(JsonParser parser, JsonRecordPath path, int segmentIndex,
+                                   Consumer<JsonRecord> handler, JsonListing listing) throws IOException {
+        List<String> segments = path.getSegments();
+        boolean lastSegment = segmentIndex == segments.size() - 1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (fieldName.equals(segments.get(segmentIndex))) {
+                if (lastSegment && token == JsonToken.START_ARRAY) {
+                    readArray(parser, path, handler);
+                } else if (!lastSegment && token == JsonToken.START_OBJECT) {
+                    readObject(parser, path, segmentIndex + 1, handler, null);
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (listing != null && ERROR_FIELD.equals(fieldName) && token.isScalarValue()) {
+                listing.setError(parser.getValueAsBoolean());
+            } else if (listing != null && MESSAGE_FIELD.equals(fieldName) && token.isScalarValue()) {
+                listing.setMessage(parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readArray(JsonParser parser, JsonRecordPath path, Consumer<JsonRecord> handler)
+            throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                handler.accept(readRecord(parser, path));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static JsonRecord readRecord(JsonParser parser, JsonRecordPath path) throws IOException {
+        JsonRecord record = new JsonRecord();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            JsonRecordPath child;
+            if (token.isScalarValue()) {
+                if (path.getFields().contains(fieldName)) {
+                    record.put(fieldName, token == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+                }
+            } else if ((child = path.getChildren().get(fieldName)) != null) {
+                List<JsonRecord> childRecords = new ArrayList<JsonRecord>();
+                if (child.getSegments().size() == 1 && token == JsonToken.START_ARRAY) {
+                    readArray(parser, child, childRecords::add);
+                } else if (child.getSegments().size() > 1 && token == JsonToken.START_OBJECT) {
+                    readObject(parser, child, 1, childRecords::add, null);
+                } else {
+                    parser.skipChildren();
+                }
+                record.setChildren(child.getPath(), childRecords);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return record;
+    }
+
+    private static String preview(String json) {
+        return json.length() > PREVIEW_LENGTH ? json.substring(0, PREVIEW_LENGTH) + "..." : json;
+    }
+}
@@ -0,0 +1,450 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONObject;
+import org.wso2.apim.bean.APIRequest;
+import org.wso2.apim.bean.APPKeyRequestGenerator;
+import org.wso2.apim.bean.ApplicationKeyBean;
+import org.wso2.apim.bean.SubscriptionRequest;
+import org.wso2.apim.clients.APIPublisherRestClient;
+import org.wso2.apim.clients.APIStoreRestClient;
+import org.wso2.apim.clients.ClientCall;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.HttpTransportConfiguration;
+import org.wso2.apim.http.PooledHttpTransport;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.token.AccessTokenManager;
+import org.wso2.apim.token.TokenKey;
+import org.wso2.apim.utils.NamedThreadFactory;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import org.wso2.carbon.integration.common.admin.client.AuthenticatorClient;
+import org.wso2.carbon.integration.common.admin.client.TenantManagementServiceClient;
+import org.wso2.carbon.integration.common.admin.client.UserManagementClient;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Java replacement of the API_Manager_functionality_and_loadTest JMeter scripts. The flows of the scripts are
+ * run as phases, each phase executes its tasks concurrently on a fixed pool of worker threads:
+ * <ol>
+ * <li>create the tenants and the subscriber users</li>
+ * <li>create and publish the APIs of each tenant</li>
+ * <li>every user logs in to the store, subscribes the APIs with the default application, generates the
+ * application keys and a user token and invokes the APIs through the gateway</li>
+ * <li>every user browses the store, i.e. gets all APIs, the recently added APIs and the tags</li>
+ * </ol>
+ * The latency and throughput of every step are collected in the returned {@link LoadReport}. Failed steps
+ * are counted and the flow of the user or API continues where possible.
+ * <p/>
+ * mvn -Pload compile exec:java -Dapim.load.tenants=2 -Dapim.load.users=50
+ */
+public class APIManagerLoadRunner {
+
+    private static final Log log = LogFactory.getLog(APIManagerLoadRunner.class);
+    private static final Pattern JAGGERY_ERROR = Pattern.compile("\"error\"\\s*:\\s*true");
+    private static final String SUPER_TENANT_DOMAIN = "carbon.super";
+    private static final String DEFAULT_APPLICATION = "DefaultApplication";
+    private static final String SUBSCRIBER_ROLE = "loadtest_subscriber";
+    private static final String[] SUBSCRIBER_PERMISSIONS =
+            {"/permission/admin/login", "/permission/admin/manage/api/subscribe"};
+    private static final String API_NAME_PREFIX = "LoadTestAPI";
+    private static final String API_VERSION = "1.0.0";
+    private static final String TIER_UNLIMITED = "Unlimited";
+    private static final int RECENT_API_LIMIT = 5;
+
+    private final LoadConfiguration configuration;
+    private final LoadReport report = new LoadReport();
+    private final PooledHttpTransport httpTransport;
+
+    /**
+     * @param configuration - configuration of the run
+     */
+    public APIManagerLoadRunner(LoadConfiguration configuration) {
+        this.configuration = configuration;
+        HttpTransportConfiguration transportConfiguration = HttpTransportConfiguration.fromSystemProperties();
+        transportConfiguration.setMaxTotalConnections(
+                Math.max(transportConfiguration.getMaxTotalConnections(), configuration.getThreads()));
+        transportConfiguration.setMaxConnectionsPerRoute(
+                Math.max(transportConfiguration.getMaxConnectionsPerRoute(), configuration.getThreads()));
+        this.httpTransport = new PooledHttpTransport(transportConfiguration);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadReport loadReport = new APIManagerLoadRunner(LoadConfiguration.fromSystemProperties()).run();
+        if (loadReport.getTotalFailureCount() > 0) {
+            log.warn(loadReport.getTotalFailureCount() + " steps failed during the load run");
+        }
+    }
+
+    /**
+     * Run all the phases. The runner cannot be reused as its connections are closed at the end of the run.
+     *
+     * @return - report of the run
+     * @throws APIManagerIntegrationTestException - if the run is interrupted or the token endpoint URL is invalid
+     */
+    public LoadReport run() throws APIManagerIntegrationTestException {
+        long startTime = System.currentTimeMillis();
+        List<LoadTenant> tenants = createTenantModel();
+        ExecutorService workers =
+                Executors.newFixedThreadPool(configuration.getThreads(), new NamedThreadFactory("apim-load"));
+        AccessTokenManager accessTokenManager;
+        try {
+            accessTokenManager = new AccessTokenManager(new URL(configuration.getGatewayURL() + "token"));
+        } catch (MalformedURLException e) {
+            throw new APIManagerIntegrationTestException("Invalid gateway URL " + configuration.getGatewayURL(), e);
+        }
+        log.info("Starting load run with " + tenants.size() + " tenants, " + configuration.getUserCount() +
+                 " users and " + configuration.getApiCount() + " APIs per tenant on " + configuration.getThreads() +
+                 " threads");
+        try {
+            if (configuration.isCreateUsers()) {
+                List<Runnable> tenantTasks = new ArrayList<Runnable>();
+                for (final LoadTenant tenant : tenants) {
+                    if (!SUPER_TENANT_DOMAIN.equals(tenant.domain)) {
+                        tenantTasks.add(() -> createTenant(tenant));
+                    }
+                }
+                runPhase("create tenants", tenantTasks, workers);
+                List<Runnable> userTasks = new ArrayList<Runnable>();
+                for (final LoadTenant tenant : tenants) {
+                    userTasks.add(() -> createUsers(tenant));
+                }
+                runPhase("create users", userTasks, workers);
+            }
+            List<Runnable> apiTasks = new ArrayList<Runnable>();
+            for (final LoadTenant tenant : tenants) {
+                final APIPublisherRestClient publisherRestClient =
+                        new APIPublisherRestClient(configuration.getPublisherURL(), httpTransport);
+                if (execute(LoadStep.LOGIN_PUBLISHER,
+                            () -> publisherRestClient.login(tenant.adminUser, tenant.adminPassword)) == null) {
+                    continue;
+                }
+                for (int i = 0; i < configuration.getApiCount(); i++) {
+                    final int apiIndex = i;
+                    apiTasks.add(() -> createAndPublishAPI(tenant, publisherRestClient, apiIndex));
+                }
+            }
+            runPhase("create and publish APIs", apiTasks, workers);
+            List<Runnable> subscriptionTasks = new ArrayList<Runnable>();
+            for (final LoadTenant tenant : tenants) {
+                for (final String userName : tenant.userNames) {
+                    subscriptionTasks.add(() -> subscribeAndInvoke(tenant, userName, accessTokenManager));
+                }
+            }
+            runPhase("subscribe and invoke APIs", subscriptionTasks, workers);
+            List<Runnable> browseTasks = new ArrayList<Runnable>();
+            for (final LoadTenant tenant : tenants) {
+                for (final String userName : tenant.userNames) {
+                    browseTasks.add(() -> browseStore(tenant, userName));
+                }
+            }
+            runPhase("browse store", browseTasks, workers);
+        } finally {
+            workers.shutdownNow();
+            accessTokenManager.close();
+            try {
+                httpTransport.close();
+            } catch (IOException e) {
+                log.warn("Unable to close the HTTP transport", e);
+            }
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info(report);
+        if (ClientMetrics.getInstance().isEnabled()) {
+            log.info(ClientMetrics.getInstance());
+        }
+        return report;
+    }
+
+    private List<LoadTenant> createTenantModel() {
+        List<LoadTenant> tenants = new ArrayList<LoadTenant>();
+        if (configuration.getTenantCount() == 0) {
+            tenants.add(new LoadTenant(SUPER_TENANT_DOMAIN, configuration.getAdminUser(),
+                                       configuration.getAdminPassword()));
+        }
+        for (int i = 1; i <= configuration.getTenantCount(); i++) {
+            String domain = configuration.getTenantDomainPrefix() + i + ".com";
+            tenants.add(new LoadTenant(domain, configuration.getAdminUser() + "@" + domain,
+                                       configuration.getAdminPassword()));
+        }
+        for (LoadTenant tenant : tenants) {
+            for (int i = 1; i <= configuration.getUserCount(); i++) {
+                String userName = "loaduser" + i;
+                tenant.userNames.add(SUPER_TENANT_DOMAIN.equals(tenant.domain) ? userName :
+                                     userName + "@" + tenant.domain);
+            }
+        }
+        return tenants;
+    }
+
+    private void createTenant(final LoadTenant tenant) {
+        execute(LoadStep.CREATE_TENANT, () -> {
+            String servicesURL = configuration.getServicesURL();
+            String sessionCookie = new AuthenticatorClient(servicesURL).login(
+                    configuration.getAdminUser(), configuration.getAdminPassword(), new URL(servicesURL).getHost());
+            new TenantManagementServiceClient(servicesURL, sessionCookie).addTenant(
+                    tenant.domain, tenant.adminPassword, configuration.getAdminUser(), "demo");
+            return tenant.domain;
+        });
+    }
+
+    private void createUsers(LoadTenant tenant) {
+        final UserManagementClient userManagementClient;
+        try {
+            userManagementClient = new UserManagementClient(configuration.getServicesURL(), tenant.adminUser,
+                                                            tenant.adminPassword);
+        } catch (RemoteException e) {
+            log.error("Unable to create the user management client of " + tenant.domain, e);
+            return;
+        }
+        try {
+            userManagementClient.addRole(SUBSCRIBER_ROLE, new String[]{}, SUBSCRIBER_PERMISSIONS);
+        } catch (Exception e) {
+            //the role is left from an earlier run, the users can still be added
+            log.debug("Unable to add the role " + SUBSCRIBER_ROLE + " to " + tenant.domain, e);
+        }
+        for (final String userName : tenant.userNames) {
+            final String localUserName = getLocalUserName(userName);
+            execute(LoadStep.CREATE_USER, () -> {
+                userManagementClient.addUser(localUserName, configuration.getUserPassword(),
+                                             new String[]{SUBSCRIBER_ROLE}, localUserName);
+                return userName;
+            });
+        }
+    }
+
+    private void createAndPublishAPI(LoadTenant tenant, final APIPublisherRestClient publisherRestClient,
+                                     int apiIndex) {
+        String apiName = API_NAME_PREFIX + apiIndex;
+        final APIIdentifier apiIdentifier = new APIIdentifier(tenant.adminUser, apiName, API_VERSION);
+        final APIRequest apiRequest = execute(LoadStep.CREATE_API, () -> {
+            APIRequest request =
+                    new APIRequest(apiName, "loadtest" + apiIndex, new URL(configuration.getApiEndpoint()));
+            request.setVersion(API_VERSION);
+            request.setProvider(tenant.adminUser);
+            request.setTags("loadtest");
+            request.setTier(TIER_UNLIMITED);
+            request.setTiersCollection(TIER_UNLIMITED);
+            request.setResourceMethod("GET");
+            request.setResourceMethodAuthType("Application & Application User");
+            request.setResourceMethodThrottlingTier(TIER_UNLIMITED);
+            checkResponse(publisherRestClient.addAPI(request));
+            return request;
+        });
+        if (apiRequest != null && execute(LoadStep.PUBLISH_API,
+                () -> checkResponse(publisherRestClient.changeAPILifeCycleStatusToPublish(apiIdentifier, false))) !=
+                                  null) {
+            tenant.apis.add(apiRequest);
+        }
+    }
+
+    private void subscribeAndInvoke(LoadTenant tenant, final String userName,
+                                    AccessTokenManager accessTokenManager) {
+        final APIStoreRestClient storeRestClient = new APIStoreRestClient(configuration.getStoreURL(), httpTransport);
+        if (executeRequest(LoadStep.LOGIN_STORE,
+                           () -> storeRestClient.login(userName, configuration.getUserPassword())) == null) {
+            return;
+        }
+        List<APIRequest> apis = tenant.getAPIs();
+        for (final APIRequest api : apis) {
+            executeRequest(LoadStep.SUBSCRIBE, () -> storeRestClient.subscribe(new SubscriptionRequest(
+                    api.getName(), api.getVersion(), api.getProvider(), DEFAULT_APPLICATION, TIER_UNLIMITED)));
+        }
+        final String applicationName = userName + "/" + DEFAULT_APPLICATION;
+        ApplicationKeyBean applicationKeyBean = execute(LoadStep.GENERATE_KEYS, () -> {
+            HttpResponse response = checkResponse(
+                    storeRestClient.generateApplicationKey(new APPKeyRequestGenerator(DEFAULT_APPLICATION)));
+            JSONObject key = new JSONObject(response.getData()).getJSONObject("data").getJSONObject("key");
+            ApplicationKeyBean keyBean = new ApplicationKeyBean();
+            keyBean.setConsumerKey(key.getString("consumerKey"));
+            keyBean.setConsumerSecret(key.getString("consumerSecret"));
+            return keyBean;
+        });
+        if (applicationKeyBean == null) {
+            return;
+        }
+        accessTokenManager.registerApplication(applicationName, AccessTokenManager.KEY_TYPE_PRODUCTION,
+                                               applicationKeyBean);
+        accessTokenManager.registerUser(userName, configuration.getUserPassword());
+        String accessToken = execute(LoadStep.GENERATE_TOKEN,
+                () -> accessTokenManager.getAccessToken(TokenKey.forUser(applicationName, userName)));
+        if (accessToken == null) {
+            return;
+        }
+        Map<String, String> requestHeaders = new HashMap<String, String>();
+        requestHeaders.put("Authorization", "Bearer " + accessToken);
+        for (APIRequest api : apis) {
+            final String invocationURL = getInvocationURL(tenant, api);
+            for (int i = 0; i < configuration.getInvocationsPerAPI(); i++) {
+                execute(LoadStep.INVOKE_API, () -> invoke(invocationURL, requestHeaders));
+            }
+        }
+    }
+
+    private void browseStore(final LoadTenant tenant, final String userName) {
+        final APIStoreRestClient storeRestClient = new APIStoreRestClient(configuration.getStoreURL(), httpTransport);
+        if (executeRequest(LoadStep.LOGIN_STORE,
+                           () -> storeRestClient.login(userName, configuration.getUserPassword())) == null) {
+            return;
+        }
+        for (int i = 0; i < configuration.getBrowseIterations(); i++) {
+            executeRequest(LoadStep.GET_ALL_APIS, () -> storeRestClient.getAllPublishedAPIs(tenant.domain));
+            executeRequest(LoadStep.GET_RECENT_APIS, () -> storeRestClient.getRecentlyAddedAPIs(
+                    tenant.domain, Integer.toString(RECENT_API_LIMIT)));
+            executeRequest(LoadStep.GET_TAGS, storeRestClient::getAllTags);
+        }
+    }
+
+    private String getInvocationURL(LoadTenant tenant, APIRequest api) {
+        String tenantPath = SUPER_TENANT_DOMAIN.equals(tenant.domain) ? "" : "t/" + tenant.domain + "/";
+        return configuration.getGatewayURL() + tenantPath + api.getContext().replaceFirst("^/", "") + "/" +
+               api.getVersion() + "/";
+    }
+
+    private static Integer invoke(String invocationURL, Map<String, String> requestHeaders)
+            throws APIManagerIntegrationTestException {
+        try {
+            StreamingHttpResponse response =
+                    StreamingHttpClient.getSharedClient().doGet(invocationURL, requestHeaders);
+            try {
+                response.consume();
+            } finally {
+                response.close();
+            }
+            if (response.getResponseCode() != 200) {
+                throw new APIManagerIntegrationTestException("Invocation of " + invocationURL + " failed with " +
+                                                             response.getResponseCode());
+            }
+            return response.getResponseCode();
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException("Unable to invoke " + invocationURL, e);
+        }
+    }
+
+    private void runPhase(String phase, List<Runnable> tasks, ExecutorService workers)
+            throws APIManagerIntegrationTestException {
+        long startTime = System.currentTimeMillis();
+        List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(workers.submit(task));
+        }
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Load task of the phase '" + phase + "' failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted during the phase '" + phase + "'", e);
+        }
+        log.info("Phase '" + phase + "' with " + tasks.size() + " tasks completed in " +
+                 (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    private HttpResponse executeRequest(LoadStep step, final ClientCall<HttpResponse> call) {
+        return execute(step, () -> checkResponse(call.call()));
+    }
+
+    /**
+     * Execute and measure a step
+     *
+     * @param step      - executed step
+     * @param operation - operation of the step
+     * @param <T>       - result type
+     * @return - result of the operation, null if the step failed
+     */
+    private <T> T execute(LoadStep step, LoadOperation<T> operation) {
+        long startTime = System.nanoTime();
+        try {
+            T result = operation.execute();
+            report.record(step, startTime, System.nanoTime(), true);
+            return result;
+        } catch (Exception e) {
+            report.record(step, startTime, System.nanoTime(), false);
+            log.debug("Load step " + step + " failed", e);
+            return null;
+        }
+    }
+
+    private static HttpResponse checkResponse(HttpResponse response) throws APIManagerIntegrationTestException {
+        if (response.getResponseCode() != 200 ||
+            (response.getData() != null && JAGGERY_ERROR.matcher(response.getData()).find())) {
+            throw new APIManagerIntegrationTestException("Unexpected response " + response.getResponseCode() +
+                                                         " : " + response.getData());
+        }
+        return response;
+    }
+
+    private static String getLocalUserName(String userName) {
+        int separatorIndex = userName.lastIndexOf('@');
+        return separatorIndex < 0 ? userName : userName.substring(0, separatorIndex);
+    }
+
+    /**
+     * Operation of a load step
+     */
+    private interface LoadOperation<T> {
+        T execute() throws Exception;
+    }
+
+    /**
+     * Tenant of the run with its users and the published APIs
+     */
+    private static class LoadTenant {
+
+        private final String domain;
+        private final String adminUser;
+        private final String adminPassword;
+        private final List<String> userNames = new ArrayList<String>();
+        private final List<APIRequest> apis = Collections.synchronizedList(new ArrayList<APIRequest>());
+
+        LoadTenant(String domain, String adminUser, String adminPassword) {
+            this.domain = domain;
+            this.adminUser = adminUser;
+            this.adminPassword = adminPassword;
+        }
+
+        List<APIRequest> getAPIs() {
+            synchronized (apis) {
+                return new ArrayList<APIRequest>(apis);
+            }
+        }
+    }
+}
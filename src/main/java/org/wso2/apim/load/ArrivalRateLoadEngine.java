@@ -0,0 +1,163 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model load generator which sends requests at a target arrival rate, independent of how fast the
+ * responses come back. The intended send time of every request is computed up front from the phases, a
+ * scheduler thread hands the request to the workers at that time, and the latency is measured from the
+ * intended send time. When the system under test stalls, the requests queue up in front of the workers and
+ * their waiting time shows up in the tail latency instead of silently lowering the rate as a closed loop does.
+ * <p/>
+ * apim.load.arrival.maxConcurrency=200
+ * apim.load.arrival.drainTimeout=60000
+ */
+public class ArrivalRateLoadEngine {
+
+    private static final Log log = LogFactory.getLog(ArrivalRateLoadEngine.class);
+
+    private final LoadRequest request;
+    private int maxConcurrency = Integer.getInteger("apim.load.arrival.maxConcurrency", 200);
+    private long drainTimeoutMillis = Long.getLong("apim.load.arrival.drainTimeout", 60000L);
+
+    /**
+     * @param request - request sent at each arrival, must be thread safe
+     */
+    public ArrivalRateLoadEngine(LoadRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Create a request which sends a HTTP GET and expects a 2xx response
+     *
+     * @param httpClient - client to send the request, its connection pool should allow the max concurrency
+     * @param url        - request URL
+     * @param headers    - request headers
+     * @return - load request
+     */
+    public static LoadRequest httpGet(final StreamingHttpClient httpClient, final String url,
+                                      final Map<String, String> headers) {
+        return () -> {
+            try (StreamingHttpResponse response = httpClient.doGet(url, headers)) {
+                response.consume();
+                return response.getResponseCode() >= 200 && response.getResponseCode() < 300;
+            }
+        };
+    }
+
+    /**
+     * Set the number of worker threads, i.e. the maximum number of requests in flight. Requests which are due
+     * while all the workers are busy wait in the queue and the waiting time is part of their response time.
+     *
+     * @param maxConcurrency - number of worker threads
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public void setDrainTimeoutMillis(long drainTimeoutMillis) {
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    /**
+     * Run the phases one after the other and wait until the outstanding requests complete
+     *
+     * @param phases - phases of the run, e.g. ramp-up, steady state and ramp-down
+     * @return - report of each phase in order
+     * @throws APIManagerIntegrationTestException - if the thread is interrupted or the outstanding requests do
+     *                                            not complete within the drain timeout
+     */
+    public List<PhaseReport> run(List<LoadPhase> phases) throws APIManagerIntegrationTestException {
+        List<PhaseReport> reports = new ArrayList<PhaseReport>(phases.size());
+        ExecutorService workers = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+                                                         new LinkedBlockingQueue<Runnable>(),
+                                                         new NamedThreadFactory("apim-arrival-rate"));
+        try {
+            long phaseStartTime = System.nanoTime();
+            for (LoadPhase phase : phases) {
+                PhaseReport report = new PhaseReport(phase);
+                reports.add(report);
+                log.info("Starting load phase " + phase);
+                schedule(phase, phaseStartTime, report, workers);
+                phaseStartTime += TimeUnit.MILLISECONDS.toNanos(phase.getDurationMillis());
+            }
+            sleepUntil(phaseStartTime);
+            workers.shutdown();
+            if (!workers.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new APIManagerIntegrationTestException("Outstanding requests did not complete within " +
+                                                             drainTimeoutMillis + " ms after the last phase");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while generating load", e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return reports;
+    }
+
+    private void schedule(LoadPhase phase, long phaseStartTime, final PhaseReport report, ExecutorService workers)
+            throws InterruptedException {
+        long arrivalCount = phase.getArrivalCount();
+        for (long arrivalIndex = 0; arrivalIndex < arrivalCount; arrivalIndex++) {
+            final long intendedSendTime = phaseStartTime + phase.getArrivalOffsetNanos(arrivalIndex);
+            sleepUntil(intendedSendTime);
+            report.recordScheduled(System.nanoTime() - intendedSendTime);
+            workers.execute(() -> send(intendedSendTime, report));
+        }
+    }
+
+    private void send(long intendedSendTime, PhaseReport report) {
+        long sendTime = System.nanoTime();
+        boolean successful;
+        try {
+            successful = request.send();
+        } catch (Exception e) {
+            successful = false;
+            log.debug("Load request failed", e);
+        }
+        long completionTime = System.nanoTime();
+        report.recordCompleted(completionTime - intendedSendTime, completionTime - sendTime, successful);
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long remainingNanos;
+        while ((remainingNanos = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
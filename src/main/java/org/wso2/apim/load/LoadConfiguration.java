@@ -0,0 +1,237 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.load;
+
+/**
+ * Configuration of a load run. Values are read from system properties, so they can be given with -D options
+ * to the load profile. Tenants, users and APIs are created by the run, the user and API counts are per tenant.
+ * With no tenants the flows run in the super tenant.
+ * <p/>
+ * apim.load.storeURL=http://localhost:9763/
+ * apim.load.publisherURL=http://localhost:9763/
+ * apim.load.gatewayURL=http://localhost:8280/
+ * apim.load.servicesURL=https://localhost:9443/services/
+ * apim.load.adminUser=admin
+ * apim.load.adminPassword=admin
+ * apim.load.tenants=0
+ * apim.load.tenantDomainPrefix=loadtenant
+ * apim.load.users=10
+ * apim.load.userPassword=loadUser123
+ * apim.load.createUsers=true
+ * apim.load.apis=5
+ * apim.load.apiEndpoint=http://localhost:9763/am/sample/pizzashack/v1/api/
+ * apim.load.invocationsPerAPI=10
+ * apim.load.browseIterations=10
+ * apim.load.threads=100
+ */
+public class LoadConfiguration {
+
+    public static final String STORE_URL_PROPERTY = "apim.load.storeURL";
+    public static final String PUBLISHER_URL_PROPERTY = "apim.load.publisherURL";
+    public static final String GATEWAY_URL_PROPERTY = "apim.load.gatewayURL";
+    public static final String SERVICES_URL_PROPERTY = "apim.load.servicesURL";
+    public static final String ADMIN_USER_PROPERTY = "apim.load.adminUser";
+    public static final String ADMIN_PASSWORD_PROPERTY = "apim.load.adminPassword";
+    public static final String TENANT_COUNT_PROPERTY = "apim.load.tenants";
+    public static final String TENANT_DOMAIN_PREFIX_PROPERTY = "apim.load.tenantDomainPrefix";
+    public static final String USER_COUNT_PROPERTY = "apim.load.users";
+    public static final String USER_PASSWORD_PROPERTY = "apim.load.userPassword";
+    public static final String CREATE_USERS_PROPERTY = "apim.load.createUsers";
+    public static final String API_COUNT_PROPERTY = "apim.load.apis";
+    public static final String API_ENDPOINT_PROPERTY = "apim.load.apiEndpoint";
+    public static final String INVOCATIONS_PER_API_PROPERTY = "apim.load.invocationsPerAPI";
+    public static final String BROWSE_ITERATIONS_PROPERTY = "apim.load.browseIterations";
+    public static final String THREADS_PROPERTY = "apim.load.threads";
+
+    private String storeURL = "http://localhost:9763/";
+    private String publisherURL = "http://localhost:9763/";
+    private String gatewayURL = "http://localhost:8280/";
+    private String servicesURL = "https://localhost:9443/services/";
+    private String adminUser = "admin";
+    private String adminPassword = "admin";
+    private int tenantCount = 0;
+    private String tenantDomainPrefix = "loadtenant";
+    private int userCount = 10;
+    private String userPassword = "loadUser123";
+    private boolean createUsers = true;
+    private int apiCount = 5;
+    private String apiEndpoint = "http://localhost:9763/am/sample/pizzashack/v1/api/";
+    private int invocationsPerAPI = 10;
+    private int browseIterations = 10;
+    private int threads = 100;
+
+    /**
+     * Build the configuration from the system properties, falling back to the defaults
+     *
+     * @return - load configuration
+     */
+    public static LoadConfiguration fromSystemProperties() {
+        LoadConfiguration configuration = new LoadConfiguration();
+        configuration.setStoreURL(System.getProperty(STORE_URL_PROPERTY, configuration.getStoreURL()));
+        configuration.setPublisherURL(System.getProperty(PUBLISHER_URL_PROPERTY, configuration.getPublisherURL()));
+        configuration.setGatewayURL(System.getProperty(GATEWAY_URL_PROPERTY, configuration.getGatewayURL()));
+        configuration.setServicesURL(System.getProperty(SERVICES_URL_PROPERTY, configuration.getServicesURL()));
+        configuration.setAdminUser(System.getProperty(ADMIN_USER_PROPERTY, configuration.getAdminUser()));
+        configuration.setAdminPassword(System.getProperty(ADMIN_PASSWORD_PROPERTY, configuration.getAdminPassword()));
+        configuration.setTenantCount(Integer.getInteger(TENANT_COUNT_PROPERTY, configuration.getTenantCount()));
+        configuration.setTenantDomainPrefix(
+                System.getProperty(TENANT_DOMAIN_PREFIX_PROPERTY, configuration.getTenantDomainPrefix()));
+        configuration.setUserCount(Integer.getInteger(USER_COUNT_PROPERTY, configuration.getUserCount()));
+        configuration.setUserPassword(System.getProperty(USER_PASSWORD_PROPERTY, configuration.getUserPassword()));
+        configuration.setCreateUsers(
+                Boolean.parseBoolean(System.getProperty(CREATE_USERS_PROPERTY,
+                                                        Boolean.toString(configuration.isCreateUsers()))));
+        configuration.setApiCount(Integer.getInteger(API_COUNT_PROPERTY, configuration.getApiCount()));
+        configuration.setApiEndpoint(System.getProperty(API_ENDPOINT_PROPERTY, configuration.getApiEndpoint()));
+        configuration.setInvocationsPerAPI(
+                Integer.getInteger(INVOCATIONS_PER_API_PROPERTY, configuration.getInvocationsPerAPI()));
+        configuration.setBrowseIterations(
+                Integer.getInteger(BROWSE_ITERATIONS_PROPERTY, configuration.getBrowseIterations()));
+        configuration.setThreads(Integer.getInteger(THREADS_PROPERTY, configuration.getThreads()));
+        return configuration;
+    }
+
+    public String getStoreURL() {
+        return storeURL;
+    }
+
+    public void setStoreURL(String storeURL) {
+        this.storeURL = storeURL;
+    }
+
+    public String getPublisherURL() {
+        return publisherURL;
+    }
+
+    public void setPublisherURL(String publisherURL) {
+        this.publisherURL = publisherURL;
+    }
+
+    public String getGatewayURL() {
+        return gatewayURL;
+    }
+
+    public void setGatewayURL(String gatewayURL) {
+        this.gatewayURL = gatewayURL;
+    }
+
+    public String getServicesURL() {
+        return servicesURL;
+    }
+
+    public void setServicesURL(String servicesURL) {
+        this.servicesURL = servicesURL;
+    }
+
+    public String getAdminUser() {
+        return adminUser;
+    }
+
+    public void setAdminUser(String adminUser) {
+        this.adminUser = adminUser;
+    }
+
+    public String getAdminPassword() {
+        return adminPassword;
+    }
+
+    public void setAdminPassword(String adminPassword) {
+        this.adminPassword = adminPassword;
+    }
+
+    public int getTenantCount() {
+        return tenantCount;
+    }
+
+    public void setTenantCount(int tenantCount) {
+        this.tenantCount = tenantCount;
+    }
+
+    public String getTenantDomainPrefix() {
+        return tenantDomainPrefix;
+    }
+
+    public void setTenantDomainPrefix(String tenantDomainPrefix) {
+        this.tenantDomainPrefix = tenantDomainPrefix;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public void setUserCount(int userCount) {
+        this.userCount = userCount;
+    }
+
+    public String getUserPassword() {
+        return userPassword;
+    }
+
+    public void setUserPassword(String userPassword) {
+        this.userPassword = userPassword;
+    }
+
+    public boolean isCreateUsers() {
+        return createUsers;
+    }
+
+    public void setCreateUsers(boolean createUsers) {
+        this.createUsers = createUsers;
+    }
+
+    public int getApiCount() {
+        return apiCount;
+    }
+
+    public void setApiCount(int apiCount) {
+        this.apiCount = apiCount;
+    }
+
+    public String getApiEndpoint() {
+        return apiEndpoint;
+    }
+
+    public void setApiEndpoint(String apiEndpoint) {
+        this.apiEndpoint = apiEndpoint;
+    }
+
+    public int getInvocationsPerAPI() {
+        return invocationsPerAPI;
+    }
+
+    public void setInvocationsPerAPI(int invocationsPerAPI) {
+        this.invocationsPerAPI = invocationsPerAPI;
+    }
+
+    public int getBrowseIterations() {
+        return browseIterations;
+    }
+
+    public void setBrowseIterations(int browseIterations) {
+        this.browseIterations = browseIterations;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.load;
+
+/**
+ * Phase of an open model load run. The arrival rate changes linearly from the start rate to the end rate over
+ * the duration of the phase, so a constant rate gives a steady state and an increasing or decreasing rate
+ * gives a ramp.
+ */
+public class LoadPhase {
+
+    private final String name;
+    private final double startRate;
+    private final double endRate;
+    private final long durationMillis;
+
+    /**
+     * @param name           - name of the phase used in the report
+     * @param startRate      - arrival rate at the start of the phase in requests per second
+     * @param endRate        - arrival rate at the end of the phase in requests per second
+     * @param durationMillis - duration of the phase
+     */
+    public LoadPhase(String name, double startRate, double endRate, long durationMillis) {
+        if (startRate < 0 || endRate < 0 || durationMillis <= 0) {
+            throw new IllegalArgumentException("Invalid load phase " + name + " : " + startRate + " -> " + endRate +
+                                               " requests per second in " + durationMillis + " ms");
+        }
+        this.name = name;
+        this.startRate = startRate;
+        this.endRate = endRate;
+        this.durationMillis = durationMillis;
+    }
+
+    public static LoadPhase rampUp(double targetRate, long durationMillis) {
+        return new LoadPhase("ramp-up", 0, targetRate, durationMillis);
+    }
+
+    public static LoadPhase steadyState(double rate, long durationMillis) {
+        return new LoadPhase("steady-state", rate, rate, durationMillis);
+    }
+
+    public static LoadPhase rampDown(double initialRate, long durationMillis) {
+        return new LoadPhase("ramp-down", initialRate, 0, durationMillis);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getStartRate() {
+        return startRate;
+    }
+
+    public double getEndRate() {
+        return endRate;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return - number of requests sent in the phase
+     */
+    public long getArrivalCount() {
+        return (long) ((startRate + endRate) / 2 * durationMillis / 1000);
+    }
+
+    /**
+     * Get the intended send time of a request. The number of arrivals until t seconds is
+     * N(t) = r0 * t + (r1 - r0) * t^2 / 2T, solved for N(t) = arrivalIndex.
+     *
+     * @param arrivalIndex - index of the request in the phase starting from 0
+     * @return - send time relative to the start of the phase in nanoseconds
+     */
+    public long getArrivalOffsetNanos(long arrivalIndex) {
+        if (arrivalIndex == 0) {
+            return 0;
+        }
+        double durationSeconds = durationMillis / 1000.0;
+        double acceleration = (endRate - startRate) / (2 * durationSeconds);
+        double discriminant = Math.max(0, startRate * startRate + 4 * acceleration * arrivalIndex);
+        double offsetSeconds = 2 * arrivalIndex / (startRate + Math.sqrt(discriminant));
+        return (long) (offsetSeconds * 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + startRate + " -> " + endRate + " req/s in " + durationMillis + " ms";
+    }
+}
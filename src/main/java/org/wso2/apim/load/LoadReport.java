@@ -0,0 +1,128 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.load;
+
+import org.wso2.apim.provisioning.StepStatistics;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Throughput, failures and latency percentiles of every step of a load run
+ */
+public class LoadReport {
+
+    private final Map<LoadStep, StepResult> stepResults = new EnumMap<LoadStep, StepResult>(LoadStep.class);
+    private volatile long elapsedMillis;
+
+    public LoadReport() {
+        for (LoadStep step : LoadStep.values()) {
+            stepResults.put(step, new StepResult());
+        }
+    }
+
+    /**
+     * Record an execution of a step
+     *
+     * @param step           - executed step
+     * @param startTimeNanos - start of the execution from {@link System#nanoTime()}
+     * @param endTimeNanos   - end of the execution from {@link System#nanoTime()}
+     * @param successful     - false if the step failed
+     */
+    public void record(LoadStep step, long startTimeNanos, long endTimeNanos, boolean successful) {
+        stepResults.get(step).record(startTimeNanos, endTimeNanos, successful);
+    }
+
+    /**
+     * @param step - step
+     * @return - latency statistics of the successful executions of the step
+     */
+    public StepStatistics getStatistics(LoadStep step) {
+        return stepResults.get(step).statistics;
+    }
+
+    public int getFailureCount(LoadStep step) {
+        return stepResults.get(step).getFailureCount();
+    }
+
+    /**
+     * @param step - step
+     * @return - successful executions per second between the first start and the last end of the step
+     */
+    public double getThroughput(LoadStep step) {
+        return stepResults.get(step).getThroughput();
+    }
+
+    public int getTotalFailureCount() {
+        int failureCount = 0;
+        for (StepResult stepResult : stepResults.values()) {
+            failureCount += stepResult.getFailureCount();
+        }
+        return failureCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Load run completed in ").append(elapsedMillis).append(" ms");
+        for (Map.Entry<LoadStep, StepResult> entry : stepResults.entrySet()) {
+            StepResult stepResult = entry.getValue();
+            if (stepResult.statistics.getCount() == 0 && stepResult.getFailureCount() == 0) {
+                continue;
+            }
+            summary.append(String.format("%n  %-16s throughput=%.1f/s, failures=%d, %s", entry.getKey(),
+                                         stepResult.getThroughput(), stepResult.getFailureCount(),
+                                         stepResult.statistics));
+        }
+        return summary.toString();
+    }
+
+    private static class StepResult {
+
+        private final StepStatistics statistics = new StepStatistics();
+        private int failureCount;
+        private long firstStartTimeNanos = Long.MAX_VALUE;
+        private long lastEndTimeNanos = Long.MIN_VALUE;
+
+        synchronized void record(long startTimeNanos, long endTimeNanos, boolean successful) {
+            firstStartTimeNanos = Math.min(firstStartTimeNanos, startTimeNanos);
+            lastEndTimeNanos = Math.max(lastEndTimeNanos, endTimeNanos);
+            if (successful) {
+                statistics.record(endTimeNanos - startTimeNanos);
+            } else {
+                failureCount++;
+            }
+        }
+
+        synchronized int getFailureCount() {
+            return failureCount;
+        }
+
+        synchronized double getThroughput() {
+            long durationNanos = lastEndTimeNanos - firstStartTimeNanos;
+            return durationNanos > 0 ? statistics.getCount() * 1e9 / durationNanos : 0;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency distribution of the requests scheduled in one {@link LoadPhase}. The response time is measured from
+ * the intended send time of the request, so the time a request waited because the system was slow is included
+ * and the tail latency is not hidden by coordinated omission. The service time is measured from the actual
+ * send time and shows how much of the response time was queueing. Latencies are recorded in microseconds.
+ */
+public class PhaseReport {
+
+    private final LoadPhase phase;
+    private final Histogram responseTimeHistogram = new ConcurrentHistogram(3);
+    private final Histogram serviceTimeHistogram = new ConcurrentHistogram(3);
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private volatile long maxSendLagNanos;
+
+    /**
+     * @param phase - phase of the requests
+     */
+    public PhaseReport(LoadPhase phase) {
+        this.phase = phase;
+    }
+
+    void recordScheduled(long sendLagNanos) {
+        scheduledCount.incrementAndGet();
+        if (sendLagNanos > maxSendLagNanos) {
+            maxSendLagNanos = sendLagNanos;
+        }
+    }
+
+    void recordCompleted(long responseTimeNanos, long serviceTimeNanos, boolean successful) {
+        responseTimeHistogram.recordValue(responseTimeNanos / 1000);
+        serviceTimeHistogram.recordValue(serviceTimeNanos / 1000);
+        if (!successful) {
+            failureCount.incrementAndGet();
+        }
+    }
+
+    public LoadPhase getPhase() {
+        return phase;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getCompletedCount() {
+        return responseTimeHistogram.getTotalCount();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return - the largest delay of the scheduler thread behind the intended send time in milliseconds, a
+     * large value means the load generator itself could not keep up with the rate
+     */
+    public double getMaxSendLagMillis() {
+        return maxSendLagNanos / 1e6;
+    }
+
+    /**
+     * @return - completed requests per second over the duration of the phase
+     */
+    public double getAchievedRate() {
+        return getCompletedCount() * 1000.0 / phase.getDurationMillis();
+    }
+
+    /**
+     * @param percentile - percentile between 0 and 100
+     * @return - response time at the percentile in milliseconds, measured from the intended send time
+     */
+    public double getResponseTimeMillis(double percentile) {
+        return responseTimeHistogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * @param percentile - percentile between 0 and 100
+     * @return - service time at the percentile in milliseconds, measured from the actual send time
+     */
+    public double getServiceTimeMillis(double percentile) {
+        return serviceTimeHistogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * @return - copy of the response time histogram in microseconds, e.g. to output the percentile distribution
+     */
+    public Histogram getResponseTimeHistogram() {
+        return responseTimeHistogram.copy();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s : scheduled=%d, completed=%d, failed=%d, achieved=%.1f req/s, max send lag=%.1f ms%n" +
+                             "    response time p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f ms%n" +
+                             "    service time  p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f ms",
+                             phase, getScheduledCount(), getCompletedCount(), getFailureCount(), getAchievedRate(),
+                             getMaxSendLagMillis(), getResponseTimeMillis(50), getResponseTimeMillis(90),
+                             getResponseTimeMillis(99), getResponseTimeMillis(99.9), getResponseTimeMillis(100),
+                             getServiceTimeMillis(50), getServiceTimeMillis(90), getServiceTimeMillis(99),
+                             getServiceTimeMillis(99.9), getServiceTimeMillis(100));
+    }
+}
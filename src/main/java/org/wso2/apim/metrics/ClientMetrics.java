@@ -0,0 +1,159 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.metrics;
+
+import org.wso2.apim.http.HttpTransport;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency, call count and error count of the client calls of the test run, per target node and logical
+ * operation. The rest clients record through a {@link MetricsHttpTransport}, other clients record the calls
+ * explicitly. Tests and load runs query the metrics with {@link #snapshot()}, the {@link ClientMetricsListener}
+ * logs them at the end of the suite.
+ * <p/>
+ * Recording can be disabled with -Dapim.metrics.enabled=false.
+ */
+public class ClientMetrics {
+
+    private static final ClientMetrics instance =
+            new ClientMetrics(Boolean.parseBoolean(System.getProperty("apim.metrics.enabled", "true")));
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> nodes =
+            new ConcurrentHashMap<String, ConcurrentMap<String, OperationMetrics>>();
+    private final boolean enabled;
+
+    /**
+     * @param enabled - false to ignore the recorded calls
+     */
+    public ClientMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the metrics shared in this JVM
+     *
+     * @return - shared metrics
+     */
+    public static ClientMetrics getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wrap the transport so that the requests sent through it are recorded in these metrics
+     *
+     * @param transport - transport of a client
+     * @return - recording transport, or the given transport if recording is disabled or already in place
+     */
+    public HttpTransport instrument(HttpTransport transport) {
+        if (!enabled || transport instanceof MetricsHttpTransport) {
+            return transport;
+        }
+        return new MetricsHttpTransport(transport, this);
+    }
+
+    /**
+     * Record a call
+     *
+     * @param node         - host and port of the node the call was sent to
+     * @param operation    - logical operation name
+     * @param elapsedNanos - latency of the call
+     * @param successful   - false if the call failed or returned an error
+     */
+    public void record(String node, String operation, long elapsedNanos, boolean successful) {
+        if (enabled) {
+            getMetrics(node, operation).record(elapsedNanos, successful);
+        }
+    }
+
+    /**
+     * Get the metrics of every operation recorded so far, ordered by node and operation
+     *
+     * @return - snapshot of the metrics
+     */
+    public List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> snapshots = new ArrayList<OperationSnapshot>();
+        for (ConcurrentMap<String, OperationMetrics> operations : nodes.values()) {
+            for (OperationMetrics metrics : operations.values()) {
+                snapshots.add(metrics.snapshot());
+            }
+        }
+        Collections.sort(snapshots, Comparator.comparing(OperationSnapshot::getNode)
+                                              .thenComparing(OperationSnapshot::getOperation));
+        return snapshots;
+    }
+
+    /**
+     * Get the metrics of an operation on a node
+     *
+     * @param node      - host and port of the node
+     * @param operation - logical operation name
+     * @return - snapshot of the operation or null if it was never recorded
+     */
+    public OperationSnapshot snapshot(String node, String operation) {
+        ConcurrentMap<String, OperationMetrics> operations = nodes.get(node);
+        OperationMetrics metrics = operations != null ? operations.get(operation) : null;
+        return metrics != null ? metrics.snapshot() : null;
+    }
+
+    /**
+     * Discard the recorded metrics, ex: after the warm up of a load run
+     */
+    public void reset() {
+        nodes.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Client call metrics");
+        for (OperationSnapshot snapshot : snapshot()) {
+            summary.append("\n  ").append(snapshot);
+        }
+        return summary.toString();
+    }
+
+    private OperationMetrics getMetrics(String node, String operation) {
+        ConcurrentMap<String, OperationMetrics> operations = nodes.get(node);
+        if (operations == null) {
+            ConcurrentMap<String, OperationMetrics> newOperations =
+                    new ConcurrentHashMap<String, OperationMetrics>();
+            operations = nodes.putIfAbsent(node, newOperations);
+            if (operations == null) {
+                operations = newOperations;
+            }
+        }
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            OperationMetrics newMetrics = new OperationMetrics(node, operation);
+            metrics = operations.putIfAbsent(operation, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Logs the client call metrics at the end of the suite
+ */
+public class ClientMetricsListener implements ISuiteListener {
+
+    private static final Log log = LogFactory.getLog(ClientMetricsListener.class);
+
+    @Override
+    public void onStart(ISuite suite) {
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (ClientMetrics.getInstance().isEnabled()) {
+            log.info("Suite " + suite.getName() + " finished. " + ClientMetrics.getInstance());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.metrics;
+
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Transport decorator which records the latency and the outcome of every request in the {@link ClientMetrics}.
+ * The operation is named after the web app, the Jaggery file and the action parameter of the request, ex:
+ * store:list.jag?action=getAllPublishedAPIs. A request fails if it throws, the node answers with an error
+ * status or the Jaggery app reports an error in the response body.
+ */
+public class MetricsHttpTransport implements HttpTransport {
+
+    private static final Pattern JAGGERY_ERROR = Pattern.compile("\"error\"\\s*:\\s*true");
+    private static final Pattern SLASHES = Pattern.compile("/{2,}");
+
+    private final HttpTransport delegate;
+    private final ClientMetrics metrics;
+
+    /**
+     * @param delegate - transport used to send the requests
+     * @param metrics  - metrics to record the requests in
+     */
+    public MetricsHttpTransport(HttpTransport delegate, ClientMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException {
+        String node = getNode(endpoint);
+        String operation = getOperationName(endpoint.getPath(), postBody);
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            HttpResponse response = delegate.doPost(endpoint, postBody, headers);
+            successful = isSuccessful(response);
+            return response;
+        } finally {
+            metrics.record(node, operation, System.nanoTime() - startTime, successful);
+        }
+    }
+
+    @Override
+    public HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        URL url = new URL(endpoint);
+        String node = getNode(url);
+        String operation = getOperationName(url.getPath(), url.getQuery());
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            HttpResponse response = delegate.doGet(endpoint, headers);
+            successful = isSuccessful(response);
+            return response;
+        } finally {
+            metrics.record(node, operation, System.nanoTime() - startTime, successful);
+        }
+    }
+
+    /**
+     * Get the node name of a request URL
+     *
+     * @param url - request URL
+     * @return - host and port, ex: am.wso2.com:9443
+     */
+    public static String getNode(URL url) {
+        int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        return url.getHost() + ":" + port;
+    }
+
+    /**
+     * Get the logical operation name of a request from the first and the last path segments and the action
+     * parameter. Repeated slashes are collapsed so that the same page gets the same name however the client
+     * joined its URL.
+     *
+     * @param path       - request path
+     * @param parameters - form encoded query string or request body, may be null
+     * @return - operation name, ex: publisher:add.jag?action=addAPI
+     */
+    public static String getOperationName(String path, String parameters) {
+        String normalizedPath = SLASHES.matcher(path).replaceAll("/");
+        String trimmedPath = normalizedPath.startsWith("/") ? normalizedPath.substring(1) : normalizedPath;
+        int appEnd = trimmedPath.indexOf('/');
+        String app = appEnd > 0 ? trimmedPath.substring(0, appEnd) : trimmedPath;
+        String resource = trimmedPath.substring(trimmedPath.lastIndexOf('/') + 1);
+        StringBuilder operation = new StringBuilder(app);
+        if (appEnd > 0) {
+            operation.append(':').append(resource);
+        }
+        String action = getAction(parameters);
+        if (action != null) {
+            operation.append("?action=").append(action);
+        }
+        return operation.toString();
+    }
+
+    private static String getAction(String parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        int actionStart;
+        if (parameters.startsWith("action=")) {
+            actionStart = 0;
+        } else {
+            actionStart = parameters.indexOf("&action=");
+            if (actionStart < 0) {
+                return null;
+            }
+            actionStart++;
+        }
+        actionStart += "action=".length();
+        int actionEnd = parameters.indexOf('&', actionStart);
+        return actionEnd < 0 ? parameters.substring(actionStart) : parameters.substring(actionStart, actionEnd);
+    }
+
+    private static boolean isSuccessful(HttpResponse response) {
+        if (response.getResponseCode() >= 400) {
+            return false;
+        }
+        String data = response.getData();
+        return data == null || !JAGGERY_ERROR.matcher(data).find();
+    }
+}
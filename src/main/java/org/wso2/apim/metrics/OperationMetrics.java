@@ -0,0 +1,61 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, error count and latency histogram of a single operation on a single node. Recording is lock free so
+ * that the clients of concurrent tests do not contend on the metrics, only taking a snapshot synchronizes.
+ */
+class OperationMetrics {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String node;
+    private final String operation;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram accumulatedHistogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private Histogram intervalHistogram;
+
+    OperationMetrics(String node, String operation) {
+        this.node = node;
+        this.operation = operation;
+    }
+
+    void record(long elapsedNanos, boolean successful) {
+        count.increment();
+        if (!successful) {
+            errorCount.increment();
+        }
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        recorder.recordValue(Math.min(Math.max(elapsedMicros, 1), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    synchronized OperationSnapshot snapshot() {
+        intervalHistogram = recorder.getIntervalHistogram(intervalHistogram);
+        accumulatedHistogram.add(intervalHistogram);
+        return new OperationSnapshot(node, operation, count.sum(), errorCount.sum(), accumulatedHistogram.copy());
+    }
+}
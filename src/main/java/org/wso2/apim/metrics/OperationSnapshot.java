@@ -0,0 +1,100 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Point in time view of the metrics of an operation on a node
+ */
+public class OperationSnapshot {
+
+    private final String node;
+    private final String operation;
+    private final long count;
+    private final long errorCount;
+    private final Histogram latencyHistogram;
+
+    /**
+     * @param node             - host and port of the node the operation was sent to
+     * @param operation        - logical operation name, ex: store:list.jag?action=getAllPublishedAPIs
+     * @param count            - number of calls
+     * @param errorCount       - number of failed calls
+     * @param latencyHistogram - latency of the calls in microseconds
+     */
+    public OperationSnapshot(String node, String operation, long count, long errorCount,
+                             Histogram latencyHistogram) {
+        this.node = node;
+        this.operation = operation;
+        this.count = count;
+        this.errorCount = errorCount;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Get the latency histogram, values are in microseconds
+     *
+     * @return - latency histogram
+     */
+    public Histogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public double getMeanMillis() {
+        return latencyHistogram.getTotalCount() == 0 ? 0 : latencyHistogram.getMean() / 1000;
+    }
+
+    /**
+     * Get the latency at the given percentile
+     *
+     * @param percentile - percentile between 0 and 100
+     * @return - latency in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        return latencyHistogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double getMaxMillis() {
+        return latencyHistogram.getMaxValue() / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s : count=%d, errors=%d, mean=%.1f ms, p50=%.1f ms, p90=%.1f ms, " +
+                             "p99=%.1f ms, max=%.1f ms", node, operation, count, errorCount, getMeanMillis(),
+                             getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99),
+                             getMaxMillis());
+    }
+}
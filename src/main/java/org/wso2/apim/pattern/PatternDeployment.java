@@ -0,0 +1,101 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.pattern;
+
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.yaml.snakeyaml.Yaml;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deployment pattern listed in the deployment.yaml, deployed by the scripts of the automation framework in the
+ * before suite method of the TestNG suite of the pattern
+ */
+public class PatternDeployment {
+
+    private final String name;
+    private final String suite;
+    private final boolean enabled;
+
+    /**
+     * @param name    - name of the pattern
+     * @param suite   - name of the TestNG suite deploying and testing the pattern
+     * @param enabled - false if the pattern is not deployed
+     */
+    public PatternDeployment(String name, String suite, boolean enabled) {
+        this.name = name;
+        this.suite = suite;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Read the patterns of a deployment.yaml
+     *
+     * @param deploymentYaml - deployment.yaml of the automation framework
+     * @return - patterns in the order they are listed
+     * @throws APIManagerIntegrationTestException - if the file cannot be read or a pattern has no name
+     */
+    public static List<PatternDeployment> load(File deploymentYaml) throws APIManagerIntegrationTestException {
+        Object document;
+        try (InputStream inputStream = new FileInputStream(deploymentYaml)) {
+            document = new Yaml().load(inputStream);
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException("Unable to read " + deploymentYaml, e);
+        }
+        if (!(document instanceof Map) || !(((Map<?, ?>) document).get("deployments") instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<PatternDeployment> patterns = new ArrayList<PatternDeployment>();
+        for (Object deployment : (List<?>) ((Map<?, ?>) document).get("deployments")) {
+            Map<?, ?> properties = (Map<?, ?>) deployment;
+            Object name = properties.get("name");
+            if (name == null) {
+                throw new APIManagerIntegrationTestException("Pattern without a name in " + deploymentYaml);
+            }
+            Object suite = properties.get("suite");
+            Object enable = properties.get("enable");
+            patterns.add(new PatternDeployment(name.toString(), suite != null ? suite.toString() : name.toString(),
+                                               enable == null || Boolean.parseBoolean(enable.toString())));
+        }
+        return patterns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSuite() {
+        return suite;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (suite " + suite + ")";
+    }
+}
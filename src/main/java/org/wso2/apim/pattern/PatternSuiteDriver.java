@@ -0,0 +1,287 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Element;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.utils.NamedThreadFactory;
+import org.xml.sax.SAXException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Runs the TestNG suites of the independent deployment patterns of the deployment.yaml concurrently, each suite
+ * in its own forked JVM, so the patterns are deployed at the same time by the before suite methods and each
+ * suite resolves its own topology. The total time of the run approaches the time of the slowest pattern
+ * instead of the sum of all of them. Every JVM runs in its own directory under the output directory, which
+ * holds the output of the JVM and the TestNG reports of the suite. The reports are aggregated into one
+ * {@link PatternSuiteResult} per pattern.
+ * <p/>
+ * The forked JVMs get the class path of the driver, the system properties of the automation framework and all
+ * the apim.* properties.
+ * <p/>
+ * mvn -Ppatterns test-compile exec:exec -Dpatterns.args="-Dapim.patterns=pattern1,pattern2"
+ * <p/>
+ * apim.patterns=all the enabled patterns
+ * apim.patterns.deployment=src/test/resources/deployment.yaml
+ * apim.patterns.suiteDirectory=src/test/resources
+ * apim.patterns.outputDirectory=target/patterns
+ * apim.patterns.parallelism=number of patterns
+ * apim.patterns.timeout=10800000
+ * apim.patterns.jvmArgs=-Xms512m -Xmx1024m
+ */
+public class PatternSuiteDriver {
+
+    private static final Log log = LogFactory.getLog(PatternSuiteDriver.class);
+    private static final String SUITE_FILE_PREFIX = "testng_";
+    private static final String RESULTS_FILE = "testng-results.xml";
+    private static final List<String> FORWARDED_PROPERTIES = Arrays.asList(
+            "framework.resource.location", "usedefaultlisteners", "carbon.zip", "sec.verifier.dir", "instr.file",
+            "filters.file", "maven.test.haltafterfailure");
+
+    private final File suiteDirectory;
+    private final File outputDirectory;
+    private int parallelism;
+    private long timeoutMillis = Long.getLong("apim.patterns.timeout", 10800000);
+    private String jvmArgs = System.getProperty("apim.patterns.jvmArgs", "-Xms512m -Xmx1024m");
+
+    /**
+     * @param suiteDirectory  - directory of the testng_&lt;suite&gt;.xml files
+     * @param outputDirectory - directory of the outputs of the forked JVMs
+     */
+    public PatternSuiteDriver(File suiteDirectory, File outputDirectory) {
+        this.suiteDirectory = suiteDirectory;
+        this.outputDirectory = outputDirectory;
+        this.parallelism = Integer.getInteger("apim.patterns.parallelism", 0);
+    }
+
+    /**
+     * @param parallelism - number of suites running at the same time, all the suites if 0
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setJvmArgs(String jvmArgs) {
+        this.jvmArgs = jvmArgs;
+    }
+
+    /**
+     * Run the suites of the patterns concurrently and wait for all of them
+     *
+     * @param patterns - patterns to run
+     * @return - result of each pattern in the given order
+     * @throws APIManagerIntegrationTestException - if the thread is interrupted
+     */
+    public List<PatternSuiteResult> run(List<PatternDeployment> patterns) throws APIManagerIntegrationTestException {
+        List<PatternSuiteResult> results = new ArrayList<PatternSuiteResult>();
+        if (patterns.isEmpty()) {
+            return results;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism > 0 ? parallelism : patterns.size(),
+                                                               new NamedThreadFactory("apim-pattern"));
+        try {
+            List<Future<PatternSuiteResult>> futures = new ArrayList<Future<PatternSuiteResult>>();
+            for (final PatternDeployment pattern : patterns) {
+                futures.add(workers.submit(() -> runSuite(pattern)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    PatternSuiteResult result = new PatternSuiteResult(patterns.get(i),
+                                                                       getOutputDirectory(patterns.get(i)));
+                    result.setError(String.valueOf(e.getCause()));
+                    results.add(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while running the pattern suites", e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Run the suite of a pattern in a forked JVM and read its results. The JVM is killed if the suite does not
+     * finish within the timeout.
+     */
+    private PatternSuiteResult runSuite(PatternDeployment pattern) throws InterruptedException {
+        File patternDirectory = getOutputDirectory(pattern);
+        PatternSuiteResult result = new PatternSuiteResult(pattern, patternDirectory);
+        File suiteFile = new File(suiteDirectory, SUITE_FILE_PREFIX + pattern.getSuite() + ".xml");
+        if (!suiteFile.isFile()) {
+            result.setError("Suite file " + suiteFile + " not found");
+            return result;
+        }
+        if (!patternDirectory.isDirectory() && !patternDirectory.mkdirs()) {
+            result.setError("Unable to create " + patternDirectory);
+            return result;
+        }
+        long startTime = System.currentTimeMillis();
+        log.info("Starting the suite of " + pattern + " in " + patternDirectory);
+        Process process;
+        try {
+            process = new ProcessBuilder(getCommand(suiteFile, patternDirectory))
+                    .directory(patternDirectory)
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File(patternDirectory, "output.log"))
+                    .start();
+        } catch (IOException e) {
+            result.setError("Unable to start the JVM : " + e.getMessage());
+            return result;
+        }
+        try {
+            if (process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                result.setExitCode(process.exitValue());
+            } else {
+                result.setTimedOut(true);
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        readResults(new File(patternDirectory, RESULTS_FILE), result);
+        log.info(result);
+        return result;
+    }
+
+    private List<String> getCommand(File suiteFile, File patternDirectory) {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        for (String jvmArg : jvmArgs.trim().split("\\s+")) {
+            if (!jvmArg.isEmpty()) {
+                command.add(jvmArg);
+            }
+        }
+        command.add("-Djava.io.tmpdir=" + patternDirectory.getAbsolutePath());
+        for (Map.Entry<Object, Object> property : System.getProperties().entrySet()) {
+            String name = property.getKey().toString();
+            if (FORWARDED_PROPERTIES.contains(name) ||
+                (name.startsWith("apim.") && !name.startsWith("apim.patterns"))) {
+                command.add("-D" + name + "=" + property.getValue());
+            }
+        }
+        command.add("-classpath");
+        command.add(System.getProperty("java.class.path"));
+        command.add("org.testng.TestNG");
+        //the XML reporter is not added if the default listeners are disabled by the suite
+        command.add("-reporter");
+        command.add("org.testng.reporters.XMLReporter");
+        command.add("-d");
+        command.add(patternDirectory.getAbsolutePath());
+        command.add(suiteFile.getAbsolutePath());
+        return command;
+    }
+
+    private File getOutputDirectory(PatternDeployment pattern) {
+        return new File(outputDirectory, pattern.getName());
+    }
+
+    /**
+     * Read the test counts of the root element of the testng-results.xml
+     */
+    static void readResults(File resultsFile, PatternSuiteResult result) {
+        if (!resultsFile.isFile()) {
+            if (result.getError() == null) {
+                result.setError("No results in " + resultsFile);
+            }
+            return;
+        }
+        try {
+            Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(resultsFile)
+                                                 .getDocumentElement();
+            result.setCounts(getCount(root, "total"), getCount(root, "passed"), getCount(root, "failed"),
+                             getCount(root, "skipped"));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            result.setError("Unable to read " + resultsFile + " : " + e.getMessage());
+        }
+    }
+
+    private static int getCount(Element element, String attribute) {
+        String value = element.getAttribute(attribute);
+        return value.isEmpty() ? 0 : Integer.parseInt(value);
+    }
+
+    /**
+     * Select the enabled patterns, optionally only those named in the comma separated list
+     *
+     * @param patterns - patterns of the deployment.yaml
+     * @param names    - names of the patterns to run, null or empty for all the enabled patterns
+     * @return - patterns to run
+     */
+    static List<PatternDeployment> select(List<PatternDeployment> patterns, String names) {
+        List<String> selectedNames = names == null || names.trim().isEmpty() ? null :
+                                     Arrays.asList(names.trim().split("\\s*,\\s*"));
+        List<PatternDeployment> selected = new ArrayList<PatternDeployment>();
+        for (PatternDeployment pattern : patterns) {
+            if (pattern.isEnabled() && (selectedNames == null || selectedNames.contains(pattern.getName()))) {
+                selected.add(pattern);
+            }
+        }
+        return selected;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<PatternDeployment> patterns = select(
+                PatternDeployment.load(new File(System.getProperty("apim.patterns.deployment",
+                                                                   "src/test/resources/deployment.yaml"))),
+                System.getProperty("apim.patterns"));
+        PatternSuiteDriver driver = new PatternSuiteDriver(
+                new File(System.getProperty("apim.patterns.suiteDirectory", "src/test/resources")),
+                new File(System.getProperty("apim.patterns.outputDirectory", "target/patterns")));
+        long startTime = System.currentTimeMillis();
+        List<PatternSuiteResult> results = driver.run(patterns);
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+
+        boolean isSuccessful = !results.isEmpty();
+        long serialMillis = 0;
+        StringBuilder summary = new StringBuilder("Pattern suites finished in ").append(elapsedMillis)
+                .append(" ms");
+        for (PatternSuiteResult result : results) {
+            isSuccessful &= result.isSuccessful();
+            serialMillis += result.getElapsedMillis();
+            summary.append("\n  ").append(result);
+        }
+        summary.append("\n  sum of the suite times ").append(serialMillis).append(" ms");
+        log.info(summary);
+        System.exit(isSuccessful ? 0 : 1);
+    }
+}
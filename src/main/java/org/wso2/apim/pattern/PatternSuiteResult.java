@@ -0,0 +1,139 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.pattern;
+
+import java.io.File;
+
+/**
+ * Outcome of the TestNG suite of a pattern run in a forked JVM, with the test counts read from the
+ * testng-results.xml of the suite
+ */
+public class PatternSuiteResult {
+
+    private final PatternDeployment pattern;
+    private final File outputDirectory;
+    private int exitCode = -1;
+    private boolean timedOut;
+    private long elapsedMillis;
+    private int total;
+    private int passed;
+    private int failed;
+    private int skipped;
+    private String error;
+
+    /**
+     * @param pattern         - pattern of the suite
+     * @param outputDirectory - directory of the TestNG reports and the output of the forked JVM
+     */
+    public PatternSuiteResult(PatternDeployment pattern, File outputDirectory) {
+        this.pattern = pattern;
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Check whether the suite ran to the end without failed or skipped tests
+     *
+     * @return - true if the suite passed
+     */
+    public boolean isSuccessful() {
+        return error == null && !timedOut && exitCode == 0 && failed == 0 && skipped == 0;
+    }
+
+    public PatternDeployment getPattern() {
+        return pattern;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    void setExitCode(int exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getPassed() {
+        return passed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    void setCounts(int total, int passed, int failed, int skipped) {
+        this.total = total;
+        this.passed = passed;
+        this.failed = failed;
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return - reason the suite could not be run or its results could not be read, null if there is none
+     */
+    public String getError() {
+        return error;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(pattern.getName()).append(isSuccessful() ? " passed" : " FAILED")
+               .append(" in ").append(elapsedMillis).append(" ms : total=").append(total)
+               .append(" passed=").append(passed).append(" failed=").append(failed)
+               .append(" skipped=").append(skipped).append(" exit code=").append(exitCode);
+        if (timedOut) {
+            builder.append(" timed out");
+        }
+        if (error != null) {
+            builder.append(" error=").append(error);
+        }
+        return builder.append(" reports=").append(outputDirectory).toString();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.provisioning;
+
+import org.wso2.apim.bean.APICreationRequestBean;
+import org.wso2.apim.bean.APIRequest;
+import org.wso2.apim.clients.APIPublisherRestClient;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+/**
+ * Definition of an API to be provisioned by the {@link BulkAPIProvisioner}. The API is created from either
+ * an {@link APIRequest} or an {@link APICreationRequestBean}, published and optionally subscribed to an
+ * application.
+ */
+public class APIProvisioningRequest {
+
+    private final APIRequest apiRequest;
+    private final APICreationRequestBean apiCreationRequestBean;
+    private boolean publish = true;
+    private boolean requireReSubscription;
+    private String subscriptionApplication;
+    private String subscriptionTier = "Gold";
+
+    /**
+     * @param apiRequest - request of the API to create
+     */
+    public APIProvisioningRequest(APIRequest apiRequest) {
+        this.apiRequest = apiRequest;
+        this.apiCreationRequestBean = null;
+    }
+
+    /**
+     * @param apiCreationRequestBean - request of the API to create
+     */
+    public APIProvisioningRequest(APICreationRequestBean apiCreationRequestBean) {
+        this.apiRequest = null;
+        this.apiCreationRequestBean = apiCreationRequestBean;
+    }
+
+    /**
+     * Get the identifier of the API
+     *
+     * @return - API identifier
+     */
+    public APIIdentifier getAPIIdentifier() {
+        if (apiRequest != null) {
+            return new APIIdentifier(apiRequest.getProvider(), apiRequest.getName(), apiRequest.getVersion());
+        }
+        return new APIIdentifier(apiCreationRequestBean.getProvider(), apiCreationRequestBean.getName(),
+                                 apiCreationRequestBean.getVersion());
+    }
+
+    /**
+     * Send the create request of the API
+     *
+     * @param publisherRestClient - publisher client to send the request
+     * @return - response of the add API request
+     * @throws APIManagerIntegrationTestException - if the request fails
+     */
+    HttpResponse create(APIPublisherRestClient publisherRestClient) throws APIManagerIntegrationTestException {
+        if (apiRequest != null) {
+            return publisherRestClient.addAPI(apiRequest);
+        }
+        return publisherRestClient.addAPI(apiCreationRequestBean);
+    }
+
+    public boolean isPublish() {
+        return publish;
+    }
+
+    public void setPublish(boolean publish) {
+        this.publish = publish;
+    }
+
+    public boolean isRequireReSubscription() {
+        return requireReSubscription;
+    }
+
+    public void setRequireReSubscription(boolean requireReSubscription) {
+        this.requireReSubscription = requireReSubscription;
+    }
+
+    public String getSubscriptionApplication() {
+        return subscriptionApplication;
+    }
+
+    public String getSubscriptionTier() {
+        return subscriptionTier;
+    }
+
+    /**
+     * Subscribe the API to the application after it is published
+     *
+     * @param applicationName - name of an existing application of the store user
+     * @param tier            - subscription tier
+     */
+    public void setSubscription(String applicationName, String tier) {
+        this.subscriptionApplication = applicationName;
+        this.subscriptionTier = tier;
+    }
+}
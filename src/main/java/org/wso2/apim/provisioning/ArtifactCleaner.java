@@ -0,0 +1,294 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.provisioning;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.apim.base.APIMIntegrationConstants;
+import org.wso2.apim.clients.APIPublisherRestClient;
+import org.wso2.apim.clients.APIStoreRestClient;
+import org.wso2.apim.clients.ClientCall;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.json.JsonListing;
+import org.wso2.apim.json.JsonRecord;
+import org.wso2.apim.json.JsonRecordPath;
+import org.wso2.apim.json.JsonStreamExtractor;
+import org.wso2.apim.utils.NamedThreadFactory;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Removes the subscriptions, applications and APIs of a user in three phases. The removals of a phase are
+ * sent in parallel with bounded concurrency and the next phase starts when all the removals of the previous
+ * phase are done, since applications cannot be removed while they have subscriptions. A failed removal is
+ * recorded in the {@link CleanupReport} and the teardown continues. The published APIs are listed page by
+ * page. The listings are read with the {@link JsonStreamExtractor}. If a {@link ArtifactNamespace} is set only
+ * the artifacts of the namespace are removed, so the other test classes running in parallel are not affected.
+ * <p/>
+ * apim.cleanup.parallelism=16
+ * apim.cleanup.pageSize=100
+ */
+public class ArtifactCleaner {
+
+    private static final Log log = LogFactory.getLog(ArtifactCleaner.class);
+    private static final JsonRecordPath SUBSCRIPTIONS_PATH = JsonRecordPath
+            .of(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_SUBSCRIPTION + "." +
+                APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_APPLICATIONS)
+            .fields(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_ID,
+                    APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME)
+            .child(JsonRecordPath.of(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_SUBSCRIPTION)
+                                 .fields(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME,
+                                         APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_VERSION,
+                                         APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_PROVIDER));
+    private static final JsonRecordPath APPLICATIONS_PATH = JsonRecordPath
+            .of(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_APPLICATIONS)
+            .fields(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME);
+    private static final JsonRecordPath APIS_PATH = JsonRecordPath
+            .of(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_APIS)
+            .fields(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME,
+                    APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_VERSION);
+
+    /**
+     * Phases of the teardown, in the order they are executed
+     */
+    public enum Phase {
+        SUBSCRIPTIONS, APPLICATIONS, APIS
+    }
+
+    private final APIStoreRestClient storeRestClient;
+    private final APIPublisherRestClient publisherRestClient;
+    private final String tenantDomain;
+    private final String apiProvider;
+    private int parallelism = Integer.getInteger("apim.cleanup.parallelism", 16);
+    private int pageSize = Integer.getInteger("apim.cleanup.pageSize", 100);
+    private ArtifactNamespace namespace;
+
+    /**
+     * @param storeRestClient     - store client logged in as the user
+     * @param publisherRestClient - publisher client logged in as the user
+     * @param tenantDomain        - tenant domain of the user
+     * @param apiProvider         - provider name used to delete the APIs
+     */
+    public ArtifactCleaner(APIStoreRestClient storeRestClient, APIPublisherRestClient publisherRestClient,
+                           String tenantDomain, String apiProvider) {
+        this.storeRestClient = storeRestClient;
+        this.publisherRestClient = publisherRestClient;
+        this.tenantDomain = tenantDomain;
+        this.apiProvider = apiProvider;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Remove only the artifacts of the namespace. A subscription is removed if either the API or the
+     * application belongs to the namespace
+     *
+     * @param namespace - namespace of the artifacts, null to remove all the artifacts of the user
+     */
+    public void setNamespace(ArtifactNamespace namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * Remove all the subscriptions, the applications other than the default application and the APIs, or
+     * only those of the namespace if one is set
+     *
+     * @return - report of the teardown
+     * @throws APIManagerIntegrationTestException - if the thread is interrupted
+     */
+    public CleanupReport cleanUp() throws APIManagerIntegrationTestException {
+        CleanupReport report = new CleanupReport();
+        long startTime = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("apim-cleanup"));
+        try {
+            for (Phase phase : Phase.values()) {
+                CleanupReport.PhaseSummary summary = report.getPhaseSummary(phase);
+                long phaseStartTime = System.currentTimeMillis();
+                Map<String, ClientCall<HttpResponse>> removals;
+                try {
+                    removals = listRemovals(phase);
+                } catch (APIManagerIntegrationTestException e) {
+                    summary.addFailure("listing : " + e.getMessage());
+                    continue;
+                } finally {
+                    summary.setListingMillis(System.currentTimeMillis() - phaseStartTime);
+                }
+                long removalStartTime = System.currentTimeMillis();
+                summary.setRemoved(remove(removals, summary, workers));
+                summary.setRemovalMillis(System.currentTimeMillis() - removalStartTime);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info(report);
+        return report;
+    }
+
+    /**
+     * Send the removals in parallel and wait for all of them
+     *
+     * @return - number of artifacts removed
+     */
+    private int remove(Map<String, ClientCall<HttpResponse>> removals, CleanupReport.PhaseSummary summary,
+                       ExecutorService workers) throws APIManagerIntegrationTestException {
+        Map<String, Future<HttpResponse>> futures = new LinkedHashMap<String, Future<HttpResponse>>();
+        for (final Map.Entry<String, ClientCall<HttpResponse>> removal : removals.entrySet()) {
+            futures.put(removal.getKey(), workers.submit(() -> removal.getValue().call()));
+        }
+        int removed = 0;
+        for (Map.Entry<String, Future<HttpResponse>> future : futures.entrySet()) {
+            try {
+                String error = getError(future.getValue().get());
+                if (error == null) {
+                    removed++;
+                } else {
+                    summary.addFailure(future.getKey() + " : " + error);
+                }
+            } catch (ExecutionException e) {
+                summary.addFailure(future.getKey() + " : " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIManagerIntegrationTestException("Interrupted while cleaning up the artifacts", e);
+            }
+        }
+        return removed;
+    }
+
+    private Map<String, ClientCall<HttpResponse>> listRemovals(Phase phase)
+            throws APIManagerIntegrationTestException {
+        switch (phase) {
+            case SUBSCRIPTIONS:
+                return listSubscriptionRemovals();
+            case APPLICATIONS:
+                return listApplicationRemovals();
+            default:
+                return listAPIRemovals();
+        }
+    }
+
+    private Map<String, ClientCall<HttpResponse>> listSubscriptionRemovals()
+            throws APIManagerIntegrationTestException {
+        Map<String, ClientCall<HttpResponse>> removals = new LinkedHashMap<String, ClientCall<HttpResponse>>();
+        JsonListing subscriptions = JsonStreamExtractor.extract(
+                storeRestClient.getAllSubscriptions().getData(), SUBSCRIPTIONS_PATH);
+        if (subscriptions.isError()) {
+            return removals;
+        }
+        for (JsonRecord application : subscriptions.getRecords()) {
+            final String applicationId = application.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_ID);
+            boolean isApplicationOwned =
+                    isOwned(application.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME));
+            for (JsonRecord subscribedAPI :
+                    application.getChildren(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_SUBSCRIPTION)) {
+                final String name = subscribedAPI.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME);
+                final String version =
+                        subscribedAPI.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_VERSION);
+                final String provider =
+                        subscribedAPI.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_PROVIDER);
+                if (!isApplicationOwned && !isOwned(name)) {
+                    continue;
+                }
+                removals.put(provider + ":" + name + ":" + version + " of application " + applicationId,
+                             () -> storeRestClient.removeAPISubscription(name, version, provider, applicationId));
+            }
+        }
+        return removals;
+    }
+
+    private Map<String, ClientCall<HttpResponse>> listApplicationRemovals()
+            throws APIManagerIntegrationTestException {
+        Map<String, ClientCall<HttpResponse>> removals = new LinkedHashMap<String, ClientCall<HttpResponse>>();
+        JsonListing applications = JsonStreamExtractor.extract(
+                storeRestClient.getAllApplications().getData(), APPLICATIONS_PATH);
+        for (JsonRecord application : applications.getRecords()) {
+            final String applicationName =
+                    application.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME);
+            if (!applicationName.equals(APIMIntegrationConstants.OAUTH_DEFAULT_APPLICATION_NAME) &&
+                isOwned(applicationName)) {
+                removals.put(applicationName, () -> storeRestClient.removeApplication(applicationName));
+            }
+        }
+        return removals;
+    }
+
+    /**
+     * List all the published APIs page by page before removing any of them, so the pages do not shift
+     */
+    private Map<String, ClientCall<HttpResponse>> listAPIRemovals()
+            throws APIManagerIntegrationTestException {
+        Map<String, ClientCall<HttpResponse>> removals = new LinkedHashMap<String, ClientCall<HttpResponse>>();
+        int start = 0;
+        while (true) {
+            JsonListing page = JsonStreamExtractor.forEach(storeRestClient.getAllPaginatedPublishedAPIs(
+                    tenantDomain, String.valueOf(start), String.valueOf(pageSize)).getData(), APIS_PATH, api -> {
+                final String name = api.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_NAME);
+                final String version = api.getString(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_API_VERSION);
+                if (!isOwned(name)) {
+                    return;
+                }
+                removals.put(apiProvider + ":" + name + ":" + version,
+                             () -> publisherRestClient.deleteAPI(name, version, apiProvider));
+            });
+            if (page.isError()) {
+                throw new APIManagerIntegrationTestException("Unable to list the published APIs : " + page);
+            }
+            if (page.getRecordCount() < pageSize) {
+                return removals;
+            }
+            start += pageSize;
+        }
+    }
+
+    private boolean isOwned(String name) {
+        return namespace == null || namespace.owns(name);
+    }
+
+    private static String getError(HttpResponse response) {
+        if (response == null) {
+            return "No response";
+        }
+        if (response.getResponseCode() != 200) {
+            return "Response code " + response.getResponseCode() + " : " + response.getData();
+        }
+        try {
+            JSONObject responseData = new JSONObject(response.getData());
+            if (responseData.getBoolean(APIMIntegrationConstants.API_RESPONSE_ELEMENT_NAME_ERROR)) {
+                return response.getData();
+            }
+        } catch (JSONException e) {
+            return "Invalid response : " + response.getData();
+        }
+        return null;
+    }
+}
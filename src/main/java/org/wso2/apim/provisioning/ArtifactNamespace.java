@@ -0,0 +1,94 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.provisioning;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Namespace of the APIs, contexts and applications created by a single test class instance, so test classes
+ * can run in parallel against the same cluster. The qualified names carry a suffix unique to the namespace,
+ * made of a random id of the test JVM and a sequence number and terminated by a delimiter, which is also used
+ * to select the artifacts of the namespace for the scoped cleanup of the {@link ArtifactCleaner}. Names must
+ * end with the suffix, so extend the name before qualifying it, not the qualified name.
+ * <p/>
+ * apim.namespace.enabled=true
+ */
+public class ArtifactNamespace {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("apim.namespace.enabled", "true"));
+    //four base 36 digits, so the JVMs running against the same cluster do not share the suffixes
+    private static final String RUN_ID =
+            Integer.toString(36 * 36 * 36 + new SecureRandom().nextInt(35 * 36 * 36 * 36), 36);
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    private final String suffix;
+
+    private ArtifactNamespace(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * Create a new namespace. The names are not qualified if the namespaces are disabled
+     *
+     * @return - namespace with a suffix not used by any other namespace of the test run
+     */
+    public static ArtifactNamespace create() {
+        return new ArtifactNamespace(ENABLED ? "_" + RUN_ID + Integer.toString(sequence.incrementAndGet(), 36) + "_" : "");
+    }
+
+    /**
+     * Qualify the name of an API, API context or application
+     *
+     * @param name - name used by the test
+     * @return - name unique to this namespace
+     */
+    public String qualify(String name) {
+        return name + suffix;
+    }
+
+    /**
+     * Check whether an artifact was created in this namespace
+     *
+     * @param name - name of the API or application
+     * @return - true if the name was qualified by this namespace, always false if the namespaces are disabled
+     */
+    public boolean owns(String name) {
+        return isEnabled() && name != null && name.endsWith(suffix);
+    }
+
+    /**
+     * Check whether the names are qualified, the names of the namespaces are not unique if they are not
+     *
+     * @return - false if the namespaces are disabled
+     */
+    public boolean isEnabled() {
+        return !suffix.isEmpty();
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    @Override
+    public String toString() {
+        return "namespace " + (suffix.isEmpty() ? "<none>" : suffix);
+    }
+}
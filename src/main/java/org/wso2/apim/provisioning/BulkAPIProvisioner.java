@@ -0,0 +1,211 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.provisioning;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.bean.SubscriptionRequest;
+import org.wso2.apim.clients.APIPublisherRestClient;
+import org.wso2.apim.clients.APIStoreRestClient;
+import org.wso2.apim.clients.ClientCall;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.utils.NamedThreadFactory;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Creates, publishes and optionally subscribes a large number of APIs with bounded parallelism. Each API
+ * goes through its steps in order on one of the worker threads, while up to the configured number of APIs
+ * are provisioned at the same time. A failed step is retried with exponential backoff, an API whose step
+ * still fails is reported and skipped. The progress is logged periodically and the latency of every step is
+ * collected in the returned {@link ProvisioningReport}.
+ * <p/>
+ * The publisher and store clients must be logged in before provisioning.
+ * <p/>
+ * apim.provision.parallelism=16
+ * apim.provision.maxAttempts=3
+ * apim.provision.retryBackoff=1000
+ */
+public class BulkAPIProvisioner {
+
+    private static final Log log = LogFactory.getLog(BulkAPIProvisioner.class);
+    private static final Pattern JAGGERY_ERROR = Pattern.compile("\"error\"\\s*:\\s*true");
+
+    private final APIPublisherRestClient publisherRestClient;
+    private final APIStoreRestClient storeRestClient;
+    private int parallelism = Integer.getInteger("apim.provision.parallelism", 16);
+    private int maxAttempts = Integer.getInteger("apim.provision.maxAttempts", 3);
+    private long retryBackoffMillis = Long.getLong("apim.provision.retryBackoff", 1000L);
+    private long progressIntervalMillis = 10000;
+
+    /**
+     * @param publisherRestClient - logged in publisher client
+     * @param storeRestClient     - logged in store client, may be null if no API is subscribed
+     */
+    public BulkAPIProvisioner(APIPublisherRestClient publisherRestClient, APIStoreRestClient storeRestClient) {
+        this.publisherRestClient = publisherRestClient;
+        this.storeRestClient = storeRestClient;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    /**
+     * Provision the APIs and wait until all of them are done
+     *
+     * @param provisioningRequests - APIs to provision
+     * @return - report of the run
+     * @throws APIManagerIntegrationTestException - if the thread is interrupted while waiting
+     */
+    public ProvisioningReport provision(List<APIProvisioningRequest> provisioningRequests)
+            throws APIManagerIntegrationTestException {
+        final ProvisioningReport report = new ProvisioningReport(provisioningRequests.size());
+        final long startTime = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("apim-provision"));
+        ScheduledExecutorService progressLogger =
+                Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("apim-provision-progress"));
+        progressLogger.scheduleAtFixedRate(() -> logProgress(report, startTime), progressIntervalMillis,
+                                           progressIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Provisioning " + provisioningRequests.size() + " APIs with parallelism " + parallelism);
+        try {
+            for (final APIProvisioningRequest provisioningRequest : provisioningRequests) {
+                workers.execute(() -> provision(provisioningRequest, report));
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(progressIntervalMillis, TimeUnit.MILLISECONDS)) {
+                log.debug("Waiting for the provisioning to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while provisioning APIs", e);
+        } finally {
+            workers.shutdownNow();
+            progressLogger.shutdownNow();
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info(report);
+        return report;
+    }
+
+    private void provision(APIProvisioningRequest provisioningRequest, ProvisioningReport report) {
+        final APIIdentifier apiIdentifier = provisioningRequest.getAPIIdentifier();
+        String api = apiIdentifier.getProviderName() + ":" + apiIdentifier.getApiName() + ":" +
+                     apiIdentifier.getVersion();
+        if (!executeStep(api, ProvisioningStep.CREATE, report, () -> provisioningRequest.create(publisherRestClient))) {
+            return;
+        }
+        if (provisioningRequest.isPublish() &&
+            !executeStep(api, ProvisioningStep.PUBLISH, report,
+                         () -> publisherRestClient.changeAPILifeCycleStatusToPublish(
+                                 apiIdentifier, provisioningRequest.isRequireReSubscription()))) {
+            return;
+        }
+        if (provisioningRequest.getSubscriptionApplication() != null &&
+            !executeStep(api, ProvisioningStep.SUBSCRIBE, report,
+                         () -> storeRestClient.subscribe(new SubscriptionRequest(
+                                 apiIdentifier.getApiName(), apiIdentifier.getVersion(),
+                                 apiIdentifier.getProviderName(), provisioningRequest.getSubscriptionApplication(),
+                                 provisioningRequest.getSubscriptionTier())))) {
+            return;
+        }
+        report.recordSuccess();
+    }
+
+    /**
+     * Execute a step of an API with retries
+     *
+     * @return - true if the step succeeded
+     */
+    private boolean executeStep(String api, ProvisioningStep step, ProvisioningReport report,
+                                ClientCall<HttpResponse> call) {
+        StepStatistics statistics = report.getStepStatistics(step);
+        String error = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long startTime = System.nanoTime();
+            try {
+                HttpResponse response = call.call();
+                error = getError(response);
+                //a previous attempt may have created the API although its response was lost
+                if (error != null && step == ProvisioningStep.CREATE && attempt > 1 &&
+                    error.contains("already exists")) {
+                    error = null;
+                }
+            } catch (APIManagerIntegrationTestException e) {
+                error = e.getMessage() + (e.getCause() != null ? " : " + e.getCause().getMessage() : "");
+            }
+            statistics.record(System.nanoTime() - startTime);
+            if (error == null) {
+                return true;
+            }
+            if (attempt < maxAttempts) {
+                statistics.recordRetry();
+                log.debug("Retrying " + step + " of " + api + " after failure : " + error);
+                try {
+                    Thread.sleep(retryBackoffMillis << (attempt - 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.warn("Unable to " + step + " " + api + " : " + error);
+        report.recordFailure(api, step, error);
+        return false;
+    }
+
+    private static String getError(HttpResponse response) {
+        if (response == null) {
+            return "No response";
+        }
+        if (response.getResponseCode() != 200) {
+            return "Response code " + response.getResponseCode() + " : " + response.getData();
+        }
+        if (response.getData() != null && JAGGERY_ERROR.matcher(response.getData()).find()) {
+            return response.getData();
+        }
+        return null;
+    }
+
+    private void logProgress(ProvisioningReport report, long startTime) {
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+        int completed = report.getCompleted();
+        log.info(String.format("Provisioned %d of %d APIs, failed %d, %.1f APIs/s", completed, report.getTotal(),
+                               completed - report.getSucceeded(), completed * 1000.0 / Math.max(1, elapsedMillis)));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.provisioning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a teardown run with the failures and timing of each phase
+ */
+public class CleanupReport {
+
+    private final Map<ArtifactCleaner.Phase, PhaseSummary> phases =
+            new EnumMap<ArtifactCleaner.Phase, PhaseSummary>(ArtifactCleaner.Phase.class);
+    private long elapsedMillis;
+
+    public CleanupReport() {
+        for (ArtifactCleaner.Phase phase : ArtifactCleaner.Phase.values()) {
+            phases.put(phase, new PhaseSummary());
+        }
+    }
+
+    public PhaseSummary getPhaseSummary(ArtifactCleaner.Phase phase) {
+        return phases.get(phase);
+    }
+
+    public List<String> getFailures(ArtifactCleaner.Phase phase) {
+        return phases.get(phase).getFailures();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Clean up completed in ").append(elapsedMillis).append(" ms");
+        for (Map.Entry<ArtifactCleaner.Phase, PhaseSummary> entry : phases.entrySet()) {
+            report.append("\n  ").append(entry.getKey()).append(" : ").append(entry.getValue());
+        }
+        for (Map.Entry<ArtifactCleaner.Phase, PhaseSummary> entry : phases.entrySet()) {
+            for (String failure : entry.getValue().getFailures()) {
+                report.append("\n  failed ").append(entry.getKey()).append(" ").append(failure);
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Counts and timing of a phase
+     */
+    public static class PhaseSummary {
+
+        private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+        private volatile int removed;
+        private volatile long listingMillis;
+        private volatile long removalMillis;
+
+        void addFailure(String failure) {
+            failures.add(failure);
+        }
+
+        void setRemoved(int removed) {
+            this.removed = removed;
+        }
+
+        void setListingMillis(long listingMillis) {
+            this.listingMillis = listingMillis;
+        }
+
+        void setRemovalMillis(long removalMillis) {
+            this.removalMillis = removalMillis;
+        }
+
+        public List<String> getFailures() {
+            synchronized (failures) {
+                return new ArrayList<String>(failures);
+            }
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public long getListingMillis() {
+            return listingMillis;
+        }
+
+        public long getRemovalMillis() {
+            return removalMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "removed " + removed + ", failed " + failures.size() + ", listing " + listingMillis +
+                   " ms, removal " + removalMillis + " ms";
+        }
+    }
+}
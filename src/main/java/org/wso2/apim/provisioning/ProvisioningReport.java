@@ -0,0 +1,141 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.provisioning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Result of a bulk provisioning run with the failed APIs and the latency breakdown per step
+ */
+public class ProvisioningReport {
+
+    private final int total;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final List<Failure> failures = Collections.synchronizedList(new ArrayList<Failure>());
+    private final Map<ProvisioningStep, StepStatistics> stepStatistics =
+            new EnumMap<ProvisioningStep, StepStatistics>(ProvisioningStep.class);
+    private volatile long elapsedMillis;
+
+    /**
+     * @param total - number of APIs to provision
+     */
+    public ProvisioningReport(int total) {
+        this.total = total;
+        for (ProvisioningStep step : ProvisioningStep.values()) {
+            stepStatistics.put(step, new StepStatistics());
+        }
+    }
+
+    void recordSuccess() {
+        succeeded.incrementAndGet();
+    }
+
+    void recordFailure(String api, ProvisioningStep step, String message) {
+        failures.add(new Failure(api, step, message));
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getCompleted() {
+        return succeeded.get() + failures.size();
+    }
+
+    public List<Failure> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<Failure>(failures);
+        }
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty() && succeeded.get() == total;
+    }
+
+    public StepStatistics getStepStatistics(ProvisioningStep step) {
+        return stepStatistics.get(step);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append("Provisioned ").append(succeeded.get()).append(" of ").append(total).append(" APIs in ")
+              .append(elapsedMillis).append(" ms, failed ").append(failures.size());
+        for (Map.Entry<ProvisioningStep, StepStatistics> entry : stepStatistics.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                report.append("\n  ").append(entry.getKey()).append(" : ").append(entry.getValue());
+            }
+        }
+        for (Failure failure : getFailures()) {
+            report.append("\n  failed ").append(failure);
+        }
+        return report.toString();
+    }
+
+    /**
+     * API which could not be provisioned
+     */
+    public static class Failure {
+
+        private final String api;
+        private final ProvisioningStep step;
+        private final String message;
+
+        Failure(String api, ProvisioningStep step, String message) {
+            this.api = api;
+            this.step = step;
+            this.message = message;
+        }
+
+        public String getApi() {
+            return api;
+        }
+
+        public ProvisioningStep getStep() {
+            return step;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return api + " at " + step + " : " + message;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.provisioning;
+
+import java.util.Arrays;
+
+/**
+ * Latency statistics of a provisioning step. Every attempt of the step is recorded, including the failed
+ * attempts which were retried.
+ */
+public class StepStatistics {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int retryCount;
+
+    /**
+     * Record the latency of an attempt
+     *
+     * @param latencyNanos - latency in nanoseconds
+     */
+    public synchronized void record(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    public synchronized void recordRetry() {
+        retryCount++;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * @return - mean latency in milliseconds
+     */
+    public synchronized double getMeanMillis() {
+        if (count == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += latencies[i];
+        }
+        return total / 1e6 / count;
+    }
+
+    /**
+     * @param percentile - percentile between 0 and 100
+     * @return - latency at the percentile in milliseconds
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))] / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("count=%d, retries=%d, mean=%.1f ms, p50=%.1f ms, p95=%.1f ms, p99=%.1f ms, max=%.1f ms",
+                             count, retryCount, getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95),
+                             getPercentileMillis(99), getPercentileMillis(100));
+    }
+}
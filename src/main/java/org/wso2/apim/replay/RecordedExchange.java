@@ -0,0 +1,124 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Request and response of a client call captured by the {@link TrafficRecorder}. The response body is not kept,
+ * only its length and digest, which are enough to detect a changed response on replay.
+ */
+public class RecordedExchange {
+
+    public static final String METHOD_GET = "GET";
+    public static final String METHOD_POST = "POST";
+
+    private final long startTimeMicros;
+    private final long durationNanos;
+    private final String method;
+    private final String url;
+    private final Map<String, String> requestHeaders;
+    private final String requestBody;
+    private final int status;
+    private final Map<String, String> responseHeaders;
+    private final int responseLength;
+    private final byte[] responseDigest;
+
+    /**
+     * @param startTimeMicros - wall clock time the request was sent at, in microseconds since the epoch
+     * @param durationNanos   - time until the response was read
+     * @param method          - GET or POST
+     * @param url             - request URL including the query string
+     * @param requestHeaders  - headers sent with the request
+     * @param requestBody     - form encoded body of a POST, null for a GET
+     * @param status          - response status, 0 if the request failed without a response
+     * @param responseHeaders - headers of the response
+     * @param responseLength  - length of the UTF-8 encoded response body, -1 if there was no body
+     * @param responseDigest  - digest of the response body, null if there was no body
+     */
+    public RecordedExchange(long startTimeMicros, long durationNanos, String method, String url,
+                            Map<String, String> requestHeaders, String requestBody, int status,
+                            Map<String, String> responseHeaders, int responseLength, byte[] responseDigest) {
+        this.startTimeMicros = startTimeMicros;
+        this.durationNanos = durationNanos;
+        this.method = method;
+        this.url = url;
+        this.requestHeaders = requestHeaders != null ? requestHeaders : Collections.<String, String>emptyMap();
+        this.requestBody = requestBody;
+        this.status = status;
+        this.responseHeaders = responseHeaders != null ? responseHeaders : Collections.<String, String>emptyMap();
+        this.responseLength = responseLength;
+        this.responseDigest = responseDigest;
+    }
+
+    public long getStartTimeMicros() {
+        return startTimeMicros;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public String getRequestBody() {
+        return requestBody;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Check whether the request failed without a response, ex: connection refused
+     *
+     * @return - true if there was no response
+     */
+    public boolean isFailed() {
+        return status == 0;
+    }
+
+    public Map<String, String> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public int getResponseLength() {
+        return responseLength;
+    }
+
+    public byte[] getResponseDigest() {
+        return responseDigest;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url + " : " + status;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transport decorator which records every request and its response or failure in the {@link TrafficRecorder}.
+ * The request headers are copied before sending, as the clients reuse and modify their header maps.
+ */
+public class RecordingHttpTransport implements HttpTransport {
+
+    private final HttpTransport delegate;
+    private final TrafficRecorder recorder;
+
+    /**
+     * @param delegate - transport used to send the requests
+     * @param recorder - recorder to record the requests in
+     */
+    public RecordingHttpTransport(HttpTransport delegate, TrafficRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException {
+        Map<String, String> requestHeaders = new HashMap<String, String>(headers);
+        long startTimeMicros = System.currentTimeMillis() * 1000;
+        long startTime = System.nanoTime();
+        HttpResponse response = null;
+        try {
+            response = delegate.doPost(endpoint, postBody, headers);
+            return response;
+        } finally {
+            record(startTimeMicros, System.nanoTime() - startTime, RecordedExchange.METHOD_POST,
+                   endpoint.toString(), requestHeaders, postBody, response);
+        }
+    }
+
+    @Override
+    public HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        Map<String, String> requestHeaders = new HashMap<String, String>(headers);
+        long startTimeMicros = System.currentTimeMillis() * 1000;
+        long startTime = System.nanoTime();
+        HttpResponse response = null;
+        try {
+            response = delegate.doGet(endpoint, headers);
+            return response;
+        } finally {
+            record(startTimeMicros, System.nanoTime() - startTime, RecordedExchange.METHOD_GET, endpoint,
+                   requestHeaders, null, response);
+        }
+    }
+
+    private void record(long startTimeMicros, long durationNanos, String method, String url,
+                        Map<String, String> requestHeaders, String requestBody, HttpResponse response) {
+        if (response == null) {
+            recorder.record(new RecordedExchange(startTimeMicros, durationNanos, method, url, requestHeaders,
+                                                 requestBody, 0, null, -1, null));
+            return;
+        }
+        byte[] body = response.getData() != null ? response.getData().getBytes(StandardCharsets.UTF_8) : null;
+        recorder.record(new RecordedExchange(startTimeMicros, durationNanos, method, url, requestHeaders,
+                                             requestBody, response.getResponseCode(), response.getHeaders(),
+                                             body != null ? body.length : -1,
+                                             body != null ? TrafficRecorder.digest(body) : null));
+    }
+}
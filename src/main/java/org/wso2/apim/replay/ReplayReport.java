@@ -0,0 +1,230 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import org.HdrHistogram.Histogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorded and replayed latency percentiles of every operation of a replay, together with the replayed requests
+ * which failed or got a different status or response body than recorded. Differing bodies are expected for
+ * responses holding generated values such as ids and timestamps, so only failures and status mismatches make a
+ * replay unsuccessful.
+ */
+public class ReplayReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final Map<String, OperationResult> operationResults = new ConcurrentSkipListMap<String, OperationResult>();
+    private volatile long recordedElapsedMillis;
+    private volatile long replayedElapsedMillis;
+
+    /**
+     * Record a replayed exchange
+     *
+     * @param operation     - logical operation name, ex: publisher:add.jag?action=addAPI
+     * @param exchange      - recorded exchange
+     * @param elapsedNanos  - latency of the replayed request
+     * @param failed        - true if the replayed request failed without a response
+     * @param statusMatches - true if the replayed response has the recorded status
+     * @param bodyMatches   - true if the replayed response has the recorded body
+     */
+    public void record(String operation, RecordedExchange exchange, long elapsedNanos, boolean failed,
+                       boolean statusMatches, boolean bodyMatches) {
+        OperationResult result = operationResults.computeIfAbsent(operation, name -> new OperationResult());
+        result.record(exchange, elapsedNanos, failed, statusMatches, bodyMatches);
+    }
+
+    /**
+     * Get the names of the replayed operations in alphabetical order
+     *
+     * @return - operation names
+     */
+    public List<String> getOperations() {
+        return new ArrayList<String>(operationResults.keySet());
+    }
+
+    public long getCount(String operation) {
+        OperationResult result = operationResults.get(operation);
+        return result != null ? result.getCount() : 0;
+    }
+
+    /**
+     * Get the recorded latency of an operation at the given percentile
+     *
+     * @param operation  - operation name
+     * @param percentile - percentile between 0 and 100
+     * @return - latency in milliseconds
+     */
+    public double getRecordedPercentileMillis(String operation, double percentile) {
+        OperationResult result = operationResults.get(operation);
+        return result != null ? result.getPercentileMillis(result.recordedHistogram, percentile) : 0;
+    }
+
+    /**
+     * Get the replayed latency of an operation at the given percentile
+     *
+     * @param operation  - operation name
+     * @param percentile - percentile between 0 and 100
+     * @return - latency in milliseconds
+     */
+    public double getReplayedPercentileMillis(String operation, double percentile) {
+        OperationResult result = operationResults.get(operation);
+        return result != null ? result.getPercentileMillis(result.replayedHistogram, percentile) : 0;
+    }
+
+    public long getTotalCount() {
+        long count = 0;
+        for (OperationResult result : operationResults.values()) {
+            count += result.getCount();
+        }
+        return count;
+    }
+
+    public long getFailureCount() {
+        long count = 0;
+        for (OperationResult result : operationResults.values()) {
+            count += result.getFailureCount();
+        }
+        return count;
+    }
+
+    public long getStatusMismatchCount() {
+        long count = 0;
+        for (OperationResult result : operationResults.values()) {
+            count += result.getStatusMismatchCount();
+        }
+        return count;
+    }
+
+    public long getBodyMismatchCount() {
+        long count = 0;
+        for (OperationResult result : operationResults.values()) {
+            count += result.getBodyMismatchCount();
+        }
+        return count;
+    }
+
+    /**
+     * Check whether every replayed request got a response with the recorded status
+     *
+     * @return - true if there were no failures and no status mismatches
+     */
+    public boolean isSuccessful() {
+        return getFailureCount() == 0 && getStatusMismatchCount() == 0;
+    }
+
+    public long getRecordedElapsedMillis() {
+        return recordedElapsedMillis;
+    }
+
+    public void setRecordedElapsedMillis(long recordedElapsedMillis) {
+        this.recordedElapsedMillis = recordedElapsedMillis;
+    }
+
+    public long getReplayedElapsedMillis() {
+        return replayedElapsedMillis;
+    }
+
+    public void setReplayedElapsedMillis(long replayedElapsedMillis) {
+        this.replayedElapsedMillis = replayedElapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Replayed ").append(getTotalCount()).append(" exchanges in ")
+                .append(replayedElapsedMillis).append(" ms, recorded in ").append(recordedElapsedMillis)
+                .append(" ms, failures=").append(getFailureCount()).append(", status mismatches=")
+                .append(getStatusMismatchCount()).append(", body mismatches=").append(getBodyMismatchCount());
+        for (Map.Entry<String, OperationResult> entry : operationResults.entrySet()) {
+            OperationResult result = entry.getValue();
+            summary.append(String.format("%n  %s : count=%d", entry.getKey(), result.getCount()));
+            for (double percentile : PERCENTILES) {
+                double recorded = result.getPercentileMillis(result.recordedHistogram, percentile);
+                double replayed = result.getPercentileMillis(result.replayedHistogram, percentile);
+                summary.append(String.format(", p%.0f=%.1f -> %.1f ms", percentile, recorded, replayed));
+                if (recorded > 0) {
+                    summary.append(String.format(" (%+.0f%%)", (replayed - recorded) * 100 / recorded));
+                }
+            }
+            summary.append(String.format(", failures=%d, status mismatches=%d, body mismatches=%d",
+                                         result.getFailureCount(), result.getStatusMismatchCount(),
+                                         result.getBodyMismatchCount()));
+        }
+        return summary.toString();
+    }
+
+    private static class OperationResult {
+
+        private final Histogram recordedHistogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram replayedHistogram = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private long count;
+        private long failureCount;
+        private long statusMismatchCount;
+        private long bodyMismatchCount;
+
+        synchronized void record(RecordedExchange exchange, long elapsedNanos, boolean failed, boolean statusMatches,
+                                 boolean bodyMatches) {
+            count++;
+            if (failed) {
+                failureCount++;
+                return;
+            }
+            if (!statusMatches) {
+                statusMismatchCount++;
+            } else if (!bodyMatches) {
+                bodyMismatchCount++;
+            }
+            if (!exchange.isFailed()) {
+                recordValue(recordedHistogram, exchange.getDurationNanos());
+                recordValue(replayedHistogram, elapsedNanos);
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized long getFailureCount() {
+            return failureCount;
+        }
+
+        synchronized long getStatusMismatchCount() {
+            return statusMismatchCount;
+        }
+
+        synchronized long getBodyMismatchCount() {
+            return bodyMismatchCount;
+        }
+
+        synchronized double getPercentileMillis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        private static void recordValue(Histogram histogram, long elapsedNanos) {
+            long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+            histogram.recordValue(Math.min(Math.max(elapsedMicros, 1), HIGHEST_TRACKABLE_MICROS));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the exchanges of a traffic log written by the {@link TrafficLogWriter}. A log cut short by a JVM that was
+ * killed while recording is read up to the last complete exchange.
+ */
+public class TrafficLogReader {
+
+    private static final Log log = LogFactory.getLog(TrafficLogReader.class);
+
+    private final DataInputStream input;
+    private final List<String> dictionary = new ArrayList<String>();
+    private long previousStartTimeMicros;
+
+    private TrafficLogReader(DataInputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Read all the exchanges of the log in the order they were written, which is the order the responses were
+     * received in
+     *
+     * @param file - traffic log
+     * @return - exchanges of all the runs in the log
+     * @throws IOException - if the file cannot be read or is not a traffic log
+     */
+    public static List<RecordedExchange> read(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file),
+                                                                                 64 * 1024))) {
+            return new TrafficLogReader(input).readExchanges(file);
+        }
+    }
+
+    private List<RecordedExchange> readExchanges(File file) throws IOException {
+        List<RecordedExchange> exchanges = new ArrayList<RecordedExchange>();
+        boolean isFirstRecord = true;
+        while (true) {
+            int recordType = input.read();
+            if (recordType < 0) {
+                return exchanges;
+            }
+            if (isFirstRecord && recordType != TrafficLogWriter.RECORD_RUN) {
+                throw new IOException(file + " is not a traffic log");
+            }
+            isFirstRecord = false;
+            try {
+                if (recordType == TrafficLogWriter.RECORD_RUN) {
+                    readRun(file);
+                } else if (recordType == TrafficLogWriter.RECORD_EXCHANGE) {
+                    exchanges.add(readExchange());
+                } else {
+                    throw new IOException("Unknown record type " + recordType + " in " + file);
+                }
+            } catch (EOFException e) {
+                log.warn(file + " ends with an incomplete record, read " + exchanges.size() + " exchanges");
+                return exchanges;
+            }
+        }
+    }
+
+    private void readRun(File file) throws IOException {
+        if (input.readInt() != TrafficLogWriter.MAGIC) {
+            throw new IOException(file + " is not a traffic log");
+        }
+        byte version = input.readByte();
+        if (version != TrafficLogWriter.VERSION) {
+            throw new IOException("Unsupported version " + version + " of the traffic log " + file);
+        }
+        previousStartTimeMicros = readVarLong() * 1000;
+        dictionary.clear();
+    }
+
+    private RecordedExchange readExchange() throws IOException {
+        long zigzagDelta = readVarLong();
+        long startTimeMicros = previousStartTimeMicros + ((zigzagDelta >>> 1) ^ -(zigzagDelta & 1));
+        previousStartTimeMicros = startTimeMicros;
+        long durationNanos = readVarLong();
+        String method = readString();
+        String url = readString();
+        Map<String, String> requestHeaders = readHeaders();
+        int bodyLength = (int) readVarLong();
+        String requestBody = null;
+        if (bodyLength > 0) {
+            byte[] body = new byte[bodyLength - 1];
+            input.readFully(body);
+            requestBody = new String(body, StandardCharsets.UTF_8);
+        }
+        int status = (int) readVarLong();
+        Map<String, String> responseHeaders = readHeaders();
+        int responseLength = (int) readVarLong() - 1;
+        int digestLength = input.readUnsignedByte();
+        byte[] digest = null;
+        if (digestLength > 0) {
+            digest = new byte[digestLength];
+            input.readFully(digest);
+        }
+        return new RecordedExchange(startTimeMicros, durationNanos, method, url, requestHeaders, requestBody,
+                                    status, responseHeaders, responseLength, digest);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        int count = (int) readVarLong();
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            String name = readString();
+            headers.put(name, readString());
+        }
+        return headers;
+    }
+
+    private String readString() throws IOException {
+        int reference = (int) readVarLong();
+        if (reference > 0) {
+            if (reference > dictionary.size()) {
+                throw new IOException("Invalid string reference " + reference + " in the traffic log");
+            }
+            return dictionary.get(reference - 1);
+        }
+        byte[] bytes = new byte[(int) readVarLong()];
+        input.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (dictionary.size() < TrafficLogWriter.MAX_DICTIONARY_SIZE &&
+            bytes.length <= TrafficLogWriter.MAX_DICTIONARY_STRING_LENGTH) {
+            dictionary.add(value);
+        }
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer in the traffic log");
+    }
+}
@@ -0,0 +1,177 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends recorded exchanges to a binary traffic log. Every writer starts a new run in the log, so the runs of
+ * several JVMs can be kept in the same file. The log is compact: numbers are written as variable length
+ * integers, the start times as the difference to the previous exchange, and the methods, URLs and headers,
+ * which mostly repeat, as references to the first occurrence in the run. Thread safe.
+ * <p/>
+ * run      : RECORD_RUN, magic (int), version (byte), start time millis (varint)
+ * exchange : RECORD_EXCHANGE, start time delta micros (zigzag varint), duration nanos (varint), method, url,
+ * request headers, request body, status (varint), response headers, response length + 1 (varint), digest
+ * <p/>
+ * Strings are written as varint 0 followed by the length and the UTF-8 bytes, or as the varint index + 1 of an
+ * earlier string of the run. Headers are written as the count followed by the names and values, the body as
+ * its length + 1 (0 for no body) followed by the bytes, the digest as its length followed by the bytes.
+ */
+public class TrafficLogWriter implements Closeable {
+
+    static final int MAGIC = 0x41504D52;
+    static final byte VERSION = 1;
+    static final byte RECORD_RUN = 1;
+    static final byte RECORD_EXCHANGE = 2;
+    static final int MAX_DICTIONARY_SIZE = 8192;
+    static final int MAX_DICTIONARY_STRING_LENGTH = 1024;
+
+    private final File file;
+    private final DataOutputStream output;
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    private long previousStartTimeMicros;
+    private long exchangeCount;
+
+    /**
+     * Open the log for appending and start a new run
+     *
+     * @param file - traffic log, created if it does not exist
+     * @throws IOException - if the file cannot be opened
+     */
+    public TrafficLogWriter(File file) throws IOException {
+        this.file = file;
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024));
+        long startTimeMillis = System.currentTimeMillis();
+        previousStartTimeMicros = startTimeMillis * 1000;
+        output.writeByte(RECORD_RUN);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        writeVarLong(output, startTimeMillis);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Append an exchange to the log
+     *
+     * @param exchange - recorded exchange
+     * @throws IOException - if the log cannot be written
+     */
+    public synchronized void write(RecordedExchange exchange) throws IOException {
+        output.writeByte(RECORD_EXCHANGE);
+        long startTimeDelta = exchange.getStartTimeMicros() - previousStartTimeMicros;
+        writeVarLong(output, (startTimeDelta << 1) ^ (startTimeDelta >> 63));
+        previousStartTimeMicros = exchange.getStartTimeMicros();
+        writeVarLong(output, exchange.getDurationNanos());
+        writeString(exchange.getMethod());
+        writeString(exchange.getUrl());
+        writeHeaders(exchange.getRequestHeaders());
+        if (exchange.getRequestBody() == null) {
+            writeVarLong(output, 0);
+        } else {
+            byte[] body = exchange.getRequestBody().getBytes(StandardCharsets.UTF_8);
+            writeVarLong(output, body.length + 1);
+            output.write(body);
+        }
+        writeVarLong(output, exchange.getStatus());
+        writeHeaders(exchange.getResponseHeaders());
+        writeVarLong(output, exchange.getResponseLength() + 1);
+        byte[] digest = exchange.getResponseDigest();
+        output.writeByte(digest != null ? digest.length : 0);
+        if (digest != null) {
+            output.write(digest);
+        }
+        exchangeCount++;
+    }
+
+    public synchronized long getExchangeCount() {
+        return exchangeCount;
+    }
+
+    /**
+     * Write the buffered exchanges to the file
+     *
+     * @throws IOException - if the log cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+
+    private void writeHeaders(Map<String, String> headers) throws IOException {
+        int count = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey() != null && header.getValue() != null) {
+                count++;
+            }
+        }
+        writeVarLong(output, count);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey() != null && header.getValue() != null) {
+                writeString(header.getKey());
+                writeString(header.getValue());
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarLong(output, index + 1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(output, 0);
+        writeVarLong(output, bytes.length);
+        output.write(bytes);
+        if (dictionary.size() < MAX_DICTIONARY_SIZE && bytes.length <= MAX_DICTIONARY_STRING_LENGTH) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    /**
+     * Write an unsigned variable length integer, 7 bits per byte with the high bit set on all but the last byte
+     */
+    static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.http.HttpTransport;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Records the requests and responses of the rest clients of the test run in a traffic log, so the same sequence
+ * of calls can later be sent again by the {@link TrafficReplayer} to compare the latencies of two builds or
+ * deployments without running the tests. The clients record through a {@link RecordingHttpTransport}, beneath
+ * the session handling, so the log holds the cookies actually sent. A failure to write the log stops the
+ * recording but not the test run.
+ * <p/>
+ * Recording is enabled by setting the log file with -Dapim.recording.file=target/traffic.log, the exchanges of
+ * the run are appended to the file.
+ */
+public class TrafficRecorder {
+
+    private static final Log log = LogFactory.getLog(TrafficRecorder.class);
+    private static final int DIGEST_LENGTH = 16;
+    private static final TrafficRecorder instance = new TrafficRecorder(getConfiguredLogFile());
+
+    private final File logFile;
+    private volatile boolean enabled;
+    private TrafficLogWriter writer;
+    private boolean shutdownHookAdded;
+
+    /**
+     * @param logFile - traffic log to append to, null to disable the recording
+     */
+    public TrafficRecorder(File logFile) {
+        this.logFile = logFile;
+        this.enabled = logFile != null;
+    }
+
+    /**
+     * Get the recorder shared in this JVM
+     *
+     * @return - shared recorder
+     */
+    public static TrafficRecorder getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Wrap the transport so that the requests sent through it are recorded
+     *
+     * @param transport - transport of a client
+     * @return - recording transport, or the given transport if recording is disabled or already in place
+     */
+    public HttpTransport instrument(HttpTransport transport) {
+        if (!enabled || transport instanceof RecordingHttpTransport) {
+            return transport;
+        }
+        return new RecordingHttpTransport(transport, this);
+    }
+
+    /**
+     * Append an exchange to the log. The log is opened with the first exchange.
+     *
+     * @param exchange - recorded exchange
+     */
+    public void record(RecordedExchange exchange) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            getWriter().write(exchange);
+        } catch (IOException e) {
+            enabled = false;
+            log.error("Unable to write the traffic log " + logFile + ", recording stopped", e);
+        }
+    }
+
+    /**
+     * Get the number of exchanges recorded by this recorder
+     *
+     * @return - number of exchanges
+     */
+    public synchronized long getExchangeCount() {
+        return writer != null ? writer.getExchangeCount() : 0;
+    }
+
+    /**
+     * Write the buffered exchanges to the log and close it. Exchanges recorded afterwards start a new run.
+     */
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+            log.info("Recorded " + writer.getExchangeCount() + " exchanges in " + logFile);
+        } catch (IOException e) {
+            log.warn("Error while closing the traffic log " + logFile, e);
+        }
+        writer = null;
+    }
+
+    private synchronized TrafficLogWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new TrafficLogWriter(logFile);
+            if (this == instance && !shutdownHookAdded) {
+                shutdownHookAdded = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Get the digest of a response body, the first 16 bytes of its SHA-256 hash
+     *
+     * @param body - UTF-8 encoded response body
+     * @return - digest
+     */
+    static byte[] digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return Arrays.copyOf(hash, DIGEST_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    private static File getConfiguredLogFile() {
+        String logFile = System.getProperty("apim.recording.file");
+        return logFile == null || logFile.trim().isEmpty() ? null : new File(logFile.trim());
+    }
+}
@@ -0,0 +1,283 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.replay;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.apim.http.HttpTransportConfiguration;
+import org.wso2.apim.http.HttpTransportFactory;
+import org.wso2.apim.metrics.MetricsHttpTransport;
+import org.wso2.apim.utils.NamedThreadFactory;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the exchanges of a traffic log again, in the order and at the pace they were recorded, and reports the
+ * replayed latencies against the recorded ones per operation. The pace can be accelerated by a speedup factor
+ * or dropped to send the requests as fast as the concurrency allows, and long idle periods of the recording,
+ * ex: the gaps between two recorded runs, are shortened to the max idle time.
+ * <p/>
+ * The requests are replayed verbatim, except for the URL prefixes rewritten to point to another deployment and
+ * the session cookies: the cookie set by a recorded login response is replaced by the cookie set by its replayed
+ * response in the subsequent requests. The replay target must therefore be in the state the recording started
+ * from, ex: without the APIs created by the recorded run. With a concurrency of 1, the default, every request
+ * waits for the previous response so the replayed logins always precede the requests using their sessions.
+ * <p/>
+ * mvn -Preplay compile exec:exec -Dreplay.args="-Dapim.replay.file=target/traffic.log -Dapim.replay.speedup=2"
+ * <p/>
+ * apim.replay.file=traffic log to replay, required
+ * apim.replay.speedup=1, 0 to send the requests without pacing
+ * apim.replay.concurrency=1
+ * apim.replay.maxIdle=10000
+ * apim.replay.rewrite=comma separated recorded and replayed URL prefixes, ex: https://am1:9443/&gt;https://am2:9443/
+ */
+public class TrafficReplayer {
+
+    private static final Log log = LogFactory.getLog(TrafficReplayer.class);
+    private static final String COOKIE_HEADER = "Cookie";
+    private static final String SET_COOKIE_HEADER = "Set-Cookie";
+
+    private final HttpTransport httpTransport;
+    private final Map<String, String> urlRewrites = new LinkedHashMap<String, String>();
+    private final Map<String, String> cookies = new ConcurrentHashMap<String, String>();
+    private double speedup = 1;
+    private int concurrency = 1;
+    private long maxIdleMillis = 10000;
+    private long drainTimeoutMillis = 10 * 60 * 1000;
+
+    /**
+     * @param httpTransport - transport used to send the replayed requests
+     */
+    public TrafficReplayer(HttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+    }
+
+    /**
+     * @param speedup - factor the recorded pace is accelerated by, 1 for the recorded pace, 0 for no pacing
+     */
+    public void setSpeedup(double speedup) {
+        this.speedup = speedup;
+    }
+
+    /**
+     * @param concurrency - maximum number of outstanding requests
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @param maxIdleMillis - longest recorded time without requests kept in the replay
+     */
+    public void setMaxIdleMillis(long maxIdleMillis) {
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * @param drainTimeoutMillis - time the outstanding requests are waited for after the last one was sent
+     */
+    public void setDrainTimeoutMillis(long drainTimeoutMillis) {
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    /**
+     * Send the requests starting with the recorded prefix to the replayed prefix instead
+     *
+     * @param recordedPrefix - URL prefix in the recording, ex: https://am1.wso2.com:9443/
+     * @param replayedPrefix - URL prefix to replay to, ex: https://am2.wso2.com:9443/
+     */
+    public void addUrlRewrite(String recordedPrefix, String replayedPrefix) {
+        urlRewrites.put(recordedPrefix, replayedPrefix);
+    }
+
+    /**
+     * Replay the exchanges in the order of their recorded start times
+     *
+     * @param exchanges - recorded exchanges
+     * @return - recorded and replayed latencies
+     * @throws APIManagerIntegrationTestException - if the thread is interrupted or the outstanding requests do
+     *                                            not complete within the drain timeout
+     */
+    public ReplayReport replay(List<RecordedExchange> exchanges) throws APIManagerIntegrationTestException {
+        ReplayReport report = new ReplayReport();
+        if (exchanges.isEmpty()) {
+            return report;
+        }
+        List<RecordedExchange> orderedExchanges = new ArrayList<RecordedExchange>(exchanges);
+        orderedExchanges.sort(Comparator.comparingLong(RecordedExchange::getStartTimeMicros));
+        report.setRecordedElapsedMillis(getRecordedElapsedMillis(orderedExchanges));
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("apim-replay"));
+        Semaphore permits = new Semaphore(concurrency);
+        long maxIdleMicros = TimeUnit.MILLISECONDS.toMicros(maxIdleMillis);
+        try {
+            long startTime = System.nanoTime();
+            long offsetMicros = 0;
+            long previousStartTimeMicros = orderedExchanges.get(0).getStartTimeMicros();
+            for (final RecordedExchange exchange : orderedExchanges) {
+                offsetMicros += Math.min(exchange.getStartTimeMicros() - previousStartTimeMicros, maxIdleMicros);
+                previousStartTimeMicros = exchange.getStartTimeMicros();
+                if (speedup > 0) {
+                    sleepUntil(startTime + (long) (TimeUnit.MICROSECONDS.toNanos(offsetMicros) / speedup));
+                }
+                permits.acquire();
+                workers.execute(() -> {
+                    try {
+                        send(exchange, report);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            if (!permits.tryAcquire(concurrency, drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new APIManagerIntegrationTestException("Outstanding requests did not complete within " +
+                                                             drainTimeoutMillis + " ms after the last one");
+            }
+            report.setReplayedElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while replaying the traffic", e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return report;
+    }
+
+    private void send(RecordedExchange exchange, ReplayReport report) {
+        String url = rewriteUrl(exchange.getUrl());
+        Map<String, String> headers = new HashMap<String, String>(exchange.getRequestHeaders());
+        String cookie = headers.get(COOKIE_HEADER);
+        if (cookie != null && cookies.containsKey(cookie)) {
+            headers.put(COOKIE_HEADER, cookies.get(cookie));
+        }
+        boolean isPost = RecordedExchange.METHOD_POST.equals(exchange.getMethod());
+        String operation = exchange.getUrl();
+        HttpResponse response = null;
+        long startTime = System.nanoTime();
+        try {
+            URL endpoint = new URL(url);
+            operation = MetricsHttpTransport.getOperationName(endpoint.getPath(), isPost ? exchange.getRequestBody() :
+                                                                                  endpoint.getQuery());
+            startTime = System.nanoTime();
+            response = isPost ? httpTransport.doPost(endpoint, exchange.getRequestBody(), headers) :
+                       httpTransport.doGet(url, headers);
+        } catch (IOException e) {
+            log.debug("Replay of " + exchange + " failed", e);
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        if (response == null) {
+            report.record(operation, exchange, elapsedNanos, true, false, false);
+            return;
+        }
+        String recordedCookie = getHeader(exchange.getResponseHeaders(), SET_COOKIE_HEADER);
+        String replayedCookie = getHeader(response.getHeaders(), SET_COOKIE_HEADER);
+        if (recordedCookie != null && replayedCookie != null) {
+            cookies.put(recordedCookie, replayedCookie);
+        }
+        byte[] digest = response.getData() != null ?
+                        TrafficRecorder.digest(response.getData().getBytes(StandardCharsets.UTF_8)) : null;
+        report.record(operation, exchange, elapsedNanos, false, response.getResponseCode() == exchange.getStatus(),
+                      Arrays.equals(digest, exchange.getResponseDigest()));
+    }
+
+    private String rewriteUrl(String url) {
+        for (Map.Entry<String, String> rewrite : urlRewrites.entrySet()) {
+            if (url.startsWith(rewrite.getKey())) {
+                return rewrite.getValue() + url.substring(rewrite.getKey().length());
+            }
+        }
+        return url;
+    }
+
+    private static String getHeader(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static long getRecordedElapsedMillis(List<RecordedExchange> orderedExchanges) {
+        long firstStartTimeMicros = orderedExchanges.get(0).getStartTimeMicros();
+        long lastEndTimeMicros = firstStartTimeMicros;
+        for (RecordedExchange exchange : orderedExchanges) {
+            long endTimeMicros = exchange.getStartTimeMicros() +
+                                 TimeUnit.NANOSECONDS.toMicros(exchange.getDurationNanos());
+            lastEndTimeMicros = Math.max(lastEndTimeMicros, endTimeMicros);
+        }
+        return TimeUnit.MICROSECONDS.toMillis(lastEndTimeMicros - firstStartTimeMicros);
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long remainingNanos;
+        while ((remainingNanos = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String logFile = System.getProperty("apim.replay.file");
+        if (logFile == null) {
+            throw new APIManagerIntegrationTestException("Set the traffic log to replay with -Dapim.replay.file");
+        }
+        List<RecordedExchange> exchanges = TrafficLogReader.read(new File(logFile));
+        TrafficReplayer replayer = new TrafficReplayer(
+                HttpTransportFactory.createTransport(HttpTransportConfiguration.fromSystemProperties()));
+        replayer.setSpeedup(Double.parseDouble(System.getProperty("apim.replay.speedup", "1")));
+        replayer.setConcurrency(Integer.getInteger("apim.replay.concurrency", 1));
+        replayer.setMaxIdleMillis(Long.getLong("apim.replay.maxIdle", 10000));
+        String rewrites = System.getProperty("apim.replay.rewrite", "").trim();
+        for (String rewrite : rewrites.isEmpty() ? new String[0] : rewrites.split("\\s*,\\s*")) {
+            int separator = rewrite.indexOf('>');
+            if (separator <= 0) {
+                throw new APIManagerIntegrationTestException("Invalid URL rewrite " + rewrite);
+            }
+            replayer.addUrlRewrite(rewrite.substring(0, separator), rewrite.substring(separator + 1));
+        }
+        log.info("Replaying " + exchanges.size() + " exchanges of " + logFile);
+        ReplayReport report = replayer.replay(exchanges);
+        log.info(report);
+        System.exit(report.isSuccessful() ? 0 : 1);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.session;
+
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.util.regex.Pattern;
+
+/**
+ * Session cookie obtained by a login. Only authenticated sessions are cached by the {@link SessionRegistry}.
+ */
+public class Session {
+
+    private static final Pattern JAGGERY_ERROR = Pattern.compile("\"error\"\\s*:\\s*true");
+
+    private final String cookie;
+    private final HttpResponse loginResponse;
+    private final boolean authenticated;
+    private final long createdTime = System.currentTimeMillis();
+
+    /**
+     * @param cookie        - session cookie sent with the requests
+     * @param loginResponse - response of the login request, null for Carbon admin sessions
+     * @param authenticated - true if the login succeeded
+     */
+    public Session(String cookie, HttpResponse loginResponse, boolean authenticated) {
+        this.cookie = cookie;
+        this.loginResponse = loginResponse;
+        this.authenticated = authenticated;
+    }
+
+    /**
+     * Create the session from the response of a store/publisher Jaggery login. The Jaggery apps set a
+     * cookie for failed logins as well, so the login only succeeded if the response does not report an error.
+     *
+     * @param loginResponse - response of the login.jag request
+     * @param cookie        - Set-Cookie header of the response
+     * @return - session
+     */
+    public static Session fromJaggeryLogin(HttpResponse loginResponse, String cookie) {
+        boolean authenticated = cookie != null && loginResponse.getResponseCode() == 200 &&
+                                loginResponse.getData() != null &&
+                                !JAGGERY_ERROR.matcher(loginResponse.getData()).find();
+        return new Session(cookie, loginResponse, authenticated);
+    }
+
+    public String getCookie() {
+        return cookie;
+    }
+
+    public HttpResponse getLoginResponse() {
+        return loginResponse;
+    }
+
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+}
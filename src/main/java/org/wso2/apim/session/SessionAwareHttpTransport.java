@@ -0,0 +1,155 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.session;
+
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Transport of a single rest client which sends the cookie of the session bound by the client login and
+ * transparently logs in again and retries the request once when the session has expired. A session is
+ * considered expired if a store or publisher Jaggery app redirects to the login page or reports a session
+ * timeout. Other responses, e.g. a 401, are returned as they are so that the tests can assert them. Requests
+ * are sent unchanged until a session is bound.
+ */
+public class SessionAwareHttpTransport implements HttpTransport {
+
+    private static final Pattern JAGGERY_TIMEOUT = Pattern.compile("\"message\"\\s*:\\s*\"timeout\"");
+    private static final Pattern JAGGERY_APP_PATH = Pattern.compile("^/(store|publisher)(/|$)");
+    private static final Pattern SLASHES = Pattern.compile("/{2,}");
+    private static final String COOKIE_HEADER = "Cookie";
+
+    private final HttpTransport delegate;
+    private final SessionRegistry sessionRegistry;
+    private volatile SessionKey sessionKey;
+
+    /**
+     * @param delegate        - transport used to send the requests
+     * @param sessionRegistry - registry holding the sessions
+     */
+    public SessionAwareHttpTransport(HttpTransport delegate, SessionRegistry sessionRegistry) {
+        this.delegate = delegate;
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Get the transport used to send the requests without the session handling, e.g. for the login request
+     *
+     * @return - underlying transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Send the cookie of the given session with the subsequent requests
+     *
+     * @param sessionKey - key of the session in the registry, null to stop the session handling
+     */
+    public void bind(SessionKey sessionKey) {
+        this.sessionKey = sessionKey;
+    }
+
+    public SessionKey getSessionKey() {
+        return sessionKey;
+    }
+
+    @Override
+    public HttpResponse doPost(final URL endpoint, final String postBody, Map<String, String> headers)
+            throws IOException {
+        return execute(endpoint.getPath(), headers,
+                       requestHeaders -> delegate.doPost(endpoint, postBody, requestHeaders));
+    }
+
+    @Override
+    public HttpResponse doGet(final String endpoint, Map<String, String> headers) throws IOException {
+        return execute(new URL(endpoint).getPath(), headers,
+                       requestHeaders -> delegate.doGet(endpoint, requestHeaders));
+    }
+
+    private HttpResponse execute(String path, Map<String, String> headers, Request request) throws IOException {
+        SessionKey key = sessionKey;
+        if (key == null) {
+            return request.send(headers);
+        }
+        Session session = sessionRegistry.getCachedSession(key);
+        String cookie = session != null ? session.getCookie() : headers.get(COOKIE_HEADER);
+        HttpResponse response = request.send(withCookie(headers, cookie));
+        if (!isSessionExpired(path, response)) {
+            return response;
+        }
+        try {
+            session = sessionRegistry.renewSession(key, cookie);
+        } catch (APIManagerIntegrationTestException e) {
+            throw new IOException("Session of " + key + " expired and could not be renewed", e);
+        }
+        return request.send(withCookie(headers, session.getCookie()));
+    }
+
+    private static Map<String, String> withCookie(Map<String, String> headers, String cookie) {
+        if (cookie == null || cookie.equals(headers.get(COOKIE_HEADER))) {
+            return headers;
+        }
+        Map<String, String> sessionHeaders = new HashMap<String, String>(headers);
+        sessionHeaders.put(COOKIE_HEADER, cookie);
+        return sessionHeaders;
+    }
+
+    /**
+     * Check whether the response shows that the session used for the request is no longer valid. Only the
+     * responses of the store and publisher apps are checked, the session is not used by the other endpoints.
+     *
+     * @param path     - path of the request URL, repeated slashes are collapsed
+     * @param response - response of the request
+     * @return - true if the session has expired
+     */
+    static boolean isSessionExpired(String path, HttpResponse response) {
+        if (path == null || !JAGGERY_APP_PATH.matcher(SLASHES.matcher(path).replaceAll("/")).find()) {
+            return false;
+        }
+        int responseCode = response.getResponseCode();
+        Map<String, String> headers = response.getHeaders();
+        if ((responseCode == 302 || responseCode == 303) && headers != null) {
+            String location = headers.get("Location");
+            return location != null && location.contains("login");
+        }
+        String data = response.getData();
+        if (data == null) {
+            return false;
+        }
+        if (JAGGERY_TIMEOUT.matcher(data).find()) {
+            return true;
+        }
+        String contentType = headers != null ? headers.get("Content-Type") : null;
+        return contentType != null && contentType.startsWith("text/html") && data.contains("login.jag");
+    }
+
+    /**
+     * Sends the request with the given headers
+     */
+    private interface Request {
+        HttpResponse send(Map<String, String> headers) throws IOException;
+    }
+}
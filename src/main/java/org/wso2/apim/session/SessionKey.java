@@ -0,0 +1,94 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.session;
+
+/**
+ * Identifies a login session by the node URL, tenant domain and user name.
+ */
+public final class SessionKey {
+
+    public static final String SUPER_TENANT_DOMAIN = "carbon.super";
+
+    private final String nodeURL;
+    private final String tenantDomain;
+    private final String userName;
+
+    /**
+     * @param nodeURL      - URL of the node or Jaggery app the session belongs to
+     * @param tenantDomain - tenant domain of the user
+     * @param userName     - user name
+     */
+    public SessionKey(String nodeURL, String tenantDomain, String userName) {
+        this.nodeURL = nodeURL;
+        this.tenantDomain = tenantDomain;
+        this.userName = userName;
+    }
+
+    /**
+     * Create the key for a tenant qualified user name such as admin@wso2.com. User names without a
+     * tenant domain belong to the super tenant.
+     *
+     * @param nodeURL  - URL of the node or Jaggery app the session belongs to
+     * @param userName - user name, optionally with the tenant domain
+     * @return - session key
+     */
+    public static SessionKey forUser(String nodeURL, String userName) {
+        int separatorIndex = userName.lastIndexOf('@');
+        String tenantDomain = separatorIndex < 0 ? SUPER_TENANT_DOMAIN : userName.substring(separatorIndex + 1);
+        return new SessionKey(nodeURL, tenantDomain, userName);
+    }
+
+    public String getNodeURL() {
+        return nodeURL;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SessionKey)) {
+            return false;
+        }
+        SessionKey that = (SessionKey) o;
+        return nodeURL.equals(that.nodeURL) && tenantDomain.equals(that.tenantDomain) &&
+               userName.equals(that.userName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = nodeURL.hashCode();
+        result = 31 * result + tenantDomain.hashCode();
+        result = 31 * result + userName.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return userName + " [" + tenantDomain + "] at " + nodeURL;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.session;
+
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+
+/**
+ * Performs the actual login to a node. Used by the {@link SessionRegistry} for the first login and to
+ * re-authenticate when the session expires.
+ */
+public interface SessionLoader {
+
+    /**
+     * Login to the node
+     *
+     * @return - session created by the login
+     * @throws APIManagerIntegrationTestException - if the login request fails
+     */
+    Session login() throws APIManagerIntegrationTestException;
+
+}
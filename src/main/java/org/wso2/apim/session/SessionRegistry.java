@@ -0,0 +1,201 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe registry of the login sessions of the test run, keyed by node URL, tenant and user. A login
+ * for a user that already has an authenticated session with the same password returns the cached session
+ * instead of calling the node again. Failed logins are never cached. Expired sessions are renewed with the
+ * loader of the last successful login, only once even if several threads detect the expiry at the same time.
+ * Caching can be disabled with -Dapim.session.cache=false.
+ */
+public class SessionRegistry {
+
+    private static final Log log = LogFactory.getLog(SessionRegistry.class);
+    private static final SessionRegistry instance =
+            new SessionRegistry(Boolean.parseBoolean(System.getProperty("apim.session.cache", "true")));
+
+    private final ConcurrentMap<SessionKey, SessionEntry> sessions = new ConcurrentHashMap<SessionKey, SessionEntry>();
+    private final boolean cacheEnabled;
+    private final AtomicLong loginCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong renewCount = new AtomicLong();
+
+    /**
+     * @param cacheEnabled - false to login every time a session is requested
+     */
+    public SessionRegistry(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Get the registry shared in this JVM
+     *
+     * @return - shared registry
+     */
+    public static SessionRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the session of the user, login with the loader if there is no cached session for the key or the
+     * password differs from the one of the cached session
+     *
+     * @param key      - session key
+     * @param password - password used by the loader
+     * @param loader   - performs the login
+     * @return - cached or new session. The session is not authenticated if the login failed
+     * @throws APIManagerIntegrationTestException - if the login request fails
+     */
+    public Session getSession(SessionKey key, String password, SessionLoader loader)
+            throws APIManagerIntegrationTestException {
+        if (!cacheEnabled) {
+            loginCount.incrementAndGet();
+            return loader.login();
+        }
+        SessionEntry entry = getEntry(key);
+        byte[] passwordDigest = digest(password);
+        synchronized (entry) {
+            if (entry.session != null && MessageDigest.isEqual(entry.passwordDigest, passwordDigest)) {
+                cacheHitCount.incrementAndGet();
+                return entry.session;
+            }
+            loginCount.incrementAndGet();
+            Session session = loader.login();
+            if (session.isAuthenticated()) {
+                entry.session = session;
+                entry.passwordDigest = passwordDigest;
+                entry.loader = loader;
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Get the cached session
+     *
+     * @param key - session key
+     * @return - cached session or null if there is no authenticated session for the key
+     */
+    public Session getCachedSession(SessionKey key) {
+        SessionEntry entry = sessions.get(key);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return entry.session;
+        }
+    }
+
+    /**
+     * Renew an expired session by login again with the loader of the last successful login. If another
+     * thread already renewed the session the renewed session is returned without a new login.
+     *
+     * @param key           - session key
+     * @param expiredCookie - cookie of the session found to be expired
+     * @return - renewed session
+     * @throws APIManagerIntegrationTestException - if there is no loader for the key or the login fails
+     */
+    public Session renewSession(SessionKey key, String expiredCookie) throws APIManagerIntegrationTestException {
+        SessionEntry entry = getEntry(key);
+        synchronized (entry) {
+            if (entry.session != null && !entry.session.getCookie().equals(expiredCookie)) {
+                return entry.session;
+            }
+            if (entry.loader == null) {
+                throw new APIManagerIntegrationTestException("No login found to renew the session of " + key);
+            }
+            log.info("Session of " + key + " expired, login again");
+            renewCount.incrementAndGet();
+            loginCount.incrementAndGet();
+            Session session = entry.loader.login();
+            if (!session.isAuthenticated()) {
+                entry.session = null;
+                throw new APIManagerIntegrationTestException("Unable to renew the session of " + key);
+            }
+            entry.session = session;
+            return session;
+        }
+    }
+
+    /**
+     * Remove the cached session, e.g. after a logout
+     *
+     * @param key - session key
+     */
+    public void invalidate(SessionKey key) {
+        SessionEntry entry = sessions.get(key);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.session = null;
+            }
+        }
+    }
+
+    public long getLoginCount() {
+        return loginCount.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public long getRenewCount() {
+        return renewCount.get();
+    }
+
+    private SessionEntry getEntry(SessionKey key) {
+        SessionEntry entry = sessions.get(key);
+        if (entry == null) {
+            SessionEntry newEntry = new SessionEntry();
+            entry = sessions.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    private static byte[] digest(String password) throws APIManagerIntegrationTestException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new APIManagerIntegrationTestException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * Session of a key together with the login used to renew it. Guarded by its own monitor.
+     */
+    private static class SessionEntry {
+        private Session session;
+        private byte[] passwordDigest;
+        private SessionLoader loader;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how accurately a cluster of gateway nodes enforces the throttling limit of one access token. Like the
+ * {@link ThrottlingTestDriver} the window start is found by invoking the API until it is throttled out and
+ * probing until it is allowed again, but the invocations are spread over all the nodes in turn: the quota is fired
+ * as a concurrent burst together with extra invocations, so the allowed invocations beyond the limit, the time to
+ * the first throttled out response and the invocations allowed by a node after another node already throttled
+ * out can be measured. The probing for the next window measures the recovery time and starts the window of the
+ * next burst, so consecutive bursts do not wait for the window twice.
+ * <p/>
+ * apim.throttling.probeInterval=250
+ * apim.throttling.resetGuard=2000
+ */
+public class ClusterThrottlingDriver {
+
+    private static final Log log = LogFactory.getLog(ClusterThrottlingDriver.class);
+
+    private final int nodeCount;
+    private final int limit;
+    private final ThrottlingWindowProbe probe;
+    private int extraInvocations;
+    private int nextNode;
+
+    /**
+     * @param invocationUrls      - URL of the API resource in every gateway node
+     * @param requestHeaders      - request headers including the access token of the subscription
+     * @param limit               - number of invocations allowed per window by the tier
+     * @param unitTimeMillis      - length of the throttling window
+     * @param throttledOutMessage - text of the response body of a throttled out invocation
+     */
+    public ClusterThrottlingDriver(List<String> invocationUrls, Map<String, String> requestHeaders, int limit,
+                                   long unitTimeMillis, String throttledOutMessage) {
+        this.nodeCount = invocationUrls.size();
+        this.limit = limit;
+        this.extraInvocations = limit;
+        this.probe = new ThrottlingWindowProbe(invocationUrls, requestHeaders, unitTimeMillis, throttledOutMessage,
+                                               this::nextNode);
+    }
+
+    /**
+     * Set the text the response body of an allowed invocation must contain. Allowed invocations with another
+     * body are counted as failed.
+     *
+     * @param expectedResponseData - expected text of the response body, null to accept any body
+     */
+    public void setExpectedResponseData(String expectedResponseData) {
+        probe.setExpectedResponseData(expectedResponseData);
+    }
+
+    /**
+     * @param extraInvocations - invocations fired beyond the limit, the largest overshoot that can be detected.
+     *                         The limit by default.
+     */
+    public void setExtraInvocations(int extraInvocations) {
+        this.extraInvocations = extraInvocations;
+    }
+
+    public void setProbeIntervalMillis(long probeIntervalMillis) {
+        probe.setProbeIntervalMillis(probeIntervalMillis);
+    }
+
+    public void setResetGuardMillis(long resetGuardMillis) {
+        probe.setResetGuardMillis(resetGuardMillis);
+    }
+
+    /**
+     * Fire a burst at the start of a window and wait for the start of the next window
+     *
+     * @param concurrency - number of concurrent invocations of the burst
+     * @return - report of the window
+     * @throws APIManagerIntegrationTestException - if the API is never throttled out, the window does not reset
+     *                                            or the thread is interrupted
+     */
+    public ClusterThrottlingReport runWindow(int concurrency) throws APIManagerIntegrationTestException {
+        if (!probe.isWindowStarted()) {
+            probe.awaitReset(exhaustWindow());
+        }
+        long startTime = probe.getWindowStartTime();
+        int[] allowedCounts = new int[nodeCount];
+        allowedCounts[probe.getWindowStartNode()]++;
+        int throttledCount = 0;
+        int failedCount = 0;
+        long firstThrottledTime = Long.MAX_VALUE;
+        List<ThrottlingWindowProbe.Invocation> invocations =
+                probe.fireBurst(limit - 1 + extraInvocations, concurrency);
+        for (ThrottlingWindowProbe.Invocation invocation : invocations) {
+            if (invocation.outcome == ThrottlingOutcome.ALLOWED) {
+                allowedCounts[invocation.node]++;
+            } else if (invocation.outcome == ThrottlingOutcome.THROTTLED) {
+                throttledCount++;
+                firstThrottledTime = Math.min(firstThrottledTime, invocation.receiveTime);
+            } else {
+                failedCount++;
+            }
+        }
+        int lateAllowedCount = 0;
+        long lastLateSendTime = firstThrottledTime;
+        for (ThrottlingWindowProbe.Invocation invocation : invocations) {
+            if (invocation.outcome == ThrottlingOutcome.ALLOWED && invocation.sendTime > firstThrottledTime) {
+                lateAllowedCount++;
+                lastLateSendTime = Math.max(lastLateSendTime, invocation.sendTime);
+            }
+        }
+        boolean isThrottled = firstThrottledTime != Long.MAX_VALUE;
+        long throttledTime = isThrottled ? firstThrottledTime : exhaustWindow();
+        //the probing for the reset starts the window of the next burst
+        long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(probe.awaitReset(throttledTime) - throttledTime);
+        long firstThrottledMillis = isThrottled ? TimeUnit.NANOSECONDS.toMillis(firstThrottledTime - startTime) : -1;
+        long replicationLagMillis =
+                lateAllowedCount > 0 ? TimeUnit.NANOSECONDS.toMillis(lastLateSendTime - firstThrottledTime) : 0;
+        ClusterThrottlingReport report =
+                new ClusterThrottlingReport(limit, concurrency, allowedCounts, throttledCount, failedCount,
+                                            firstThrottledMillis, lateAllowedCount, replicationLagMillis,
+                                            recoveryMillis);
+        log.info(report);
+        return report;
+    }
+
+    private long exhaustWindow() throws APIManagerIntegrationTestException {
+        return probe.exhaustWindow((2 * limit + extraInvocations + 1) * nodeCount);
+    }
+
+    /**
+     * Choose the nodes in turn
+     *
+     * @return - index of the node of the next invocation
+     */
+    private int nextNode() {
+        int node = nextNode;
+        nextNode = (nextNode + 1) % nodeCount;
+        return node;
+    }
+}
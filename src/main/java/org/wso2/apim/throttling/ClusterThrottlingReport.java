@@ -0,0 +1,136 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a concurrent burst fired at all the gateway nodes of a cluster at the start of one throttling window.
+ * The nodes share the throttle counters with a delay, so the cluster allows more invocations than the limit while
+ * the counters are being replicated. The invocations allowed although they were sent after another node already
+ * throttled out show the replication lag.
+ */
+public class ClusterThrottlingReport {
+
+    private final int limit;
+    private final int concurrency;
+    private final int[] allowedCounts;
+    private final int throttledCount;
+    private final int failedCount;
+    private final long firstThrottledMillis;
+    private final int lateAllowedCount;
+    private final long replicationLagMillis;
+    private final long recoveryMillis;
+
+    /**
+     * @param limit                - number of invocations allowed per window by the tier
+     * @param concurrency          - number of concurrent invocations of the burst
+     * @param allowedCounts        - number of invocations allowed by each node in the window
+     * @param throttledCount       - number of invocations throttled out in the window
+     * @param failedCount          - number of invocations neither allowed nor throttled out
+     * @param firstThrottledMillis - time from the window start until the first throttled out response, -1 if no
+     *                             invocation of the burst was throttled out
+     * @param lateAllowedCount     - number of invocations allowed although they were sent after the first throttled
+     *                             out response
+     * @param replicationLagMillis - time from the first throttled out response until the last allowed invocation
+     *                             was sent, 0 if there was no late allowed invocation
+     * @param recoveryMillis       - time from the first throttled out response until an invocation was allowed again
+     */
+    public ClusterThrottlingReport(int limit, int concurrency, int[] allowedCounts, int throttledCount,
+                                   int failedCount, long firstThrottledMillis, int lateAllowedCount,
+                                   long replicationLagMillis, long recoveryMillis) {
+        this.limit = limit;
+        this.concurrency = concurrency;
+        this.allowedCounts = allowedCounts.clone();
+        this.throttledCount = throttledCount;
+        this.failedCount = failedCount;
+        this.firstThrottledMillis = firstThrottledMillis;
+        this.lateAllowedCount = lateAllowedCount;
+        this.replicationLagMillis = replicationLagMillis;
+        this.recoveryMillis = recoveryMillis;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Get the number of invocations allowed by a node
+     *
+     * @param node - index of the node in the invocation URLs of the driver
+     * @return - allowed invocations
+     */
+    public int getAllowedCount(int node) {
+        return allowedCounts[node];
+    }
+
+    public int getAllowedCount() {
+        int allowedCount = 0;
+        for (int count : allowedCounts) {
+            allowedCount += count;
+        }
+        return allowedCount;
+    }
+
+    public int getThrottledCount() {
+        return throttledCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Get the number of invocations the cluster allowed beyond the limit of the tier
+     *
+     * @return - overshoot, negative if less invocations than the limit were allowed
+     */
+    public int getOvershoot() {
+        return getAllowedCount() - limit;
+    }
+
+    public long getFirstThrottledMillis() {
+        return firstThrottledMillis;
+    }
+
+    public int getLateAllowedCount() {
+        return lateAllowedCount;
+    }
+
+    public long getReplicationLagMillis() {
+        return replicationLagMillis;
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Cluster throttling window with concurrency " + concurrency + " : limit=" + limit + ", allowed=" +
+               getAllowedCount() + " " + Arrays.toString(allowedCounts) + ", throttled=" + throttledCount +
+               ", failed=" + failedCount + ", overshoot=" + getOvershoot() + ", first throttled=" +
+               firstThrottledMillis + " ms, late allowed=" + lateAllowedCount + ", replication lag=" +
+               replicationLagMillis + " ms, recovery=" + recoveryMillis + " ms";
+    }
+}
@@ -0,0 +1,79 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.http.ResponseBodyMatcher;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Outcome of an invocation of a throttled API
+ */
+enum ThrottlingOutcome {
+
+    ALLOWED, THROTTLED, FAILED;
+
+    private static final Log log = LogFactory.getLog(ThrottlingOutcome.class);
+
+    /**
+     * Invoke the API with a GET request and classify the response
+     *
+     * @param invocationUrl        - URL of the API resource in the gateway
+     * @param requestHeaders       - request headers including the access token of the subscription
+     * @param throttledOutMessage  - text of the response body of a throttled out invocation
+     * @param expectedResponseData - text the body of an allowed invocation must contain, null to accept any body
+     * @return - allowed for a 200 with the expected body, throttled for a 503 with the throttled out message,
+     * failed otherwise
+     */
+    static ThrottlingOutcome invoke(String invocationUrl, Map<String, String> requestHeaders,
+                                    String throttledOutMessage, String expectedResponseData) {
+        ResponseBodyMatcher throttledOutMatcher = ResponseBodyMatcher.contains(throttledOutMessage);
+        ResponseBodyMatcher responseDataMatcher =
+                expectedResponseData != null ? ResponseBodyMatcher.contains(expectedResponseData) : null;
+        try {
+            StreamingHttpResponse response =
+                    StreamingHttpClient.getSharedClient().doGet(invocationUrl, requestHeaders);
+            try {
+                if (responseDataMatcher != null) {
+                    response.consume(throttledOutMatcher, responseDataMatcher);
+                } else {
+                    response.consume(throttledOutMatcher);
+                }
+            } finally {
+                response.close();
+            }
+            if (response.getResponseCode() == 503 && throttledOutMatcher.isMatched()) {
+                return THROTTLED;
+            }
+            if (response.getResponseCode() == 200 &&
+                (responseDataMatcher == null || responseDataMatcher.isMatched())) {
+                return ALLOWED;
+            }
+            log.warn("Unexpected response from " + invocationUrl + " : " + response.getResponseCode() + " " +
+                     response.getBodyPreview());
+        } catch (IOException e) {
+            log.warn("Unable to invoke " + invocationUrl, e);
+        }
+        return FAILED;
+    }
+}
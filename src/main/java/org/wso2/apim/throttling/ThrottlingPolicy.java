@@ -0,0 +1,161 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.xml.sax.SAXException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Throttle control of a WS-Policy throttle assertion, as used by the tiers.xml of the API Manager and the
+ * throttle mediator: the number of requests allowed for an id within the unit time. The tiers are the controls of
+ * the ROLE type.
+ */
+public class ThrottlingPolicy {
+
+    public static final String TYPE_ROLE = "ROLE";
+    public static final String TYPE_IP = "IP";
+    private static final String THROTTLE_NAMESPACE = "http://www.wso2.org/products/wso2commons/throttle";
+
+    private final String id;
+    private final String type;
+    private final int maximumCount;
+    private final long unitTimeMillis;
+
+    /**
+     * @param id             - id of the control, ex: the tier name or the IP address
+     * @param type           - type of the id, ex: ROLE or IP
+     * @param maximumCount   - number of requests allowed within the unit time
+     * @param unitTimeMillis - length of the throttling window
+     */
+    public ThrottlingPolicy(String id, String type, int maximumCount, long unitTimeMillis) {
+        this.id = id;
+        this.type = type;
+        this.maximumCount = maximumCount;
+        this.unitTimeMillis = unitTimeMillis;
+    }
+
+    /**
+     * Read the throttle controls of a policy file. Ids without a control, ex: the id of the concurrency limit,
+     * are skipped.
+     *
+     * @param policyFile - WS-Policy file with a throttle assertion
+     * @return - controls in the order they are listed
+     * @throws APIManagerIntegrationTestException - if the file cannot be read or a control is not valid
+     */
+    public static List<ThrottlingPolicy> load(File policyFile) throws APIManagerIntegrationTestException {
+        NodeList ids;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            ids = factory.newDocumentBuilder().parse(policyFile).getElementsByTagNameNS(THROTTLE_NAMESPACE, "ID");
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new APIManagerIntegrationTestException("Unable to read the throttling policy " + policyFile, e);
+        }
+        List<ThrottlingPolicy> policies = new ArrayList<ThrottlingPolicy>();
+        for (int i = 0; i < ids.getLength(); i++) {
+            Element id = (Element) ids.item(i);
+            Element control = getChild((Element) id.getParentNode(), "Control");
+            if (control == null) {
+                continue;
+            }
+            String maximumCount = getText(control, "MaximumCount");
+            String unitTime = getText(control, "UnitTime");
+            if (maximumCount == null || unitTime == null) {
+                throw new APIManagerIntegrationTestException("Control of " + id.getTextContent().trim() + " in " +
+                                                             policyFile + " has no maximum count or unit time");
+            }
+            try {
+                policies.add(new ThrottlingPolicy(id.getTextContent().trim(),
+                                                  id.getAttributeNS(THROTTLE_NAMESPACE, "type"),
+                                                  Integer.parseInt(maximumCount), Long.parseLong(unitTime)));
+            } catch (NumberFormatException e) {
+                throw new APIManagerIntegrationTestException("Invalid control of " + id.getTextContent().trim() +
+                                                             " in " + policyFile, e);
+            }
+        }
+        return policies;
+    }
+
+    /**
+     * Find a throttle element among the descendants of the policy, without descending into nested ids
+     */
+    private static Element getChild(Element policy, String localName) {
+        for (Node child = policy.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element)) {
+                continue;
+            }
+            Element element = (Element) child;
+            if (THROTTLE_NAMESPACE.equals(element.getNamespaceURI())) {
+                if (localName.equals(element.getLocalName())) {
+                    return element;
+                }
+            } else {
+                Element descendant = getChild(element, localName);
+                if (descendant != null) {
+                    return descendant;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String getText(Element control, String localName) {
+        Element element = getChild(control, localName);
+        return element != null ? element.getTextContent().trim() : null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getMaximumCount() {
+        return maximumCount;
+    }
+
+    public long getUnitTimeMillis() {
+        return unitTimeMillis;
+    }
+
+    /**
+     * Check whether the control is a tier of the API Manager
+     *
+     * @return - true for a control of the ROLE type
+     */
+    public boolean isTier() {
+        return TYPE_ROLE.equalsIgnoreCase(type);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id + " : " + maximumCount + " per " + unitTimeMillis + " ms";
+    }
+}
@@ -0,0 +1,183 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the invocations of a throttled API window by window instead of assuming the window boundaries. The
+ * API is invoked until it is throttled out, which shows that the current window is exhausted. The API is then
+ * probed until the first invocation is allowed again, that is the exact reset of the window, and the rest of
+ * the quota is fired as a concurrent burst together with a few extra invocations to detect an overshoot.
+ * Throttled out invocations do not count to the quota, so probing does not change the outcome of the window.
+ * Once a window start is known the next reset is predicted from the unit time and the driver sleeps until
+ * shortly before it instead of probing. The first window of a subscription starts with its first invocation,
+ * so {@link #runFirstWindow()} fires the quota right away without waiting for a reset.
+ * <p/>
+ * apim.throttling.extraInvocations=5
+ * apim.throttling.concurrency=50
+ * apim.throttling.probeInterval=250
+ * apim.throttling.resetGuard=2000
+ */
+public class ThrottlingTestDriver {
+
+    private static final Log log = LogFactory.getLog(ThrottlingTestDriver.class);
+
+    private final String invocationUrl;
+    private final int limit;
+    private final ThrottlingWindowProbe probe;
+    private int extraInvocations = Integer.getInteger("apim.throttling.extraInvocations", 5);
+    private int concurrency = Integer.getInteger("apim.throttling.concurrency", 50);
+
+    /**
+     * @param invocationUrl       - URL of the API resource in the gateway
+     * @param requestHeaders      - request headers including the access token of the subscription
+     * @param limit               - number of invocations allowed per window by the tier
+     * @param unitTimeMillis      - length of the throttling window
+     * @param throttledOutMessage - text of the response body of a throttled out invocation
+     */
+    public ThrottlingTestDriver(String invocationUrl, Map<String, String> requestHeaders, int limit,
+                                long unitTimeMillis, String throttledOutMessage) {
+        this.invocationUrl = invocationUrl;
+        this.limit = limit;
+        this.probe = new ThrottlingWindowProbe(Collections.singletonList(invocationUrl), requestHeaders,
+                                               unitTimeMillis, throttledOutMessage, () -> 0);
+    }
+
+    /**
+     * Set the text the response body of an allowed invocation must contain. Allowed invocations with another
+     * body are counted as failed.
+     *
+     * @param expectedResponseData - expected text of the response body, null to accept any body
+     */
+    public void setExpectedResponseData(String expectedResponseData) {
+        probe.setExpectedResponseData(expectedResponseData);
+    }
+
+    public void setExtraInvocations(int extraInvocations) {
+        this.extraInvocations = extraInvocations;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public void setProbeIntervalMillis(long probeIntervalMillis) {
+        probe.setProbeIntervalMillis(probeIntervalMillis);
+    }
+
+    public void setResetGuardMillis(long resetGuardMillis) {
+        probe.setResetGuardMillis(resetGuardMillis);
+    }
+
+    /**
+     * Wait for the next window and fire the burst at its start
+     *
+     * @return - report of the window
+     * @throws APIManagerIntegrationTestException - if the API is never throttled out, the window does not reset
+     *                                            or the thread is interrupted
+     */
+    public ThrottlingWindowReport runWindow() throws APIManagerIntegrationTestException {
+        long throttledTime = exhaustWindow();
+        long windowStartTime = probe.awaitReset(throttledTime);
+        //the invocation which detected the reset is allowed and counts to the window
+        return fireWindow(windowStartTime, windowStartTime - throttledTime, limit - 1 + extraInvocations, 1);
+    }
+
+    /**
+     * Fire the quota and the extra invocations of the first window of a subscription which was not invoked yet.
+     * If the window was already started, i.e. fewer invocations than the limit are allowed, the next window is
+     * run with {@link #runWindow()} instead.
+     *
+     * @return - report of the window
+     * @throws APIManagerIntegrationTestException - if the API is never throttled out, the window does not reset
+     *                                            or the thread is interrupted
+     */
+    public ThrottlingWindowReport runFirstWindow() throws APIManagerIntegrationTestException {
+        long windowStartTime = System.nanoTime();
+        probe.startWindow(windowStartTime, 0);
+        ThrottlingWindowReport report = fireWindow(windowStartTime, 0, limit + extraInvocations, 0);
+        if (report.getAllowedCount() < limit && report.getThrottledCount() > 0) {
+            log.info("Throttling window of " + invocationUrl + " was already started, running the next window");
+            return runWindow();
+        }
+        return report;
+    }
+
+    private ThrottlingWindowReport fireWindow(long windowStartTime, long resetWaitNanos, int burstSize,
+                                              int allowedCount) throws APIManagerIntegrationTestException {
+        int throttledCount = 0;
+        int failedCount = 0;
+        for (ThrottlingWindowProbe.Invocation invocation : probe.fireBurst(burstSize, concurrency)) {
+            if (invocation.outcome == ThrottlingOutcome.ALLOWED) {
+                allowedCount++;
+            } else if (invocation.outcome == ThrottlingOutcome.THROTTLED) {
+                throttledCount++;
+            } else {
+                failedCount++;
+            }
+        }
+        ThrottlingWindowReport report =
+                new ThrottlingWindowReport(limit, ThrottlingWindowProbe.toCurrentTimeMillis(windowStartTime),
+                                           TimeUnit.NANOSECONDS.toMillis(resetWaitNanos),
+                                           TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - windowStartTime),
+                                           allowedCount, throttledCount, failedCount);
+        log.info(report);
+        return report;
+    }
+
+    /**
+     * Run the given number of consecutive windows
+     *
+     * @param windowCount - number of windows
+     * @return - reports of the windows in order
+     * @throws APIManagerIntegrationTestException - if a window cannot be run
+     */
+    public List<ThrottlingWindowReport> runWindows(int windowCount) throws APIManagerIntegrationTestException {
+        List<ThrottlingWindowReport> reports = new ArrayList<ThrottlingWindowReport>(windowCount);
+        for (int i = 0; i < windowCount; i++) {
+            reports.add(runWindow());
+        }
+        return reports;
+    }
+
+    /**
+     * Wait until the current window is over and the API can be invoked again. The invocation which detects the
+     * reset is allowed and counts to the new window.
+     *
+     * @return - time waited for the reset after the API was throttled out in milliseconds
+     * @throws APIManagerIntegrationTestException - if the API is never throttled out, the window does not reset
+     *                                            or the thread is interrupted
+     */
+    public long awaitWindowReset() throws APIManagerIntegrationTestException {
+        long throttledTime = exhaustWindow();
+        return TimeUnit.NANOSECONDS.toMillis(probe.awaitReset(throttledTime) - throttledTime);
+    }
+
+    private long exhaustWindow() throws APIManagerIntegrationTestException {
+        return probe.exhaustWindow(2 * limit + extraInvocations + 1);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Invokes a throttled API on one or more gateway nodes to find the throttling windows and fires the concurrent
+ * bursts, shared by the {@link ThrottlingTestDriver} and the {@link ClusterThrottlingDriver}. The node of each
+ * invocation is chosen by the node selector. A window is exhausted by invoking the API until it is throttled out
+ * and its reset is found by probing until an invocation is allowed. Once a window start is known the next reset
+ * is predicted from the unit time and the probe sleeps until shortly before it instead of probing. All the times
+ * are from {@link System#nanoTime()}.
+ */
+class ThrottlingWindowProbe {
+
+    private final List<String> invocationUrls;
+    private final Map<String, String> requestHeaders;
+    private final long unitTimeMillis;
+    private final String throttledOutMessage;
+    private final IntSupplier nodeSelector;
+    private String expectedResponseData;
+    private long probeIntervalMillis = Long.getLong("apim.throttling.probeInterval", 250L);
+    private long resetGuardMillis = Long.getLong("apim.throttling.resetGuard", 2000L);
+    //start of the current window and the node which allowed its first invocation
+    private boolean isWindowStarted;
+    private long windowStartTime;
+    private int windowStartNode;
+
+    /**
+     * @param invocationUrls      - URL of the API resource in every gateway node
+     * @param requestHeaders      - request headers including the access token of the subscription
+     * @param unitTimeMillis      - length of the throttling window
+     * @param throttledOutMessage - text of the response body of a throttled out invocation
+     * @param nodeSelector        - chooses the index of the node of the next invocation
+     */
+    ThrottlingWindowProbe(List<String> invocationUrls, Map<String, String> requestHeaders, long unitTimeMillis,
+                          String throttledOutMessage, IntSupplier nodeSelector) {
+        if (invocationUrls.isEmpty()) {
+            throw new IllegalArgumentException("No gateway nodes to invoke");
+        }
+        this.invocationUrls = new ArrayList<String>(invocationUrls);
+        this.requestHeaders = requestHeaders;
+        this.unitTimeMillis = unitTimeMillis;
+        this.throttledOutMessage = throttledOutMessage;
+        this.nodeSelector = nodeSelector;
+    }
+
+    void setExpectedResponseData(String expectedResponseData) {
+        this.expectedResponseData = expectedResponseData;
+    }
+
+    void setProbeIntervalMillis(long probeIntervalMillis) {
+        this.probeIntervalMillis = probeIntervalMillis;
+    }
+
+    void setResetGuardMillis(long resetGuardMillis) {
+        this.resetGuardMillis = resetGuardMillis;
+    }
+
+    boolean isWindowStarted() {
+        return isWindowStarted;
+    }
+
+    long getWindowStartTime() {
+        return windowStartTime;
+    }
+
+    int getWindowStartNode() {
+        return windowStartNode;
+    }
+
+    /**
+     * Record the start of a window found by the caller, e.g. the first invocation of a new subscription
+     *
+     * @param startTime - time the first invocation of the window was sent
+     * @param node      - node of the first invocation
+     */
+    void startWindow(long startTime, int node) {
+        isWindowStarted = true;
+        windowStartTime = startTime;
+        windowStartNode = node;
+    }
+
+    /**
+     * Invoke the API until it is throttled out
+     *
+     * @param maxInvocations - invocations after which the API is considered not throttled
+     * @return - time the first throttled out response was received
+     * @throws APIManagerIntegrationTestException - if the API is not throttled out
+     */
+    long exhaustWindow(int maxInvocations) throws APIManagerIntegrationTestException {
+        for (int i = 0; i < maxInvocations; i++) {
+            if (invoke(nodeSelector.getAsInt()) == ThrottlingOutcome.THROTTLED) {
+                return System.nanoTime();
+            }
+        }
+        throw new APIManagerIntegrationTestException(getTarget() + " was not throttled out after " + maxInvocations +
+                                                     " invocations");
+    }
+
+    /**
+     * Probe the API until an invocation is allowed, which starts the next window. The invocation which detects
+     * the reset is allowed and counts to the new window.
+     *
+     * @param throttledTime - time of the first throttled out response of the current window
+     * @return - time the allowed invocation was sent
+     * @throws APIManagerIntegrationTestException - if the window does not reset within two unit times or the
+     *                                            thread is interrupted
+     */
+    long awaitReset(long throttledTime) throws APIManagerIntegrationTestException {
+        long deadline = throttledTime + TimeUnit.MILLISECONDS.toNanos(2 * unitTimeMillis);
+        try {
+            if (isWindowStarted) {
+                long sleepNanos = windowStartTime + TimeUnit.MILLISECONDS.toNanos(unitTimeMillis - resetGuardMillis) -
+                                  System.nanoTime();
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+            }
+            while (System.nanoTime() < deadline) {
+                int node = nodeSelector.getAsInt();
+                long sendTime = System.nanoTime();
+                if (invoke(node) == ThrottlingOutcome.ALLOWED) {
+                    startWindow(sendTime, node);
+                    return sendTime;
+                }
+                Thread.sleep(probeIntervalMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while waiting for the throttling reset", e);
+        }
+        throw new APIManagerIntegrationTestException("Throttling window of " + getTarget() + " did not reset within " +
+                                                     2 * unitTimeMillis + " ms");
+    }
+
+    /**
+     * Fire the invocations at the same time, the node of each invocation is chosen before the burst starts
+     *
+     * @param burstSize   - number of invocations
+     * @param concurrency - number of concurrent invocations
+     * @return - invocations in the order they were chosen
+     * @throws APIManagerIntegrationTestException - if the thread is interrupted
+     */
+    List<Invocation> fireBurst(int burstSize, int concurrency) throws APIManagerIntegrationTestException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, burstSize)),
+                                                                new NamedThreadFactory("apim-throttling"));
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        List<Callable<Invocation>> invocations = new ArrayList<Callable<Invocation>>(burstSize);
+        for (int i = 0; i < burstSize; i++) {
+            final int node = nodeSelector.getAsInt();
+            invocations.add(() -> {
+                startSignal.await();
+                Invocation invocation = new Invocation(node);
+                invocation.outcome = invoke(node);
+                invocation.receiveTime = System.nanoTime();
+                return invocation;
+            });
+        }
+        try {
+            List<Future<Invocation>> futures = new ArrayList<Future<Invocation>>(burstSize);
+            for (Callable<Invocation> invocation : invocations) {
+                futures.add(executor.submit(invocation));
+            }
+            startSignal.countDown();
+            List<Invocation> results = new ArrayList<Invocation>(burstSize);
+            for (Future<Invocation> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while invoking " + getTarget(), e);
+        } catch (ExecutionException e) {
+            throw new APIManagerIntegrationTestException("Unable to invoke " + getTarget(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    ThrottlingOutcome invoke(int node) {
+        return ThrottlingOutcome.invoke(invocationUrls.get(node), requestHeaders, throttledOutMessage,
+                                        expectedResponseData);
+    }
+
+    /**
+     * Convert a time from {@link System#nanoTime()} to the wall clock
+     *
+     * @param nanoTime - time from {@link System#nanoTime()}
+     * @return - time in milliseconds since the epoch
+     */
+    static long toCurrentTimeMillis(long nanoTime) {
+        return System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
+    }
+
+    private String getTarget() {
+        return invocationUrls.size() == 1 ? invocationUrls.get(0) : "the gateway nodes";
+    }
+
+    /**
+     * Invocation of a burst with its send and receive times
+     */
+    static class Invocation {
+        final int node;
+        final long sendTime = System.nanoTime();
+        ThrottlingOutcome outcome;
+        long receiveTime;
+
+        Invocation(int node) {
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.throttling;
+
+/**
+ * Outcome of the burst fired at the start of one throttling window
+ */
+public class ThrottlingWindowReport {
+
+    private final int limit;
+    private final long windowStartTime;
+    private final long resetWaitMillis;
+    private final long burstMillis;
+    private final int allowedCount;
+    private final int throttledCount;
+    private final int failedCount;
+
+    /**
+     * @param limit           - number of invocations allowed per window by the tier
+     * @param windowStartTime - time the first invocation of the window was allowed
+     * @param resetWaitMillis - time from the first throttled response until the window was reset
+     * @param burstMillis     - time from the window start until all responses of the burst were received
+     * @param allowedCount    - number of invocations allowed in the window
+     * @param throttledCount  - number of invocations throttled out in the window
+     * @param failedCount     - number of invocations neither allowed nor throttled out, e.g. unexpected
+     *                        response codes or I/O errors
+     */
+    public ThrottlingWindowReport(int limit, long windowStartTime, long resetWaitMillis, long burstMillis,
+                                  int allowedCount, int throttledCount, int failedCount) {
+        this.limit = limit;
+        this.windowStartTime = windowStartTime;
+        this.resetWaitMillis = resetWaitMillis;
+        this.burstMillis = burstMillis;
+        this.allowedCount = allowedCount;
+        this.throttledCount = throttledCount;
+        this.failedCount = failedCount;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getWindowStartTime() {
+        return windowStartTime;
+    }
+
+    public long getResetWaitMillis() {
+        return resetWaitMillis;
+    }
+
+    public long getBurstMillis() {
+        return burstMillis;
+    }
+
+    public int getAllowedCount() {
+        return allowedCount;
+    }
+
+    public int getThrottledCount() {
+        return throttledCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Get the number of invocations allowed beyond the limit of the tier
+     *
+     * @return - overshoot, negative if less invocations than the limit were allowed
+     */
+    public int getOvershoot() {
+        return allowedCount - limit;
+    }
+
+    @Override
+    public String toString() {
+        return "Throttling window started at " + windowStartTime + " after waiting " + resetWaitMillis +
+               " ms for the reset : limit=" + limit + ", allowed=" + allowedCount + ", throttled=" + throttledCount +
+               ", failed=" + failedCount + ", overshoot=" + getOvershoot() + ", burst=" + burstMillis + " ms";
+    }
+}
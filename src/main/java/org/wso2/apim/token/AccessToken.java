@@ -0,0 +1,84 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.token;
+
+/**
+ * Access token issued by the key manager token endpoint
+ */
+public class AccessToken {
+
+    private final String accessToken;
+    private final String refreshToken;
+    private final String scope;
+    private final long issuedTime;
+    private final long expiryTime;
+
+    /**
+     * @param accessToken  - access token
+     * @param refreshToken - refresh token, null if the grant does not issue one
+     * @param scope        - granted scopes separated by spaces
+     * @param issuedTime   - time the token was issued in milliseconds
+     * @param expiryTime   - time the token expires in milliseconds
+     */
+    public AccessToken(String accessToken, String refreshToken, String scope, long issuedTime, long expiryTime) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.scope = scope;
+        this.issuedTime = issuedTime;
+        this.expiryTime = expiryTime;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public long getIssuedTime() {
+        return issuedTime;
+    }
+
+    public long getExpiryTime() {
+        return expiryTime;
+    }
+
+    public boolean isExpired(long currentTime) {
+        return currentTime >= expiryTime;
+    }
+
+    /**
+     * Check whether the token should be refreshed. Tokens are refreshed the given time ahead of the expiry,
+     * but not before half of the validity period has passed.
+     *
+     * @param currentTime        - current time in milliseconds
+     * @param refreshAheadMillis - time ahead of the expiry to refresh the token
+     * @return - true if the token should be refreshed
+     */
+    public boolean isRefreshDue(long currentTime, long refreshAheadMillis) {
+        long refreshAhead = Math.min(refreshAheadMillis, (expiryTime - issuedTime) / 2);
+        return currentTime >= expiryTime - refreshAhead;
+    }
+}
@@ -0,0 +1,400 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.token;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.apim.bean.ApplicationKeyBean;
+import org.wso2.apim.clients.AsyncClientExecutor;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.apim.http.HttpTransportFactory;
+import org.wso2.apim.utils.NamedThreadFactory;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues access tokens from the key manager token endpoint and caches them per application, key type, user
+ * and scope set. Cached tokens are refreshed in the background ahead of their expiry, with the refresh token
+ * grant when a refresh token was issued, so callers are handed a valid token without waiting for the token
+ * endpoint. A pool of tokens can be minted in parallel before a load run with {@link #preMint(Collection)}.
+ * <p/>
+ * The consumer key and secret of each application and the passwords of the users are registered before
+ * their tokens are requested.
+ * <pre>
+ * AccessTokenManager tokenManager = new AccessTokenManager(new URL(gatewayURL + "token"));
+ * tokenManager.registerApplication(applicationName, AccessTokenManager.KEY_TYPE_PRODUCTION, applicationKeyBean);
+ * tokenManager.registerUser(userName, password);
+ * String accessToken = tokenManager.getAccessToken(TokenKey.forUser(applicationName, userName, "user_scope"));
+ * </pre>
+ * apim.token.refreshAhead=60000
+ * apim.token.refreshCheckInterval=5000
+ */
+public class AccessTokenManager implements Closeable {
+
+    private static final Log log = LogFactory.getLog(AccessTokenManager.class);
+    public static final String KEY_TYPE_PRODUCTION = "PRODUCTION";
+    public static final String KEY_TYPE_SANDBOX = "SANDBOX";
+    public static final String REFRESH_AHEAD_PROPERTY = "apim.token.refreshAhead";
+    public static final String REFRESH_CHECK_INTERVAL_PROPERTY = "apim.token.refreshCheckInterval";
+
+    private final URL tokenEndpoint;
+    private final HttpTransport httpTransport;
+    private final AsyncClientExecutor asyncExecutor;
+    private final long refreshAheadMillis;
+    private final ConcurrentMap<String, ApplicationKeyBean> applicationKeys =
+            new ConcurrentHashMap<String, ApplicationKeyBean>();
+    private final ConcurrentMap<String, String> userPasswords = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<TokenKey, CompletableFuture<AccessToken>> tokens =
+            new ConcurrentHashMap<TokenKey, CompletableFuture<AccessToken>>();
+    private final Set<TokenKey> refreshing = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService refreshScheduler;
+    private final AtomicLong issuedCount = new AtomicLong();
+    private final AtomicLong refreshedCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+
+    /**
+     * Create token manager which sends the token requests through the shared transport and executor
+     *
+     * @param tokenEndpoint - token endpoint URL, ex: https://gateway:8243/token
+     */
+    public AccessTokenManager(URL tokenEndpoint) {
+        this(tokenEndpoint, HttpTransportFactory.getTransport(), AsyncClientExecutor.getSharedExecutor(),
+             Long.getLong(REFRESH_AHEAD_PROPERTY, 60 * 1000L), Long.getLong(REFRESH_CHECK_INTERVAL_PROPERTY, 5000L));
+    }
+
+    /**
+     * @param tokenEndpoint              - token endpoint URL
+     * @param httpTransport              - transport used to send the token requests
+     * @param asyncExecutor              - executor minting and refreshing the tokens in the background
+     * @param refreshAheadMillis         - time ahead of the expiry the tokens are refreshed
+     * @param refreshCheckIntervalMillis - interval of checking the cached tokens for refresh
+     */
+    public AccessTokenManager(URL tokenEndpoint, HttpTransport httpTransport, AsyncClientExecutor asyncExecutor,
+                              long refreshAheadMillis, long refreshCheckIntervalMillis) {
+        this.tokenEndpoint = tokenEndpoint;
+        this.httpTransport = httpTransport;
+        this.asyncExecutor = asyncExecutor;
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("apim-token-refresh"));
+        this.refreshScheduler.scheduleWithFixedDelay(this::refreshDueTokens, refreshCheckIntervalMillis,
+                                                     refreshCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Register the consumer key and secret of an application
+     *
+     * @param applicationName - application name
+     * @param keyType         - PRODUCTION or SANDBOX
+     * @param applicationKeys - generated keys of the application
+     */
+    public void registerApplication(String applicationName, String keyType, ApplicationKeyBean applicationKeys) {
+        this.applicationKeys.put(applicationName + "/" + keyType, applicationKeys);
+    }
+
+    /**
+     * Register the password of a user, used for the password grant
+     *
+     * @param userName - user name
+     * @param password - password
+     */
+    public void registerUser(String userName, String password) {
+        userPasswords.put(userName, password);
+    }
+
+    /**
+     * Get the access token for the key
+     *
+     * @param tokenKey - token key
+     * @return - access token string
+     * @throws APIManagerIntegrationTestException - if the token cannot be issued
+     */
+    public String getAccessToken(TokenKey tokenKey) throws APIManagerIntegrationTestException {
+        return getToken(tokenKey).getAccessToken();
+    }
+
+    /**
+     * Get the cached token for the key, or issue a token if there is no valid cached token. Concurrent
+     * requests for the same key wait for a single token request.
+     *
+     * @param tokenKey - token key
+     * @return - access token
+     * @throws APIManagerIntegrationTestException - if the token cannot be issued
+     */
+    public AccessToken getToken(TokenKey tokenKey) throws APIManagerIntegrationTestException {
+        while (true) {
+            CompletableFuture<AccessToken> cached = tokens.get(tokenKey);
+            if (cached == null) {
+                CompletableFuture<AccessToken> pending = new CompletableFuture<AccessToken>();
+                if (tokens.putIfAbsent(tokenKey, pending) == null) {
+                    issue(tokenKey, pending);
+                    return await(tokenKey, pending);
+                }
+            } else if (!cached.isDone()) {
+                return await(tokenKey, cached);
+            } else if (cached.isCompletedExceptionally() || cached.join().isExpired(System.currentTimeMillis())) {
+                tokens.remove(tokenKey, cached);
+            } else {
+                cacheHitCount.incrementAndGet();
+                return cached.join();
+            }
+        }
+    }
+
+    /**
+     * Issue the tokens for all the keys in parallel on the async executor. Keys which already have a
+     * token are skipped.
+     *
+     * @param tokenKeys - keys to issue tokens for
+     * @return - future which completes when all the tokens are issued
+     */
+    public CompletableFuture<Void> preMint(Collection<TokenKey> tokenKeys) {
+        long startTime = System.currentTimeMillis();
+        List<CompletableFuture<AccessToken>> futures = new ArrayList<CompletableFuture<AccessToken>>();
+        for (TokenKey tokenKey : tokenKeys) {
+            CompletableFuture<AccessToken> pending = new CompletableFuture<AccessToken>();
+            CompletableFuture<AccessToken> existing = tokens.putIfAbsent(tokenKey, pending);
+            if (existing != null) {
+                futures.add(existing);
+                continue;
+            }
+            futures.add(pending);
+            asyncExecutor.submit(() -> {
+                issue(tokenKey, pending);
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .whenComplete((result, error) -> log.info("Minted " + futures.size() + " tokens in " +
+                                                          (System.currentTimeMillis() - startTime) + " ms" +
+                                                          (error != null ? " with failures" : "")));
+    }
+
+    /**
+     * Remove the cached token, the next request for the key issues a new token
+     *
+     * @param tokenKey - token key
+     */
+    public void invalidate(TokenKey tokenKey) {
+        tokens.remove(tokenKey);
+    }
+
+    public long getIssuedCount() {
+        return issuedCount.get();
+    }
+
+    public long getRefreshedCount() {
+        return refreshedCount.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    @Override
+    public void close() {
+        refreshScheduler.shutdownNow();
+    }
+
+    private void issue(TokenKey tokenKey, CompletableFuture<AccessToken> future) {
+        try {
+            future.complete(requestToken(tokenKey, null));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private AccessToken await(TokenKey tokenKey, CompletableFuture<AccessToken> future)
+            throws APIManagerIntegrationTestException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while waiting for the token of " + tokenKey, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof APIManagerIntegrationTestException) {
+                throw (APIManagerIntegrationTestException) e.getCause();
+            }
+            throw new APIManagerIntegrationTestException("Unable to issue the token of " + tokenKey, e.getCause());
+        }
+    }
+
+    /**
+     * Refresh the cached tokens which are close to their expiry. The current token stays in the cache until
+     * the refreshed token is issued.
+     */
+    private void refreshDueTokens() {
+        long currentTime = System.currentTimeMillis();
+        for (Map.Entry<TokenKey, CompletableFuture<AccessToken>> entry : tokens.entrySet()) {
+            final TokenKey tokenKey = entry.getKey();
+            final CompletableFuture<AccessToken> cached = entry.getValue();
+            if (!cached.isDone() || cached.isCompletedExceptionally() ||
+                !cached.join().isRefreshDue(currentTime, refreshAheadMillis) || !refreshing.add(tokenKey)) {
+                continue;
+            }
+            asyncExecutor.submit(() -> {
+                try {
+                    AccessToken refreshed = requestToken(tokenKey, cached.join());
+                    tokens.replace(tokenKey, cached, CompletableFuture.completedFuture(refreshed));
+                    refreshedCount.incrementAndGet();
+                } catch (APIManagerIntegrationTestException e) {
+                    log.warn("Unable to refresh the token of " + tokenKey + ", it is issued again on next use", e);
+                } finally {
+                    refreshing.remove(tokenKey);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Request a token from the token endpoint. A user token is requested with the password grant and an
+     * application token with the client credentials grant. If the current token has a refresh token the
+     * refresh token grant is tried first.
+     *
+     * @param tokenKey     - token key
+     * @param currentToken - token to refresh, null to issue a new token
+     * @return - issued token
+     * @throws APIManagerIntegrationTestException - if the token endpoint does not issue the token
+     */
+    private AccessToken requestToken(TokenKey tokenKey, AccessToken currentToken)
+            throws APIManagerIntegrationTestException {
+        ApplicationKeyBean keys = applicationKeys.get(tokenKey.getApplicationName() + "/" + tokenKey.getKeyType());
+        if (keys == null) {
+            throw new APIManagerIntegrationTestException("No keys registered for the application of " + tokenKey);
+        }
+        if (currentToken != null && currentToken.getRefreshToken() != null) {
+            try {
+                return sendTokenRequest(httpTransport, tokenEndpoint, keys, "grant_type=refresh_token&refresh_token=" +
+                                              encode(currentToken.getRefreshToken()) + scopeParameter(tokenKey));
+            } catch (APIManagerIntegrationTestException e) {
+                log.debug("Refresh token grant failed for " + tokenKey + ", requesting a new token", e);
+            }
+        }
+        String requestBody;
+        if (tokenKey.getUserName() == null) {
+            requestBody = "grant_type=client_credentials" + scopeParameter(tokenKey);
+        } else {
+            String password = userPasswords.get(tokenKey.getUserName());
+            if (password == null) {
+                throw new APIManagerIntegrationTestException("No password registered for the user of " + tokenKey);
+            }
+            requestBody = "grant_type=password&username=" + encode(tokenKey.getUserName()) +
+                          "&password=" + encode(password) + scopeParameter(tokenKey);
+        }
+        AccessToken accessToken = sendTokenRequest(httpTransport, tokenEndpoint, keys, requestBody);
+        issuedCount.incrementAndGet();
+        return accessToken;
+    }
+
+    /**
+     * Send a token request with the client credentials of the application
+     *
+     * @param httpTransport - transport used to send the request
+     * @param tokenEndpoint - token endpoint URL
+     * @param keys          - consumer key and secret of the application
+     * @param requestBody   - form encoded grant parameters
+     * @return - issued token
+     * @throws APIManagerIntegrationTestException - if the token endpoint does not issue the token
+     */
+    static AccessToken sendTokenRequest(HttpTransport httpTransport, URL tokenEndpoint, ApplicationKeyBean keys,
+                                        String requestBody) throws APIManagerIntegrationTestException {
+        Map<String, String> requestHeaders = new HashMap<String, String>();
+        String credentials = keys.getConsumerKey() + ":" + keys.getConsumerSecret();
+        requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
+        requestHeaders.put("Authorization",
+                           "Basic " + Base64.encodeBase64String(credentials.getBytes(StandardCharsets.UTF_8)));
+        long issuedTime = System.currentTimeMillis();
+        HttpResponse response;
+        try {
+            response = httpTransport.doPost(tokenEndpoint, requestBody, requestHeaders);
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException("Unable to send the token request to " + tokenEndpoint, e);
+        }
+        if (response.getResponseCode() != 200) {
+            throw new APIManagerIntegrationTestException("Token request failed with response code " +
+                                                         response.getResponseCode() + " : " + response.getData());
+        }
+        try {
+            JSONObject tokenResponse = new JSONObject(response.getData());
+            return new AccessToken(tokenResponse.getString("access_token"),
+                                   tokenResponse.optString("refresh_token", null),
+                                   tokenResponse.optString("scope", null), issuedTime,
+                                   issuedTime + tokenResponse.getLong("expires_in") * 1000);
+        } catch (JSONException e) {
+            throw new APIManagerIntegrationTestException("Invalid token response : " + response.getData(), e);
+        }
+    }
+
+    private static String scopeParameter(TokenKey tokenKey) throws APIManagerIntegrationTestException {
+        return scopeParameter(tokenKey.getScopes());
+    }
+
+    /**
+     * Build the scope parameter of a token request
+     *
+     * @param scopes - requested scopes
+     * @return - scope parameter with the leading separator, empty if there are no scopes
+     * @throws APIManagerIntegrationTestException - if the scopes cannot be encoded
+     */
+    static String scopeParameter(Collection<String> scopes) throws APIManagerIntegrationTestException {
+        if (scopes.isEmpty()) {
+            return "";
+        }
+        StringBuilder scope = new StringBuilder();
+        for (String scopeName : scopes) {
+            if (scope.length() > 0) {
+                scope.append(' ');
+            }
+            scope.append(scopeName);
+        }
+        return "&scope=" + encode(scope.toString());
+    }
+
+    static String encode(String value) throws APIManagerIntegrationTestException {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new APIManagerIntegrationTestException("UTF-8 encoding is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.token;
+
+import org.wso2.apim.metrics.OperationSnapshot;
+
+/**
+ * Throughput and latency of the token requests of one grant type sent at a fixed concurrency with a fixed
+ * number of requested scopes
+ */
+public class TokenBenchmarkResult {
+
+    private final String grantType;
+    private final int concurrency;
+    private final int scopeCount;
+    private final long elapsedNanos;
+    private final OperationSnapshot latency;
+
+    /**
+     * @param grantType    - grant type of the token requests
+     * @param concurrency  - number of concurrent token requests
+     * @param scopeCount   - number of scopes requested with each token
+     * @param elapsedNanos - time taken by all the token requests
+     * @param latency      - latency and error count of the token requests
+     */
+    public TokenBenchmarkResult(String grantType, int concurrency, int scopeCount, long elapsedNanos,
+                                OperationSnapshot latency) {
+        this.grantType = grantType;
+        this.concurrency = concurrency;
+        this.scopeCount = scopeCount;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+    }
+
+    public String getGrantType() {
+        return grantType;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getScopeCount() {
+        return scopeCount;
+    }
+
+    public long getRequestCount() {
+        return latency.getCount();
+    }
+
+    public long getFailedCount() {
+        return latency.getErrorCount();
+    }
+
+    public OperationSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get the number of tokens issued per second, failed requests are not counted
+     *
+     * @return - tokens per second
+     */
+    public double getTokensPerSecond() {
+        return elapsedNanos == 0 ? 0 : (latency.getCount() - latency.getErrorCount()) / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("grant=%s, scopes=%d, concurrency=%d, requests=%d, failed=%d, " +
+                             "throughput=%.1f tokens/s, mean=%.1f ms, p50=%.1f ms, p90=%.1f ms, p99=%.1f ms, " +
+                             "max=%.1f ms", grantType, scopeCount, concurrency, latency.getCount(),
+                             latency.getErrorCount(), getTokensPerSecond(), latency.getMeanMillis(),
+                             latency.getPercentileMillis(50), latency.getPercentileMillis(90),
+                             latency.getPercentileMillis(99), latency.getMaxMillis());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.token;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.bean.ApplicationKeyBean;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.HttpTransport;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.metrics.MetricsHttpTransport;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives concurrent token requests of a single grant type against a token endpoint and measures the tokens
+ * issued per second and the latency of the requests. Unlike the {@link AccessTokenManager} nothing is cached,
+ * every request goes to the token endpoint.
+ * <p/>
+ * Each worker sends its requests one after the other as a registered user, the workers are assigned the users
+ * round robin. The key manager hands out the same active token for the same application, user and scopes, so
+ * the refresh token grant needs one user per worker: every worker refreshes its own token chain, starting
+ * from a token issued with the password grant which is not measured.
+ */
+public class TokenEndpointBenchmark {
+
+    private static final Log log = LogFactory.getLog(TokenEndpointBenchmark.class);
+    public static final String GRANT_PASSWORD = "password";
+    public static final String GRANT_CLIENT_CREDENTIALS = "client_credentials";
+    public static final String GRANT_REFRESH_TOKEN = "refresh_token";
+
+    private final URL tokenEndpoint;
+    private final HttpTransport httpTransport;
+    private final ApplicationKeyBean applicationKeys;
+    private final Map<String, String> userPasswords = new LinkedHashMap<String, String>();
+    private int warmUpRequests = 10;
+
+    /**
+     * @param tokenEndpoint   - token endpoint URL, ex: https://keymanager:9443/oauth2/token
+     * @param httpTransport   - transport used to send the token requests
+     * @param applicationKeys - consumer key and secret of the application the tokens are issued to
+     */
+    public TokenEndpointBenchmark(URL tokenEndpoint, HttpTransport httpTransport,
+                                  ApplicationKeyBean applicationKeys) {
+        this.tokenEndpoint = tokenEndpoint;
+        this.httpTransport = httpTransport;
+        this.applicationKeys = applicationKeys;
+    }
+
+    /**
+     * Register a resource owner for the password and refresh token grants
+     *
+     * @param userName - user name
+     * @param password - password
+     */
+    public void registerUser(String userName, String password) {
+        userPasswords.put(userName, password);
+    }
+
+    /**
+     * Set the number of token requests sent by every worker before the measurement starts
+     *
+     * @param warmUpRequests - warm up requests per worker
+     */
+    public void setWarmUpRequests(int warmUpRequests) {
+        this.warmUpRequests = warmUpRequests;
+    }
+
+    /**
+     * Send the token requests with the given concurrency and wait for all of them to complete
+     *
+     * @param grantType    - one of the GRANT_* grant types
+     * @param concurrency  - number of workers sending token requests at the same time
+     * @param requestCount - number of measured token requests over all the workers
+     * @param scopes       - scopes requested with every token
+     * @return - throughput and latency of the token requests
+     * @throws APIManagerIntegrationTestException - if the grant type is not supported, there are not enough users
+     *                                            for the grant or a worker cannot obtain its initial token
+     */
+    public TokenBenchmarkResult run(String grantType, int concurrency, int requestCount, Collection<String> scopes)
+            throws APIManagerIntegrationTestException {
+        if (!GRANT_CLIENT_CREDENTIALS.equals(grantType) && !GRANT_PASSWORD.equals(grantType) &&
+            !GRANT_REFRESH_TOKEN.equals(grantType)) {
+            throw new APIManagerIntegrationTestException("Unsupported grant type " + grantType);
+        }
+        if (!GRANT_CLIENT_CREDENTIALS.equals(grantType) && userPasswords.isEmpty()) {
+            throw new APIManagerIntegrationTestException("No users registered for the " + grantType + " grant");
+        }
+        if (GRANT_REFRESH_TOKEN.equals(grantType) && userPasswords.size() < concurrency) {
+            throw new APIManagerIntegrationTestException("The " + grantType + " grant needs one user per worker, " +
+                                                         userPasswords.size() + " users for " + concurrency +
+                                                         " workers");
+        }
+        String scopeParameter = AccessTokenManager.scopeParameter(scopes);
+        String operation = grantType + "[" + scopes.size() + " scopes]";
+        ClientMetrics metrics = new ClientMetrics(true);
+        List<Map.Entry<String, String>> users = new ArrayList<Map.Entry<String, String>>(userPasswords.entrySet());
+        CountDownLatch warmedUp = new CountDownLatch(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService =
+                Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("apim-token-benchmark"));
+        List<Future<?>> futures = new ArrayList<Future<?>>(concurrency);
+        try {
+            for (int worker = 0; worker < concurrency; worker++) {
+                Map.Entry<String, String> user = users.isEmpty() ? null : users.get(worker % users.size());
+                int workerRequests = requestCount / concurrency + (worker < requestCount % concurrency ? 1 : 0);
+                futures.add(executorService.submit(() -> {
+                    TokenChain chain = new TokenChain(grantType, scopeParameter, user);
+                    try {
+                        chain.issue(warmUpRequests, null, operation);
+                    } finally {
+                        warmedUp.countDown();
+                    }
+                    start.await();
+                    chain.issue(workerRequests, metrics, operation);
+                    return null;
+                }));
+            }
+            warmedUp.await();
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof APIManagerIntegrationTestException) {
+                        throw (APIManagerIntegrationTestException) e.getCause();
+                    }
+                    throw new APIManagerIntegrationTestException("Token benchmark worker failed", e.getCause());
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            TokenBenchmarkResult result =
+                    new TokenBenchmarkResult(grantType, concurrency, scopes.size(), elapsedNanos,
+                                             metrics.snapshot(MetricsHttpTransport.getNode(tokenEndpoint), operation));
+            log.info("Token endpoint " + tokenEndpoint + " : " + result);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while waiting for the token requests", e);
+        } finally {
+            start.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Token requests of a single worker. For the refresh token grant the refresh token of each issued token
+     * is used for the next request.
+     */
+    private class TokenChain {
+
+        private final String grantType;
+        private final String scopeParameter;
+        private final Map.Entry<String, String> user;
+        private AccessToken currentToken;
+
+        TokenChain(String grantType, String scopeParameter, Map.Entry<String, String> user) {
+            this.grantType = grantType;
+            this.scopeParameter = scopeParameter;
+            this.user = user;
+        }
+
+        /**
+         * Send the token requests one after the other
+         *
+         * @param count     - number of token requests
+         * @param metrics   - metrics the requests are recorded in, null to not record them
+         * @param operation - operation name the requests are recorded with
+         * @throws APIManagerIntegrationTestException - if a refresh token cannot be obtained with the password grant
+         */
+        void issue(int count, ClientMetrics metrics, String operation) throws APIManagerIntegrationTestException {
+            String node = MetricsHttpTransport.getNode(tokenEndpoint);
+            for (int request = 0; request < count; request++) {
+                String requestBody = getRequestBody();
+                long startTime = System.nanoTime();
+                boolean successful = false;
+                try {
+                    AccessToken token = AccessTokenManager.sendTokenRequest(httpTransport, tokenEndpoint,
+                                                                            applicationKeys, requestBody);
+                    successful = true;
+                    if (token.getRefreshToken() != null) {
+                        currentToken = token;
+                    }
+                } catch (APIManagerIntegrationTestException e) {
+                    log.debug("Token request with the " + grantType + " grant failed", e);
+                    //The refresh token may have been revoked with the failed request, start a new chain
+                    currentToken = null;
+                } finally {
+                    if (metrics != null) {
+                        metrics.record(node, operation, System.nanoTime() - startTime, successful);
+                    }
+                }
+            }
+        }
+
+        private String getRequestBody() throws APIManagerIntegrationTestException {
+            if (GRANT_CLIENT_CREDENTIALS.equals(grantType)) {
+                return "grant_type=client_credentials" + scopeParameter;
+            }
+            String passwordGrant = "grant_type=password&username=" + AccessTokenManager.encode(user.getKey()) +
+                                   "&password=" + AccessTokenManager.encode(user.getValue()) + scopeParameter;
+            if (GRANT_PASSWORD.equals(grantType)) {
+                return passwordGrant;
+            }
+            if (currentToken == null) {
+                currentToken = AccessTokenManager.sendTokenRequest(httpTransport, tokenEndpoint, applicationKeys,
+                                                                   passwordGrant);
+                if (currentToken.getRefreshToken() == null) {
+                    throw new APIManagerIntegrationTestException("No refresh token issued to " + user.getKey());
+                }
+            }
+            return "grant_type=refresh_token&refresh_token=" +
+                   AccessTokenManager.encode(currentToken.getRefreshToken()) + scopeParameter;
+        }
+    }
+}
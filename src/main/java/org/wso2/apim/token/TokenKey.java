@@ -0,0 +1,107 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+
+package org.wso2.apim.token;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Identifies a cached access token by the application, key type, resource owner and requested scopes. The
+ * user name is null for application tokens obtained with the client credentials grant.
+ */
+public final class TokenKey {
+
+    private final String applicationName;
+    private final String keyType;
+    private final String userName;
+    private final SortedSet<String> scopes;
+
+    /**
+     * @param applicationName - name of the application the token is issued to
+     * @param keyType         - PRODUCTION or SANDBOX
+     * @param userName        - resource owner, null for an application token
+     * @param scopes          - requested scopes, the order does not matter
+     */
+    public TokenKey(String applicationName, String keyType, String userName, Collection<String> scopes) {
+        this.applicationName = applicationName;
+        this.keyType = keyType;
+        this.userName = userName;
+        this.scopes = Collections.unmodifiableSortedSet(new TreeSet<String>(scopes));
+    }
+
+    /**
+     * Create the key of a production user token
+     *
+     * @param applicationName - name of the application the token is issued to
+     * @param userName        - resource owner
+     * @param scopes          - requested scopes
+     * @return - token key
+     */
+    public static TokenKey forUser(String applicationName, String userName, String... scopes) {
+        return new TokenKey(applicationName, AccessTokenManager.KEY_TYPE_PRODUCTION, userName, Arrays.asList(scopes));
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public String getKeyType() {
+        return keyType;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public SortedSet<String> getScopes() {
+        return scopes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TokenKey)) {
+            return false;
+        }
+        TokenKey that = (TokenKey) o;
+        return applicationName.equals(that.applicationName) && keyType.equals(that.keyType) &&
+               (userName == null ? that.userName == null : userName.equals(that.userName)) &&
+               scopes.equals(that.scopes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = applicationName.hashCode();
+        result = 31 * result + keyType.hashCode();
+        result = 31 * result + (userName != null ? userName.hashCode() : 0);
+        result = 31 * result + scopes.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return applicationName + "/" + keyType + "/" + (userName != null ? userName : "<application>") + scopes;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.apim.clients.ClientCall;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named locks of the settings shared by all the test classes running in parallel against the same cluster,
+ * e.g. the permissions of a throttling tier. A test class changing or depending on such a setting holds the
+ * lock of the resource while it runs. The locks are not bound to a thread, so a lock acquired in a before
+ * method can be released by an after method running on another thread of the TestNG pool.
+ * <p/>
+ * apim.lock.timeout=600000
+ */
+public class SharedResourceLocks {
+
+    private static final Log log = LogFactory.getLog(SharedResourceLocks.class);
+    private static final SharedResourceLocks instance =
+            new SharedResourceLocks(Long.getLong("apim.lock.timeout", 600000));
+
+    private final ConcurrentMap<String, Semaphore> locks = new ConcurrentHashMap<String, Semaphore>();
+    private final long timeoutMillis;
+
+    /**
+     * @param timeoutMillis - maximum time to wait for a lock
+     */
+    public SharedResourceLocks(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Get the locks shared in this JVM
+     *
+     * @return - shared locks
+     */
+    public static SharedResourceLocks getInstance() {
+        return instance;
+    }
+
+    /**
+     * Name of the lock of the permissions and the definition of a throttling tier
+     *
+     * @param tierName - name of the tier
+     * @return - resource name
+     */
+    public static String tier(String tierName) {
+        return "tier:" + tierName;
+    }
+
+    /**
+     * Wait until the lock of the resource is free and acquire it. Must be paired with {@link #release(String)}
+     *
+     * @param resource - name of the shared resource
+     * @throws APIManagerIntegrationTestException - if the lock is not free within the timeout or the thread is
+     *                                            interrupted
+     */
+    public void acquire(String resource) throws APIManagerIntegrationTestException {
+        Semaphore lock = locks.computeIfAbsent(resource, name -> new Semaphore(1, true));
+        try {
+            if (!lock.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new APIManagerIntegrationTestException(
+                        "Lock of " + resource + " not acquired within " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while waiting for the lock of " + resource, e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Lock of " + resource + " acquired by " + Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Release the lock of the resource
+     *
+     * @param resource - name of the shared resource
+     */
+    public void release(String resource) {
+        Semaphore lock = locks.get(resource);
+        if (lock == null) {
+            throw new IllegalStateException("Lock of " + resource + " was never acquired");
+        }
+        lock.release();
+    }
+
+    /**
+     * Execute the call while holding the lock of the resource
+     *
+     * @param resource - name of the shared resource
+     * @param call     - call changing or reading the resource
+     * @param <T>      - result type of the call
+     * @return - result of the call
+     * @throws APIManagerIntegrationTestException - if the lock cannot be acquired or the call fails
+     */
+    public <T> T callWithLock(String resource, ClientCall<T> call) throws APIManagerIntegrationTestException {
+        acquire(resource);
+        try {
+            return call.call();
+        } finally {
+            release(resource);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.AfterClass;
+import org.wso2.apim.bean.APICreationRequestBean;
+import org.wso2.apim.bean.APIResourceBean;
+import org.wso2.apim.bean.ApplicationKeyBean;
+import org.wso2.apim.clients.APIPublisherRestClient;
+import org.wso2.apim.clients.APIStoreRestClient;
+import org.wso2.apim.deployment.lifecycle.APIManagerLifecycleBaseTest;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.HttpTransportConfiguration;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base test class for the benchmark test cases. This class creates the API and the applications the benchmark
+ * invokes, keeps the results of the benchmark and removes the artifacts and logs the results when the class
+ * is done, so that the test cases only contain their scenario.
+ */
+public class APIManagerBenchmarkBaseTest extends APIManagerLifecycleBaseTest {
+
+    private static final Log log = LogFactory.getLog(APIManagerBenchmarkBaseTest.class);
+    protected static final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
+    protected final List<String> results = new ArrayList<String>();
+    private final List<String> applicationNames = new ArrayList<String>();
+    private final List<StreamingHttpClient> httpClients = new ArrayList<StreamingHttpClient>();
+    protected APIIdentifier apiIdentifier;
+    protected APIPublisherRestClient apiPublisherClientUser1;
+    protected APIStoreRestClient apiStoreClientUser1;
+
+    /**
+     * Create and publish the API with the Unlimited tier, subscribe a new application to it and generate the
+     * keys of the application.
+     *
+     * @param apiName         - name of the API
+     * @param apiContext      - context of the API
+     * @param apiVersion      - version of the API
+     * @param endpointUrl     - production endpoint of the API
+     * @param applicationName - name of the application to create and subscribe
+     * @param resources       - resources of the API, or null for the default resources
+     * @return Map - request headers with the bearer access token of the application
+     * @throws APIManagerIntegrationTestException - if the API or the application is not created
+     */
+    protected Map<String, String> createBenchmarkAPI(String apiName, String apiContext, String apiVersion,
+                                                     URL endpointUrl, String applicationName,
+                                                     List<APIResourceBean> resources)
+            throws APIManagerIntegrationTestException {
+        publishBenchmarkAPI(apiName, apiContext, apiVersion, endpointUrl, TIER_UNLIMITED, resources);
+        return getBearerHeaders(subscribeBenchmarkApplication(applicationName).getAccessToken());
+    }
+
+    /**
+     * Log in to the publisher and the store and create and publish the API without subscribing to it.
+     *
+     * @param apiName     - name of the API
+     * @param apiContext  - context of the API
+     * @param apiVersion  - version of the API
+     * @param endpointUrl - production endpoint of the API
+     * @param tiers       - comma separated tiers available for the API
+     * @param resources   - resources of the API, or null for the default resources
+     * @throws APIManagerIntegrationTestException - if the login or the API creation fails
+     */
+    protected void publishBenchmarkAPI(String apiName, String apiContext, String apiVersion, URL endpointUrl,
+                                       String tiers, List<APIResourceBean> resources)
+            throws APIManagerIntegrationTestException {
+        String providerName = user.getUserName();
+        apiPublisherClientUser1 = new APIPublisherRestClient(getPublisherURLHttp());
+        apiStoreClientUser1 = new APIStoreRestClient(getStoreURLHttp());
+        apiPublisherClientUser1.login(user.getUserName(), user.getPassword());
+        apiStoreClientUser1.login(user.getUserName(), user.getPassword());
+
+        APICreationRequestBean apiCreationRequestBean =
+                new APICreationRequestBean(apiName, apiContext, apiVersion, providerName, endpointUrl);
+        apiCreationRequestBean.setTier(tiers);
+        apiCreationRequestBean.setTiersCollection(tiers);
+        if (resources != null) {
+            apiCreationRequestBean.setResourceBeanList(resources);
+        }
+        apiIdentifier = new APIIdentifier(providerName, apiName, apiVersion);
+        createAndPublishAPI(apiIdentifier, apiCreationRequestBean, apiPublisherClientUser1, false);
+    }
+
+    /**
+     * Create an application, subscribe it to the benchmark API with the tier of the API identifier and generate
+     * its keys. The application is removed when the class is done.
+     *
+     * @param applicationName - name of the application
+     * @return ApplicationKeyBean - keys of the application
+     * @throws APIManagerIntegrationTestException - if the application is not created or subscribed
+     */
+    protected ApplicationKeyBean subscribeBenchmarkApplication(String applicationName)
+            throws APIManagerIntegrationTestException {
+        apiStoreClientUser1.addApplication(applicationName, TIER_UNLIMITED, "", "");
+        applicationNames.add(applicationName);
+        HttpResponse subscribeResponse = subscribeToAPI(apiIdentifier, applicationName, apiStoreClientUser1);
+        if (!(subscribeResponse.getResponseCode() == HTTP_RESPONSE_CODE_OK &&
+              getValueFromJSON(subscribeResponse, "error").equals("false"))) {
+            throw new APIManagerIntegrationTestException("Error in API Subscribe." +
+                    getAPIIdentifierString(apiIdentifier) + " Application :" + applicationName +
+                    " Response Code:" + subscribeResponse.getResponseCode() +
+                    " Response Data :" + subscribeResponse.getData());
+        }
+        return generateApplicationKeys(apiStoreClientUser1, applicationName);
+    }
+
+    /**
+     * Build the request headers authorizing the requests with an access token.
+     *
+     * @param accessToken - access token of the application
+     * @return Map - request headers
+     */
+    protected Map<String, String> getBearerHeaders(String accessToken) {
+        Map<String, String> requestHeaders = new HashMap<String, String>();
+        requestHeaders.put("Authorization", "Bearer " + accessToken);
+        return requestHeaders;
+    }
+
+    /**
+     * Create a connection pool of its own for the benchmark, so that a connection is available for every request
+     * in flight. The pool is closed when the class is done.
+     *
+     * @param maxTotalConnections    - maximum connections of the pool
+     * @param maxConnectionsPerRoute - maximum connections to one host
+     * @return StreamingHttpClient - client using the pool
+     */
+    protected StreamingHttpClient createBenchmarkHttpClient(int maxTotalConnections, int maxConnectionsPerRoute) {
+        HttpTransportConfiguration configuration = HttpTransportConfiguration.fromSystemProperties();
+        configuration.setMaxTotalConnections(maxTotalConnections);
+        configuration.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+        StreamingHttpClient httpClient = new StreamingHttpClient(configuration);
+        httpClients.add(httpClient);
+        return httpClient;
+    }
+
+    /**
+     * Log the results of the benchmark, close the connection pools and remove the applications and the API.
+     * Runs after the after class methods of the test class.
+     */
+    @AfterClass(alwaysRun = true)
+    public void cleanUpBenchmarkArtifacts() throws APIManagerIntegrationTestException, IOException {
+        for (String result : results) {
+            log.info(getClass().getSimpleName() + " summary " + result);
+        }
+        for (StreamingHttpClient httpClient : httpClients) {
+            httpClient.close();
+        }
+        httpClients.clear();
+        for (String applicationName : applicationNames) {
+            apiStoreClientUser1.removeApplication(applicationName);
+        }
+        applicationNames.clear();
+        if (apiIdentifier != null) {
+            deleteAPI(apiIdentifier, apiPublisherClientUser1);
+        }
+    }
+}
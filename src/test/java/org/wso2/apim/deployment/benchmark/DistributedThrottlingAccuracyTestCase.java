@@ -0,0 +1,141 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.gateway.GatewayNode;
+import org.wso2.apim.throttling.ClusterThrottlingDriver;
+import org.wso2.apim.throttling.ClusterThrottlingReport;
+import org.wso2.apim.throttling.ThrottlingPolicy;
+import org.wso2.apim.utils.SharedResourceLocks;
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measure how accurately the gateway cluster enforces the tier limits when one access token is used concurrently
+ * on all the gateway nodes. For every tier the quota of a window is fired as concurrent bursts of increasing
+ * concurrency spread over the nodes, and the allowed invocations beyond the limit, the time to the first throttled
+ * out response, the invocations allowed after another node throttled out and the recovery time are logged. The
+ * tiers are Gold, Silver and the ROLE controls of the throttling policy file, by default the Bronze and Platinum
+ * tiers of configFiles/throttling/tier-policy.xml, which must be deployed with the same names and limits. The
+ * test fails if the policy file has no ROLE control. The concurrency levels, the policy file and the extra
+ * invocations fired beyond the limit are configured with the apim.benchmark.throttling.* system properties.
+ */
+public class DistributedThrottlingAccuracyTestCase extends APIManagerBenchmarkBaseTest {
+
+    private static final Log log = LogFactory.getLog(DistributedThrottlingAccuracyTestCase.class);
+
+    private final String API_NAME = artifactNamespace.qualify("DistributedThrottlingAccuracyTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("DistributedThrottlingAccuracy");
+    private final String API_VERSION_1_0_0 = "1.0.0";
+    private final String API_END_POINT_METHOD = "customers/123";
+    private final String API_RESPONSE_DATA = "<id>123</id><name>John</name></Customer>";
+    private final String APPLICATION_NAME_PREFIX = "DistributedThrottlingAccuracyTestCase";
+    private final String concurrencyLevels = System.getProperty("apim.benchmark.throttling.concurrency", "1,10,50");
+    private final int extraInvocations = Integer.getInteger("apim.benchmark.throttling.extraInvocations", -1);
+    private final List<ThrottlingPolicy> tiers = new ArrayList<ThrottlingPolicy>();
+
+    @BeforeClass(alwaysRun = true)
+    public void initialize() throws Exception {
+        super.init();
+        tiers.add(new ThrottlingPolicy(TIER_GOLD, ThrottlingPolicy.TYPE_ROLE, GOLD_INVOCATION_LIMIT_PER_MIN,
+                                       THROTTLING_UNIT_TIME));
+        tiers.add(new ThrottlingPolicy(TIER_SILVER, ThrottlingPolicy.TYPE_ROLE, SILVER_INVOCATION_LIMIT_PER_MIN,
+                                       THROTTLING_UNIT_TIME));
+        File policyFile = new File(System.getProperty("apim.benchmark.throttling.policyFile",
+                                                      getAMResourceLocation() + File.separator + "configFiles" +
+                                                      File.separator + "throttling" + File.separator +
+                                                      "tier-policy.xml"));
+        int customTierCount = 0;
+        for (ThrottlingPolicy policy : ThrottlingPolicy.load(policyFile)) {
+            if (policy.isTier()) {
+                tiers.add(policy);
+                customTierCount++;
+            } else {
+                log.info("Skipping the " + policy + " control of " + policyFile + ", it is not a tier");
+            }
+        }
+        if (customTierCount == 0) {
+            throw new APIManagerIntegrationTestException("No ROLE control in the throttling policy " + policyFile +
+                                                         ", the custom tiers cannot be measured");
+        }
+
+        //The measured limits must not change while the windows are fired
+        for (ThrottlingPolicy tier : tiers) {
+            acquireSharedResource(SharedResourceLocks.tier(tier.getId()));
+        }
+        StringBuilder tierNames = new StringBuilder();
+        for (ThrottlingPolicy tier : tiers) {
+            tierNames.append(tierNames.length() > 0 ? "," : "").append(tier.getId());
+        }
+        publishBenchmarkAPI(API_NAME, API_CONTEXT, API_VERSION_1_0_0,
+                            new URL(getGatewayServiceEndPointHttp(API_END_POINT_POSTFIX_URL)), tierNames.toString(),
+                            null);
+    }
+
+    @DataProvider(name = "tiers")
+    public Object[][] tiers() {
+        Object[][] parameters = new Object[tiers.size()][];
+        for (int i = 0; i < tiers.size(); i++) {
+            parameters[i] = new Object[]{tiers.get(i)};
+        }
+        return parameters;
+    }
+
+    @Test(groups = {"wso2.am"}, description = "Throttling accuracy of a tier across the gateway nodes",
+            dataProvider = "tiers")
+    public void testThrottlingAccuracy(ThrottlingPolicy tier) throws Exception {
+        String applicationName = artifactNamespace.qualify(APPLICATION_NAME_PREFIX + tier.getId());
+        apiIdentifier.setTier(tier.getId());
+        String accessToken = subscribeBenchmarkApplication(applicationName).getAccessToken();
+        Map<String, String> requestHeaders = getBearerHeaders(accessToken);
+        requestHeaders.put("accept", "text/xml");
+        List<String> invocationUrls = new ArrayList<String>();
+        for (GatewayNode node : gatewayEndpointSelector.getNodes()) {
+            String invocationUrl = node.getUrls().getAPIInvocationURLHttp() + API_CONTEXT + "/" + API_VERSION_1_0_0 +
+                                   "/" + API_END_POINT_METHOD;
+            awaitAPIRoutableOnGateway(invocationUrl, requestHeaders);
+            invocationUrls.add(invocationUrl);
+        }
+
+        ClusterThrottlingDriver driver =
+                new ClusterThrottlingDriver(invocationUrls, requestHeaders, tier.getMaximumCount(),
+                                            tier.getUnitTimeMillis(), MESSAGE_THROTTLED_OUT);
+        driver.setExpectedResponseData(API_RESPONSE_DATA);
+        if (extraInvocations >= 0) {
+            driver.setExtraInvocations(extraInvocations);
+        }
+        for (String concurrency : concurrencyLevels.trim().split("\\s*,\\s*")) {
+            ClusterThrottlingReport report = driver.runWindow(Integer.parseInt(concurrency));
+            results.add(tier.getId() + " on " + invocationUrls.size() + " nodes -> " + report);
+            assertEquals(report.getFailedCount(), 0,
+                         "Invocations failed under the " + tier.getId() + " tier. " + report);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.apim.bean.APICreationRequestBean;
+import org.wso2.apim.clients.APIPublisherRestClient;
+import org.wso2.apim.clients.APIStoreRestClient;
+import org.wso2.apim.emulator.APIManagerEmulator;
+import org.wso2.apim.emulator.EmulatorConfiguration;
+import org.wso2.apim.emulator.EmulatorState;
+import org.wso2.apim.metrics.ClientMetrics;
+import org.wso2.apim.provisioning.APIProvisioningRequest;
+import org.wso2.apim.provisioning.ArtifactCleaner;
+import org.wso2.apim.provisioning.ArtifactNamespace;
+import org.wso2.apim.provisioning.BulkAPIProvisioner;
+import org.wso2.apim.provisioning.CleanupReport;
+import org.wso2.apim.provisioning.ProvisioningReport;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Measure the throughput of the provisioning engine and the artifact cleaner of the harness against the
+ * {@link APIManagerEmulator}, so regressions of the harness itself show up without a cluster. The emulator is
+ * configured with the apim.emulator.* system properties, e.g. -Dapim.emulator.latency=20 to model the response
+ * time of the Jaggery apps, and the load with the apim.benchmark.emulated.* system properties.
+ */
+public class EmulatedProvisioningThroughputTestCase {
+
+    private static final Log log = LogFactory.getLog(EmulatedProvisioningThroughputTestCase.class);
+    private static final String USER_NAME = "admin";
+    private static final String PASSWORD = "admin";
+
+    private final ArtifactNamespace artifactNamespace = ArtifactNamespace.create();
+    private final String API_NAME_PREFIX = "EmulatedProvisioningTest";
+    private final String API_VERSION_1_0_0 = "1.0.0";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("EmulatedProvisioningTestCase");
+    private final int apiCount = Integer.getInteger("apim.benchmark.emulated.apis", 500);
+    private final int parallelism = Integer.getInteger("apim.benchmark.emulated.parallelism", 16);
+    private APIManagerEmulator emulator;
+    private APIPublisherRestClient apiPublisherClientUser1;
+    private APIStoreRestClient apiStoreClientUser1;
+
+    @BeforeClass(alwaysRun = true)
+    public void initialize() throws Exception {
+        EmulatorConfiguration configuration = EmulatorConfiguration.fromSystemProperties();
+        configuration.addUser(USER_NAME, PASSWORD);
+        emulator = new APIManagerEmulator(configuration);
+        emulator.start();
+        apiPublisherClientUser1 = new APIPublisherRestClient(emulator.getBaseURL());
+        apiStoreClientUser1 = new APIStoreRestClient(emulator.getBaseURL());
+        apiPublisherClientUser1.login(USER_NAME, PASSWORD);
+        apiStoreClientUser1.login(USER_NAME, PASSWORD);
+        apiStoreClientUser1.addApplication(APPLICATION_NAME, "Unlimited", "", "");
+        ClientMetrics.getInstance().reset();
+    }
+
+    @Test(groups = {"wso2.am"}, description = "Provision and clean up APIs on the API Manager emulator")
+    public void testProvisioningThroughput() throws Exception {
+        List<APIProvisioningRequest> provisioningRequests = new ArrayList<APIProvisioningRequest>(apiCount);
+        URL endpointUrl = new URL("http://localhost/jaxrs_basic/services/customers/customerservice/");
+        for (int index = 0; index < apiCount; index++) {
+            APICreationRequestBean apiCreationRequestBean =
+                    new APICreationRequestBean(artifactNamespace.qualify(API_NAME_PREFIX + index),
+                                               artifactNamespace.qualify(API_NAME_PREFIX + index), API_VERSION_1_0_0,
+                                               USER_NAME, endpointUrl);
+            apiCreationRequestBean.setTiersCollection("Unlimited");
+            APIProvisioningRequest provisioningRequest = new APIProvisioningRequest(apiCreationRequestBean);
+            provisioningRequest.setPublish(true);
+            provisioningRequest.setSubscription(APPLICATION_NAME, "Unlimited");
+            provisioningRequests.add(provisioningRequest);
+        }
+        BulkAPIProvisioner provisioner = new BulkAPIProvisioner(apiPublisherClientUser1, apiStoreClientUser1);
+        provisioner.setParallelism(parallelism);
+        ProvisioningReport provisioningReport = provisioner.provision(provisioningRequests);
+        log.info("Provisioned " + apiCount + " APIs at " +
+                 String.format("%.1f", apiCount * 1000.0 / Math.max(1, provisioningReport.getElapsedMillis())) +
+                 " APIs/s with parallelism " + parallelism);
+        assertTrue(provisioningReport.isSuccessful(), "Provisioning failed : " + provisioningReport.getFailures());
+        EmulatorState state = emulator.getState();
+        assertEquals(state.getAPICount(), apiCount, "APIs missing in the emulator");
+        assertEquals(state.getSubscriptionCount(), apiCount, "Subscriptions missing in the emulator");
+
+        ArtifactCleaner artifactCleaner = new ArtifactCleaner(apiStoreClientUser1, apiPublisherClientUser1,
+                                                              EmulatorState.SUPER_TENANT_DOMAIN, USER_NAME);
+        artifactCleaner.setNamespace(artifactNamespace);
+        CleanupReport cleanupReport = artifactCleaner.cleanUp();
+        log.info("Cleaned up " + apiCount + " APIs in " + cleanupReport.getElapsedMillis() + " ms");
+        log.info("Client metrics after " + emulator.getRequestCount() + " requests to the emulator :\n" +
+                 ClientMetrics.getInstance());
+        assertEquals(state.getAPICount(), 0, "APIs left after the clean up : " + cleanupReport);
+        assertEquals(state.getSubscriptionCount(), 0, "Subscriptions left after the clean up : " + cleanupReport);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopEmulator() {
+        if (emulator != null) {
+            emulator.stop();
+        }
+    }
+}
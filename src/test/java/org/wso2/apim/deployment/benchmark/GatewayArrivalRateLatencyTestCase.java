@@ -0,0 +1,92 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.apim.gateway.GatewayNode;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.load.ArrivalRateLoadEngine;
+import org.wso2.apim.load.LoadPhase;
+import org.wso2.apim.load.PhaseReport;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measure the gateway latency at a constant arrival rate. The requests are sent at the configured rate
+ * regardless of the response times and the latency is measured from the intended send time, so a stall of
+ * the gateway shows up in the tail latency instead of lowering the load. The run consists of a ramp-up, a
+ * steady state and a ramp-down phase configured with the apim.benchmark.arrival.* system properties. The
+ * requests are spread over the gateway nodes chosen with -Dapim.gateway.selection and the latency of each node
+ * is logged.
+ */
+public class GatewayArrivalRateLatencyTestCase extends APIManagerBenchmarkBaseTest {
+
+    private static final Log log = LogFactory.getLog(GatewayArrivalRateLatencyTestCase.class);
+
+    private final String API_NAME = artifactNamespace.qualify("GatewayArrivalRateLatencyTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("GatewayArrivalRateLatency");
+    private final String API_VERSION_1_0_0 = "1.0.0";
+    private final String API_END_POINT_METHOD = "customers/123";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("GatewayArrivalRateLatencyTestCase");
+    private final double arrivalRate = Double.parseDouble(System.getProperty("apim.benchmark.arrival.rate", "50"));
+    private final long rampUpMillis = Long.getLong("apim.benchmark.arrival.rampUp", 10000L);
+    private final long steadyStateMillis = Long.getLong("apim.benchmark.arrival.steady", 60000L);
+    private final long rampDownMillis = Long.getLong("apim.benchmark.arrival.rampDown", 10000L);
+    private final int maxConcurrency = Integer.getInteger("apim.benchmark.arrival.maxConcurrency", 200);
+    private String invocationPath;
+    private Map<String, String> requestHeaders;
+    private StreamingHttpClient httpClient;
+
+    @BeforeClass(alwaysRun = true)
+    public void initialize() throws Exception {
+        super.init();
+        requestHeaders = createBenchmarkAPI(API_NAME, API_CONTEXT, API_VERSION_1_0_0,
+                                            new URL(getGatewayServiceEndPointHttp(API_END_POINT_POSTFIX_URL)),
+                                            APPLICATION_NAME, null);
+        invocationPath = API_CONTEXT + "/" + API_VERSION_1_0_0 + "/" + API_END_POINT_METHOD;
+        httpClient = createBenchmarkHttpClient(maxConcurrency, maxConcurrency);
+    }
+
+    @Test(groups = {"wso2.am"}, description = "Gateway latency at a constant arrival rate")
+    public void testLatencyAtArrivalRate() throws Exception {
+        for (GatewayNode node : gatewayEndpointSelector.getNodes()) {
+            awaitAPIRoutableOnGateway(node.getUrls().getAPIInvocationURLHttp() + invocationPath, requestHeaders);
+        }
+        ArrivalRateLoadEngine engine = new ArrivalRateLoadEngine(
+                gatewayEndpointSelector.httpGet(httpClient, invocationPath, requestHeaders));
+        engine.setMaxConcurrency(maxConcurrency);
+        List<PhaseReport> reports = engine.run(Arrays.asList(LoadPhase.rampUp(arrivalRate, rampUpMillis),
+                                                             LoadPhase.steadyState(arrivalRate, steadyStateMillis),
+                                                             LoadPhase.rampDown(arrivalRate, rampDownMillis)));
+        for (PhaseReport report : reports) {
+            log.info("Gateway latency at arrival rate " + arrivalRate + " req/s: " + report);
+        }
+        log.info(gatewayEndpointSelector);
+        PhaseReport steadyState = reports.get(1);
+        assertEquals(steadyState.getFailureCount(), 0,
+                     "Gateway failed requests in the steady state at " + arrivalRate + " req/s");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.apim.backend.EmbeddedBackend;
+import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.load.ArrivalRateLoadEngine;
+import org.wso2.apim.load.LoadPhase;
+import org.wso2.apim.load.LoadRequest;
+import org.wso2.apim.load.PhaseReport;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measure the latency added by the gateway. The API points to the {@link EmbeddedBackend} started by the test,
+ * which is invoked at the same constant arrival rate once directly and once through the gateway, so the
+ * difference of the latency percentiles is the overhead of the gateway. The embedded backend must be reachable
+ * from the gateway nodes, see -Dapim.backend.host. The load is configured with the apim.benchmark.overhead.*
+ * system properties and the backend with the apim.backend.* system properties.
+ */
+public class GatewayOverheadTestCase extends APIManagerBenchmarkBaseTest {
+
+    private static final Log log = LogFactory.getLog(GatewayOverheadTestCase.class);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String API_NAME = artifactNamespace.qualify("GatewayOverheadTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("GatewayOverhead");
+    private final String API_VERSION_1_0_0 = "1.0.0";
+    private final String API_END_POINT_METHOD = "customers/123";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("GatewayOverheadTestCase");
+    private final double arrivalRate = Double.parseDouble(System.getProperty("apim.benchmark.overhead.rate", "100"));
+    private final long durationMillis = Long.getLong("apim.benchmark.overhead.duration", 30000L);
+    private final int maxConcurrency = Integer.getInteger("apim.benchmark.overhead.maxConcurrency", 200);
+    private String backendUrl;
+    private String invocationUrl;
+    private Map<String, String> requestHeaders;
+    private StreamingHttpClient httpClient;
+
+    @BeforeClass(alwaysRun = true)
+    public void initialize() throws Exception {
+        super.init();
+        String apiEndPointUrl = EmbeddedBackend.getInstance().getURL(EmbeddedBackend.JAXRS_BASIC_CONTEXT);
+        backendUrl = apiEndPointUrl + API_END_POINT_METHOD;
+        requestHeaders = createBenchmarkAPI(API_NAME, API_CONTEXT, API_VERSION_1_0_0, new URL(apiEndPointUrl),
+                                            APPLICATION_NAME, null);
+        invocationUrl = getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0) + "/" + API_END_POINT_METHOD;
+        //Pool shared by both routes
+        httpClient = createBenchmarkHttpClient(2 * maxConcurrency, maxConcurrency);
+    }
+
+    @Test(groups = {"wso2.am"}, description = "Latency added by the gateway to the embedded backend")
+    public void testGatewayOverhead() throws Exception {
+        awaitAPIRoutableOnGateway(invocationUrl, requestHeaders);
+        PhaseReport direct = measure(ArrivalRateLoadEngine.httpGet(
+                httpClient, backendUrl, Collections.<String, String>emptyMap()));
+        PhaseReport gateway = measure(ArrivalRateLoadEngine.httpGet(httpClient, invocationUrl, requestHeaders));
+
+        StringBuilder overhead = new StringBuilder("Gateway overhead at ").append(arrivalRate).append(" req/s:");
+        for (double percentile : PERCENTILES) {
+            double directMillis = direct.getResponseTimeMillis(percentile);
+            double gatewayMillis = gateway.getResponseTimeMillis(percentile);
+            overhead.append(String.format("%n  p%s backend=%.3f ms gateway=%.3f ms overhead=%.3f ms", percentile,
+                                          directMillis, gatewayMillis, gatewayMillis - directMillis));
+        }
+        log.info("Backend: " + direct);
+        log.info("Gateway: " + gateway);
+        log.info(overhead);
+        assertEquals(direct.getFailureCount(), 0, "Embedded backend failed requests at " + arrivalRate + " req/s");
+        assertEquals(gateway.getFailureCount(), 0, "Gateway failed requests at " + arrivalRate + " req/s");
+    }
+
+    private PhaseReport measure(LoadRequest request) throws APIManagerIntegrationTestException {
+        ArrivalRateLoadEngine engine = new ArrivalRateLoadEngine(request);
+        engine.setMaxConcurrency(maxConcurrency);
+        return engine.run(Collections.singletonList(LoadPhase.steadyState(arrivalRate, durationMillis))).get(0);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.apim.backend.EmbeddedBackend;
+import org.wso2.apim.bean.APIResourceBean;
+import org.wso2.apim.http.FilePayload;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.utils.NamedThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measure the gateway pass through throughput against the payload size by posting the test1kb.db,
+ * test100kb.db and test1Mb.db files through an API to the /payload echo of the {@link EmbeddedBackend}. A
+ * request only succeeds if it is answered with a 2xx status and the whole payload is echoed back. The embedded
+ * backend must be reachable from the gateway nodes, see -Dapim.backend.host. The number of requests, warm up
+ * requests, concurrency and transfer encoding are configured with the apim.benchmark.payload.* system
+ * properties.
+ */
+public class PayloadSizeThroughputTestCase extends APIManagerBenchmarkBaseTest {
+
+    private static final Log log = LogFactory.getLog(PayloadSizeThroughputTestCase.class);
+
+    private final String API_NAME = artifactNamespace.qualify("PayloadSizeThroughputTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("PayloadSizeThroughput");
+    private final String API_VERSION_1_0_0 = "1.0.0";
+    private final String API_END_POINT_METHOD = "echo";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("PayloadSizeThroughputTestCase");
+    private final int requestCount = Integer.getInteger("apim.benchmark.payload.requests", 200);
+    private final int warmUpRequests = Integer.getInteger("apim.benchmark.payload.warmUp", 20);
+    private final int concurrency = Integer.getInteger("apim.benchmark.payload.concurrency", 8);
+    private final boolean chunked = Boolean.getBoolean("apim.benchmark.payload.chunked");
+    private String invocationUrl;
+    private Map<String, String> requestHeaders;
+
+    @BeforeClass(alwaysRun = true)
+    public void initialize() throws Exception {
+        super.init();
+        List<APIResourceBean> resourceBeanList = new ArrayList<APIResourceBean>();
+        resourceBeanList.add(new APIResourceBean("POST", "Application & Application User", TIER_UNLIMITED, "/*"));
+        requestHeaders = createBenchmarkAPI(API_NAME, API_CONTEXT, API_VERSION_1_0_0,
+                                            new URL(EmbeddedBackend.getInstance().getURL("payload/")),
+                                            APPLICATION_NAME, resourceBeanList);
+        invocationUrl = getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0) + "/" + API_END_POINT_METHOD;
+    }
+
+    @DataProvider(name = "payloadFiles")
+    public Object[][] payloadFiles() {
+        return new Object[][]{{"test1kb.db"}, {"test100kb.db"}, {"test1Mb.db"}};
+    }
+
+    @Test(groups = {"wso2.am"}, description = "Gateway pass through throughput against payload size",
+            dataProvider = "payloadFiles")
+    public void testPayloadThroughput(String fileName) throws Exception {
+        File file = new File(getAMResourceLocation() + File.separator + "testFiles" + File.separator + fileName);
+        final AtomicInteger failedRequests = new AtomicInteger();
+        final AtomicLong totalLatency = new AtomicLong();
+        ExecutorService executorService =
+                Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("apim-payload"));
+        try (final FilePayload payload = new FilePayload(file)) {
+            //Warm up the connection pool, the gateway and the backend before measuring
+            invokeAll(executorService, warmUpRequests, payload, failedRequests, totalLatency);
+            failedRequests.set(0);
+            totalLatency.set(0);
+
+            long startTime = System.nanoTime();
+            invokeAll(executorService, requestCount, payload, failedRequests, totalLatency);
+            long elapsedNanos = System.nanoTime() - startTime;
+
+            double elapsedSeconds = elapsedNanos / 1e9;
+            double requestsPerSecond = requestCount / elapsedSeconds;
+            double megabytesPerSecond = (payload.getSize() * (double) requestCount) / (1024 * 1024) / elapsedSeconds;
+            double meanLatencyMillis = totalLatency.get() / 1e6 / requestCount;
+            String summary = String.format("size=%d bytes, requests=%d, concurrency=%d, chunked=%s, " +
+                            "throughput=%.1f req/s, %.2f MB/s, mean latency=%.2f ms, failed=%d",
+                    payload.getSize(), requestCount, concurrency, chunked, requestsPerSecond, megabytesPerSecond,
+                    meanLatencyMillis, failedRequests.get());
+            results.add(fileName + " -> " + summary);
+            log.info("Payload throughput for " + fileName + ": " + summary);
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(failedRequests.get(), 0, "Gateway failed to pass through " + fileName + " payloads");
+    }
+
+    private void invokeAll(ExecutorService executorService, int count, final FilePayload payload,
+                           final AtomicInteger failedRequests, final AtomicLong totalLatency) throws Exception {
+        List<Future<?>> futures = new ArrayList<Future<?>>(count);
+        for (int requestIndex = 0; requestIndex < count; requestIndex++) {
+            futures.add(executorService.submit(() -> invoke(payload, failedRequests, totalLatency)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private void invoke(FilePayload payload, AtomicInteger failedRequests, AtomicLong totalLatency) {
+        long startTime = System.nanoTime();
+        try (StreamingHttpResponse response =
+                     StreamingHttpClient.getSharedClient().doPost(invocationUrl, payload, chunked, requestHeaders)) {
+            long echoedBytes = response.consume();
+            int responseCode = response.getResponseCode();
+            if (responseCode < 200 || responseCode >= 300 || echoedBytes != payload.getSize()) {
+                failedRequests.incrementAndGet();
+                log.warn("Payload invocation failed with response code " + responseCode + ", " + echoedBytes +
+                        " of " + payload.getSize() + " bytes echoed : " + response.getBodyPreview());
+            }
+        } catch (IOException e) {
+            failedRequests.incrementAndGet();
+            log.warn("Payload invocation failed", e);
+        } finally {
+            totalLatency.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+}
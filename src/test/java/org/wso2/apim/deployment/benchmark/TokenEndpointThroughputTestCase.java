@@ -0,0 +1,188 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.apim.deployment.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.apim.bean.ApplicationKeyBean;
+import org.wso2.apim.http.HttpTransportFactory;
+import org.wso2.apim.token.TokenBenchmarkResult;
+import org.wso2.apim.token.TokenEndpointBenchmark;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+import org.wso2.carbon.integration.common.admin.client.UserManagementClient;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Measure the tokens issued per second and the latency of the key manager token endpoint for the password,
+ * client credentials and refresh token grants. Every grant is swept over the number of requested scopes and
+ * the concurrency. The scopes are registered on an API the application subscribes to, as in APIScopeTestCase,
+ * and one user is created per worker so that the workers do not share their tokens.
+ * <p/>
+ * apim.benchmark.token.endpoint=key manager oauth2/token
+ * apim.benchmark.token.grants=password,client_credentials,refresh_token
+ * apim.benchmark.token.concurrency=1,8,32
+ * apim.benchmark.token.scopes=0,1,4
+ * apim.benchmark.token.requests=200
+ * apim.benchmark.token.warmUp=10
+ */
+public class TokenEndpointThroughputTestCase extends APIManagerBenchmarkBaseTest {
+
+    private static final Log log = LogFactory.getLog(TokenEndpointThroughputTestCase.class);
+
+    private final String API_NAME = artifactNamespace.qualify("TokenEndpointThroughputTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("TokenEndpointThroughput");
+    private final String API_VERSION_1_0_0 = "1.0.0";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("TokenEndpointThroughputTestCase");
+    private final String SCOPE_PREFIX = artifactNamespace.qualify("token_benchmark_scope") + "_";
+    private final String ROLE_NAME = artifactNamespace.qualify("tokenbenchmark");
+    private final String USER_PREFIX = artifactNamespace.qualify("tokenbenchmark") + "user";
+    private final String USER_PASSWORD = "tokenbenchmark123";
+    private final String grantTypes = System.getProperty("apim.benchmark.token.grants",
+                                                         TokenEndpointBenchmark.GRANT_PASSWORD + "," +
+                                                         TokenEndpointBenchmark.GRANT_CLIENT_CREDENTIALS + "," +
+                                                         TokenEndpointBenchmark.GRANT_REFRESH_TOKEN);
+    private final int[] concurrencyLevels = parseLevels(System.getProperty("apim.benchmark.token.concurrency",
+                                                                           "1,8,32"));
+    private final int[] scopeCounts = parseLevels(System.getProperty("apim.benchmark.token.scopes", "0,1,4"));
+    private final int requestCount = Integer.getInteger("apim.benchmark.token.requests", 200);
+    private final int warmUpRequests = Integer.getInteger("apim.benchmark.token.warmUp", 10);
+    private final List<String> scopes = new ArrayList<String>();
+    private final List<String> userNames = new ArrayList<String>();
+    private UserManagementClient userManagementClient;
+    private TokenEndpointBenchmark tokenEndpointBenchmark;
+
+    @BeforeClass(alwaysRun = true)
+    public void initialize() throws Exception {
+        super.init();
+        publishBenchmarkAPI(API_NAME, API_CONTEXT, API_VERSION_1_0_0,
+                            new URL(getGatewayServiceEndPointHttp(API_END_POINT_POSTFIX_URL)), TIER_UNLIMITED, null);
+
+        //Register the scopes on the API so that the key manager grants them to the subscribed application
+        int maxScopeCount = max(scopeCounts);
+        for (int i = 0; i < maxScopeCount; i++) {
+            scopes.add(SCOPE_PREFIX + i);
+        }
+        if (maxScopeCount > 0) {
+            HttpResponse updateResponse = apiPublisherClientUser1.updateResourceOfAPI(
+                    user.getUserName(), API_NAME, API_VERSION_1_0_0, getSwagger());
+            assertEquals(getValueFromJSON(updateResponse, "error"), "false",
+                         "Unable to add the scopes to the API : " + updateResponse.getData());
+        }
+
+        ApplicationKeyBean applicationKeyBean = subscribeBenchmarkApplication(APPLICATION_NAME);
+
+        String tokenEndpoint = System.getProperty("apim.benchmark.token.endpoint",
+                                                  getKeyManagerURLHttps() + "oauth2/token");
+        tokenEndpointBenchmark = new TokenEndpointBenchmark(new URL(tokenEndpoint),
+                                                            HttpTransportFactory.getTransport(), applicationKeyBean);
+        tokenEndpointBenchmark.setWarmUpRequests(warmUpRequests);
+
+        //One user per worker, the refresh token grant cannot share a token chain between the workers
+        userManagementClient = new UserManagementClient(keyManagerContext.getContextUrls().getBackEndUrl(),
+                keyManagerContext.getContextTenant().getContextUser().getUserName(),
+                keyManagerContext.getContextTenant().getContextUser().getPassword());
+        userManagementClient.addRole(ROLE_NAME, new String[]{},
+                                     new String[]{"/permission/admin/login", "/permission/admin/manage/api/subscribe"});
+        String tenantDomain = keyManagerContext.getContextTenant().getDomain();
+        for (int i = 0; i < max(concurrencyLevels); i++) {
+            String userName = USER_PREFIX + i;
+            userManagementClient.addUser(userName, USER_PASSWORD, new String[]{ROLE_NAME}, userName);
+            userNames.add(userName);
+            tokenEndpointBenchmark.registerUser("carbon.super".equals(tenantDomain) ? userName :
+                                                userName + "@" + tenantDomain, USER_PASSWORD);
+        }
+        log.info("Benchmarking the token endpoint " + tokenEndpoint + " with " + userNames.size() + " users");
+    }
+
+    @DataProvider(name = "grants")
+    public Object[][] grants() {
+        List<Object[]> parameters = new ArrayList<Object[]>();
+        for (String grantType : grantTypes.trim().split("\\s*,\\s*")) {
+            for (int scopeCount : scopeCounts) {
+                parameters.add(new Object[]{grantType, scopeCount});
+            }
+        }
+        return parameters.toArray(new Object[parameters.size()][]);
+    }
+
+    @Test(groups = {"wso2.am"}, description = "Token endpoint throughput and latency of a grant type",
+            dataProvider = "grants")
+    public void testTokenEndpointThroughput(String grantType, int scopeCount) throws Exception {
+        for (int concurrency : concurrencyLevels) {
+            TokenBenchmarkResult result =
+                    tokenEndpointBenchmark.run(grantType, concurrency, requestCount, scopes.subList(0, scopeCount));
+            results.add(result.toString());
+            assertEquals(result.getFailedCount(), 0, "Token requests failed. " + result);
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void cleanUpUsers() throws Exception {
+        if (userManagementClient != null) {
+            for (String userName : userNames) {
+                userManagementClient.deleteUser(userName);
+            }
+            userManagementClient.deleteRole(ROLE_NAME);
+        }
+    }
+
+    /**
+     * Build the swagger of the API declaring the benchmark scopes, the GET resource requires the first scope
+     *
+     * @return - swagger definition
+     */
+    private String getSwagger() {
+        StringBuilder scopeDefinitions = new StringBuilder();
+        for (String scope : scopes) {
+            scopeDefinitions.append(scopeDefinitions.length() > 0 ? "," : "")
+                    .append("{\"name\":\"").append(scope).append("\",\"description\":\"\",\"key\":\"")
+                    .append(scope).append("\",\"roles\":\"admin,").append(ROLE_NAME).append("\"}");
+        }
+        return "{\"paths\":{\"/*\":{\"get\":{\"responses\":{\"200\":{}},\"x-auth-type\":\"Application User\"," +
+               "\"x-throttling-tier\":\"Unlimited\",\"x-scope\":\"" + scopes.get(0) + "\"},\"options\":{" +
+               "\"responses\":{\"200\":{}},\"x-auth-type\":\"None\",\"x-throttling-tier\":\"Unlimited\"}}}," +
+               "\"swagger\":\"2.0\",\"info\":{\"title\":\"" + API_NAME + "\",\"version\":\"" + API_VERSION_1_0_0 +
+               "\"},\"x-wso2-security\":{\"apim\":{\"x-wso2-scopes\":[" + scopeDefinitions + "]}}}";
+    }
+
+    private static int[] parseLevels(String levels) {
+        String[] values = levels.trim().split("\\s*,\\s*");
+        int[] parsed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parsed[i] = Integer.parseInt(values[i]);
+        }
+        return parsed;
+    }
+
+    private static int max(int[] values) {
+        int max = 0;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
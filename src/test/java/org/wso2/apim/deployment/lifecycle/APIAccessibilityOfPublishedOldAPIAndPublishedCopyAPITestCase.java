@@ -45,15 +45,16 @@ import static org.testng.Assert.assertTrue;
  */
 
 public class APIAccessibilityOfPublishedOldAPIAndPublishedCopyAPITestCase extends APIManagerLifecycleBaseTest {
-    private final String API_NAME = "APIAccessibilityOfOldAndCopyAPITest";
-    private final String API_CONTEXT = "APIAccessibilityOfOldAndCopyAPI";
+    private final String API_NAME = artifactNamespace.qualify("APIAccessibilityOfOldAndCopyAPITest");
+    private final String API_CONTEXT = artifactNamespace.qualify("APIAccessibilityOfOldAndCopyAPI");
     private final String API_TAGS = "testTag1, testTag2, testTag3";
     private final String API_DESCRIPTION = "This is test API create by API manager integration test";
     private final String API_END_POINT_METHOD = "customers/123";
     private final String API_RESPONSE_DATA = "<id>123</id><name>John</name></Customer>";
     private final String API_VERSION_1_0_0 = "1.0.0";
     private final String API_VERSION_2_0_0 = "2.0.0";
-    private final String APPLICATION_NAME = "APIAccessibilityOfPublishedOldAPIAndPublishedCopyAPITestCase";
+    private final String APPLICATION_NAME =
+            artifactNamespace.qualify("APIAccessibilityOfPublishedOldAPIAndPublishedCopyAPITestCase");
     private final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
     private String apiEndPointUrl;
     private APIIdentifier apiIdentifierAPI1Version1;
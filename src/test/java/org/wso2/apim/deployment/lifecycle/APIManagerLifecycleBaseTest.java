@@ -24,6 +24,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.testng.ITestContext;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeSuite;
@@ -37,6 +38,10 @@ import org.wso2.apim.bean.SubscriptionRequest;
 import org.wso2.apim.clients.APIPublisherRestClient;
 import org.wso2.apim.clients.APIStoreRestClient;
 import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.ResponseBodyMatcher;
+import org.wso2.apim.http.StreamingHttpClient;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.utils.SharedResourceLocks;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.automation.engine.frameworkutils.FrameworkPathUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
@@ -44,6 +49,11 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import javax.ws.rs.core.Response;
 
@@ -77,6 +87,7 @@ public class APIManagerLifecycleBaseTest extends APIMIntegrationBaseTest {
     protected static final int THROTTLING_UNIT_TIME = 60000;
     protected static final int THROTTLING_ADDITIONAL_WAIT_TIME = 5000;
     //protected static String gatewayWebAppUrl;
+    private final Deque<String> lockedResources = new ArrayDeque<String>();
 
     @BeforeSuite(alwaysRun = true)
     public void createEnvironment(ITestContext ctx)
@@ -91,6 +102,52 @@ public class APIManagerLifecycleBaseTest extends APIMIntegrationBaseTest {
         //gatewayWebAppUrl = gatewayUrls.getWebAppURLNhttp();
     }
 
+    /**
+     * Remove what is left of the artifacts of this class after its own clean up, e.g. when a test failed before
+     * the artifacts were recorded, and release the shared resources still held by the class. Runs after the
+     * after class methods of the test class.
+     */
+    @AfterClass(alwaysRun = true)
+    public void cleanUpArtifactNamespaceAndReleaseLocks() {
+        try {
+            cleanUpArtifactNamespace();
+        } catch (APIManagerIntegrationTestException e) {
+            log.warn("Unable to clean up the artifacts of " + artifactNamespace, e);
+        } finally {
+            while (!lockedResources.isEmpty()) {
+                releaseSharedResource(lockedResources.peek());
+            }
+        }
+    }
+
+    /**
+     * Hold the lock of a setting shared by all the test classes, e.g. the permissions of a tier, until it is
+     * released or the class is done. The test classes of a parallel run using the same resource are serialized.
+     *
+     * @param resource - name of the shared resource, see {@link SharedResourceLocks}
+     * @throws APIManagerIntegrationTestException - if the lock is not acquired within the timeout
+     */
+    protected void acquireSharedResource(String resource) throws APIManagerIntegrationTestException {
+        SharedResourceLocks.getInstance().acquire(resource);
+        synchronized (lockedResources) {
+            lockedResources.push(resource);
+        }
+    }
+
+    /**
+     * Release the lock of a shared setting acquired by this class
+     *
+     * @param resource - name of the shared resource
+     */
+    protected void releaseSharedResource(String resource) {
+        synchronized (lockedResources) {
+            if (!lockedResources.remove(resource)) {
+                return;
+            }
+        }
+        SharedResourceLocks.getInstance().release(resource);
+    }
+
     /**
      * Return a String with combining the value of API Name,API Version and API Provider Name as key:value format
      *
@@ -376,16 +433,75 @@ public class APIManagerLifecycleBaseTest extends APIMIntegrationBaseTest {
                                                   APIPublisherRestClient publisherRestClient,
                                                   APIStoreRestClient storeRestClient, String applicationName)
             throws APIManagerIntegrationTestException {
-        createAndPublishAPI(apiIdentifier, apiCreationRequestBean, publisherRestClient, false);
-        HttpResponse httpResponseSubscribeAPI = subscribeToAPI(apiIdentifier, applicationName, storeRestClient);
-        if (!(httpResponseSubscribeAPI.getResponseCode() == HTTP_RESPONSE_CODE_OK &&
-                getValueFromJSON(httpResponseSubscribeAPI, "error").equals("false"))) {
-            throw new APIManagerIntegrationTestException("Error in API Subscribe." +
-                    getAPIIdentifierString(apiIdentifier) +
-                    "Response Code:" + httpResponseSubscribeAPI.getResponseCode() +
-                    " Response Data :" + httpResponseSubscribeAPI.getData());
+        try {
+            createPublishAndSubscribeToAPIAsync(apiIdentifier, apiCreationRequestBean, publisherRestClient,
+                                                storeRestClient, applicationName).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while creating the API " +
+                    getAPIIdentifierString(apiIdentifier), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof APIManagerIntegrationTestException) {
+                throw (APIManagerIntegrationTestException) e.getCause();
+            }
+            throw new APIManagerIntegrationTestException("Error in API create, publish and subscribe." +
+                    getAPIIdentifierString(apiIdentifier), e.getCause());
+        }
+    }
+
+    /**
+     * Create publish and subscribe a API on the async executor of the clients, so the provisioning of
+     * independent APIs can be pipelined. Each step is bounded by the timeout of the executor.
+     *
+     * @param apiIdentifier          - Instance of APIIdentifier object  that include the  API Name,
+     *                               API Version and API Provider
+     * @param apiCreationRequestBean - Instance of APICreationRequestBean with all needed API information
+     * @param publisherRestClient    -  Instance of APIPublisherRestClient
+     * @param storeRestClient        - Instance of APIStoreRestClient
+     * @param applicationName        - Name of the Application that the API need to subscribe.
+     * @return CompletableFuture - future completed when the API is subscribed, or exceptionally with the
+     * APIManagerIntegrationTestException of the failed step
+     */
+    protected CompletableFuture<Void> createPublishAndSubscribeToAPIAsync(
+            APIIdentifier apiIdentifier, APICreationRequestBean apiCreationRequestBean,
+            APIPublisherRestClient publisherRestClient, APIStoreRestClient storeRestClient, String applicationName) {
+        return publisherRestClient.<Void>executeAsync(() -> {
+            createAndPublishAPI(apiIdentifier, apiCreationRequestBean, publisherRestClient, false);
+            return null;
+        }).thenCompose(published -> storeRestClient.<Void>executeAsync(() -> {
+            HttpResponse httpResponseSubscribeAPI = subscribeToAPI(apiIdentifier, applicationName, storeRestClient);
+            if (!(httpResponseSubscribeAPI.getResponseCode() == HTTP_RESPONSE_CODE_OK &&
+                    getValueFromJSON(httpResponseSubscribeAPI, "error").equals("false"))) {
+                throw new APIManagerIntegrationTestException("Error in API Subscribe." +
+                        getAPIIdentifierString(apiIdentifier) +
+                        "Response Code:" + httpResponseSubscribeAPI.getResponseCode() +
+                        " Response Data :" + httpResponseSubscribeAPI.getData());
+            }
+            log.info("API Subscribed :" + getAPIIdentifierString(apiIdentifier));
+            return null;
+        }));
+    }
+
+    /**
+     * Invoke the API with a GET request and match the response body while it is streamed, without keeping
+     * the whole body in memory.
+     *
+     * @param invocationUrl  - URL of the API resource in the gateway
+     * @param requestHeaders - request headers
+     * @param matchers       - matchers to check the response body against
+     * @return StreamingHttpResponse - consumed and closed response with the response code, headers,
+     * body size and the start of the body
+     * @throws IOException - Exception throws when invoking the API
+     */
+    protected StreamingHttpResponse invokeAPI(String invocationUrl, Map<String, String> requestHeaders,
+                                              ResponseBodyMatcher... matchers) throws IOException {
+        StreamingHttpResponse response = StreamingHttpClient.getSharedClient().doGet(invocationUrl, requestHeaders);
+        try {
+            response.consume(matchers);
+        } finally {
+            response.close();
         }
-        log.info("API Subscribed :" + getAPIIdentifierString(apiIdentifier));
+        return response;
     }
 
     /**
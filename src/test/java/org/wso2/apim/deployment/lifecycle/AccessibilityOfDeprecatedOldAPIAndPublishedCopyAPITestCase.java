@@ -43,8 +43,8 @@ import static org.testng.Assert.assertTrue;
  * test invocation of both old and new API versions."
  */
 public class AccessibilityOfDeprecatedOldAPIAndPublishedCopyAPITestCase extends APIManagerLifecycleBaseTest {
-    private final String API_NAME = "DeprecatedAPITest";
-    private final String API_CONTEXT = "DeprecatedAPI";
+    private final String API_NAME = artifactNamespace.qualify("DeprecatedAPITest");
+    private final String API_CONTEXT = artifactNamespace.qualify("DeprecatedAPI");
     private final String API_TAGS = "testTag1, testTag2, testTag3";
     private final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
     private final String API_DESCRIPTION = "This is test API create by API manager integration test";
@@ -52,7 +52,8 @@ public class AccessibilityOfDeprecatedOldAPIAndPublishedCopyAPITestCase extends
     private final String API_RESPONSE_DATA = "<id>123</id><name>John</name></Customer>";
     private final String API_VERSION_1_0_0 = "1.0.0";
     private final String API_VERSION_2_0_0 = "2.0.0";
-    private final String APPLICATION_NAME = "AccessibilityOfDeprecatedOldAPIAndPublishedCopyAPITestCase";
+    private final String APPLICATION_NAME =
+            artifactNamespace.qualify("AccessibilityOfDeprecatedOldAPIAndPublishedCopyAPITestCase");
     private String apiEndPointUrl;
     private APIIdentifier apiIdentifierAPI1Version1;
     private APIIdentifier apiIdentifierAPI1Version2;
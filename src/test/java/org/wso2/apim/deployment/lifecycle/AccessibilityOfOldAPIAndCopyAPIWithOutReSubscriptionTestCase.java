@@ -46,15 +46,16 @@ import static org.testng.Assert.assertTrue;
  */
 public class AccessibilityOfOldAPIAndCopyAPIWithOutReSubscriptionTestCase extends APIManagerLifecycleBaseTest {
 
-    private final String API_NAME = "CopyAPIWithOutReSubscriptionTest";
-    private final String API_CONTEXT = "CopyAPIWithOutReSubscription";
+    private final String API_NAME = artifactNamespace.qualify("CopyAPIWithOutReSubscriptionTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("CopyAPIWithOutReSubscription");
     private final String API_TAGS = "testTag1, testTag2, testTag3";
     private final String API_DESCRIPTION = "This is test API create by API manager integration test";
     private final String API_END_POINT_METHOD = "/customers/123";
     private final String API_RESPONSE_DATA = "<id>123</id><name>John</name></Customer>";
     private final String API_VERSION_1_0_0 = "1.0.0";
     private final String API_VERSION_2_0_0 = "2.0.0";
-    private final String APPLICATION_NAME = "AccessibilityOfOldAPIAndCopyAPIWithOutReSubscriptionTestCase";
+    private final String APPLICATION_NAME =
+            artifactNamespace.qualify("AccessibilityOfOldAPIAndCopyAPIWithOutReSubscriptionTestCase");
     private final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
     private String apiEndPointUrl;
     private APIIdentifier apiIdentifierAPI1Version1;
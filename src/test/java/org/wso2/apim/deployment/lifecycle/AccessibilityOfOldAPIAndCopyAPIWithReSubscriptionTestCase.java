@@ -47,15 +47,16 @@ import static org.testng.Assert.assertTrue;
  */
 public class AccessibilityOfOldAPIAndCopyAPIWithReSubscriptionTestCase extends
                                                                        APIManagerLifecycleBaseTest {
-    private static final String API_NAME = "CopyAPIWithReSubscriptionTest";
-    private static final String API_CONTEXT = "CopyAPIWithReSubscription";
+    private final String API_NAME = artifactNamespace.qualify("CopyAPIWithReSubscriptionTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("CopyAPIWithReSubscription");
     private static final String API_TAGS = "testTag1, testTag2, testTag3";
     private static final String API_DESCRIPTION = "This is test API create by API manager integration test";
     private static final String API_END_POINT_METHOD = "/customers/123";
     private static final String API_RESPONSE_DATA = "<id>123</id><name>John</name></Customer>";
     private static final String API_VERSION_1_0_0 = "1.0.0";
     private static final String API_VERSION_2_0_0 = "2.0.0";
-    private static final String APPLICATION_NAME = "AccessibilityOfOldAPIAndCopyAPIWithReSubscriptionTestCase";
+    private final String APPLICATION_NAME =
+            artifactNamespace.qualify("AccessibilityOfOldAPIAndCopyAPIWithReSubscriptionTestCase");
     private static final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
     private String apiEndPointUrl;
     private APIIdentifier apiIdentifierAPI1Version1;
@@ -46,13 +46,13 @@ import static org.testng.Assert.assertTrue;
  * Add , edit and remove rest resource and test the invocation of API
  */
 public class AddEditRemoveRESTResourceTestCase extends APIManagerLifecycleBaseTest {
-    private final String API_NAME = "EditRemoveRESTResourceTest";
-    private final String API_CONTEXT = "EditRemoveRESTResource";
+    private final String API_NAME = artifactNamespace.qualify("EditRemoveRESTResourceTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("EditRemoveRESTResource");
     private final String API_TAGS = "testTag1, testTag2, testTag3";
     private final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
     private final String API_DESCRIPTION = "This is test API create by API manager integration test";
     private final String API_VERSION_1_0_0 = "1.0.0";
-    private final String APPLICATION_NAME = "AddEditRemoveRESTResourceTestCase";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("AddEditRemoveRESTResourceTestCase");
     private final String RESPONSE_GET = "<id>123</id><name>John</name></Customer>";
     private final String RESPONSE_POST = "Tom";
     private final String API_GET_ENDPOINT_METHOD = "/customers/123";
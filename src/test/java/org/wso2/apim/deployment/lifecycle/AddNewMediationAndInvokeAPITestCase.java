@@ -45,13 +45,13 @@ import static org.testng.Assert.assertTrue;
  */
 @SetEnvironment(executionEnvironments = {ExecutionEnvironment.STANDALONE})
 public class AddNewMediationAndInvokeAPITestCase extends APIManagerLifecycleBaseTest {
-    private final String API_NAME = "AddNewMediationAndInvokeAPITest";
-    private final String API_CONTEXT = "AddNewMediationAndInvokeAPI";
+    private final String API_NAME = artifactNamespace.qualify("AddNewMediationAndInvokeAPITest");
+    private final String API_CONTEXT = artifactNamespace.qualify("AddNewMediationAndInvokeAPI");
     private final String API_TAGS = "testTag1, testTag2, testTag3";
     private final String API_END_POINT_POSTFIX_URL = "jaxrs_basic/services/customers/customerservice/";
     private final String API_DESCRIPTION = "This is test API create by API manager integration test";
     private final String API_VERSION_1_0_0 = "1.0.0";
-    private final String APPLICATION_NAME = "AddNewMediationAndInvokeAPI";
+    private final String APPLICATION_NAME = artifactNamespace.qualify("AddNewMediationAndInvokeAPI");
     private final String RESPONSE_GET = "<id>123</id><name>John</name></Customer>";
     private final String API_GET_ENDPOINT_METHOD = "/customers/123";
     private final String MEDIATION_LOG_OUTPUT1 = "To: /" + API_CONTEXT + "/" + API_VERSION_1_0_0 + API_GET_ENDPOINT_METHOD;
@@ -75,16 +75,16 @@ public class ChangeAPITagsTestCase extends APIManagerLifecycleBaseTest {
         apiStoreClientUser1.login(user.getUserName(), user.getPassword());
 
         apiTagsMapBeforeChange = new HashMap<String, String>();
-        apiTagsMapBeforeChange.put("APITagTest1", "Tag1, Tag2, Tag3");
-        apiTagsMapBeforeChange.put("APITagTest2", "Tag2, Tag3, Tag4");
-        apiTagsMapBeforeChange.put("APITagTest3", "Tag1, Tag3, Tag5");
-        apiTagsMapBeforeChange.put("APITagTest4", "Tag1, Tag2");
+        apiTagsMapBeforeChange.put(artifactNamespace.qualify("APITagTest1"), "Tag1, Tag2, Tag3");
+        apiTagsMapBeforeChange.put(artifactNamespace.qualify("APITagTest2"), "Tag2, Tag3, Tag4");
+        apiTagsMapBeforeChange.put(artifactNamespace.qualify("APITagTest3"), "Tag1, Tag3, Tag5");
+        apiTagsMapBeforeChange.put(artifactNamespace.qualify("APITagTest4"), "Tag1, Tag2");
 
         apiTagsMapAfterChange = new HashMap<String, String>();
-        apiTagsMapAfterChange.put("APITagTest1", "Tag1, Tag2");
-        apiTagsMapAfterChange.put("APITagTest2", "Tag2, Tag4");
-        apiTagsMapAfterChange.put("APITagTest3", "Tag1, Tag5");
-        apiTagsMapAfterChange.put("APITagTest4", "Tag1, Tag2");
+        apiTagsMapAfterChange.put(artifactNamespace.qualify("APITagTest1"), "Tag1, Tag2");
+        apiTagsMapAfterChange.put(artifactNamespace.qualify("APITagTest2"), "Tag2, Tag4");
+        apiTagsMapAfterChange.put(artifactNamespace.qualify("APITagTest3"), "Tag1, Tag5");
+        apiTagsMapAfterChange.put(artifactNamespace.qualify("APITagTest4"), "Tag1, Tag2");
     }
 
     @Test(groups = {"wso2.am"}, description = "Test the filter by Tags before changing the Tags")
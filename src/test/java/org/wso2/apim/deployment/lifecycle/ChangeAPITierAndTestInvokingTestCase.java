@@ -25,8 +25,12 @@ import org.wso2.apim.bean.APICreationRequestBean;
 import org.wso2.apim.clients.APIPublisherRestClient;
 import org.wso2.apim.clients.APIStoreRestClient;
 import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.http.ResponseBodyMatcher;
+import org.wso2.apim.http.StreamingHttpResponse;
+import org.wso2.apim.throttling.ThrottlingTestDriver;
+import org.wso2.apim.throttling.ThrottlingWindowReport;
+import org.wso2.apim.utils.SharedResourceLocks;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -43,8 +47,8 @@ import static org.testng.Assert.assertTrue;
  * and do a new silver subscription and test invocation under Silver tier.
  */
 public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBaseTest {
-    private final String API_NAME = "ChangeAPITierAndTestInvokingTest";
-    private final String API_CONTEXT = "ChangeAPITierAndTestInvoking";
+    private final String API_NAME = artifactNamespace.qualify("ChangeAPITierAndTestInvokingTest");
+    private final String API_CONTEXT = artifactNamespace.qualify("ChangeAPITierAndTestInvoking");
     private final String API_TAGS = "testTag1, testTag2, testTag3";
 
     private final String API_DESCRIPTION = "This is test API create by API manager integration test";
@@ -62,10 +66,14 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
     private APICreationRequestBean apiCreationRequestBean;
     private APIPublisherRestClient apiPublisherClientUser1;
     private APIStoreRestClient apiStoreClientUser1;
+    private ThrottlingTestDriver goldTierThrottlingDriver;
 
     @BeforeClass(alwaysRun = true)
     public void initialize() throws APIManagerIntegrationTestException, XPathExpressionException {
         super.init();
+        //The throttling checks depend on the Gold and Silver limits, keep them unchanged while this class runs
+        acquireSharedResource(SharedResourceLocks.tier(TIER_GOLD));
+        acquireSharedResource(SharedResourceLocks.tier(TIER_SILVER));
         apiEndPointUrl = getGatewayURLHttp() + API_END_POINT_POSTFIX_URL;
         providerName = user.getUserName();
         String publisherURLHttp = getPublisherURLHttp();
@@ -83,7 +91,7 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
     @Test(groups = {"wso2.am"}, description = "test  invocation of  api under tier Gold.")
     public void testInvokingWithGoldTier() throws Exception {
 
-        applicationNameGold = APPLICATION_NAME + TIER_GOLD;
+        applicationNameGold = artifactNamespace.qualify(APPLICATION_NAME + TIER_GOLD);
         apiStoreClientUser1.addApplication(applicationNameGold, TIER_GOLD, "", "");
         apiCreationRequestBean =
                 new APICreationRequestBean(API_NAME, API_CONTEXT, API_VERSION_1_0_0, providerName,
@@ -101,47 +109,29 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
         requestHeadersGoldTier = new HashMap<String, String>();
         requestHeadersGoldTier.put("Authorization", "Bearer " + accessToken);
         requestHeadersGoldTier.put("accept", "text/xml");
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= GOLD_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" +
-                            API_END_POINT_METHOD, requestHeadersGoldTier);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(getAPIInvocationURLHttp(API_CONTEXT,
-                API_VERSION_1_0_0)  + "/" + API_END_POINT_METHOD, requestHeadersGoldTier);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API level tier");
+        String invocationUrl = getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" + API_END_POINT_METHOD;
+        goldTierThrottlingDriver = new ThrottlingTestDriver(invocationUrl, requestHeadersGoldTier,
+                GOLD_INVOCATION_LIMIT_PER_MIN, THROTTLING_UNIT_TIME, MESSAGE_THROTTLED_OUT);
+        goldTierThrottlingDriver.setExpectedResponseData(API_RESPONSE_DATA);
+        //sequential invocations, the overshoot of concurrent bursts is measured by the throttling benchmark
+        goldTierThrottlingDriver.setConcurrency(1);
+        assertThrottlingWindow(goldTierThrottlingDriver.runFirstWindow(), "Gold");
     }
 
 
     @Test(groups = {"wso2.am"}, description = "test  invocation of APi after expire the throttling block time.",
             dependsOnMethods = "testInvokingWithGoldTier")
     public void testInvokingAfterExpireThrottleExpireTime() throws Exception {
-        //wait millisecond to expire the throttling block
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-        HttpResponse invokeResponse =
-                HttpRequestUtil.doGet(getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" +
-                        API_END_POINT_METHOD, requestHeadersGoldTier);
+        //wait until the throttling block expires, the invocation which detects the expiry is allowed
+        long blockExpiryTime = goldTierThrottlingDriver.awaitWindowReset();
+        ResponseBodyMatcher responseDataMatcher = ResponseBodyMatcher.contains(API_RESPONSE_DATA);
+        StreamingHttpResponse invokeResponse =
+                invokeAPI(getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" +
+                        API_END_POINT_METHOD, requestHeadersGoldTier, responseDataMatcher);
         assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK, "Response code mismatched, " +
-                "Invocation fails after wait " + (THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME) +
-                "millisecond to expire the throttling block");
-        assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA), "Response data mismatched. " +
-                "Invocation fails after wait " + (THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME) +
-                "millisecond to expire the throttling block");
+                "Invocation fails after the throttling block expired in " + blockExpiryTime + " milliseconds");
+        assertTrue(responseDataMatcher.isMatched(), "Response data mismatched. " +
+                "Invocation fails after the throttling block expired in " + blockExpiryTime + " milliseconds");
     }
 
     @Test(groups = {"wso2.am"}, description = "Test changing of the API Tier from Gold to Silver",
@@ -166,7 +156,7 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
     @Test(groups = {"wso2.am"}, description = "test  invocation of  api under tier Silver.",
             dependsOnMethods = "testEditAPITierToSilver")
     public void testInvokingWithSilverTier() throws Exception {
-        applicationNameSilver = APPLICATION_NAME + TIER_SILVER;
+        applicationNameSilver = artifactNamespace.qualify(APPLICATION_NAME + TIER_SILVER);
         // create new application
         apiStoreClientUser1.addApplication(applicationNameSilver, TIER_GOLD, "", "");
         apiIdentifier.setTier(TIER_SILVER);
@@ -178,32 +168,29 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
         Map<String, String> requestHeadersSilverTier = new HashMap<String, String>();
         requestHeadersSilverTier.put("accept", "text/xml");
         requestHeadersSilverTier.put("Authorization", "Bearer " + accessToken);
-        //millisecond to expire the throttling block
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= SILVER_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" +
-                            API_END_POINT_METHOD, requestHeadersSilverTier);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK, "Response code mismatched. " +
-                    "Invocation attempt:" + invocationCount + " failed  during :" + (currentTime - startTime) +
-                    " milliseconds under Silver API level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA), "Response data mismatched." +
-                    " Invocation attempt:" + invocationCount + " failed  during :" + (currentTime - startTime) +
-                    " milliseconds under Silver API level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" +
-                API_END_POINT_METHOD, requestHeadersSilverTier);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Silver API level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Silver API level tier");
+        //the window of the new subscription starts with its first invocation, so the gold invocations of the
+        //current window do not affect the silver window
+        ThrottlingTestDriver silverTierThrottlingDriver = new ThrottlingTestDriver(
+                getAPIInvocationURLHttp(API_CONTEXT, API_VERSION_1_0_0)  + "/" + API_END_POINT_METHOD,
+                requestHeadersSilverTier, SILVER_INVOCATION_LIMIT_PER_MIN, THROTTLING_UNIT_TIME, MESSAGE_THROTTLED_OUT);
+        silverTierThrottlingDriver.setExpectedResponseData(API_RESPONSE_DATA);
+        silverTierThrottlingDriver.setConcurrency(1);
+        assertThrottlingWindow(silverTierThrottlingDriver.runFirstWindow(), "Silver");
+    }
+
+    /**
+     * Check that exactly the limit of the tier was allowed in the sequentially invoked window and the rest was
+     * throttled out
+     *
+     * @param report - report of the throttling window
+     * @param tier   - name of the tier, used in the assertion messages
+     */
+    private void assertThrottlingWindow(ThrottlingWindowReport report, String tier) {
+        assertEquals(report.getFailedCount(), 0, "Invocations failed under " + tier + " API level tier. " + report);
+        assertEquals(report.getAllowedCount(), report.getLimit(),
+                "Allowed invocations mismatched under " + tier + " API level tier. " + report);
+        assertTrue(report.getThrottledCount() > 0,
+                "Invocations were not throttled out under " + tier + " API level tier. " + report);
     }
 
 
@@ -20,18 +20,20 @@ package org.wso2.apim.deployment.other;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.apim.base.APIMIntegrationBaseTest;
-import org.wso2.apim.bean.APILifeCycleState;
-import org.wso2.apim.bean.APILifeCycleStateRequest;
 import org.wso2.apim.bean.APIRequest;
 import org.wso2.apim.clients.APIPublisherRestClient;
 import org.wso2.apim.clients.APIStoreRestClient;
 import org.wso2.apim.exception.APIManagerIntegrationTestException;
+import org.wso2.apim.json.JsonListing;
+import org.wso2.apim.json.JsonRecordPath;
+import org.wso2.apim.json.JsonStreamExtractor;
+import org.wso2.apim.provisioning.APIProvisioningRequest;
+import org.wso2.apim.provisioning.BulkAPIProvisioner;
+import org.wso2.apim.provisioning.ProvisioningReport;
 import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import org.wso2.carbon.integration.common.admin.client.TenantManagementServiceClient;
@@ -40,7 +42,9 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.xpath.XPathExpressionException;
@@ -97,19 +101,21 @@ public class APIMANAGER4081PaginationCountTestCase extends APIMIntegrationBaseTe
 
         //create 24 APIs and publish them; these APIs should be paginated as 10,10,4
         try {
+            //login once, the session is reused for all the APIs
+            APIPublisherRestClient apiPublisher = new APIPublisherRestClient(publisherURLHttp);
+            apiPublisher.login
+                    (publisherContext.getContextTenant().getTenantAdmin().getUserName() + "@" + tenantDomain,
+                     publisherContext.getContextTenant().getTenantAdmin().getPassword());
+            String providerName = publisherContext.getContextTenant().getTenantAdmin().getUserName()
+                                  + "@" + tenantDomain;
+            List<APIProvisioningRequest> provisioningRequests = new ArrayList<APIProvisioningRequest>();
             for (int i = 0; i < numberOfAPIs; i++) {
                 String APIName = "PaginationTestAPI" + Integer.toString(i);
                 String APIContext = "paginationTest" + Integer.toString(i);
                 String tags = "pagination";
                 String url = "https://localhost:9443/test";
                 String description = "This is test API create by API manager integration test";
-                String providerName = publisherContext.getContextTenant().getTenantAdmin().getUserName()
-                                      + "@" + tenantDomain;
                 String APIVersion = "1.0.0";
-                APIPublisherRestClient apiPublisher = new APIPublisherRestClient(publisherURLHttp);
-                apiPublisher.login
-                        (publisherContext.getContextTenant().getTenantAdmin().getUserName() + "@" + tenantDomain,
-                         publisherContext.getContextTenant().getTenantAdmin().getPassword());
 
                 APIRequest apiRequest = new APIRequest(APIName, APIContext, new URL(url));
                 apiRequest.setTags(tags);
@@ -118,16 +124,15 @@ public class APIMANAGER4081PaginationCountTestCase extends APIMIntegrationBaseTe
                 apiRequest.setSandbox(url);
                 apiRequest.setResourceMethod("GET");
                 apiRequest.setProvider(providerName);
-                apiPublisher.addAPI(apiRequest);
-
-                //update the lifecycle of the API to Published state, so that is it visible in store
-                APILifeCycleStateRequest updateRequest = new APILifeCycleStateRequest(APIName,
-                                                                                      providerName, APILifeCycleState.PUBLISHED);
-                apiPublisher.changeAPILifeCycleStatus(updateRequest);
+                //the API is published after it is created, so that is it visible in store
+                provisioningRequests.add(new APIProvisioningRequest(apiRequest));
+            }
+            ProvisioningReport provisioningReport =
+                    new BulkAPIProvisioner(apiPublisher, null).provision(provisioningRequests);
+            if (!provisioningReport.isSuccessful()) {
+                log.warn("Not all the APIs were added. " + provisioningReport);
             }
 
-            //give a short time to apply the changes and build index, otherwise it will not be visible in the store
-            Thread.sleep(60000);
             //after adding the APIs, send the request to log-in to the api store
             storeLoginResponse = apiStore.login("admin", "admin");
 
@@ -137,8 +142,6 @@ public class APIMANAGER4081PaginationCountTestCase extends APIMIntegrationBaseTe
             assertTrue(false, "Error occurred while log-in to add APIs. Pagination count test case failed.");
         } catch (MalformedURLException e) {
             assertTrue(false, "Invalid service URL to add APIs. Pagination count test case failed.");
-        } catch (InterruptedException e) {
-            assertTrue(false, "Error while pausing the current thread. Pagination count test case failed.");
         }
 
         String loginResponseCookie = null;
@@ -152,6 +155,8 @@ public class APIMANAGER4081PaginationCountTestCase extends APIMIntegrationBaseTe
 
         //the second request to get APIs for the pages, is sent only if the login is successful and and cookie is ok
         if (isLoginSuccess && loginResponseCookie != null) {
+            //wait until the changes are applied and the index is built, otherwise the APIs are not visible in the store
+            awaitPublishedAPICountInStore(apiStore, tenantDomain, numberOfAPIs);
             int offset = 10;
             //fetch the first page, this page should have 10 results
             int countInFirstPage = getPaginationElementsCount(storeURLHttp, loginResponseCookie, 0, offset);
@@ -179,7 +184,7 @@ public class APIMANAGER4081PaginationCountTestCase extends APIMIntegrationBaseTe
      */
     private int getPaginationElementsCount(String storeUrl, String loginResponseCookie, int start,
                                            int offset)
-            throws JSONException {
+            throws APIManagerIntegrationTestException {
 
         String paginationUrl = storeUrl + "store/site/blocks/api/listing/ajax/list.jag?" +
                                "action=getAllPaginatedPublishedAPIs&" +
@@ -203,12 +208,12 @@ public class APIMANAGER4081PaginationCountTestCase extends APIMIntegrationBaseTe
             dataText = paginationFetchResponse.getData();
         }
 
-        JSONObject paginationDataObject = new JSONObject(dataText);
+        JsonListing paginationData = JsonStreamExtractor.count(dataText, JsonRecordPath.of("apis"));
 
         // the data in response is evaluated further only if the response indicates successful API retrieval
         // that is response for the "error" tag should be "false"
-        if ("false".equals(paginationDataObject.get("error").toString())) {
-            numberOfAPIsInCurrentPage = paginationDataObject.getJSONArray("apis").length();
+        if (!paginationData.isError()) {
+            numberOfAPIsInCurrentPage = paginationData.getRecordCount();
         }
         return numberOfAPIsInCurrentPage;
     }
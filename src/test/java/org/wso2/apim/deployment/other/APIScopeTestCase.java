@@ -31,9 +31,12 @@ import org.wso2.apim.bean.APILifeCycleState;
 import org.wso2.apim.bean.APILifeCycleStateRequest;
 import org.wso2.apim.bean.APIRequest;
 import org.wso2.apim.bean.APPKeyRequestGenerator;
+import org.wso2.apim.bean.ApplicationKeyBean;
 import org.wso2.apim.bean.SubscriptionRequest;
 import org.wso2.apim.clients.APIPublisherRestClient;
 import org.wso2.apim.clients.APIStoreRestClient;
+import org.wso2.apim.token.AccessTokenManager;
+import org.wso2.apim.token.TokenKey;
 import org.wso2.carbon.automation.engine.context.TestUserMode;
 import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
@@ -57,6 +60,8 @@ public class APIScopeTestCase extends APIMIntegrationBaseTest {
 
     private UserManagementClient userManagementClient = null;
 
+    private AccessTokenManager accessTokenManager;
+
     private static final String API_NAME = "APIScopeTestAPI";
 
     private static final String API_VERSION = "1.0.0";
@@ -171,23 +176,20 @@ public class APIScopeTestCase extends APIMIntegrationBaseTest {
         String consumerKey = jsonResponse.getJSONObject("data").getJSONObject("key").getString("consumerKey");
         String consumerSecret = jsonResponse.getJSONObject("data").getJSONObject("key").getString("consumerSecret");
 
-        URL tokenEndpointURL = new URL(gatewayUrlsMgt.getWebAppURLNhttp() + "token");
+        ApplicationKeyBean applicationKeyBean = new ApplicationKeyBean();
+        applicationKeyBean.setConsumerKey(consumerKey);
+        applicationKeyBean.setConsumerSecret(consumerSecret);
+        accessTokenManager = createAccessTokenManager(APP_NAME, applicationKeyBean);
         String accessToken;
         Map<String, String> requestHeaders;
         HttpResponse response;
         URL endPointURL;
-        String requestBody;
-        JSONObject accessTokenGenerationResponse;
 
         //Obtain user access token for Admin
-        requestBody = "grant_type=password&username=" + storeContext.getContextTenant().getContextUser().getUserName() +
-                      "&password=" + storeContext.getContextTenant().getContextUser().getPassword() +
-                      "&scope=admin_scope user_scope";
-
-        response = apiStore.generateUserAccessKey(consumerKey, consumerSecret,
-                                                  requestBody, tokenEndpointURL);
-        accessTokenGenerationResponse = new JSONObject(response.getData());
-        accessToken = accessTokenGenerationResponse.getString("access_token");
+        String adminUserName = storeContext.getContextTenant().getContextUser().getUserName();
+        accessTokenManager.registerUser(adminUserName, storeContext.getContextTenant().getContextUser().getPassword());
+        accessToken = accessTokenManager.getAccessToken(
+                TokenKey.forUser(APP_NAME, adminUserName, "admin_scope", "user_scope"));
 
         requestHeaders = new HashMap<String, String>();
         requestHeaders.put("Authorization", "Bearer " + accessToken);
@@ -205,11 +207,8 @@ public class APIScopeTestCase extends APIMIntegrationBaseTest {
 
 
         //Obtaining user access token for john
-        requestBody = "grant_type=password&username=" + userJohn + "&password=john123&scope=admin_scope user_scope";
-        accessTokenGenerationResponse = new JSONObject(apiStore.generateUserAccessKey(consumerKey, consumerSecret,
-                                                                                      requestBody, tokenEndpointURL)
-                                                               .getData());
-        accessToken = accessTokenGenerationResponse.getString("access_token");
+        accessTokenManager.registerUser(userJohn, "john123");
+        accessToken = accessTokenManager.getAccessToken(TokenKey.forUser(APP_NAME, userJohn, "admin_scope", "user_scope"));
 
         requestHeaders = new HashMap<String, String>();
         requestHeaders.put("Authorization", "Bearer " + accessToken);
@@ -235,6 +234,10 @@ public class APIScopeTestCase extends APIMIntegrationBaseTest {
     @AfterClass(alwaysRun = true)
     public void destroy() throws Exception {
 
+        if (accessTokenManager != null) {
+            accessTokenManager.close();
+        }
+
         if (apiStore != null) {
             apiStore.removeApplication(APP_NAME);
         }